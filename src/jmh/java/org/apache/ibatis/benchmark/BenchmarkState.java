@@ -0,0 +1,89 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared fixture: an in-memory HSQLDB database with {@value #AUTHORS} authors and {@value #POSTS_PER_AUTHOR} posts
+ * each, and a {@link SqlSessionFactory} built from {@code mybatis-config.xml}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+  static final int AUTHORS = 1000;
+  static final int POSTS_PER_AUTHOR = 10;
+
+  SqlSessionFactory sqlSessionFactory;
+
+  @Setup
+  public void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/benchmark/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    try (Connection connection = dataSource.getConnection()) {
+      ScriptRunner runner = new ScriptRunner(connection);
+      runner.setLogWriter(null);
+      runner.runScript(Resources.getResourceAsReader("org/apache/ibatis/benchmark/CreateDB.sql"));
+      populate(connection);
+    }
+  }
+
+  private void populate(Connection connection) throws Exception {
+    connection.setAutoCommit(false);
+    String[] sections = { "NEWS", "VIDEOS", "IMAGES", "PODCASTS" };
+    try (PreparedStatement author = connection.prepareStatement("insert into author values (?, ?, ?, ?, ?)");
+        PreparedStatement post = connection.prepareStatement("insert into post values (?, ?, ?, ?, ?, ?)")) {
+      int postId = 0;
+      for (int i = 1; i <= AUTHORS; i++) {
+        author.setInt(1, i);
+        author.setString(2, "author" + i);
+        author.setString(3, "author" + i + "@example.com");
+        author.setString(4, "Bio of author " + i);
+        author.setString(5, sections[i % sections.length]);
+        author.addBatch();
+        for (int j = 0; j < POSTS_PER_AUTHOR; j++) {
+          postId++;
+          post.setInt(1, postId);
+          post.setInt(2, i);
+          post.setTimestamp(3, new Timestamp(1500000000000L + postId * 1000L));
+          post.setString(4, sections[postId % sections.length]);
+          post.setString(5, "Subject " + postId);
+          post.setString(6, "Body of post " + postId + " written by author " + i);
+          post.addBatch();
+        }
+      }
+      author.executeBatch();
+      post.executeBatch();
+    }
+    connection.commit();
+  }
+
+}
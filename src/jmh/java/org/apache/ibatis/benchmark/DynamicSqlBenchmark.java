@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of a dynamic statement ({@code <where>}, {@code <if>}, {@code <foreach>}, {@code <choose>},
+ * {@code <bind>}) into a {@link BoundSql}, without touching the database. The same script is rendered by the
+ * default XML language driver and by the compiled one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicSqlBenchmark {
+
+  private MappedStatement searchPosts;
+  private MappedStatement searchPostsCompiled;
+  private PostSearch fullSearch;
+  private PostSearch emptySearch;
+
+  @Setup
+  public void setUp(BenchmarkState state) {
+    searchPosts = state.sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.searchPosts");
+    searchPostsCompiled = state.sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.searchPostsCompiled");
+    fullSearch = new PostSearch();
+    fullSearch.setSubject("Subject 1");
+    fullSearch.setSections(new ArrayList<>(Arrays.asList("NEWS", "VIDEOS")));
+    fullSearch.setAuthorIds(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)));
+    fullSearch.setMinId(10);
+    fullSearch.setOrderBy("subject");
+    emptySearch = new PostSearch();
+  }
+
+  @Benchmark
+  public BoundSql renderAllConditions() {
+    return searchPosts.getBoundSql(fullSearch);
+  }
+
+  @Benchmark
+  public BoundSql renderNoConditions() {
+    return searchPosts.getBoundSql(emptySearch);
+  }
+
+  @Benchmark
+  public BoundSql renderAllConditionsCompiled() {
+    return searchPostsCompiled.getBoundSql(fullSearch);
+  }
+
+  @Benchmark
+  public BoundSql renderNoConditionsCompiled() {
+    return searchPostsCompiled.getBoundSql(emptySearch);
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Creation of lazy loading proxies and triggering of the deferred nested selects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyLoadingBenchmark {
+
+  @Benchmark
+  public List<Author> createProxies(BenchmarkState state) {
+    try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(BenchmarkMapper.class).selectAuthorsWithLazyPosts(1, 20);
+    }
+  }
+
+  @Benchmark
+  public void createProxiesAndLoad(BenchmarkState state, Blackhole blackhole) {
+    try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+      for (Author author : sqlSession.getMapper(BenchmarkMapper.class).selectAuthorsWithLazyPosts(1, 20)) {
+        blackhole.consume(author.getPosts().size());
+      }
+    }
+  }
+
+}
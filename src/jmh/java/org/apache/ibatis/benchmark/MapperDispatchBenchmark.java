@@ -0,0 +1,82 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapper calls answered by the local cache of an open session, so that the cost of dispatching the call (dynamic
+ * proxy or generated implementation) and of naming the parameters is not hidden by the database round trip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperDispatchBenchmark {
+
+  @Param({ "false", "true" })
+  public boolean generatedMappers;
+
+  private SqlSession sqlSession;
+  private BenchmarkMapper mapper;
+
+  @Setup(Level.Trial)
+  public void openSession(BenchmarkState state) {
+    state.sqlSessionFactory.getConfiguration().setUseGeneratedMappers(generatedMappers);
+    sqlSession = state.sqlSessionFactory.openSession();
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+    mapper.selectAuthor(1);
+    mapper.selectAuthorByIdAndUsername(1, "author1");
+  }
+
+  @TearDown(Level.Trial)
+  public void closeSession() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public Author selectOneParameter() {
+    return mapper.selectAuthor(1);
+  }
+
+  @Benchmark
+  public Author selectNamedParameters() {
+    return mapper.selectAuthorByIdAndUsername(1, "author1");
+  }
+
+  @Benchmark
+  public BenchmarkMapper getMapper() {
+    return sqlSession.getMapper(BenchmarkMapper.class);
+  }
+
+}
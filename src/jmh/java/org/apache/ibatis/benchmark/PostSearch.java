@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+
+public class PostSearch {
+
+  private String subject;
+  private List<String> sections;
+  private List<Integer> authorIds;
+  private Integer minId;
+  private String orderBy;
+
+  public String getSubject() {
+    return subject;
+  }
+
+  public void setSubject(String subject) {
+    this.subject = subject;
+  }
+
+  public List<String> getSections() {
+    return sections;
+  }
+
+  public void setSections(List<String> sections) {
+    this.sections = sections;
+  }
+
+  public List<Integer> getAuthorIds() {
+    return authorIds;
+  }
+
+  public void setAuthorIds(List<Integer> authorIds) {
+    this.authorIds = authorIds;
+  }
+
+  public Integer getMinId() {
+    return minId;
+  }
+
+  public void setMinId(Integer minId) {
+    this.minId = minId;
+  }
+
+  public String getOrderBy() {
+    return orderBy;
+  }
+
+  public void setOrderBy(String orderBy) {
+    this.orderBy = orderBy;
+  }
+
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapping of larger result sets: flat rows into beans, and a join mapped through a nested {@code <collection>}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultMappingBenchmark {
+
+  @Benchmark
+  public List<Post> simpleResultMap1000Rows(BenchmarkState state) {
+    try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(BenchmarkMapper.class).selectPosts(1, 1000);
+    }
+  }
+
+  @Benchmark
+  public List<Author> nestedResultMap100Authors1000Rows(BenchmarkState state) {
+    try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(BenchmarkMapper.class).selectAuthorsWithPosts(1, 100);
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Second-level cache hits on a {@code <cache/>} namespace, single threaded and contended, plus the cost of building
+ * the {@link CacheKey} itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+  private static final int CACHED_AUTHORS = 100;
+
+  @Setup
+  public void warmCache(BenchmarkState state) {
+    for (int id = 1; id <= CACHED_AUTHORS; id++) {
+      try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+        sqlSession.getMapper(CachedMapper.class).selectAuthor(id);
+      }
+    }
+  }
+
+  @Benchmark
+  public Author cacheHit(BenchmarkState state) {
+    return selectCached(state);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Author cacheHitContended(BenchmarkState state) {
+    return selectCached(state);
+  }
+
+  @Benchmark
+  public CacheKey createCacheKey() {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("org.apache.ibatis.benchmark.CachedMapper.selectAuthor");
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update("select id, username, email, bio, favourite_section from author where id = ?");
+    cacheKey.update(ThreadLocalRandom.current().nextInt(CACHED_AUTHORS));
+    cacheKey.update("benchmark");
+    return cacheKey;
+  }
+
+  private Author selectCached(BenchmarkState state) {
+    int id = ThreadLocalRandom.current().nextInt(CACHED_AUTHORS) + 1;
+    try (SqlSession sqlSession = state.sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(CachedMapper.class).selectAuthor(id);
+    }
+  }
+
+}
@@ -22,7 +22,9 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.Weigher;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.ListSizeWeigher;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 
 /**
@@ -71,6 +73,32 @@ public @interface CacheNamespace {
    */
   long flushInterval() default 0;
 
+  /**
+   * Returns how long each entry is kept after it was cached, in milliseconds. 0 keeps entries until the cache is
+   * flushed.
+   *
+   * @return the time to live
+   * @since 3.5.5
+   */
+  long ttl() default 0;
+
+  /**
+   * Returns the maximum total weight of the cached entries, as estimated by the {@link #weigher()}. 0 does not bound
+   * the weight.
+   *
+   * @return the maximum weight
+   * @since 3.5.5
+   */
+  long maxWeight() default 0;
+
+  /**
+   * Returns the weigher used to estimate the weight of the cached entries.
+   *
+   * @return the weigher type
+   * @since 3.5.5
+   */
+  Class<? extends Weigher> weigher() default ListSizeWeigher.class;
+
   /**
    * Return the cache size.
    *
@@ -144,6 +144,45 @@ public @interface Options {
    */
   String databaseId() default "";
 
+  /**
+   * Returns the number of batched rows that makes the batch executor flush its statements.
+   * <p>
+   * The default is {@code -1}, which uses {@link org.apache.ibatis.session.Configuration#getDefaultBatchFlushRows()}.
+   * {@code 0} disables it for this statement.
+   * </p>
+   *
+   * @return the number of rows
+   * @since 3.5.5
+   */
+  int batchFlushRows() default -1;
+
+  /**
+   * Returns the estimated size in bytes of the batched parameters that makes the batch executor flush its statements.
+   * <p>
+   * The default is {@code -1}, which uses {@link org.apache.ibatis.session.Configuration#getDefaultBatchFlushBytes()}.
+   * {@code 0} disables it for this statement.
+   * </p>
+   *
+   * @return the number of bytes
+   * @since 3.5.5
+   */
+  int batchFlushBytes() default -1;
+
+  /**
+   * Returns the tags of the second level cache entries of this statement.
+   * <p>
+   * Each tag is a table name such as {@code users}, or a table name followed by the property holding the row
+   * identifier such as {@code users:id}. The results of a select are tagged with the tables it reads, or with the rows
+   * it returned when the property is given. An insert, update or delete removes the entries tagged with the tables it
+   * writes to, or only with the rows matching its parameter when the property is given, instead of clearing the whole
+   * cache. Separate multiple tags with a comma (',').
+   * </p>
+   *
+   * @return the cache tags
+   * @since 3.5.5
+   */
+  String cacheTags() default "";
+
   /**
    * The container annotation for {@link Options}.
    * @author Kazuki Shimizu
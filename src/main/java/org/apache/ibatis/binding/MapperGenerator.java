@@ -0,0 +1,309 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javassist.CannotCompileException;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.binding.MapperMethod.MethodSignature;
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.binding.MapperMethod.SqlCommand;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * Generates, with javassist, a class implementing a mapper interface whose methods call the {@link SqlSession}
+ * directly instead of going through a {@link java.lang.reflect.Proxy} and a {@link MapperMethod}.
+ * <p>
+ * Each method is resolved against the configuration when the class is generated: the statement id, the session method
+ * matching the command type and the names of the parameters are compiled into the method body. Methods that cannot be
+ * compiled this way (unmapped methods, methods taking a {@link org.apache.ibatis.session.RowBounds} or a
+ * {@link org.apache.ibatis.session.ResultHandler}, or returning an array, a map, a cursor or an optional) call their
+ * {@link MapperMethod} through a {@link MapperMethodTable} instead.
+ * <p>
+ * A class is generated for each distinct set of method bodies of an interface and shared by the configurations that
+ * resolve the interface the same way. It is defined next to the interface so that package private interfaces and types
+ * can be implemented. Default methods are inherited from the interface.
+ */
+final class MapperGenerator {
+
+  private static final Log log = LogFactory.getLog(MapperGenerator.class);
+  private static final String SUFFIX = "$$MyBatisMapper";
+
+  private static final boolean NEIGHBOR_LOOKUP = hasPrivateLookupIn();
+
+  private static final ClassValue<Map<String, GeneratedMapper>> GENERATED = new ClassValue<Map<String, GeneratedMapper>>() {
+    @Override
+    protected Map<String, GeneratedMapper> computeValue(Class<?> type) {
+      return new HashMap<>();
+    }
+  };
+
+  private MapperGenerator() {
+    // Prevent Instantiation of Static Class
+  }
+
+  private static boolean hasPrivateLookupIn() {
+    try {
+      MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  static GeneratedMapper forInterface(Class<?> mapperInterface, Configuration configuration) {
+    Map<String, Method> signatures = new LinkedHashMap<>();
+    for (Method method : mapperInterface.getMethods()) {
+      if (Modifier.isAbstract(method.getModifiers()) && !isObjectMethod(method)) {
+        // the same method may be declared by several interfaces
+        signatures.putIfAbsent(method.getName() + Arrays.toString(method.getParameterTypes()) + method.getReturnType(), method);
+      }
+    }
+    List<Method> methods = new ArrayList<>(signatures.values());
+    String[] bodies = new String[methods.size()];
+    for (int i = 0; i < bodies.length; i++) {
+      Method method = methods.get(i);
+      bodies[i] = directBody(mapperInterface, method, configuration);
+      if (bodies[i] == null) {
+        String call = "this.methods.execute(" + i + ", this.sqlSession, $args)";
+        bodies[i] = method.getReturnType() == void.class ? "{ " + call + "; }" : "{ return ($r) " + call + "; }";
+      }
+    }
+    Map<String, GeneratedMapper> generated = GENERATED.get(mapperInterface);
+    synchronized (generated) {
+      return generated.computeIfAbsent(String.join("\n", bodies),
+          k -> generate(mapperInterface, mapperInterface.getName() + SUFFIX + generated.size(), methods, bodies));
+    }
+  }
+
+  private static String directBody(Class<?> mapperInterface, Method method, Configuration configuration) {
+    SqlCommand command;
+    MethodSignature signature;
+    try {
+      command = new SqlCommand(configuration, mapperInterface, method);
+      signature = new MethodSignature(configuration, mapperInterface, method);
+    } catch (BindingException e) {
+      // reported by the mapper method when the method is called
+      return null;
+    }
+    if (signature.hasRowBounds() || signature.hasResultHandler()) {
+      return null;
+    }
+    Class<?> returnType = signature.getReturnType();
+    String id = literal(command.getName());
+    StringBuilder body = new StringBuilder("{ ");
+    appendParam(body, method, configuration);
+    switch (command.getType()) {
+      case INSERT:
+      case UPDATE:
+      case DELETE:
+        String call = "this.sqlSession." + command.getType().name().toLowerCase() + "(" + id + ", param)";
+        if (returnType == void.class) {
+          body.append(call).append(';');
+        } else if (returnType == int.class) {
+          body.append("return ").append(call).append(';');
+        } else if (returnType == Integer.class) {
+          body.append("return ($r) java.lang.Integer.valueOf(").append(call).append(");");
+        } else if (returnType == long.class) {
+          body.append("return (long) ").append(call).append(';');
+        } else if (returnType == Long.class) {
+          body.append("return ($r) java.lang.Long.valueOf((long) ").append(call).append(");");
+        } else if (returnType == boolean.class) {
+          body.append("return ").append(call).append(" > 0;");
+        } else if (returnType == Boolean.class) {
+          body.append("return ($r) java.lang.Boolean.valueOf(").append(call).append(" > 0);");
+        } else {
+          // rejected by the mapper method when the method is called
+          return null;
+        }
+        break;
+      case SELECT:
+        if (signature.returnsMany()) {
+          if (!returnType.isAssignableFrom(List.class)) {
+            return null;
+          }
+          body.append("return ($r) this.sqlSession.selectList(").append(id).append(", param);");
+        } else if (signature.returnsMap() || signature.returnsCursor() || signature.returnsOptional()) {
+          return null;
+        } else if (returnType == void.class) {
+          body.append("this.sqlSession.selectOne(").append(id).append(", param);");
+        } else {
+          body.append("Object result = this.sqlSession.selectOne(").append(id).append(", param); ");
+          if (returnType.isPrimitive()) {
+            body.append("if (result == null) { throw new ").append(BindingException.class.getName()).append('(')
+                .append(literal("Mapper method '" + command.getName()
+                    + " attempted to return null from a method with a primitive return type (" + returnType + ")."))
+                .append("); } ");
+          }
+          body.append("return ($r) result;");
+        }
+        break;
+      default:
+        return null;
+    }
+    return body.append(" }").toString();
+  }
+
+  /**
+   * Appends the declaration of the local variable {@code param} holding the parameter object, built like
+   * {@link ParamNameResolver#getNamedParams(Object[])} does.
+   */
+  private static void appendParam(StringBuilder body, Method method, Configuration configuration) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    String[] names = new ParamNameResolver(configuration, method).getNames();
+    if (parameterTypes.length == 0) {
+      body.append("Object param = null; ");
+    } else if (parameterTypes.length == 1 && !hasParamAnnotation(method)) {
+      Class<?> type = parameterTypes[0];
+      if (type.isPrimitive()
+          || Modifier.isFinal(type.getModifiers()) && !type.isArray() && !Collection.class.isAssignableFrom(type)) {
+        body.append("Object param = ($w) $1; ");
+      } else {
+        body.append("Object param = ").append(ParamNameResolver.class.getName()).append(".wrapToMapIfCollection(($w) $1, ")
+            .append(configuration.isUseActualParamName() ? literal(names[0]) : "null").append("); ");
+      }
+    } else {
+      String paramMap = ParamMap.class.getName();
+      body.append(paramMap).append(" param = new ").append(paramMap).append("(); ");
+      List<String> nameList = Arrays.asList(names);
+      for (int i = 0; i < names.length; i++) {
+        body.append("param.put(").append(literal(names[i])).append(", ($w) $").append(i + 1).append("); ");
+        String genericParamName = ParamNameResolver.GENERIC_NAME_PREFIX + (i + 1);
+        if (!nameList.contains(genericParamName)) {
+          body.append("param.put(").append(literal(genericParamName)).append(", ($w) $").append(i + 1).append("); ");
+        }
+      }
+    }
+  }
+
+  private static boolean hasParamAnnotation(Method method) {
+    for (Annotation[] annotations : method.getParameterAnnotations()) {
+      for (Annotation annotation : annotations) {
+        if (annotation instanceof Param) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        literal.append('\\');
+      }
+      literal.append(c);
+    }
+    return literal.append('"').toString();
+  }
+
+  private static GeneratedMapper generate(Class<?> mapperInterface, String className, List<Method> methods, String[] bodies) {
+    try {
+      ClassPool pool = new ClassPool(true);
+      pool.appendClassPath(new LoaderClassPath(mapperInterface.getClassLoader()));
+      pool.appendClassPath(new ClassClassPath(MapperMethodTable.class));
+      CtClass ctClass = pool.makeClass(className);
+      ctClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+      ctClass.addInterface(pool.get(mapperInterface.getName()));
+      ctClass.addField(CtField.make("private " + SqlSession.class.getName() + " sqlSession;", ctClass));
+      ctClass.addField(CtField.make("private " + MapperMethodTable.class.getName() + " methods;", ctClass));
+      ctClass.addConstructor(CtNewConstructor.make(
+          new CtClass[] { pool.get(SqlSession.class.getName()), pool.get(MapperMethodTable.class.getName()) }, null,
+          "{ this.sqlSession = $1; this.methods = $2; }", ctClass));
+      for (int i = 0; i < methods.size(); i++) {
+        Method method = methods.get(i);
+        CtClass[] parameterTypes = new CtClass[method.getParameterCount()];
+        for (int j = 0; j < parameterTypes.length; j++) {
+          parameterTypes[j] = pool.get(method.getParameterTypes()[j].getTypeName());
+        }
+        ctClass.addMethod(CtNewMethod.make(Modifier.PUBLIC, pool.get(method.getReturnType().getTypeName()),
+            method.getName(), parameterTypes, null, bodies[i], ctClass));
+      }
+      Class<?> implementation = toClass(ctClass, mapperInterface);
+      ctClass.detach();
+      Constructor<?> constructor = implementation.getConstructor(SqlSession.class, MapperMethodTable.class);
+      return new GeneratedMapper(constructor, methods.toArray(new Method[0]));
+    } catch (Exception | LinkageError e) {
+      log.warn("Could not generate an implementation of " + mapperInterface + ", a proxy is used instead. Cause: " + e);
+      return new GeneratedMapper(null, null);
+    }
+  }
+
+  private static Class<?> toClass(CtClass ctClass, Class<?> neighbor) throws CannotCompileException {
+    if (NEIGHBOR_LOOKUP) {
+      return ctClass.toClass(neighbor);
+    }
+    // JDK 1.8
+    return ctClass.toClass(neighbor.getClassLoader(), neighbor.getProtectionDomain());
+  }
+
+  private static boolean isObjectMethod(Method method) {
+    try {
+      Object.class.getMethod(method.getName(), method.getParameterTypes());
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  static final class GeneratedMapper {
+    private final Constructor<?> constructor;
+    private final Method[] methods;
+
+    GeneratedMapper(Constructor<?> constructor, Method[] methods) {
+      this.constructor = constructor;
+      this.methods = methods;
+    }
+
+    boolean isGenerated() {
+      return constructor != null;
+    }
+
+    MapperMethodTable newMethodTable(Class<?> mapperInterface) {
+      return new MapperMethodTable(mapperInterface, methods);
+    }
+
+    Object newInstance(SqlSession sqlSession, MapperMethodTable methodTable) throws ReflectiveOperationException {
+      return constructor.newInstance(sqlSession, methodTable);
+    }
+  }
+
+}
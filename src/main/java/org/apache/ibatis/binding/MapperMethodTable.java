@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.lang.reflect.Method;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * The mapper methods called by index by the implementations generated for a mapper interface, for the methods whose
+ * statement cannot be called directly from the generated code.
+ * <p>
+ * This class is public only because generated mapper implementations live in the package of their interface.
+ *
+ * @see org.apache.ibatis.session.Configuration#isUseGeneratedMappers()
+ * @since 3.5.5
+ */
+public final class MapperMethodTable {
+
+  private final Class<?> mapperInterface;
+  private final Method[] methods;
+  private final MapperMethod[] mapperMethods;
+
+  MapperMethodTable(Class<?> mapperInterface, Method[] methods) {
+    this.mapperInterface = mapperInterface;
+    this.methods = methods;
+    this.mapperMethods = new MapperMethod[methods.length];
+  }
+
+  /**
+   * Executes a mapper method, resolving its statement on first use like the mapper proxy does.
+   *
+   * @param index
+   *          the index of the method in the generated implementation
+   * @param sqlSession
+   *          the session of the mapper
+   * @param args
+   *          the arguments
+   * @return the result
+   */
+  public Object execute(int index, SqlSession sqlSession, Object[] args) {
+    MapperMethod mapperMethod = mapperMethods[index];
+    if (mapperMethod == null) {
+      // a lost race only resolves the same method twice
+      mapperMethod = new MapperMethod(mapperInterface, methods[index], sqlSession.getConfiguration());
+      mapperMethods[index] = mapperMethod;
+    }
+    return mapperMethod.execute(sqlSession, args);
+  }
+
+}
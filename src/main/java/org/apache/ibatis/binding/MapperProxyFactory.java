@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.lang.reflect.Proxy;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.ibatis.binding.MapperGenerator.GeneratedMapper;
 import org.apache.ibatis.binding.MapperProxy.MapperMethodInvoker;
 import org.apache.ibatis.session.SqlSession;
 
@@ -30,6 +31,8 @@ public class MapperProxyFactory<T> {
 
   private final Class<T> mapperInterface;
   private final Map<Method, MapperMethodInvoker> methodCache = new ConcurrentHashMap<>();
+  private volatile GeneratedMapper generatedMapper;
+  private volatile MapperMethodTable methodTable;
 
   public MapperProxyFactory(Class<T> mapperInterface) {
     this.mapperInterface = mapperInterface;
@@ -53,4 +56,36 @@ public class MapperProxyFactory<T> {
     return newInstance(mapperProxy);
   }
 
+  /**
+   * Creates a mapper implemented by a class generated for the mapper interface, whose methods call the session
+   * without going through a proxy. The class is generated on first use from the statements of the configuration of the
+   * session. A proxy is returned when the class cannot be generated.
+   *
+   * @param sqlSession
+   *          the session of the mapper
+   * @return the mapper
+   * @since 3.5.5
+   */
+  @SuppressWarnings("unchecked")
+  public T newGeneratedInstance(SqlSession sqlSession) {
+    GeneratedMapper generated = generatedMapper;
+    if (generated == null) {
+      generated = MapperGenerator.forInterface(mapperInterface, sqlSession.getConfiguration());
+      generatedMapper = generated;
+    }
+    if (!generated.isGenerated()) {
+      return newInstance(sqlSession);
+    }
+    MapperMethodTable table = methodTable;
+    if (table == null) {
+      table = generated.newMethodTable(mapperInterface);
+      methodTable = table;
+    }
+    try {
+      return (T) generated.newInstance(sqlSession, table);
+    } catch (ReflectiveOperationException e) {
+      throw new BindingException("Could not instantiate the generated implementation of " + mapperInterface + ". Cause: " + e, e);
+    }
+  }
+
 }
@@ -0,0 +1,228 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Bounded cache of the parameter mappings built by {@link SqlSourceBuilder} for the sql rendered by a dynamic sql
+ * source.
+ * <p>
+ * Entries are keyed by the rendered sql and the parameter type. As the java type of a placeholder that refers to an
+ * additional parameter (e.g. a <code>&lt;bind&gt;</code> or a <code>&lt;foreach&gt;</code> item) depends on its
+ * value, the types seen when an entry was built are checked against the current additional parameters before the
+ * entry is reused, and the mappings are built again if they differ. When the cache is full, the least recently used
+ * entry is discarded to make room for a new one. Every caller gets its own copy of the cached mappings, so a
+ * {@link org.apache.ibatis.mapping.BoundSql} never shares its list with another one.
+ *
+ * @since 3.5.5
+ */
+public class ParameterMappingCache {
+
+  private final Configuration configuration;
+  private final int maximumSize;
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ParameterMappingCache(Configuration configuration, int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Parameter mapping cache size must be greater than zero but was " + maximumSize);
+    }
+    this.configuration = configuration;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Cached counterpart of {@link SqlSourceBuilder#parse(String, Class, Map)}.
+   *
+   * @param originalSql
+   *          the rendered sql, including the <code>#{...}</code> placeholders
+   * @param parameterType
+   *          the parameter type
+   * @param additionalParameters
+   *          the additional parameters
+   * @return the static sql source
+   */
+  public SqlSource parse(String originalSql, Class<?> parameterType, Map<String, Object> additionalParameters) {
+    Key key = new Key(originalSql, null, parameterType);
+    MetaObject metaParameters = configuration.newMetaObject(additionalParameters);
+    Entry entry = lookup(key, metaParameters);
+    if (entry == null) {
+      StaticSqlSource sqlSource = (StaticSqlSource) new SqlSourceBuilder(configuration)
+          .parse(originalSql, parameterType, additionalParameters);
+      entry = store(key, sqlSource.getSql(), sqlSource.getParameterMappings(), metaParameters);
+    }
+    return new StaticSqlSource(configuration, entry.sql, new ArrayList<>(entry.parameterMappings));
+  }
+
+  /**
+   * Cached counterpart of {@link SqlSourceBuilder#parseParameterMappings(List, Class, Map)}.
+   *
+   * @param sql
+   *          the rendered sql, where the placeholders have already been replaced
+   * @param parameterContents
+   *          the contents of the <code>#{...}</code> placeholders, in order of appearance
+   * @param parameterType
+   *          the parameter type
+   * @param additionalParameters
+   *          the additional parameters
+   * @return the parameter mappings
+   */
+  public List<ParameterMapping> parseParameterMappings(String sql, List<String> parameterContents, Class<?> parameterType,
+      Map<String, Object> additionalParameters) {
+    Key key = new Key(sql, parameterContents, parameterType);
+    MetaObject metaParameters = configuration.newMetaObject(additionalParameters);
+    Entry entry = lookup(key, metaParameters);
+    if (entry == null) {
+      List<ParameterMapping> parameterMappings = new SqlSourceBuilder(configuration)
+          .parseParameterMappings(parameterContents, parameterType, additionalParameters);
+      entry = store(key, sql, parameterMappings, metaParameters);
+    }
+    return new ArrayList<>(entry.parameterMappings);
+  }
+
+  public int getSize() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  private Entry lookup(Key key, MetaObject metaParameters) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.matches(metaParameters)) {
+      entry.lastUsed = System.nanoTime();
+      hits.increment();
+      return entry;
+    }
+    misses.increment();
+    return null;
+  }
+
+  private Entry store(Key key, String sql, List<ParameterMapping> parameterMappings, MetaObject metaParameters) {
+    Entry entry = new Entry(sql, parameterMappings, metaParameters);
+    if (entries.size() >= maximumSize && !entries.containsKey(key)) {
+      evictLeastRecentlyUsed();
+    }
+    entries.put(key, entry);
+    return entry;
+  }
+
+  private void evictLeastRecentlyUsed() {
+    Map.Entry<Key, Entry> eldest = null;
+    for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+      if (eldest == null || candidate.getValue().lastUsed - eldest.getValue().lastUsed < 0) {
+        eldest = candidate;
+      }
+    }
+    if (eldest != null) {
+      entries.remove(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  private static final class Key {
+
+    private final String sql;
+    private final List<String> parameterContents;
+    private final Class<?> parameterType;
+    private final int hashCode;
+
+    Key(String sql, List<String> parameterContents, Class<?> parameterType) {
+      this.sql = sql;
+      this.parameterContents = parameterContents;
+      this.parameterType = parameterType;
+      this.hashCode = 31 * (31 * sql.hashCode() + Objects.hashCode(parameterContents)) + parameterType.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hashCode == other.hashCode
+          && parameterType.equals(other.parameterType)
+          && sql.equals(other.sql)
+          && Objects.equals(parameterContents, other.parameterContents);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class Entry {
+
+    private final String sql;
+    private final List<ParameterMapping> parameterMappings;
+    private final String[] properties;
+    // the type of each property found in the additional parameters, null if it was not found there
+    private final Class<?>[] additionalParameterTypes;
+    private volatile long lastUsed = System.nanoTime();
+
+    Entry(String sql, List<ParameterMapping> parameterMappings, MetaObject metaParameters) {
+      this.sql = sql;
+      this.parameterMappings = parameterMappings;
+      this.properties = new String[parameterMappings.size()];
+      this.additionalParameterTypes = new Class<?>[properties.length];
+      for (int i = 0; i < properties.length; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+        additionalParameterTypes[i] = additionalParameterType(metaParameters, properties[i]);
+      }
+    }
+
+    boolean matches(MetaObject metaParameters) {
+      for (int i = 0; i < properties.length; i++) {
+        if (additionalParameterTypes[i] != additionalParameterType(metaParameters, properties[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static Class<?> additionalParameterType(MetaObject metaParameters, String property) {
+      if (property == null || !metaParameters.hasGetter(property)) {
+        return null;
+      }
+      return metaParameters.getGetterType(property);
+    }
+  }
+
+}
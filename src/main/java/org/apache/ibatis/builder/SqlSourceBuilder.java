@@ -46,6 +46,24 @@ public class SqlSourceBuilder extends BaseBuilder {
     return new StaticSqlSource(configuration, sql, handler.getParameterMappings());
   }
 
+  /**
+   * Builds the parameter mappings of placeholders that have already been extracted from the sql.
+   *
+   * @param parameterContents
+   *          the contents of the <code>#{...}</code> placeholders, in order of appearance
+   * @param parameterType
+   *          the parameter type
+   * @param additionalParameters
+   *          the additional parameters
+   * @return the parameter mappings
+   * @since 3.5.5
+   */
+  public List<ParameterMapping> parseParameterMappings(List<String> parameterContents, Class<?> parameterType, Map<String, Object> additionalParameters) {
+    ParameterMappingTokenHandler handler = new ParameterMappingTokenHandler(configuration, parameterType, additionalParameters);
+    parameterContents.forEach(handler::handleToken);
+    return handler.getParameterMappings();
+  }
+
   private static class ParameterMappingTokenHandler extends BaseBuilder implements TokenHandler {
 
     private List<ParameterMapping> parameterMappings = new ArrayList<>();
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2017 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -46,4 +46,12 @@ public class StaticSqlSource implements SqlSource {
     return new BoundSql(configuration, sql, parameterMappings, parameterObject);
   }
 
+  String getSql() {
+    return sql;
+  }
+
+  List<ParameterMapping> getParameterMappings() {
+    return parameterMappings;
+  }
+
 }
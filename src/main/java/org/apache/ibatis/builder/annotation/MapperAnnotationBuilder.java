@@ -187,10 +187,23 @@ public class MapperAnnotationBuilder {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      Long ttl = cacheDomain.ttl() == 0 ? null : cacheDomain.ttl();
+      Long maxWeight = cacheDomain.maxWeight() == 0 ? null : cacheDomain.maxWeight();
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(),
+          ttl, maxWeight, cacheDomain.weigher(), hasCacheTags(), props);
     }
   }
 
+  private boolean hasCacheTags() {
+    for (Method method : type.getMethods()) {
+      Options options = method.getAnnotation(Options.class);
+      if (options != null && !options.cacheTags().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Properties convertToProperties(Property[] properties) {
     if (properties.length == 0) {
       return null;
@@ -325,6 +338,8 @@ public class MapperAnnotationBuilder {
 
       Integer fetchSize = null;
       Integer timeout = null;
+      Integer batchFlushRows = null;
+      Integer batchFlushBytes = null;
       StatementType statementType = StatementType.PREPARED;
       ResultSetType resultSetType = configuration.getDefaultResultSetType();
       boolean isSelect = sqlCommandType == SqlCommandType.SELECT;
@@ -339,6 +354,8 @@ public class MapperAnnotationBuilder {
         useCache = options.useCache();
         fetchSize = options.fetchSize() > -1 || options.fetchSize() == Integer.MIN_VALUE ? options.fetchSize() : null; //issue #348
         timeout = options.timeout() > -1 ? options.timeout() : null;
+        batchFlushRows = options.batchFlushRows() > -1 ? options.batchFlushRows() : null;
+        batchFlushBytes = options.batchFlushBytes() > -1 ? options.batchFlushBytes() : null;
         statementType = options.statementType();
         if (options.resultSetType() != ResultSetType.DEFAULT) {
           resultSetType = options.resultSetType();
@@ -378,7 +395,10 @@ public class MapperAnnotationBuilder {
           statementAnnotation.getDatabaseId(),
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          batchFlushRows,
+          batchFlushBytes,
+          options != null ? nullOrEmpty(options.cacheTags()) : null);
     });
   }
 
@@ -23,6 +23,9 @@ import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
+import org.apache.ibatis.cache.metrics.CacheMetricsFactory;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
@@ -266,10 +269,59 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setCallSettersOnNulls(booleanValueOf(props.getProperty("callSettersOnNulls"), false));
     configuration.setUseActualParamName(booleanValueOf(props.getProperty("useActualParamName"), true));
     configuration.setReturnInstanceForEmptyRow(booleanValueOf(props.getProperty("returnInstanceForEmptyRow"), false));
+    configuration.setUseCompiledRowMappers(booleanValueOf(props.getProperty("useCompiledRowMappers"), false));
+    configuration.setUseCompiledParameterBinders(booleanValueOf(props.getProperty("useCompiledParameterBinders"), false));
+    configuration.setUseGeneratedMappers(booleanValueOf(props.getProperty("useGeneratedMappers"), false));
+    configuration.setDefaultBatchFlushRows(integerValueOf(props.getProperty("defaultBatchFlushRows"), null));
+    configuration.setDefaultBatchFlushBytes(integerValueOf(props.getProperty("defaultBatchFlushBytes"), null));
+    configuration.setRetainBatchParameterObjects(booleanValueOf(props.getProperty("retainBatchParameterObjects"), true));
+    configuration.setParallelBatchFlush(booleanValueOf(props.getProperty("parallelBatchFlush"), false));
+    configuration.setParallelBatchFlushThreads(integerValueOf(props.getProperty("parallelBatchFlushThreads"),
+        Runtime.getRuntime().availableProcessors()));
+    configuration.setParameterMappingCacheSize(integerValueOf(props.getProperty("parameterMappingCacheSize"), 0));
+    configuration.setCacheCodec(createCacheCodec(props.getProperty("cacheCodec")));
+    configuration.setCacheMetricsFactory(createCacheMetricsFactory(props.getProperty("cacheMetricsFactory")));
+    configuration.setCacheInvalidationTransport(createCacheInvalidationTransport(props.getProperty("cacheInvalidationTransport")));
     configuration.setLogPrefix(props.getProperty("logPrefix"));
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
   }
 
+  private Codec createCacheCodec(String alias) {
+    Class<? extends Codec> type = resolveClass(alias);
+    if (type == null) {
+      return null;
+    }
+    try {
+      return type.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new BuilderException("Error creating cache codec '" + alias + "'.  Cause: " + e, e);
+    }
+  }
+
+  private CacheMetricsFactory createCacheMetricsFactory(String alias) {
+    Class<? extends CacheMetricsFactory> type = resolveClass(alias);
+    if (type == null) {
+      return null;
+    }
+    try {
+      return type.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new BuilderException("Error creating cache metrics factory '" + alias + "'.  Cause: " + e, e);
+    }
+  }
+
+  private InvalidationTransport createCacheInvalidationTransport(String alias) {
+    Class<? extends InvalidationTransport> type = resolveClass(alias);
+    if (type == null) {
+      return null;
+    }
+    try {
+      return type.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new BuilderException("Error creating cache invalidation transport '" + alias + "'.  Cause: " + e, e);
+    }
+  }
+
   private void environmentsElement(XNode context) throws Exception {
     if (context != null) {
       if (environment == null) {
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 
 /**
@@ -78,6 +79,21 @@ public interface Cache {
    */
   Object removeObject(Object key);
 
+  /**
+   * Removes the value of a key that is no longer valid, for instance because another node has written the row it was
+   * read from.
+   * <p>
+   * Unlike {@link #removeObject(Object)}, which a blocking cache only uses to release its lock, decorators that do not
+   * forward {@link #removeObject(Object)} to the cache they wrap must forward this method.
+   *
+   * @param key
+   *          The key
+   * @since 3.5.5
+   */
+  default void evictObject(Object key) {
+    removeObject(key);
+  }
+
   /**
    * Clears this cache instance.
    */
@@ -90,6 +106,101 @@ public interface Cache {
    */
   int getSize();
 
+  /**
+   * Puts a value tagged with the tables and rows it was read from, so that it can be removed with
+   * {@link #removeTagged(Set)} instead of clearing the whole cache.
+   * <p>
+   * Caches that do not track tags ignore them.
+   *
+   * @param key
+   *          Can be any object but usually it is a {@link CacheKey}
+   * @param value
+   *          The result of a select.
+   * @param tags
+   *          The tags of the value
+   * @since 3.5.5
+   */
+  default void putObject(Object key, Object value, Set<String> tags) {
+    putObject(key, value);
+  }
+
+  /**
+   * Puts a value with the loader that can reload it, so that a cache that {@link #isRefreshAhead() refreshes ahead}
+   * can reload the value in the background before it expires.
+   * <p>
+   * Caches that do not refresh ahead ignore the loader.
+   *
+   * @param key
+   *          Can be any object but usually it is a {@link CacheKey}
+   * @param value
+   *          The result of a select.
+   * @param tags
+   *          The tags of the value, or null if it is not tagged
+   * @param loader
+   *          The loader of the value, or null if it cannot be reloaded
+   * @since 3.5.5
+   */
+  default void putObject(Object key, Object value, Set<String> tags, CacheLoader loader) {
+    if (tags == null) {
+      putObject(key, value);
+    } else {
+      putObject(key, value, tags);
+    }
+  }
+
+  /**
+   * Removes the values tagged with any of the given tags, as well as all the values put without tags.
+   * <p>
+   * Caches that do not track tags are cleared.
+   *
+   * @param tags
+   *          The tags written to
+   * @since 3.5.5
+   */
+  default void removeTagged(Set<String> tags) {
+    clear();
+  }
+
+  /**
+   * Returns whether {@link #removeTagged(Set)} would remove the value of a key.
+   *
+   * @param key
+   *          The key
+   * @param tags
+   *          The tags written to
+   * @return true if the value would be removed, or if the cache does not track tags
+   * @since 3.5.5
+   */
+  default boolean isTagged(Object key, Set<String> tags) {
+    return true;
+  }
+
+  /**
+   * Returns whether the cache reloads its entries before they expire, with the {@link CacheLoader} they were put with.
+   * Loaders are only passed to such caches.
+   * <p>
+   * Decorators must return the value of the cache they wrap, and forward
+   * {@link #putObject(Object, Object, Set, CacheLoader)} to it.
+   *
+   * @return true if the entries are refreshed ahead of their expiry
+   * @since 3.5.5
+   */
+  default boolean isRefreshAhead() {
+    return false;
+  }
+
+  /**
+   * Releases the resources the cache holds outside of the heap, such as off-heap memory, files or registrations, when
+   * the cache is discarded. See {@link org.apache.ibatis.session.Configuration#closeCaches()}.
+   * <p>
+   * Decorators must close the cache they wrap.
+   *
+   * @since 3.5.5
+   */
+  default void close() {
+    // nothing to release
+  }
+
   /**
    * Optional. As of 3.2.6 this method is no longer called by the core.
    * <p>
@@ -16,69 +16,129 @@
 package org.apache.ibatis.cache;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
 
 /**
+ * Key made of an ordered list of components.
+ * <p>
+ * The components are kept in an array that can be sized up front with {@link #CacheKey(int)}, and a 64-bit hash is
+ * mixed in as they are added, so that most unequal keys are told apart without comparing their components.
+ * <code>int</code> and <code>long</code> components, whether added with {@link #update(int)}, {@link #update(long)}
+ * or boxed through {@link #update(Object)}, are stored unboxed.
+ *
  * @author Clinton Begin
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = -4526398624716624375L;
 
-  public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
+  public static final CacheKey NULL_CACHE_KEY = new CacheKey(0) {
 
     @Override
     public void update(Object object) {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
 
+    @Override
+    public void update(int value) {
+      throw new CacheException("Not allowed to update a null cache key instance.");
+    }
+
+    @Override
+    public void update(long value) {
+      throw new CacheException("Not allowed to update a null cache key instance.");
+    }
+
     @Override
     public void updateAll(Object[] objects) {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
   };
 
-  private static final int DEFAULT_MULTIPLIER = 37;
-  private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long DEFAULT_HASH = 17;
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Marks the components whose value is held in {@link #primitives}.
+   */
+  private enum Primitive {
+    INT, LONG
+  }
 
-  private final int multiplier;
+  private long hash;
   private int hashcode;
-  private long checksum;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
   // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] components;
+  private long[] primitives;
 
   public CacheKey() {
-    this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty key with room for the given number of components.
+   *
+   * @param expectedUpdateCount
+   *          the number of components the key is expected to hold
+   * @since 3.5.5
+   */
+  public CacheKey(int expectedUpdateCount) {
+    this.hash = DEFAULT_HASH;
+    this.hashcode = mix(DEFAULT_HASH);
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.components = new Object[expectedUpdateCount];
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
-
-    count++;
-    checksum += baseHashCode;
-    baseHashCode *= count;
+    if (object instanceof Integer) {
+      update(((Integer) object).intValue());
+    } else if (object instanceof Long) {
+      update(((Long) object).longValue());
+    } else {
+      int index = append(object == null ? 1 : ArrayUtil.hashCode(object));
+      components[index] = object;
+    }
+  }
 
-    hashcode = multiplier * hashcode + baseHashCode;
+  /**
+   * Adds an <code>int</code> component, equal to the same value added as an {@link Integer}.
+   *
+   * @param value
+   *          the component
+   * @since 3.5.5
+   */
+  public void update(int value) {
+    int index = append(Integer.hashCode(value));
+    components[index] = Primitive.INT;
+    primitives()[index] = value;
+  }
 
-    updateList.add(object);
+  /**
+   * Adds a <code>long</code> component, equal to the same value added as a {@link Long}.
+   *
+   * @param value
+   *          the component
+   * @since 3.5.5
+   */
+  public void update(long value) {
+    int index = append(Long.hashCode(value));
+    components[index] = Primitive.LONG;
+    primitives()[index] = value;
   }
 
   public void updateAll(Object[] objects) {
@@ -87,6 +147,33 @@ public class CacheKey implements Cloneable, Serializable {
     }
   }
 
+  private int append(int componentHash) {
+    if (count == components.length) {
+      int capacity = Math.max(DEFAULT_CAPACITY, count + (count >> 1));
+      components = Arrays.copyOf(components, capacity);
+      if (primitives != null) {
+        primitives = Arrays.copyOf(primitives, capacity);
+      }
+    }
+    hash = (hash + componentHash) * HASH_MULTIPLIER;
+    hashcode = mix(hash);
+    return count++;
+  }
+
+  private long[] primitives() {
+    if (primitives == null) {
+      primitives = new long[components.length];
+    }
+    return primitives;
+  }
+
+  private static int mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return (int) hash;
+  }
+
   @Override
   public boolean equals(Object object) {
     if (this == object) {
@@ -98,20 +185,21 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
-    if (hashcode != cacheKey.hashcode) {
-      return false;
-    }
-    if (checksum != cacheKey.checksum) {
+    if (hash != cacheKey.hash) {
       return false;
     }
     if (count != cacheKey.count) {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    for (int i = 0; i < count; i++) {
+      Object thisObject = components[i];
+      Object thatObject = cacheKey.components[i];
+      if (thisObject instanceof Primitive) {
+        if (thisObject != thatObject || primitives[i] != cacheKey.primitives[i]) {
+          return false;
+        }
+      } else if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -127,15 +215,22 @@ public class CacheKey implements Cloneable, Serializable {
   public String toString() {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
-    returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    returnValue.add(String.valueOf(hash));
+    for (int i = 0; i < count; i++) {
+      returnValue.add(components[i] instanceof Primitive ? String.valueOf(primitives[i]) : ArrayUtil.toString(components[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // leaves room for one more component, as a clone is usually extended
+    int capacity = Math.max(components.length, count + 1);
+    clonedCacheKey.components = Arrays.copyOf(components, capacity);
+    if (primitives != null) {
+      clonedCacheKey.primitives = Arrays.copyOf(primitives, capacity);
+    }
     return clonedCacheKey;
   }
 
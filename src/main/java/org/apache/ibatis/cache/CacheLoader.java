@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Reloads a cache entry from its source.
+ * <p>
+ * The {@link org.apache.ibatis.executor.CachingExecutor} puts the statement results into a cache that
+ * {@link Cache#isRefreshAhead() refreshes ahead} together with a loader, so that decorators such as
+ * {@link org.apache.ibatis.cache.decorators.ScheduledCache} can reload an entry in the background before it expires.
+ * The loader runs the statement with a copy of the parameter object; no loader is passed when the parameter object
+ * cannot be serialized.
+ *
+ * @since 3.5.5
+ */
+@FunctionalInterface
+public interface CacheLoader {
+
+  /**
+   * Loads the current value of the entry and puts it into the cache it was loaded for.
+   *
+   * @param key
+   *          the key of the entry
+   */
+  void reload(Object key);
+
+}
@@ -0,0 +1,30 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Marker for caches that are safe for concurrent use without any external locking.
+ * <p>
+ * When every eviction decorator of a cache implements this interface and no maximum weight is set, the
+ * {@link org.apache.ibatis.mapping.CacheBuilder} does not wrap the cache with a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}, so reads are not serialized on a single monitor. The
+ * other standard decorators of such a cache are thread safe.
+ *
+ * @since 3.5.5
+ */
+public interface ConcurrentCache extends Cache {
+
+}
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,10 +15,15 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 
 /**
  * @author Clinton Begin
@@ -26,6 +31,20 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final CacheInvalidationBus invalidationBus;
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  /**
+   * @param invalidationBus
+   *          the bus the invalidations are broadcast to once committed, or null to keep them local
+   * @since 3.5.5
+   */
+  public TransactionalCacheManager(CacheInvalidationBus invalidationBus) {
+    this.invalidationBus = invalidationBus;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
@@ -39,10 +58,34 @@ public class TransactionalCacheManager {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  /**
+   * @since 3.5.5
+   */
+  public void removeTagged(Cache cache, Set<String> tags) {
+    getTransactionalCache(cache).removeTagged(tags);
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, Set<String> tags, CacheLoader loader) {
+    getTransactionalCache(cache).putObject(key, value, tags, loader);
+  }
+
   public void commit() {
+    List<CacheInvalidation> invalidations = new ArrayList<>();
     for (TransactionalCache txCache : transactionalCaches.values()) {
+      if (invalidationBus != null) {
+        CacheInvalidation invalidation = txCache.getInvalidationOnCommit();
+        if (invalidation != null) {
+          invalidations.add(invalidation);
+        }
+      }
       txCache.commit();
     }
+    for (CacheInvalidation invalidation : invalidations) {
+      invalidationBus.publish(invalidation);
+    }
   }
 
   public void rollback() {
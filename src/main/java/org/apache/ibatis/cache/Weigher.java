@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Estimates how much of the weight budget of a cache an entry takes.
+ *
+ * @since 3.5.5
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+@FunctionalInterface
+public interface Weigher {
+
+  /**
+   * Returns the weight of an entry.
+   *
+   * @param key
+   *          the key of the entry
+   * @param value
+   *          the value of the entry, usually the list of results of a statement
+   * @return the weight, not negative
+   */
+  long weigh(Object key, Object value);
+
+}
@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+/**
+ * Turns values into bytes and back. Used by read-write caches to hand out copies of cached values and by lazy loading
+ * proxies to serialize the loaded bean.
+ * <p>
+ * Implementations must be thread safe and provide a public no-argument constructor.
+ *
+ * @since 3.5.5
+ */
+public interface Codec {
+
+  /**
+   * Encodes a value.
+   *
+   * @param value
+   *          the value, may be null
+   * @return the encoded value
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the value cannot be encoded
+   */
+  byte[] encode(Object value);
+
+  /**
+   * Decodes a value that has been encoded by this codec.
+   *
+   * @param bytes
+   *          the encoded value
+   * @return a new copy of the value
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the value cannot be decoded
+   */
+  Object decode(byte[] bytes);
+
+}
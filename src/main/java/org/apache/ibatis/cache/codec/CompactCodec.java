@@ -0,0 +1,588 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+
+/**
+ * Compact codec that writes beans as the values of their properties, in the order given by the {@link Reflector}
+ * metadata, instead of writing class descriptors and field names like the Java serialization does. Class names are
+ * written once per value and shared or circular references are preserved.
+ * <p>
+ * Strings, boxed primitives, big numbers, dates, enums, byte arrays, object arrays and the common collection and map
+ * implementations are written directly. Serializable beans are written by property when they have a default
+ * constructor, no custom serialization methods and a readable and writable property for each of their non-static,
+ * non-transient fields; properties backed by a transient field are skipped. Any other serializable value, like lazy
+ * loading proxies or beans with a final field that is only exposed by a getter, falls back to the Java serialization.
+ * <p>
+ * The encoding depends on the classes loaded by this JVM, so the bytes are not meant to be stored or shared.
+ *
+ * @since 3.5.5
+ */
+public class CompactCodec implements Codec {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte FLOAT = 6;
+  private static final byte SHORT = 7;
+  private static final byte BYTE = 8;
+  private static final byte BOOLEAN = 9;
+  private static final byte CHARACTER = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte TIMESTAMP = 14;
+  private static final byte SQL_DATE = 15;
+  private static final byte TIME = 16;
+  private static final byte ENUM = 17;
+  private static final byte BYTES = 18;
+  private static final byte ARRAY = 19;
+  private static final byte ARRAY_LIST = 20;
+  private static final byte LINKED_LIST = 21;
+  private static final byte HASH_SET = 22;
+  private static final byte LINKED_HASH_SET = 23;
+  private static final byte HASH_MAP = 24;
+  private static final byte LINKED_HASH_MAP = 25;
+  private static final byte BEAN = 26;
+  private static final byte SERIALIZED = 27;
+
+  private static final BeanLayout UNSUPPORTED = new BeanLayout(null, new Invoker[0], new Invoker[0]);
+
+  private final ReflectorFactory reflectorFactory;
+  private final Map<Class<?>, BeanLayout> layouts = new ConcurrentHashMap<>();
+  private final JavaSerializationCodec fallback = new JavaSerializationCodec();
+
+  public CompactCodec() {
+    this(new DefaultReflectorFactory());
+  }
+
+  public CompactCodec(ReflectorFactory reflectorFactory) {
+    this.reflectorFactory = reflectorFactory;
+  }
+
+  @Override
+  public byte[] encode(Object value) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bos)) {
+      new Writer(out).write(value);
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new CacheException("Error encoding object.  Cause: " + e, e);
+    }
+    return bos.toByteArray();
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new Reader(in).read();
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new CacheException("Error decoding object.  Cause: " + e, e);
+    }
+  }
+
+  private BeanLayout getLayout(Class<?> type) {
+    BeanLayout layout = layouts.get(type);
+    if (layout == null) {
+      layout = layouts.computeIfAbsent(type, this::createLayout);
+    }
+    return layout == UNSUPPORTED ? null : layout;
+  }
+
+  private BeanLayout createLayout(Class<?> type) {
+    if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+        || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+        || type.getName().startsWith("java.") || type.getName().startsWith("javax.")
+        || hasSerializationMethods(type)) {
+      return UNSUPPORTED;
+    }
+    Reflector reflector = reflectorFactory.findForClass(type);
+    if (!reflector.hasDefaultConstructor()) {
+      return UNSUPPORTED;
+    }
+    Constructor<?> constructor = reflector.getDefaultConstructor();
+    if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+      if (!Reflector.canControlMemberAccessible()) {
+        return UNSUPPORTED;
+      }
+      constructor.setAccessible(true);
+    }
+    List<String> properties = new ArrayList<>();
+    for (String property : reflector.getGetablePropertyNames()) {
+      if (reflector.hasSetter(property) && !isTransient(type, property)) {
+        properties.add(property);
+      }
+    }
+    if (!coversAllFields(type, reflector, properties)) {
+      return UNSUPPORTED;
+    }
+    properties.sort(null);
+    Invoker[] getters = new Invoker[properties.size()];
+    Invoker[] setters = new Invoker[properties.size()];
+    for (int i = 0; i < getters.length; i++) {
+      getters[i] = reflector.getGetInvoker(properties.get(i));
+      setters[i] = reflector.getSetInvoker(properties.get(i));
+      if (getters[i] instanceof AmbiguousMethodInvoker || setters[i] instanceof AmbiguousMethodInvoker) {
+        return UNSUPPORTED;
+      }
+    }
+    return new BeanLayout(constructor, getters, setters);
+  }
+
+  private static boolean hasSerializationMethods(Class<?> type) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        switch (method.getName()) {
+          case "writeObject":
+          case "readObject":
+          case "readObjectNoData":
+          case "writeReplace":
+          case "readResolve":
+            return true;
+          default:
+            break;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean coversAllFields(Class<?> type, Reflector reflector, List<String> properties) {
+    // the Java serialization writes every non-static, non-transient field, including the shadowed ones
+    Set<String> names = new HashSet<>();
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+          continue;
+        }
+        if (!names.add(field.getName()) || !properties.contains(field.getName())
+            || Modifier.isFinal(modifiers) && reflector.getSetInvoker(field.getName()) instanceof SetFieldInvoker) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isTransient(Class<?> type, String property) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(property)) {
+          return Modifier.isTransient(field.getModifiers());
+        }
+      }
+    }
+    return false;
+  }
+
+  private static class BeanLayout {
+
+    private final Constructor<?> constructor;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+
+    BeanLayout(Constructor<?> constructor, Invoker[] getters, Invoker[] setters) {
+      this.constructor = constructor;
+      this.getters = getters;
+      this.setters = setters;
+    }
+  }
+
+  private class Writer {
+
+    private final DataOutputStream out;
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void write(Object value) throws IOException, ReflectiveOperationException {
+      if (value == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        writeVarLong((Integer) value);
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        writeVarLong((Long) value);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) value);
+      } else if (type == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        writeString(value.toString());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == Timestamp.class) {
+        out.writeByte(TIMESTAMP);
+        out.writeLong(((Timestamp) value).getTime());
+        out.writeInt(((Timestamp) value).getNanos());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((java.sql.Date) value).getTime());
+      } else if (type == Time.class) {
+        out.writeByte(TIME);
+        out.writeLong(((Time) value).getTime());
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeVarInt(((Enum<?>) value).ordinal());
+      } else {
+        Integer reference = references.get(value);
+        if (reference != null) {
+          out.writeByte(REFERENCE);
+          writeVarInt(reference);
+        } else {
+          references.put(value, references.size());
+          writeObject(type, value);
+        }
+      }
+    }
+
+    private void writeObject(Class<?> type, Object value) throws IOException, ReflectiveOperationException {
+      if (type == byte[].class) {
+        out.writeByte(BYTES);
+        writeBytes((byte[]) value);
+      } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+        out.writeByte(ARRAY);
+        writeClass(type.getComponentType());
+        Object[] array = (Object[]) value;
+        writeVarInt(array.length);
+        for (Object element : array) {
+          write(element);
+        }
+      } else if (type == ArrayList.class || type == LinkedList.class || type == HashSet.class || type == LinkedHashSet.class) {
+        out.writeByte(type == ArrayList.class ? ARRAY_LIST
+            : type == LinkedList.class ? LINKED_LIST : type == HashSet.class ? HASH_SET : LINKED_HASH_SET);
+        Collection<?> collection = (Collection<?>) value;
+        writeVarInt(collection.size());
+        for (Object element : collection) {
+          write(element);
+        }
+      } else if (type == HashMap.class || type == LinkedHashMap.class) {
+        out.writeByte(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+        Map<?, ?> map = (Map<?, ?>) value;
+        writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          write(entry.getKey());
+          write(entry.getValue());
+        }
+      } else {
+        BeanLayout layout = getLayout(type);
+        if (layout != null) {
+          out.writeByte(BEAN);
+          writeClass(type);
+          for (Invoker getter : layout.getters) {
+            write(getter.invoke(value, null));
+          }
+        } else if (value instanceof Serializable) {
+          out.writeByte(SERIALIZED);
+          writeBytes(fallback.encode(value));
+        } else {
+          throw new CacheException("CompactCodec failed to encode a non-serializable object: " + value);
+        }
+      }
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index == null) {
+        classes.put(type, classes.size());
+        writeVarInt(0);
+        writeString(type.getName());
+      } else {
+        writeVarInt(index + 1);
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+      writeVarInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+      // zigzag encoding keeps small negative numbers short
+      long zigzag = (value << 1) ^ (value >> 63);
+      while ((zigzag & ~0x7FL) != 0) {
+        out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+        zigzag >>>= 7;
+      }
+      out.writeByte((int) zigzag);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+  private class Reader {
+
+    private final DataInputStream in;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    Object read() throws IOException, ReflectiveOperationException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get(readVarInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return (int) readVarLong();
+        case LONG:
+          return readVarLong();
+        case DOUBLE:
+          return in.readDouble();
+        case FLOAT:
+          return in.readFloat();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case BOOLEAN:
+          return in.readBoolean();
+        case CHARACTER:
+          return in.readChar();
+        case BIG_DECIMAL:
+          return new BigDecimal(readString());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case TIME:
+          return new Time(in.readLong());
+        case ENUM:
+          return readClass().getEnumConstants()[readVarInt()];
+        case BYTES:
+          return register(readBytes());
+        case ARRAY:
+          return readArray();
+        case ARRAY_LIST:
+          int size = readVarInt();
+          return readElements(register(new ArrayList<>(size)), size);
+        case LINKED_LIST:
+          return readElements(register(new LinkedList<>()), readVarInt());
+        case HASH_SET:
+          size = readVarInt();
+          return readElements(register(new HashSet<>(capacity(size))), size);
+        case LINKED_HASH_SET:
+          size = readVarInt();
+          return readElements(register(new LinkedHashSet<>(capacity(size))), size);
+        case HASH_MAP:
+          size = readVarInt();
+          return readEntries(register(new HashMap<>(capacity(size))), size);
+        case LINKED_HASH_MAP:
+          size = readVarInt();
+          return readEntries(register(new LinkedHashMap<>(capacity(size))), size);
+        case BEAN:
+          return readBean();
+        case SERIALIZED:
+          int index = references.size();
+          references.add(null);
+          Object value = fallback.decode(readBytes());
+          references.set(index, value);
+          return value;
+        default:
+          throw new CacheException("Unknown tag " + tag + " in encoded object.");
+      }
+    }
+
+    private Object readArray() throws IOException, ReflectiveOperationException {
+      Class<?> componentType = readClass();
+      Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+      register(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = read();
+      }
+      return array;
+    }
+
+    private Object readBean() throws IOException, ReflectiveOperationException {
+      Class<?> type = readClass();
+      BeanLayout layout = getLayout(type);
+      if (layout == null) {
+        throw new CacheException("Cannot decode an instance of " + type + " by its properties.");
+      }
+      Object bean = register(layout.constructor.newInstance());
+      Object[] args = new Object[1];
+      for (Invoker setter : layout.setters) {
+        args[0] = read();
+        if (args[0] != null || !setter.getType().isPrimitive()) {
+          setter.invoke(bean, args);
+        }
+      }
+      return bean;
+    }
+
+    private <T extends Collection<Object>> T readElements(T collection, int size) throws IOException, ReflectiveOperationException {
+      for (int i = 0; i < size; i++) {
+        collection.add(read());
+      }
+      return collection;
+    }
+
+    private <T extends Map<Object, Object>> T readEntries(T map, int size) throws IOException, ReflectiveOperationException {
+      for (int i = 0; i < size; i++) {
+        Object key = read();
+        map.put(key, read());
+      }
+      return map;
+    }
+
+    private <T> T register(T value) {
+      references.add(value);
+      return value;
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+      int index = readVarInt();
+      if (index > 0) {
+        return classes.get(index - 1);
+      }
+      Class<?> type = Resources.classForName(readString());
+      classes.add(type);
+      return type;
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+
+    private long readVarLong() throws IOException {
+      long zigzag = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = in.readByte();
+        zigzag |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = in.readByte();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    private int capacity(int size) {
+      return Math.max((int) (size / .75f) + 1, 16);
+    }
+  }
+
+}
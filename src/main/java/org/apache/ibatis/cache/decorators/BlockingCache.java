@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,20 +15,32 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheLoader;
 
 /**
- * Simple blocking decorator
- *
- * Simple and inefficient version of EhCache's BlockingCache decorator.
- * It sets a lock over a cache key when the element is not found in cache.
- * This way, other threads will wait until this element is filled instead of hitting the database.
+ * Blocking decorator that lets a single thread load each missing element.
+ * <p>
+ * Hits are served without taking any lock. The first thread that misses a key becomes its loader and the other
+ * threads missing the same key wait until the loader puts the element or gives up, instead of hitting the database.
+ * <p>
+ * When <code>staleWhileRevalidate</code> is enabled, the values put into the cache are also kept as soft references,
+ * at most as many as the cache holds, and the ones kept before its last clear are handed to the threads that would
+ * otherwise wait for a loader. Values are forgotten when their element is evicted or removed. As a stale value is the
+ * very instance that was put into the cache, {@link org.apache.ibatis.mapping.CacheBuilder} only accepts this option
+ * for read-only caches.
  *
  * @author Eduardo Macarron
  *
@@ -36,12 +48,19 @@ import org.apache.ibatis.cache.CacheException;
 public class BlockingCache implements Cache {
 
   private long timeout;
+  private boolean staleWhileRevalidate;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, Load> loads;
+  private final ReferenceQueue<Object> queueOfGarbageCollectedEntries;
+  private volatile Map<Object, StaleEntry> currentValues;
+  private volatile Map<Object, StaleEntry> staleValues;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
-    this.locks = new ConcurrentHashMap<>();
+    this.loads = new ConcurrentHashMap<>();
+    this.queueOfGarbageCollectedEntries = new ReferenceQueue<>();
+    this.currentValues = newValueMap();
+    this.staleValues = newValueMap();
   }
 
   @Override
@@ -54,61 +73,195 @@ public class BlockingCache implements Cache {
     return delegate.getSize();
   }
 
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     try {
       delegate.putObject(key, value);
+      if (staleWhileRevalidate) {
+        rememberValue(key, value);
+      }
+    } finally {
+      releaseLoad(key);
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags) {
+    try {
+      delegate.putObject(key, value, tags);
+      if (staleWhileRevalidate) {
+        rememberValue(key, value);
+      }
+    } finally {
+      releaseLoad(key);
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags, CacheLoader loader) {
+    try {
+      delegate.putObject(key, value, tags, loader);
+      if (staleWhileRevalidate) {
+        rememberValue(key, value);
+      }
     } finally {
-      releaseLock(key);
+      releaseLoad(key);
     }
   }
 
   @Override
   public Object getObject(Object key) {
-    acquireLock(key);
     Object value = delegate.getObject(key);
     if (value != null) {
-      releaseLock(key);
+      return value;
+    }
+    Load load = new Load();
+    while (true) {
+      Load inFlight = loads.putIfAbsent(key, load);
+      if (inFlight == null) {
+        // another loader may have put the element since the first read
+        value = delegate.getObject(key);
+        if (value != null) {
+          releaseLoad(key);
+        }
+        return value;
+      }
+      if (inFlight.isOwnedByCurrentThread()) {
+        return null;
+      }
+      if (staleWhileRevalidate) {
+        Object staleValue = getStaleObject(key);
+        if (staleValue != null) {
+          return staleValue;
+        }
+      }
+      awaitLoad(key, inFlight);
+      value = delegate.getObject(key);
+      if (value != null) {
+        return value;
+      }
     }
-    return value;
   }
 
   @Override
   public Object removeObject(Object key) {
     // despite of its name, this method is called only to release locks
-    releaseLock(key);
+    forgetValue(key);
+    releaseLoad(key);
     return null;
   }
 
+  @Override
+  public void evictObject(Object key) {
+    delegate.evictObject(key);
+    forgetValue(key);
+  }
+
   @Override
   public void clear() {
     delegate.clear();
+    if (staleWhileRevalidate) {
+      staleValues = currentValues;
+      currentValues = newValueMap();
+    }
   }
 
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
+  @Override
+  public void close() {
+    delegate.close();
   }
 
-  private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
-    if (timeout > 0) {
-      try {
-        boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
-        if (!acquired) {
+  @Override
+  public void removeTagged(Set<String> tags) {
+    if (staleWhileRevalidate) {
+      // the tags of the stale values are unknown, and those of the current ones are lost once removed
+      staleValues.clear();
+      forgetTaggedValues(tags);
+    }
+    delegate.removeTagged(tags);
+  }
+
+  @Override
+  public boolean isTagged(Object key, Set<String> tags) {
+    return delegate.isTagged(key, tags);
+  }
+
+  private void awaitLoad(Object key, Load load) {
+    try {
+      if (timeout > 0) {
+        boolean loaded = load.latch.await(timeout, TimeUnit.MILLISECONDS);
+        if (!loaded) {
           throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
         }
-      } catch (InterruptedException e) {
-        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+      } else {
+        load.latch.await();
+      }
+    } catch (InterruptedException e) {
+      throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+    }
+  }
+
+  private void releaseLoad(Object key) {
+    Load load = loads.get(key);
+    if (load != null && load.isOwnedByCurrentThread() && loads.remove(key, load)) {
+      load.latch.countDown();
+    }
+  }
+
+  private void rememberValue(Object key, Object value) {
+    removeGarbageCollectedItems();
+    if (value != null) {
+      currentValues.put(key, new StaleEntry(key, value, queueOfGarbageCollectedEntries));
+    }
+    staleValues.remove(key);
+  }
+
+  private void forgetValue(Object key) {
+    if (staleWhileRevalidate) {
+      currentValues.remove(key);
+      staleValues.remove(key);
+    }
+  }
+
+  private void forgetTaggedValues(Set<String> tags) {
+    Map<Object, StaleEntry> values = currentValues;
+    synchronized (values) {
+      Iterator<Object> keys = values.keySet().iterator();
+      while (keys.hasNext()) {
+        if (delegate.isTagged(keys.next(), tags)) {
+          keys.remove();
+        }
       }
-    } else {
-      lock.lock();
     }
   }
 
-  private void releaseLock(Object key) {
-    ReentrantLock lock = locks.get(key);
-    if (lock.isHeldByCurrentThread()) {
-      lock.unlock();
+  private Map<Object, StaleEntry> newValueMap() {
+    // keeps no more values than the cache holds, dropping the least recently put ones first
+    return Collections.synchronizedMap(new LinkedHashMap<Object, StaleEntry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, StaleEntry> eldest) {
+        return size() > delegate.getSize();
+      }
+    });
+  }
+
+  private Object getStaleObject(Object key) {
+    StaleEntry entry = staleValues.get(key);
+    return entry == null ? null : entry.get();
+  }
+
+  private void removeGarbageCollectedItems() {
+    StaleEntry entry;
+    while ((entry = (StaleEntry) queueOfGarbageCollectedEntries.poll()) != null) {
+      currentValues.remove(entry.key, entry);
+      staleValues.remove(entry.key, entry);
     }
   }
 
@@ -119,4 +272,45 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * @since 3.5.5
+   */
+  public boolean isStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  /**
+   * Sets whether threads that miss an element being loaded by another thread get the value it had before the last
+   * clear instead of waiting.
+   *
+   * @param staleWhileRevalidate
+   *          true to serve stale values while an element is loaded
+   * @since 3.5.5
+   */
+  public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    if (!staleWhileRevalidate) {
+      currentValues.clear();
+      staleValues.clear();
+    }
+  }
+
+  private static class Load {
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    boolean isOwnedByCurrentThread() {
+      return owner == Thread.currentThread();
+    }
+  }
+
+  private static class StaleEntry extends SoftReference<Object> {
+    private final Object key;
+
+    StaleEntry(Object key, Object value, ReferenceQueue<Object> garbageCollectionQueue) {
+      super(value, garbageCollectionQueue);
+      this.key = key;
+    }
+  }
 }
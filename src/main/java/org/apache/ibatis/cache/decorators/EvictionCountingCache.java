@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+
+/**
+ * Records the entries removed from the base cache, one by one, by the decorators above it.
+ * <p>
+ * These are the entries evicted by the eviction policy or the weight bound, expired, or invalidated by a tag. The
+ * entries dropped by {@link #clear()} are not counted.
+ *
+ * @since 3.5.5
+ */
+public class EvictionCountingCache implements Cache {
+
+  private final Cache delegate;
+  private volatile CacheMetrics metrics;
+
+  public EvictionCountingCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public void setMetrics(CacheMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = delegate.removeObject(key);
+    CacheMetrics current = metrics;
+    if (value != null && current != null) {
+      current.recordEviction();
+    }
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -73,6 +73,11 @@ public class FifoCache implements Cache {
     keyList.clear();
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
   private void cycleKeyList(Object key) {
     keyList.addLast(key);
     if (keyList.size() > size) {
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,7 +15,11 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -24,10 +28,16 @@ import org.apache.ibatis.logging.LogFactory;
  */
 public class LoggingCache implements Cache {
 
+  private static final AtomicIntegerFieldUpdater<LoggingCache> REQUESTS =
+      AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "requests");
+  private static final AtomicIntegerFieldUpdater<LoggingCache> HITS =
+      AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "hits");
+
   private final Log log;
   private final Cache delegate;
-  protected int requests = 0;
-  protected int hits = 0;
+  // updated atomically, as the cache is not synchronized when its eviction policy is concurrent
+  protected volatile int requests = 0;
+  protected volatile int hits = 0;
 
   public LoggingCache(Cache delegate) {
     this.delegate = delegate;
@@ -44,17 +54,32 @@ public class LoggingCache implements Cache {
     return delegate.getSize();
   }
 
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
   }
 
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags) {
+    delegate.putObject(key, object, tags);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags, CacheLoader loader) {
+    delegate.putObject(key, object, tags, loader);
+  }
+
   @Override
   public Object getObject(Object key) {
-    requests++;
+    REQUESTS.incrementAndGet(this);
     final Object value = delegate.getObject(key);
     if (value != null) {
-      hits++;
+      HITS.incrementAndGet(this);
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
@@ -72,6 +97,21 @@ public class LoggingCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public void removeTagged(Set<String> tags) {
+    delegate.removeTagged(tags);
+  }
+
+  @Override
+  public boolean isTagged(Object key, Set<String> tags) {
+    return delegate.isTagged(key, tags);
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
@@ -84,6 +84,11 @@ public class LruCache implements Cache {
     keyMap.clear();
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
   private void cycleKeyList(Object key) {
     keyMap.put(key, key);
     if (eldestKey != null) {
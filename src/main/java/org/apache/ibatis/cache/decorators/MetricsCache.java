@@ -0,0 +1,137 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Set;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+
+/**
+ * Records the hits, misses and puts of the cache it decorates.
+ * <p>
+ * It is the outermost decorator, so it sees the lookups as the executors make them. The evictions are recorded by an
+ * {@link EvictionCountingCache} under the eviction decorators and the load times by the caching executor.
+ *
+ * @since 3.5.5
+ */
+public class MetricsCache implements Cache {
+
+  private final Cache delegate;
+  private final CacheMetrics metrics;
+
+  public MetricsCache(Cache delegate, CacheMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  public CacheMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    if (value != null) {
+      metrics.recordPut();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags) {
+    delegate.putObject(key, value, tags);
+    if (value != null) {
+      metrics.recordPut();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags, CacheLoader loader) {
+    delegate.putObject(key, value, tags, loader);
+    if (value != null) {
+      metrics.recordPut();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      metrics.recordMiss();
+    } else {
+      metrics.recordHit();
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void evictObject(Object key) {
+    delegate.evictObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+    metrics.close();
+  }
+
+  @Override
+  public void removeTagged(Set<String> tags) {
+    delegate.removeTagged(tags);
+  }
+
+  @Override
+  public boolean isTagged(Object key, Set<String> tags) {
+    return delegate.isTagged(key, tags);
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
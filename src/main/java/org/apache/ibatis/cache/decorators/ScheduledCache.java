@@ -15,27 +15,145 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 
 /**
+ * Clears the cache when the clear interval has passed.
+ * <p>
+ * When a <code>timeToLive</code>, a <code>refreshAhead</code> window or a <code>jitter</code> is set, every entry
+ * expires on its own, <code>timeToLive</code> (or <code>clearInterval</code> when no time to live is set) plus
+ * a random jitter after it was put. A clear interval that is set together with a time to live still clears the whole
+ * cache. An entry that is read during the refresh-ahead
+ * window before its expiry is reloaded in the background with the {@link CacheLoader} it was put with, and callers
+ * keep getting the current value until the reload has been put.
+ * <p>
+ * The expiry of an entry is stored with its value in the delegate, so it goes away when the delegate evicts the value.
+ *
  * @author Clinton Begin
  */
 public class ScheduledCache implements Cache {
 
+  private static final Log log = LogFactory.getLog(ScheduledCache.class);
+
   private final Cache delegate;
   protected long clearInterval;
   protected long lastClear;
+  private boolean clearIntervalSet;
+  private long timeToLive;
+  private long refreshAhead;
+  private long jitter;
+  private int refreshThreads;
+  private volatile ExecutorService refreshExecutor;
+  private boolean ownsRefreshExecutor;
+  private final LongAdder refreshCount = new LongAdder();
+  private final LongAdder refreshFailureCount = new LongAdder();
+  private final LongAdder expirationCount = new LongAdder();
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
     this.clearInterval = TimeUnit.HOURS.toMillis(1);
     this.lastClear = System.currentTimeMillis();
+    this.refreshThreads = 1;
   }
 
   public void setClearInterval(long clearInterval) {
     this.clearInterval = clearInterval;
+    this.clearIntervalSet = true;
+  }
+
+  /**
+   * Sets how long each entry is kept after it was put. The whole cache is still cleared every clear interval if one has
+   * been set.
+   *
+   * @param timeToLive
+   *          the time to live in milliseconds, 0 to disable
+   * @since 3.5.5
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Sets how long before its expiry an entry that is read gets reloaded in the background.
+   *
+   * @param refreshAhead
+   *          the refresh-ahead window in milliseconds, 0 to disable
+   * @since 3.5.5
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  /**
+   * Sets the maximum random time added to the lifetime of each entry, so that entries put together do not expire
+   * together.
+   *
+   * @param jitter
+   *          the maximum jitter in milliseconds, 0 to disable
+   * @since 3.5.5
+   */
+  public void setJitter(long jitter) {
+    this.jitter = jitter;
+  }
+
+  /**
+   * Sets the number of threads of the refresh executor created on the first refresh. Ignored when an executor has
+   * been set with {@link #setRefreshExecutor(ExecutorService)}. The created executor is shut down when the cache is
+   * closed.
+   *
+   * @since 3.5.5
+   */
+  public void setRefreshThreads(int refreshThreads) {
+    this.refreshThreads = refreshThreads;
+  }
+
+  /**
+   * Sets the executor that reloads the entries. It is not shut down when the cache is closed.
+   *
+   * @since 3.5.5
+   */
+  public void setRefreshExecutor(ExecutorService refreshExecutor) {
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public long getRefreshCount() {
+    return refreshCount.sum();
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public long getRefreshFailureCount() {
+    return refreshFailureCount.sum();
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public long getExpirationCount() {
+    return expirationCount.sum();
   }
 
   @Override
@@ -45,25 +163,71 @@ public class ScheduledCache implements Cache {
 
   @Override
   public int getSize() {
-    clearWhenStale();
+    if (isClearedWhole()) {
+      clearWhenStale();
+    }
     return delegate.getSize();
   }
 
+  @Override
+  public boolean isRefreshAhead() {
+    return refreshAhead > 0;
+  }
+
   @Override
   public void putObject(Object key, Object object) {
-    clearWhenStale();
-    delegate.putObject(key, object);
+    putObject(key, object, null, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags, CacheLoader loader) {
+    if (isClearedWhole()) {
+      clearWhenStale();
+    }
+    if (!isPerEntryExpiry() || object == null) {
+      delegate.putObject(key, object);
+      return;
+    }
+    long lifetime = timeToLive > 0 ? timeToLive : clearInterval;
+    if (jitter > 0) {
+      lifetime += ThreadLocalRandom.current().nextLong(jitter);
+    }
+    delegate.putObject(key, new Entry(object, System.currentTimeMillis() + lifetime, loader));
   }
 
   @Override
   public Object getObject(Object key) {
-    return clearWhenStale() ? null : delegate.getObject(key);
+    if (isClearedWhole() && clearWhenStale()) {
+      return null;
+    }
+    Object value = delegate.getObject(key);
+    if (!(value instanceof Entry)) {
+      return value;
+    }
+    Entry entry = (Entry) value;
+    long now = System.currentTimeMillis();
+    if (now >= entry.expiresAt) {
+      Object removed = delegate.removeObject(key);
+      if (removed == entry) {
+        expirationCount.increment();
+      } else if (removed != null) {
+        // a refresh has put a new value in the meantime
+        delegate.putObject(key, removed);
+      }
+      return null;
+    }
+    if (refreshAhead > 0 && entry.loader != null && now >= entry.expiresAt - refreshAhead) {
+      refresh(key, entry);
+    }
+    return entry.value;
   }
 
   @Override
   public Object removeObject(Object key) {
-    clearWhenStale();
-    return delegate.removeObject(key);
+    if (isClearedWhole()) {
+      clearWhenStale();
+    }
+    return unwrap(delegate.removeObject(key));
   }
 
   @Override
@@ -72,6 +236,16 @@ public class ScheduledCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (ownsRefreshExecutor) {
+        refreshExecutor.shutdownNow();
+      }
+    }
+    delegate.close();
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
@@ -82,6 +256,18 @@ public class ScheduledCache implements Cache {
     return delegate.equals(obj);
   }
 
+  private boolean isPerEntryExpiry() {
+    return timeToLive > 0 || refreshAhead > 0 || jitter > 0;
+  }
+
+  private boolean isClearedWhole() {
+    return !isPerEntryExpiry() || timeToLive > 0 && clearIntervalSet;
+  }
+
+  private static Object unwrap(Object value) {
+    return value instanceof Entry ? ((Entry) value).value : value;
+  }
+
   private boolean clearWhenStale() {
     if (System.currentTimeMillis() - lastClear > clearInterval) {
       clear();
@@ -90,4 +276,58 @@ public class ScheduledCache implements Cache {
     return false;
   }
 
+  private void refresh(Object key, Entry entry) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      getRefreshExecutor().execute(() -> {
+        try {
+          // the loader puts the new value through the whole decorator chain, which replaces this entry
+          entry.loader.reload(key);
+          refreshCount.increment();
+        } catch (RuntimeException e) {
+          // the entry is left to expire, so a failing source is not queried again on every read
+          refreshFailureCount.increment();
+          log.warn("Error refreshing the entry " + key + " of cache " + getId() + ".  Cause: " + e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      entry.refreshing.set(false);
+    }
+  }
+
+  private ExecutorService getRefreshExecutor() {
+    ExecutorService executor = refreshExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = refreshExecutor;
+        if (executor == null) {
+          String threadName = "mybatis-cache-refresh-" + getId();
+          executor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+          });
+          refreshExecutor = executor;
+          ownsRefreshExecutor = true;
+        }
+      }
+    }
+    return executor;
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long expiresAt;
+    private final CacheLoader loader;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(Object value, long expiresAt, CacheLoader loader) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.loader = loader;
+    }
+  }
+
 }
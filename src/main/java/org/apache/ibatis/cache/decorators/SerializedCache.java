@@ -15,17 +15,18 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheLoader;
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.io.Resources;
 
 /**
@@ -34,9 +35,24 @@ import org.apache.ibatis.io.Resources;
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
+  private final Codec codec;
 
   public SerializedCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a cache that stores the values encoded with the given codec.
+   *
+   * @param delegate
+   *          the delegate
+   * @param codec
+   *          the codec, or null to use the Java serialization
+   * @since 3.5.5
+   */
+  public SerializedCache(Cache delegate, Codec codec) {
     this.delegate = delegate;
+    this.codec = codec == null ? new JavaSerializationCodec() : codec;
   }
 
   @Override
@@ -49,10 +65,20 @@ public class SerializedCache implements Cache {
     return delegate.getSize();
   }
 
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
   @Override
   public void putObject(Object key, Object object) {
+    putObject(key, object, null, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags, CacheLoader loader) {
     if (object == null || object instanceof Serializable) {
-      delegate.putObject(key, serialize((Serializable) object));
+      delegate.putObject(key, codec.encode(object), tags, loader);
     } else {
       throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
     }
@@ -61,7 +87,7 @@ public class SerializedCache implements Cache {
   @Override
   public Object getObject(Object key) {
     Object object = delegate.getObject(key);
-    return object == null ? null : deserialize((byte[]) object);
+    return object == null ? null : codec.decode((byte[]) object);
   }
 
   @Override
@@ -74,6 +100,11 @@ public class SerializedCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
@@ -84,28 +115,6 @@ public class SerializedCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
-  }
-
-  private Serializable deserialize(byte[] value) {
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-        ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
-  }
-
   public static class CustomObjectInputStream extends ObjectInputStream {
 
     public CustomObjectInputStream(InputStream in) throws IOException {
@@ -99,6 +99,11 @@ public class SoftCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
   private void removeGarbageCollectedItems() {
     SoftEntry sv;
     while ((sv = (SoftEntry) queueOfGarbageCollectedEntries.poll()) != null) {
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,7 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Set;
+
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
 
 /**
  * @author Clinton Begin
@@ -38,11 +41,26 @@ public class SynchronizedCache implements Cache {
     return delegate.getSize();
   }
 
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
   @Override
   public synchronized void putObject(Object key, Object object) {
     delegate.putObject(key, object);
   }
 
+  @Override
+  public synchronized void putObject(Object key, Object object, Set<String> tags) {
+    delegate.putObject(key, object, tags);
+  }
+
+  @Override
+  public synchronized void putObject(Object key, Object object, Set<String> tags, CacheLoader loader) {
+    delegate.putObject(key, object, tags, loader);
+  }
+
   @Override
   public synchronized Object getObject(Object key) {
     return delegate.getObject(key);
@@ -58,6 +76,21 @@ public class SynchronizedCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public synchronized void close() {
+    delegate.close();
+  }
+
+  @Override
+  public synchronized void removeTagged(Set<String> tags) {
+    delegate.removeTagged(tags);
+  }
+
+  @Override
+  public synchronized boolean isTagged(Object key, Set<String> tags) {
+    return delegate.isTagged(key, tags);
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
@@ -0,0 +1,188 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
+
+/**
+ * Keeps track of the tags of the entries, so that a write removes only the entries it may have changed.
+ * <p>
+ * Tags usually name a table, such as <code>users</code>, or a row, such as <code>users:1</code>. An entry put without
+ * tags may depend on any table, so once one has been put {@link #removeTagged(Set)} clears the whole cache until the
+ * next {@link #clear()}.
+ * <p>
+ * The tags of entries dropped by the delegate on its own are kept until their keys are put again or tagged entries
+ * outnumber twice the size of the delegate, in which case the oldest ones are removed from both.
+ * <p>
+ * Writes to the delegate are made under the lock of the tag index, so that an entry cannot be put between the
+ * removal of its tags and of their entries. Reads do not take the lock.
+ *
+ * @since 3.5.5
+ */
+public class TaggedCache implements Cache {
+
+  private static final int MIN_TRACKED_KEYS = 64;
+
+  private final Cache delegate;
+  private final LinkedHashMap<Object, Set<String>> tagsByKey;
+  private final Map<String, Set<Object>> keysByTag;
+  private boolean hasUntaggedEntries;
+
+  public TaggedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.tagsByKey = new LinkedHashMap<>();
+    this.keysByTag = new HashMap<>();
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
+  /**
+   * Returns the number of entries whose tags are tracked, including entries the delegate may have dropped.
+   *
+   * @return the number of tagged keys
+   */
+  public synchronized int getTaggedKeyCount() {
+    return tagsByKey.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    putObject(key, value, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags) {
+    putObject(key, value, tags, null);
+  }
+
+  @Override
+  public synchronized void putObject(Object key, Object value, Set<String> tags, CacheLoader loader) {
+    delegate.putObject(key, value, null, loader);
+    forget(key);
+    if (value == null) {
+      return;
+    }
+    if (tags == null || tags.isEmpty()) {
+      hasUntaggedEntries = true;
+    } else {
+      tagsByKey.put(key, tags);
+      for (String tag : tags) {
+        keysByTag.computeIfAbsent(tag, k -> new HashSet<>()).add(key);
+      }
+      removeOldestWhenTooMany();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public synchronized Object removeObject(Object key) {
+    forget(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public synchronized void clear() {
+    delegate.clear();
+    tagsByKey.clear();
+    keysByTag.clear();
+    hasUntaggedEntries = false;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public synchronized void removeTagged(Set<String> tags) {
+    if (hasUntaggedEntries) {
+      clear();
+      return;
+    }
+    for (String tag : tags) {
+      Set<Object> keys = keysByTag.get(tag);
+      if (keys != null) {
+        for (Object key : keys.toArray()) {
+          forget(key);
+          delegate.removeObject(key);
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized boolean isTagged(Object key, Set<String> tags) {
+    if (hasUntaggedEntries) {
+      return true;
+    }
+    Set<String> keyTags = tagsByKey.get(key);
+    if (keyTags != null) {
+      for (String tag : tags) {
+        if (keyTags.contains(tag)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void forget(Object key) {
+    Set<String> tags = tagsByKey.remove(key);
+    if (tags != null) {
+      for (String tag : tags) {
+        Set<Object> keys = keysByTag.get(tag);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+          keysByTag.remove(tag);
+        }
+      }
+    }
+  }
+
+  private void removeOldestWhenTooMany() {
+    int maxTrackedKeys = Math.max(MIN_TRACKED_KEYS, 2 * delegate.getSize());
+    while (tagsByKey.size() > maxTrackedKeys) {
+      Object oldestKey = tagsByKey.keySet().iterator().next();
+      forget(oldestKey);
+      delegate.removeObject(oldestKey);
+    }
+  }
+
+}
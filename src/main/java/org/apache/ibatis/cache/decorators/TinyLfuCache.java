@@ -0,0 +1,415 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ConcurrentCache;
+
+/**
+ * Concurrent W-TinyLFU cache decorator.
+ * <p>
+ * Entries are held in a {@link ConcurrentHashMap}, so lookups never take a lock. New entries go to a small LRU
+ * window; entries leaving the window compete with the eviction victim of the main segmented LRU and only the one
+ * seen more often according to a {@link FrequencySketch} is kept. Reads are recorded in lossy striped buffers and
+ * replayed against the policy when one of them fills up; writes update the policy under a single lock.
+ * <p>
+ * Like the other eviction decorators, the entries are put into the delegate and removed from it when they are
+ * evicted, so the decorators below this one see every eviction. The delegate is only called under the lock though:
+ * reads are served from an index of the entries kept by this decorator and never reach it.
+ *
+ * @since 3.5.5
+ */
+public class TinyLfuCache implements ConcurrentCache {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+  private static final int REMOVED = 3;
+
+  private static final int NCPU = Runtime.getRuntime().availableProcessors();
+  private static final int READ_BUFFER_STRIPES = ceilingPowerOfTwo(Math.min(NCPU * 2, 64));
+  private static final int READ_BUFFER_SIZE = 16;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+  private final Cache delegate;
+  private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+
+  // guarded by evictionLock
+  private final AccessOrderDeque window = new AccessOrderDeque();
+  private final AccessOrderDeque probation = new AccessOrderDeque();
+  private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+  private FrequencySketch sketch;
+  private int maximumSize;
+  private int windowMaximum;
+  private int protectedMaximum;
+  private int windowSize;
+  private int protectedSize;
+  private int totalSize;
+
+  public TinyLfuCache(Cache delegate) {
+    this.delegate = delegate;
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return data.size();
+  }
+
+  /**
+   * Sets the maximum number of entries. Existing entries are discarded.
+   *
+   * @param size
+   *          the maximum number of entries
+   */
+  public void setSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Cache size must be greater than zero but was " + size);
+    }
+    evictionLock.lock();
+    try {
+      clearPolicy();
+      delegate.clear();
+      maximumSize = size;
+      windowMaximum = Math.max(1, size / 100);
+      protectedMaximum = (int) ((size - windowMaximum) * 0.8);
+      sketch = new FrequencySketch(size);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      delegate.putObject(key, value);
+      Node node = data.get(key);
+      if (node != null) {
+        node.value = value;
+        onAccess(node);
+        return;
+      }
+      node = new Node(key, value);
+      data.put(key, node);
+      sketch.increment(key);
+      node.queue = WINDOW;
+      window.addLast(node);
+      windowSize++;
+      totalSize++;
+      evict();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = data.get(key);
+    if (node == null) {
+      return null;
+    }
+    ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1)];
+    if (buffer.offer(node) && evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      Node node = data.remove(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      delegate.removeObject(key);
+      return node.value;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      clearPolicy();
+      delegate.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private void clearPolicy() {
+    drainReadBuffers();
+    for (Node node : data.values()) {
+      node.queue = REMOVED;
+    }
+    data.clear();
+    window.clear();
+    probation.clear();
+    protectedDeque.clear();
+    windowSize = 0;
+    protectedSize = 0;
+    totalSize = 0;
+    if (sketch != null) {
+      sketch.clear();
+    }
+  }
+
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drainTo(this);
+    }
+  }
+
+  private void onAccess(Node node) {
+    sketch.increment(node.key);
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToBack(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedDeque.addLast(node);
+        protectedSize++;
+        demoteFromProtected();
+        break;
+      case PROTECTED:
+        protectedDeque.moveToBack(node);
+        break;
+      default:
+        // evicted or removed after the read was recorded
+        break;
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedSize > protectedMaximum) {
+      Node demoted = protectedDeque.pollFirst();
+      protectedSize--;
+      demoted.queue = PROBATION;
+      probation.addLast(demoted);
+    }
+  }
+
+  private void evict() {
+    Node candidate = null;
+    while (windowSize > windowMaximum) {
+      Node node = window.pollFirst();
+      windowSize--;
+      node.queue = PROBATION;
+      probation.addLast(node);
+      if (candidate == null) {
+        candidate = node;
+      }
+    }
+    while (totalSize > maximumSize) {
+      Node victim = probation.peekFirst();
+      if (victim == null) {
+        victim = protectedDeque.peekFirst() != null ? protectedDeque.peekFirst() : window.peekFirst();
+        evictNode(victim);
+      } else if (candidate == null || candidate == victim) {
+        if (candidate == victim) {
+          candidate = null;
+        }
+        evictNode(victim);
+      } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+        evictNode(victim);
+      } else {
+        Node next = candidate.next;
+        evictNode(candidate);
+        candidate = next;
+      }
+    }
+  }
+
+  private void evictNode(Node node) {
+    data.remove(node.key, node);
+    unlink(node);
+    delegate.removeObject(node.key);
+  }
+
+  private void unlink(Node node) {
+    switch (node.queue) {
+      case WINDOW:
+        window.remove(node);
+        windowSize--;
+        break;
+      case PROBATION:
+        probation.remove(node);
+        break;
+      case PROTECTED:
+        protectedDeque.remove(node);
+        protectedSize--;
+        break;
+      default:
+        return;
+    }
+    node.queue = REMOVED;
+    totalSize--;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+
+  private static final class Node {
+    private final Object key;
+    private volatile Object value;
+    private int queue;
+    private Node prev;
+    private Node next;
+
+    Node(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Doubly linked list of nodes ordered from least to most recently used. Not thread-safe.
+   */
+  private static final class AccessOrderDeque {
+    private Node first;
+    private Node last;
+
+    Node peekFirst() {
+      return first;
+    }
+
+    Node pollFirst() {
+      Node node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void addLast(Node node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+    }
+
+    void moveToBack(Node node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    void clear() {
+      first = null;
+      last = null;
+    }
+  }
+
+  /**
+   * Lossy ring buffer of recorded reads. Any thread may offer, only the owner of the eviction lock drains.
+   */
+  private static final class ReadBuffer {
+    private final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong writeCount = new AtomicLong();
+    private volatile long readCount;
+
+    /**
+     * @return true if the buffer should be drained
+     */
+    boolean offer(Node node) {
+      long head = readCount;
+      long tail = writeCount.get();
+      long size = tail - head;
+      if (size >= READ_BUFFER_SIZE) {
+        return true;
+      }
+      if (writeCount.compareAndSet(tail, tail + 1)) {
+        slots.lazySet((int) (tail & READ_BUFFER_MASK), node);
+        return size + 1 >= READ_BUFFER_DRAIN_THRESHOLD;
+      }
+      // contended, dropping the read is fine
+      return false;
+    }
+
+    void drainTo(TinyLfuCache cache) {
+      long head = readCount;
+      long tail = writeCount.get();
+      while (head < tail) {
+        int index = (int) (head & READ_BUFFER_MASK);
+        Node node = slots.get(index);
+        if (node == null) {
+          // not published yet
+          break;
+        }
+        slots.lazySet(index, null);
+        cache.onAccess(node);
+        head++;
+      }
+      readCount = head;
+    }
+  }
+
+}
@@ -15,12 +15,15 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -42,12 +45,18 @@ public class TransactionalCache implements Cache {
   private final Cache delegate;
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
+  private final Map<Object, Set<String>> tagsToAddOnCommit;
+  private final Map<Object, CacheLoader> loadersToAddOnCommit;
+  private final Set<String> tagsToRemoveOnCommit;
   private final Set<Object> entriesMissedInCache;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
+    this.tagsToAddOnCommit = new HashMap<>();
+    this.loadersToAddOnCommit = new HashMap<>();
+    this.tagsToRemoveOnCommit = new HashSet<>();
     this.entriesMissedInCache = new HashSet<>();
   }
 
@@ -71,6 +80,8 @@ public class TransactionalCache implements Cache {
     // issue #146
     if (clearOnCommit) {
       return null;
+    } else if (object != null && !tagsToRemoveOnCommit.isEmpty() && delegate.isTagged(key, tagsToRemoveOnCommit)) {
+      return null;
     } else {
       return object;
     }
@@ -78,7 +89,27 @@ public class TransactionalCache implements Cache {
 
   @Override
   public void putObject(Object key, Object object) {
+    putObject(key, object, null, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags) {
+    putObject(key, object, tags, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object object, Set<String> tags, CacheLoader loader) {
     entriesToAddOnCommit.put(key, object);
+    if (tags == null) {
+      tagsToAddOnCommit.remove(key);
+    } else {
+      tagsToAddOnCommit.put(key, tags);
+    }
+    if (loader == null) {
+      loadersToAddOnCommit.remove(key);
+    } else {
+      loadersToAddOnCommit.put(key, loader);
+    }
   }
 
   @Override
@@ -90,11 +121,52 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    tagsToAddOnCommit.clear();
+    loadersToAddOnCommit.clear();
+    tagsToRemoveOnCommit.clear();
+  }
+
+  @Override
+  public void removeTagged(Set<String> tags) {
+    if (clearOnCommit) {
+      return;
+    }
+    tagsToRemoveOnCommit.addAll(tags);
+    // entries read before this write may be stale
+    entriesToAddOnCommit.keySet().removeIf(key -> {
+      Set<String> entryTags = tagsToAddOnCommit.get(key);
+      return entryTags == null || !Collections.disjoint(entryTags, tags);
+    });
+    tagsToAddOnCommit.keySet().retainAll(entriesToAddOnCommit.keySet());
+    loadersToAddOnCommit.keySet().retainAll(entriesToAddOnCommit.keySet());
+  }
+
+  @Override
+  public boolean isTagged(Object key, Set<String> tags) {
+    return delegate.isTagged(key, tags);
+  }
+
+  /**
+   * Returns what the next commit invalidates in the cache, so that it can be broadcast to the other nodes.
+   *
+   * @return the invalidation, or null when the commit only adds entries
+   * @since 3.5.5
+   */
+  public CacheInvalidation getInvalidationOnCommit() {
+    if (clearOnCommit) {
+      return CacheInvalidation.clear(getId());
+    } else if (!tagsToRemoveOnCommit.isEmpty()) {
+      return CacheInvalidation.tags(getId(), new HashSet<>(tagsToRemoveOnCommit));
+    } else {
+      return null;
+    }
   }
 
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+    } else if (!tagsToRemoveOnCommit.isEmpty()) {
+      delegate.removeTagged(tagsToRemoveOnCommit);
     }
     flushPendingEntries();
     reset();
@@ -108,12 +180,23 @@ public class TransactionalCache implements Cache {
   private void reset() {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
+    tagsToAddOnCommit.clear();
+    loadersToAddOnCommit.clear();
+    tagsToRemoveOnCommit.clear();
     entriesMissedInCache.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      Set<String> tags = tagsToAddOnCommit.get(entry.getKey());
+      CacheLoader loader = loadersToAddOnCommit.get(entry.getKey());
+      if (loader != null) {
+        delegate.putObject(entry.getKey(), entry.getValue(), tags, loader);
+      } else if (tags == null) {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      } else {
+        delegate.putObject(entry.getKey(), entry.getValue(), tags);
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheLoader;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.impl.ListSizeWeigher;
+
+/**
+ * Bounds the total weight of the entries of a cache, evicting the least recently used entries when it is exceeded.
+ * <p>
+ * The weight of each entry is given by a {@link Weigher}, the number of rows of a result by default. Entries that the
+ * delegate drops on its own, because of its eviction policy or their expiry, are forgotten when they are next read or
+ * when they become the least recently used entry.
+ * <p>
+ * Like the other eviction decorators that keep an access order, this decorator is not thread safe and relies on the
+ * {@link SynchronizedCache} that the {@link org.apache.ibatis.mapping.CacheBuilder} puts above it.
+ *
+ * @since 3.5.5
+ */
+public class WeightedCache implements Cache {
+
+  private final Cache delegate;
+  private final LinkedHashMap<Object, Long> weights;
+  private Weigher weigher;
+  private long maxWeight;
+  private volatile long totalWeight;
+  private volatile long evictionCount;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.weights = new LinkedHashMap<>(16, .75F, true);
+    this.weigher = new ListSizeWeigher();
+    this.maxWeight = Long.MAX_VALUE;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public boolean isRefreshAhead() {
+    return delegate.isRefreshAhead();
+  }
+
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher == null ? new ListSizeWeigher() : weigher;
+  }
+
+  public Weigher getWeigher() {
+    return weigher;
+  }
+
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public long getTotalWeight() {
+    return totalWeight;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    putObject(key, value, null, null);
+  }
+
+  @Override
+  public void putObject(Object key, Object value, Set<String> tags, CacheLoader loader) {
+    delegate.putObject(key, value, tags, loader);
+    forget(key);
+    if (value != null) {
+      long weight = weigher.weigh(key, value);
+      weights.put(key, weight);
+      totalWeight += weight;
+    }
+    evictWhileOverweight();
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      forget(key);
+    } else {
+      weights.get(key); // touch
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    forget(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    weights.clear();
+    totalWeight = 0;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  private void forget(Object key) {
+    Long weight = weights.remove(key);
+    if (weight != null) {
+      totalWeight -= weight;
+    }
+  }
+
+  private void evictWhileOverweight() {
+    Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+    while (totalWeight > maxWeight && eldest.hasNext()) {
+      Map.Entry<Object, Long> entry = eldest.next();
+      eldest.remove();
+      totalWeight -= entry.getValue();
+      evictionCount++;
+      delegate.removeObject(entry.getKey());
+    }
+  }
+
+}
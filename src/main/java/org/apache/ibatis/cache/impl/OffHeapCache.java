@@ -0,0 +1,563 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Cache that keeps serialized values outside of the Java heap.
+ * <p>
+ * The memory is split into slabs of {@code slabSize} bytes, allocated as direct buffers or, when {@code file} is set,
+ * mapped from a file. Values are appended to the current slab; when it is full, the next slab in the ring is
+ * recycled and every entry still stored in it is evicted, so the cache never uses more than {@code capacity} bytes.
+ * Only the keys and the location of each value stay on the heap. Values larger than a slab are not cached.
+ * <p>
+ * As every read returns a fresh copy, there is no need to combine this cache with {@code readOnly="false"}. The
+ * cache is thread safe.
+ * <p>
+ * The slabs are released, and the file closed, when the cache is initialized again or {@link #close() closed}. Where
+ * the JDK allows it, the memory is freed right away instead of when the buffers are garbage collected.
+ *
+ * @since 3.5.5
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+  private static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+  private static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+  private static final Consumer<ByteBuffer> BUFFER_CLEANER = bufferCleaner();
+
+  private final String id;
+  private final Map<Object, Location> index = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private long capacity = DEFAULT_CAPACITY;
+  private int slabSize = DEFAULT_SLAB_SIZE;
+  private String file;
+  private Codec codec = new JavaSerializationCodec();
+
+  // guarded by lock
+  private Slab[] slabs;
+  private int currentSlab;
+  private long liveBytes;
+  private long evictions;
+  private long rejections;
+  private RandomAccessFile mappedFile;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Sets the maximum number of bytes used for values. It is rounded down to a multiple of the slab size.
+   *
+   * @param capacity
+   *          the capacity in bytes
+   */
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  /**
+   * Sets a file to map the slabs from instead of allocating direct buffers. The file is truncated on initialization.
+   *
+   * @param file
+   *          the path of the file
+   */
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  /**
+   * Sets the {@link Codec} used to turn values into bytes. The default is the Java serialization.
+   *
+   * @param codec
+   *          the fully qualified class name of the codec
+   */
+  public void setCodec(String codec) {
+    try {
+      this.codec = (Codec) Resources.classForName(codec).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new CacheException("Error creating codec '" + codec + "' for cache '" + id + "'.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public void initialize() {
+    if (slabSize < 1) {
+      throw new CacheException("The slab size of cache '" + id + "' must be greater than zero but was " + slabSize);
+    }
+    if (capacity < slabSize) {
+      throw new CacheException("The capacity of cache '" + id + "' must not be less than the slab size " + slabSize
+          + " but was " + capacity);
+    }
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      releaseSlabs();
+      int slabCount = (int) Math.min(capacity / slabSize, Integer.MAX_VALUE);
+      slabs = new Slab[slabCount];
+      for (int i = 0; i < slabCount; i++) {
+        slabs[i] = new Slab(i);
+      }
+      if (file != null) {
+        mappedFile = new RandomAccessFile(file, "rw");
+        mappedFile.setLength(0);
+      }
+    } catch (IOException e) {
+      throw new CacheException("Error opening file '" + file + "' of cache '" + id + "'.  Cause: " + e, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Releases the slabs and closes the mapped file. The cache is empty afterwards and allocates new slabs if it is used
+   * again.
+   */
+  @Override
+  public void close() {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      releaseSlabs();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public int getSize() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return index.size();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value != null && !(value instanceof Serializable)) {
+      throw new CacheException("OffHeapCache failed to serialize a non-serializable object: " + value);
+    }
+    byte[] bytes = codec.encode(value);
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      ensureInitialized();
+      release(index.remove(key));
+      if (bytes.length > slabSize) {
+        rejections++;
+        return;
+      }
+      Slab slab = slabs[currentSlab];
+      if (slab.position + bytes.length > slabSize) {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        slab = slabs[currentSlab];
+        evict(slab);
+      }
+      ByteBuffer buffer = slab.buffer().duplicate();
+      buffer.position(slab.position);
+      buffer.put(bytes);
+      index.put(key, new Location(slab, slab.position, bytes.length));
+      slab.keys.add(key);
+      slab.position += bytes.length;
+      slab.liveBytes += bytes.length;
+      liveBytes += bytes.length;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      Location location = slabs == null ? null : index.get(key);
+      if (location == null) {
+        misses.increment();
+        return null;
+      }
+      bytes = location.read();
+    } finally {
+      readLock.unlock();
+    }
+    hits.increment();
+    return codec.decode(bytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      Location location = index.remove(key);
+      release(location);
+      return location == null ? null : codec.decode(location.read());
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      index.clear();
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          slab.reset();
+        }
+      }
+      liveBytes = 0;
+      currentSlab = 0;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public long getCapacity() {
+    return (capacity / slabSize) * slabSize;
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public Codec getCodec() {
+    return codec;
+  }
+
+  /**
+   * Gets the number of bytes of the slabs that have been allocated so far.
+   *
+   * @return the reserved bytes
+   */
+  public long getReservedBytes() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      long reserved = 0;
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          if (slab.buffer != null) {
+            reserved += slabSize;
+          }
+        }
+      }
+      return reserved;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of bytes written to the slabs, including the space of values that have been removed or replaced.
+   *
+   * @return the used bytes
+   */
+  public long getUsedBytes() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      long used = 0;
+      if (slabs != null) {
+        for (Slab slab : slabs) {
+          used += slab.position;
+        }
+      }
+      return used;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of bytes held by the values that are currently cached.
+   *
+   * @return the live bytes
+   */
+  public long getLiveBytes() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return liveBytes;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the share of the used bytes that is taken by removed or replaced values and will only be reclaimed when
+   * their slab is recycled.
+   *
+   * @return the fragmentation between 0 and 1
+   */
+  public double getFragmentation() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      long used = getUsedBytes();
+      return used == 0 ? 0 : 1 - (double) liveBytes / used;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  public long getEvictionCount() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return evictions;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of values that were not cached because they are larger than a slab.
+   *
+   * @return the rejection count
+   */
+  public long getRejectionCount() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return rejections;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void ensureInitialized() {
+    if (slabs == null) {
+      initialize();
+    }
+  }
+
+  private void release(Location location) {
+    if (location != null) {
+      location.slab.liveBytes -= location.length;
+      liveBytes -= location.length;
+    }
+  }
+
+  private void evict(Slab slab) {
+    for (Object key : slab.keys) {
+      Location location = index.get(key);
+      if (location != null && location.slab == slab) {
+        index.remove(key);
+        evictions++;
+      }
+    }
+    liveBytes -= slab.liveBytes;
+    slab.reset();
+  }
+
+  private void releaseSlabs() {
+    index.clear();
+    liveBytes = 0;
+    currentSlab = 0;
+    if (slabs != null) {
+      for (Slab slab : slabs) {
+        if (slab.buffer != null) {
+          BUFFER_CLEANER.accept(slab.buffer);
+          slab.buffer = null;
+        }
+      }
+      slabs = null;
+    }
+    closeMappedFile();
+  }
+
+  private static Consumer<ByteBuffer> bufferCleaner() {
+    try {
+      // JDK 9+
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      return buffer -> invokeQuietly(invokeCleaner, unsafe, buffer);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // fall through
+    }
+    try {
+      // JDK 1.8
+      Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+      Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      return buffer -> {
+        Object bufferCleaner = invokeQuietly(cleaner, buffer);
+        if (bufferCleaner != null) {
+          invokeQuietly(clean, bufferCleaner);
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // left to the garbage collector
+      return buffer -> { };
+    }
+  }
+
+  private static Object invokeQuietly(Method method, Object target, Object... args) {
+    try {
+      return method.invoke(target, args);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // left to the garbage collector
+      return null;
+    }
+  }
+
+  private void closeMappedFile() {
+    if (mappedFile != null) {
+      try {
+        mappedFile.close();
+      } catch (IOException e) {
+        // ignore
+      }
+      mappedFile = null;
+    }
+  }
+
+  private class Slab {
+
+    private final int number;
+    private final List<Object> keys = new ArrayList<>();
+    private ByteBuffer buffer;
+    private int position;
+    private int liveBytes;
+
+    Slab(int number) {
+      this.number = number;
+    }
+
+    ByteBuffer buffer() {
+      if (buffer == null) {
+        if (mappedFile == null) {
+          buffer = ByteBuffer.allocateDirect(slabSize);
+        } else {
+          try {
+            buffer = mappedFile.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) number * slabSize, slabSize);
+          } catch (IOException e) {
+            throw new CacheException("Error mapping slab " + number + " of cache '" + id + "'.  Cause: " + e, e);
+          }
+        }
+      }
+      return buffer;
+    }
+
+    void reset() {
+      keys.clear();
+      position = 0;
+      liveBytes = 0;
+    }
+  }
+
+  private static class Location {
+
+    private final Slab slab;
+    private final int offset;
+    private final int length;
+
+    Location(Slab slab, int offset, int length) {
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    byte[] read() {
+      byte[] bytes = new byte[length];
+      ByteBuffer buffer = slab.buffer.duplicate();
+      buffer.position(offset);
+      buffer.get(bytes);
+      return bytes;
+    }
+  }
+
+}
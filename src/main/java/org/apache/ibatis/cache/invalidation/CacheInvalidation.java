@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Entries of a cache that have been invalidated on a node: the whole cache, the entries that carry some tags, or
+ * single keys.
+ *
+ * @since 3.5.5
+ */
+public final class CacheInvalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String origin;
+  private final String cacheId;
+  private final boolean clear;
+  private final Set<String> tags;
+  private final Set<Object> keys;
+
+  private CacheInvalidation(String origin, String cacheId, boolean clear, Set<String> tags, Set<Object> keys) {
+    this.origin = origin;
+    this.cacheId = cacheId;
+    this.clear = clear;
+    this.tags = tags;
+    this.keys = keys;
+  }
+
+  public static CacheInvalidation clear(String cacheId) {
+    return new CacheInvalidation(null, cacheId, true, Collections.emptySet(), Collections.emptySet());
+  }
+
+  public static CacheInvalidation tags(String cacheId, Set<String> tags) {
+    return new CacheInvalidation(null, cacheId, false, tags, Collections.emptySet());
+  }
+
+  public static CacheInvalidation keys(String cacheId, Set<Object> keys) {
+    return new CacheInvalidation(null, cacheId, false, Collections.emptySet(), keys);
+  }
+
+  /**
+   * Returns a copy of this invalidation sent by the given node.
+   *
+   * @param origin
+   *          the id of the node
+   * @return the copy
+   */
+  public CacheInvalidation withOrigin(String origin) {
+    return new CacheInvalidation(origin, cacheId, clear, tags, keys);
+  }
+
+  /**
+   * Returns the id of the node this invalidation comes from.
+   *
+   * @return the node id, or null if it has not been sent yet
+   */
+  public String getOrigin() {
+    return origin;
+  }
+
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  public boolean isClear() {
+    return clear;
+  }
+
+  public Set<String> getTags() {
+    return tags;
+  }
+
+  public Set<Object> getKeys() {
+    return keys;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheInvalidation [origin=" + origin + ", cacheId=" + cacheId + ", clear=" + clear + ", tags=" + tags
+        + ", keys=" + keys + "]";
+  }
+
+}
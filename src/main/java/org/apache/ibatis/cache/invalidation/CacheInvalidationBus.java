@@ -0,0 +1,126 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Publishes the invalidations committed on this node and applies the ones received from the other nodes to the caches
+ * of a configuration.
+ * <p>
+ * Invalidations are published once the transaction has been committed, so the other nodes may serve stale entries for
+ * the time it takes to deliver them.
+ *
+ * @since 3.5.5
+ */
+public class CacheInvalidationBus implements InvalidationListener {
+
+  private static final Log log = LogFactory.getLog(CacheInvalidationBus.class);
+
+  private final Configuration configuration;
+  private final InvalidationTransport transport;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final LongAdder published = new LongAdder();
+  private final LongAdder applied = new LongAdder();
+
+  public CacheInvalidationBus(Configuration configuration, InvalidationTransport transport) {
+    this.configuration = configuration;
+    this.transport = transport;
+    transport.subscribe(this);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public InvalidationTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Sends an invalidation to the other nodes. Failures are logged, the local caches are already up to date.
+   *
+   * @param invalidation
+   *          the invalidation
+   */
+  public void publish(CacheInvalidation invalidation) {
+    try {
+      transport.publish(invalidation.withOrigin(nodeId));
+      published.increment();
+    } catch (RuntimeException e) {
+      log.warn("Could not publish " + invalidation + ".  Cause: " + e);
+    }
+  }
+
+  /**
+   * Removes an entry from a cache of this node and of the other nodes.
+   *
+   * @param cache
+   *          the cache
+   * @param key
+   *          the key of the entry
+   */
+  public void evict(Cache cache, Object key) {
+    cache.evictObject(key);
+    publish(CacheInvalidation.keys(cache.getId(), Collections.singleton(key)));
+  }
+
+  @Override
+  public void onInvalidation(CacheInvalidation invalidation) {
+    if (nodeId.equals(invalidation.getOrigin()) || !configuration.hasCache(invalidation.getCacheId())) {
+      return;
+    }
+    try {
+      Cache cache = configuration.getCache(invalidation.getCacheId());
+      if (invalidation.isClear()) {
+        cache.clear();
+      } else {
+        if (!invalidation.getTags().isEmpty()) {
+          cache.removeTagged(invalidation.getTags());
+        }
+        for (Object key : invalidation.getKeys()) {
+          cache.evictObject(key);
+        }
+      }
+      applied.increment();
+    } catch (RuntimeException e) {
+      log.warn("Could not apply " + invalidation + ".  Cause: " + e);
+    }
+  }
+
+  public long getPublishedCount() {
+    return published.sum();
+  }
+
+  public long getAppliedCount() {
+    return applied.sum();
+  }
+
+  /**
+   * Stops receiving the invalidations of the other nodes.
+   */
+  public void close() {
+    transport.close();
+  }
+
+}
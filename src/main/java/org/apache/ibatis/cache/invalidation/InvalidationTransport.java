@@ -0,0 +1,52 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+/**
+ * Carries the cache invalidations between the nodes of a cluster, for instance over a message broker.
+ * <p>
+ * Invalidations and the cache keys they contain are {@link java.io.Serializable}. Implementations must be thread safe
+ * and provide a public no-argument constructor to be set with the <code>cacheInvalidationTransport</code> setting.
+ *
+ * @since 3.5.5
+ */
+public interface InvalidationTransport {
+
+  /**
+   * Registers the listener that receives the invalidations of the other nodes. Called once, before any publication.
+   *
+   * @param listener
+   *          the listener
+   */
+  void subscribe(InvalidationListener listener);
+
+  /**
+   * Sends an invalidation to the other nodes. A transport that also delivers it back to this node does no harm, the
+   * listener ignores its own invalidations.
+   *
+   * @param invalidation
+   *          the invalidation
+   */
+  void publish(CacheInvalidation invalidation);
+
+  /**
+   * Stops receiving invalidations.
+   */
+  default void close() {
+    // NOP
+  }
+
+}
@@ -0,0 +1,79 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+
+/**
+ * Delivers the invalidations to the transports of the same channel in this JVM, for instance to test several session
+ * factories that act as the nodes of a cluster.
+ * <p>
+ * Invalidations are serialized and deserialized on the way, as they would be on a network, and delivered
+ * synchronously on the publishing thread. A channel does not keep its transports reachable.
+ *
+ * @since 3.5.5
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+  private static final Map<String, List<WeakReference<LoopbackTransport>>> channels = new ConcurrentHashMap<>();
+
+  private final Codec codec = new JavaSerializationCodec();
+  private final List<WeakReference<LoopbackTransport>> peers;
+  private final WeakReference<LoopbackTransport> self = new WeakReference<>(this);
+  private volatile InvalidationListener listener;
+
+  public LoopbackTransport() {
+    this("default");
+  }
+
+  public LoopbackTransport(String channel) {
+    this.peers = channels.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>());
+  }
+
+  @Override
+  public void subscribe(InvalidationListener listener) {
+    this.listener = listener;
+    peers.removeIf(peer -> peer.get() == null);
+    peers.add(self);
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    byte[] message = codec.encode(invalidation);
+    for (WeakReference<LoopbackTransport> reference : peers) {
+      LoopbackTransport peer = reference.get();
+      if (peer == null) {
+        peers.remove(reference);
+      } else if (peer != this && peer.listener != null) {
+        peer.listener.onInvalidation((CacheInvalidation) codec.decode(message));
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    peers.remove(self);
+    listener = null;
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+/**
+ * Receives the events of a second level cache so they can be exported to a monitoring system.
+ * <p>
+ * The methods are called on the hot path of every cached query, they must be cheap and thread safe.
+ *
+ * @since 3.5.5
+ */
+public interface CacheMetrics {
+
+  /**
+   * Records a lookup that found a value.
+   */
+  void recordHit();
+
+  /**
+   * Records a lookup that found nothing.
+   */
+  void recordMiss();
+
+  /**
+   * Records a value put into the cache.
+   */
+  void recordPut();
+
+  /**
+   * Records an entry removed by the eviction policy, an expiration or an invalidation.
+   */
+  void recordEviction();
+
+  /**
+   * Records the time taken to load a missing value from the database.
+   *
+   * @param nanos
+   *          the load time in nanoseconds
+   */
+  void recordLoad(long nanos);
+
+  /**
+   * Releases what the metrics hold, such as their registration in a monitoring system, when their cache is closed.
+   */
+  default void close() {
+    // nothing to release
+  }
+
+}
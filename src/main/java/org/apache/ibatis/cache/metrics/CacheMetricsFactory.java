@@ -0,0 +1,36 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Creates the metrics of each second level cache.
+ *
+ * @since 3.5.5
+ */
+public interface CacheMetricsFactory {
+
+  /**
+   * Creates the metrics of a cache.
+   *
+   * @param cache
+   *          the cache, fully decorated, that can be asked for its id and its size
+   * @return the metrics that will receive the events of the cache
+   */
+  CacheMetrics create(Cache cache);
+
+}
@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+/**
+ * The management interface of the metrics of a second level cache.
+ *
+ * @since 3.5.5
+ */
+public interface CacheMetricsMXBean {
+
+  String getId();
+
+  long getHits();
+
+  long getMisses();
+
+  double getHitRatio();
+
+  long getPuts();
+
+  long getEvictions();
+
+  /**
+   * Returns the number of entries of the cache, as reported by the cache itself.
+   *
+   * @return the estimated size
+   */
+  int getEstimatedSize();
+
+  long getLoads();
+
+  double getAverageLoadTimeMillis();
+
+  /**
+   * Returns the load time histogram. The element {@code i} counts the loads that took less than {@code 2^i}
+   * microseconds and at least {@code 2^(i-1)}, the last element counts all the slower loads.
+   *
+   * @return the number of loads of each bucket
+   */
+  long[] getLoadTimeHistogram();
+
+  /**
+   * Returns an upper bound of the load time under which the given percentage of the loads completed.
+   *
+   * @param percentile
+   *          the percentile, between 0 and 100
+   * @return the load time in milliseconds
+   */
+  double getLoadTimePercentileMillis(double percentile);
+
+  /**
+   * Sets all the counters back to zero.
+   */
+  void reset();
+
+}
@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Counts the events of a cache with striped counters, so that recording them does not contend between threads.
+ *
+ * @since 3.5.5
+ */
+public class DefaultCacheMetrics implements CacheMetrics, CacheMetricsMXBean {
+
+  private static final int BUCKETS = 32;
+
+  private final Cache cache;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loadTime = new LongAdder();
+  private final LongAdder[] loadTimeHistogram = new LongAdder[BUCKETS];
+
+  public DefaultCacheMetrics(Cache cache) {
+    this.cache = cache;
+    for (int i = 0; i < BUCKETS; i++) {
+      loadTimeHistogram[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void recordHit() {
+    hits.increment();
+  }
+
+  @Override
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  @Override
+  public void recordPut() {
+    puts.increment();
+  }
+
+  @Override
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  @Override
+  public void recordLoad(long nanos) {
+    loadTime.add(nanos);
+    long micros = Math.max(nanos / 1000L, 0L);
+    loadTimeHistogram[Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1)].increment();
+  }
+
+  @Override
+  public String getId() {
+    return cache.getId();
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long hitCount = hits.sum();
+    long requests = hitCount + misses.sum();
+    return requests == 0 ? 0.0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public int getEstimatedSize() {
+    return cache.getSize();
+  }
+
+  @Override
+  public long getLoads() {
+    long loads = 0;
+    for (LongAdder bucket : loadTimeHistogram) {
+      loads += bucket.sum();
+    }
+    return loads;
+  }
+
+  @Override
+  public double getAverageLoadTimeMillis() {
+    long loads = getLoads();
+    return loads == 0 ? 0.0 : loadTime.sum() / 1_000_000.0 / loads;
+  }
+
+  @Override
+  public long[] getLoadTimeHistogram() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = loadTimeHistogram[i].sum();
+    }
+    return counts;
+  }
+
+  @Override
+  public double getLoadTimePercentileMillis(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("The percentile must be between 0 and 100 but was " + percentile);
+    }
+    long[] counts = getLoadTimeHistogram();
+    long loads = 0;
+    for (long count : counts) {
+      loads += count;
+    }
+    if (loads == 0) {
+      return 0.0;
+    }
+    long rank = (long) Math.ceil(loads * percentile / 100.0);
+    long seen = 0;
+    int bucket = 0;
+    for (; bucket < BUCKETS - 1; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        break;
+      }
+    }
+    // the upper bound of the bucket, in microseconds
+    return (1L << bucket) / 1000.0;
+  }
+
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    puts.reset();
+    evictions.reset();
+    loadTime.reset();
+    for (LongAdder bucket : loadTimeHistogram) {
+      bucket.reset();
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Registers the metrics of each cache in the platform MBean server, under the name
+ * {@code org.apache.ibatis:type=Cache,name="<cache id>"}.
+ * <p>
+ * A cache built again with the same id, for instance by another session factory, replaces the previous registration.
+ * The metrics are unregistered when their cache is closed, see
+ * {@link org.apache.ibatis.session.Configuration#closeCaches()}.
+ *
+ * @since 3.5.5
+ */
+public class JmxCacheMetricsFactory extends DefaultCacheMetricsFactory {
+
+  private static final Log log = LogFactory.getLog(JmxCacheMetricsFactory.class);
+
+  // guarded by itself
+  private static final Map<ObjectName, CacheMetrics> REGISTERED = new HashMap<>();
+
+  @Override
+  public CacheMetrics create(Cache cache) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ObjectName name = getObjectName(cache.getId());
+      JmxCacheMetrics metrics = new JmxCacheMetrics(cache, server, name);
+      synchronized (REGISTERED) {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+        server.registerMBean(metrics, name);
+        REGISTERED.put(name, metrics);
+      }
+      return metrics;
+    } catch (JMException e) {
+      log.warn("Could not register the metrics of cache " + cache.getId() + ".  Cause: " + e);
+      return new DefaultCacheMetrics(cache);
+    }
+  }
+
+  /**
+   * Returns the name the metrics of a cache are registered under.
+   *
+   * @param id
+   *          the cache id
+   * @return the object name
+   * @throws JMException
+   *           if the name is malformed
+   */
+  public static ObjectName getObjectName(String id) throws JMException {
+    return new ObjectName("org.apache.ibatis:type=Cache,name=" + ObjectName.quote(id));
+  }
+
+  private static class JmxCacheMetrics extends DefaultCacheMetrics {
+
+    private final MBeanServer server;
+    private final ObjectName name;
+
+    JmxCacheMetrics(Cache cache, MBeanServer server, ObjectName name) {
+      super(cache);
+      this.server = server;
+      this.name = name;
+    }
+
+    @Override
+    public void close() {
+      synchronized (REGISTERED) {
+        // the registration may have been replaced by a cache built again with the same id
+        if (REGISTERED.remove(name, this)) {
+          try {
+            server.unregisterMBean(name);
+          } catch (JMException e) {
+            log.warn("Could not unregister the metrics of cache " + name + ".  Cause: " + e);
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -21,7 +21,8 @@ import java.io.Closeable;
  * Cursor contract to handle fetching items lazily using an Iterator.
  * Cursors are a perfect fit to handle millions of items queries that would not normally fits in memory.
  * If you use collections in resultMaps then cursor SQL queries must be ordered (resultOrdered="true")
- * using the id columns of the resultMap.
+ * using the id columns of the resultMap. Each item is then returned once all its nested results have been read,
+ * and only the nested results of the current item are kept in memory.
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetWrapper;
 import org.apache.ibatis.mapping.ResultMap;
@@ -141,7 +142,12 @@ public class DefaultCursor<T> implements Cursor<T> {
         resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, RowBounds.DEFAULT, null);
       }
     } catch (SQLException e) {
+      // the cursor is iterated outside of a session call, which would discard the context
+      ErrorContext.clearInstance();
       throw new RuntimeException(e);
+    } catch (RuntimeException e) {
+      ErrorContext.clearInstance();
+      throw e;
     }
 
     T next = objectWrapperResultHandler.result;
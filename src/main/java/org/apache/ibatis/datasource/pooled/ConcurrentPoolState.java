@@ -0,0 +1,294 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pool state used by {@link PoolMode#CONCURRENT}. Idle connections live in a lock-free bag: a thread first tries the
+ * connection it returned last, then the shared LIFO deque, and finally parks on a fair hand-off queue that returning
+ * threads feed directly. Ownership of a connection is decided by a CAS on its state, so no monitor is needed.
+ *
+ * @since 3.5.5
+ */
+public class ConcurrentPoolState extends PoolState {
+
+  private final Deque<PooledConnection> idleQueue = new ConcurrentLinkedDeque<>();
+  private final ThreadLocal<PooledConnection> lastReturned = new ThreadLocal<>();
+  private final SynchronousQueue<PooledConnection> handoffQueue = new SynchronousQueue<>(true);
+  private final Map<Connection, PooledConnection> active = new ConcurrentHashMap<>();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger totalCount = new AtomicInteger();
+
+  final LongAdder requestCounter = new LongAdder();
+  final LongAdder accumulatedRequestTimeCounter = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeCounter = new LongAdder();
+  final LongAdder claimedOverdueConnectionCounter = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeOfOverdueConnectionsCounter = new LongAdder();
+  final LongAdder accumulatedWaitTimeCounter = new LongAdder();
+  final LongAdder hadToWaitCounter = new LongAdder();
+  final LongAdder badConnectionCounter = new LongAdder();
+
+  public ConcurrentPoolState(PooledDataSource dataSource) {
+    super(dataSource);
+  }
+
+  /**
+   * Claims an idle connection without blocking.
+   *
+   * @return the claimed connection, or null if there is no idle connection
+   */
+  PooledConnection borrowIdleConnection() {
+    PooledConnection conn = lastReturned.get();
+    if (conn != null) {
+      lastReturned.remove();
+      if (claim(conn)) {
+        // the same connection sits near the head of the deque, drop it so the deque stays bounded
+        idleQueue.removeFirstOccurrence(conn);
+        return conn;
+      }
+    }
+    while ((conn = idleQueue.pollFirst()) != null) {
+      if (claim(conn)) {
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Waits up to the given time for an idle connection, either found in the bag or handed off by a returning thread.
+   *
+   * @param timeoutMillis
+   *          the maximum time to wait
+   * @return the claimed connection, or null if none became available in time
+   * @throws InterruptedException
+   *           if the waiting thread is interrupted
+   */
+  PooledConnection awaitIdleConnection(long timeoutMillis) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      long remaining;
+      do {
+        PooledConnection conn = borrowIdleConnection();
+        if (conn != null) {
+          return conn;
+        }
+        remaining = deadline - System.nanoTime();
+        conn = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (conn != null && claim(conn)) {
+          return conn;
+        }
+        remaining = deadline - System.nanoTime();
+      } while (remaining > 0);
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Puts a connection back into the bag, handing it directly to a waiting thread when there is one.
+   *
+   * @param conn
+   *          a new, idle connection wrapper
+   */
+  void offerIdleConnection(PooledConnection conn) {
+    idleCount.incrementAndGet();
+    idleQueue.offerFirst(conn);
+    lastReturned.set(conn);
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (conn.getState() != PooledConnection.STATE_IDLE || handoffQueue.offer(conn)) {
+        return;
+      } else if ((i & 0xff) == 0xff) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+      } else {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * Reserves room for one more physical connection.
+   *
+   * @param maximum
+   *          the maximum number of physical connections
+   * @return true if a new connection may be opened
+   */
+  boolean reserveConnection(int maximum) {
+    for (;;) {
+      int current = totalCount.get();
+      if (current >= maximum) {
+        return false;
+      }
+      if (totalCount.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back the room held by a physical connection that has been (or is about to be) closed.
+   */
+  void releaseConnection() {
+    totalCount.decrementAndGet();
+  }
+
+  void activate(PooledConnection conn) {
+    active.put(conn.getRealConnection(), conn);
+  }
+
+  /**
+   * Retires an active connection on its return.
+   *
+   * @param conn
+   *          the connection being returned
+   * @return false if the connection had already been claimed as overdue or force closed
+   */
+  boolean deactivate(PooledConnection conn) {
+    if (!conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      return false;
+    }
+    removeActive(conn);
+    return true;
+  }
+
+  /**
+   * Retires the first active connection that has been checked out for longer than the given time.
+   *
+   * @param maximumCheckoutTime
+   *          the maximum checkout time
+   * @return the overdue connection, or null if there is none
+   */
+  PooledConnection claimOverdueConnection(long maximumCheckoutTime) {
+    for (PooledConnection conn : active.values()) {
+      if (conn.getCheckoutTime() > maximumCheckoutTime
+          && conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+        removeActive(conn);
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retires every active and idle connection.
+   *
+   * @return the retired connections, which the caller must close
+   */
+  List<PooledConnection> removeAll() {
+    List<PooledConnection> removed = new ArrayList<>();
+    for (Iterator<PooledConnection> it = active.values().iterator(); it.hasNext();) {
+      PooledConnection conn = it.next();
+      it.remove();
+      if (conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+        totalCount.decrementAndGet();
+        removed.add(conn);
+      }
+    }
+    PooledConnection conn;
+    while ((conn = idleQueue.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_REMOVED)) {
+        idleCount.decrementAndGet();
+        totalCount.decrementAndGet();
+        removed.add(conn);
+      }
+    }
+    return removed;
+  }
+
+  private boolean claim(PooledConnection conn) {
+    if (conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE)) {
+      idleCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private void removeActive(PooledConnection conn) {
+    // PooledConnection.equals() compares the real connection, so match on identity here
+    active.computeIfPresent(conn.getRealConnection(), (k, v) -> v == conn ? null : v);
+  }
+
+  @Override
+  public long getRequestCount() {
+    return requestCounter.sum();
+  }
+
+  @Override
+  public long getAverageRequestTime() {
+    long requests = requestCounter.sum();
+    return requests == 0 ? 0 : accumulatedRequestTimeCounter.sum() / requests;
+  }
+
+  @Override
+  public long getAverageWaitTime() {
+    long waits = hadToWaitCounter.sum();
+    return waits == 0 ? 0 : accumulatedWaitTimeCounter.sum() / waits;
+  }
+
+  @Override
+  public long getHadToWaitCount() {
+    return hadToWaitCounter.sum();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return badConnectionCounter.sum();
+  }
+
+  @Override
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCounter.sum();
+  }
+
+  @Override
+  public long getAverageOverdueCheckoutTime() {
+    long claimed = claimedOverdueConnectionCounter.sum();
+    return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnectionsCounter.sum() / claimed;
+  }
+
+  @Override
+  public long getAverageCheckoutTime() {
+    long requests = requestCounter.sum();
+    return requests == 0 ? 0 : accumulatedCheckoutTimeCounter.sum() / requests;
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return idleCount.get();
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return active.size();
+  }
+
+}
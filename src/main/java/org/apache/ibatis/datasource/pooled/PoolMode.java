@@ -0,0 +1,36 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * The strategies {@link PooledDataSource} can use to hand out and take back connections.
+ *
+ * @since 3.5.5
+ */
+public enum PoolMode {
+
+  /**
+   * All checkouts and returns are serialized on the {@link PoolState} monitor.
+   */
+  SYNCHRONIZED,
+
+  /**
+   * Idle connections are kept in a lock-free bag with a per-thread fast path, and waiting threads are served through
+   * a fair hand-off queue. Statistics are kept in striped counters.
+   */
+  CONCURRENT
+
+}
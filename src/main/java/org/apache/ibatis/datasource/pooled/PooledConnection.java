@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -29,8 +30,17 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String UNWRAP = "unwrap";
+  private static final String IS_WRAPPER_FOR = "isWrapperFor";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
+  static final int STATE_IDLE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_REMOVED = 2;
+
+  private static final AtomicIntegerFieldUpdater<PooledConnection> STATE_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "state");
+
   private final int hashCode;
   private final PooledDataSource dataSource;
   private final Connection realConnection;
@@ -40,6 +50,8 @@ class PooledConnection implements InvocationHandler {
   private long lastUsedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private volatile int state = STATE_IDLE;
+  private StatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -75,6 +87,74 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /**
+   * Atomically moves this connection from one state to another. Used by the concurrent pool mode so that
+   * only one thread can claim an idle connection or retire an active one.
+   *
+   * @param expect
+   *          the expected current state
+   * @param update
+   *          the new state
+   * @return true if the transition was made
+   */
+  boolean compareAndSetState(int expect, int update) {
+    return STATE_UPDATER.compareAndSet(this, expect, update);
+  }
+
+  int getState() {
+    return state;
+  }
+
+  /**
+   * Gets the cache of statements prepared on the real connection, creating it on first use.
+   *
+   * @return the statement cache, or null if the pool does not cache statements
+   * @since 3.5.5
+   */
+  synchronized StatementCache getStatementCache() {
+    if (statementCache == null) {
+      int size = dataSource.getPoolStatementCacheSize();
+      if (size > 0) {
+        statementCache = new StatementCache(size, dataSource.getStatementCacheStatistics());
+      }
+    }
+    return statementCache;
+  }
+
+  /**
+   * Takes over the statement cache of a connection that wraps the same real connection.
+   *
+   * @param previous
+   *          the connection that is being replaced
+   * @since 3.5.5
+   */
+  void takeStatementCache(PooledConnection previous) {
+    StatementCache cache;
+    synchronized (previous) {
+      cache = previous.statementCache;
+      previous.statementCache = null;
+    }
+    synchronized (this) {
+      statementCache = cache;
+    }
+  }
+
+  /**
+   * Closes the cached statements of a connection that is handed over to another user while it may still be in use.
+   *
+   * @since 3.5.5
+   */
+  void discardStatementCache() {
+    StatementCache cache;
+    synchronized (this) {
+      cache = statementCache;
+      statementCache = null;
+    }
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
   /**
    * Getter for the *real* connection that this wraps.
    *
@@ -252,6 +332,14 @@ class PooledConnection implements InvocationHandler {
         // throw an SQLException instead of a Runtime
         checkConnection();
       }
+      if ((UNWRAP.equals(methodName) || IS_WRAPPER_FOR.equals(methodName)) && StatementCache.class.equals(args[0])) {
+        StatementCache cache = getStatementCache();
+        if (IS_WRAPPER_FOR.equals(methodName)) {
+          return cache != null;
+        } else if (cache != null) {
+          return cache;
+        }
+      }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
       throw ExceptionUtil.unwrapThrowable(t);
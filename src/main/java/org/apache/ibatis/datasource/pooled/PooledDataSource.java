@@ -22,17 +22,20 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.DataSourceException;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
 /**
  * This is a simple, synchronous, thread-safe database connection pool.
+ * Setting {@code poolMode} to {@link PoolMode#CONCURRENT} switches it to a lock-free engine for highly concurrent use.
  *
  * @author Clinton Begin
  */
@@ -40,7 +43,7 @@ public class PooledDataSource implements DataSource {
 
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
-  private final PoolState state = new PoolState(this);
+  private volatile PoolState state = new PoolState(this);
 
   private final UnpooledDataSource dataSource;
 
@@ -53,6 +56,10 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected PoolMode poolMode = PoolMode.SYNCHRONIZED;
+  protected int poolStatementCacheSize = 32;
+
+  private final StatementCache.Statistics statementCacheStatistics = new StatementCache.Statistics();
 
   private int expectedConnectionTypeCode;
 
@@ -254,6 +261,39 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * The strategy used to check out and return connections. Changing the mode closes all connections and resets the
+   * pool statistics.
+   *
+   * @param poolMode
+   *          the name of a {@link PoolMode} (case insensitive)
+   * @since 3.5.5
+   */
+  public void setPoolMode(String poolMode) {
+    PoolMode mode;
+    try {
+      mode = PoolMode.valueOf(poolMode.toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw new DataSourceException("Unknown pool mode: " + poolMode, e);
+    }
+    forceCloseAll();
+    this.poolMode = mode;
+    this.state = mode == PoolMode.CONCURRENT ? new ConcurrentPoolState(this) : new PoolState(this);
+  }
+
+  /**
+   * The number of prepared statements each connection keeps for {@link org.apache.ibatis.session.ExecutorType#REUSE_POOLED}
+   * executors. Zero disables the statement cache.
+   *
+   * @param poolStatementCacheSize
+   *          the maximum number of cached statements per connection
+   * @since 3.5.5
+   */
+  public void setPoolStatementCacheSize(int poolStatementCacheSize) {
+    this.poolStatementCacheSize = poolStatementCacheSize;
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,10 +364,40 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public String getPoolMode() {
+    return poolMode.name();
+  }
+
+  public int getPoolStatementCacheSize() {
+    return poolStatementCacheSize;
+  }
+
+  /**
+   * Gets the hit, miss and eviction counters shared by the statement caches of all connections.
+   *
+   * @return the statement cache statistics
+   * @since 3.5.5
+   */
+  public StatementCache.Statistics getStatementCacheStatistics() {
+    return statementCacheStatistics;
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
+    PoolState state = this.state;
+    if (state instanceof ConcurrentPoolState) {
+      expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+      for (PooledConnection conn : ((ConcurrentPoolState) state).removeAll()) {
+        conn.invalidate();
+        closeQuietly(conn.getRealConnection());
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("PooledDataSource forcefully closed/removed all connections.");
+      }
+      return;
+    }
     synchronized (state) {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
@@ -373,6 +443,11 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    PoolState state = this.state;
+    if (state instanceof ConcurrentPoolState) {
+      pushConcurrentConnection((ConcurrentPoolState) state, conn);
+      return;
+    }
 
     synchronized (state) {
       state.activeConnections.remove(conn);
@@ -383,6 +458,7 @@ public class PooledDataSource implements DataSource {
             conn.getRealConnection().rollback();
           }
           PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.takeStatementCache(conn);
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
@@ -412,6 +488,10 @@ public class PooledDataSource implements DataSource {
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    PoolState state = this.state;
+    if (state instanceof ConcurrentPoolState) {
+      return popConcurrentConnection((ConcurrentPoolState) state, username, password);
+    }
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
@@ -458,6 +538,7 @@ public class PooledDataSource implements DataSource {
                   log.debug("Bad connection. Could not roll back");
                 }
               }
+              oldestActiveConnection.discardStatementCache();
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
@@ -525,6 +606,180 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private void pushConcurrentConnection(ConcurrentPoolState state, PooledConnection conn) throws SQLException {
+    if (!state.deactivate(conn)) {
+      // already claimed as overdue or force closed
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCounter.increment();
+      return;
+    }
+    if (!conn.isValid()) {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCounter.increment();
+      state.releaseConnection();
+      return;
+    }
+    state.accumulatedCheckoutTimeCounter.add(conn.getCheckoutTime());
+    boolean returned = false;
+    try {
+      if (!conn.getRealConnection().getAutoCommit()) {
+        conn.getRealConnection().rollback();
+      }
+      if (state.getIdleConnectionCount() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+        PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+        newConn.takeStatementCache(conn);
+        newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+        newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+        conn.invalidate();
+        state.offerIdleConnection(newConn);
+        returned = true;
+        if (log.isDebugEnabled()) {
+          log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+        }
+      }
+    } finally {
+      if (!returned) {
+        conn.invalidate();
+        state.releaseConnection();
+        closeQuietly(conn.getRealConnection());
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+      }
+    }
+  }
+
+  private PooledConnection popConcurrentConnection(ConcurrentPoolState state, String username, String password) throws SQLException {
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    while (conn == null) {
+      conn = state.borrowIdleConnection();
+      if (conn != null) {
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (state.reserveConnection(poolMaximumActiveConnections)) {
+        try {
+          conn = new PooledConnection(dataSource.getConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          state.releaseConnection();
+          throw e;
+        }
+        conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        PooledConnection overdueConnection = state.claimOverdueConnection(poolMaximumCheckoutTime);
+        if (overdueConnection != null) {
+          long longestCheckoutTime = overdueConnection.getCheckoutTime();
+          state.claimedOverdueConnectionCounter.increment();
+          state.accumulatedCheckoutTimeOfOverdueConnectionsCounter.add(longestCheckoutTime);
+          state.accumulatedCheckoutTimeCounter.add(longestCheckoutTime);
+          try {
+            if (!overdueConnection.getRealConnection().getAutoCommit()) {
+              overdueConnection.getRealConnection().rollback();
+            }
+          } catch (SQLException e) {
+            // the validity check below sorts out a broken connection
+            log.debug("Bad connection. Could not roll back");
+          }
+          overdueConnection.discardStatementCache();
+          conn = new PooledConnection(overdueConnection.getRealConnection(), this);
+          conn.setCreatedTimestamp(overdueConnection.getCreatedTimestamp());
+          conn.setLastUsedTimestamp(overdueConnection.getLastUsedTimestamp());
+          conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE);
+          overdueConnection.invalidate();
+          if (log.isDebugEnabled()) {
+            log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+          }
+        } else {
+          if (!countedWait) {
+            state.hadToWaitCounter.increment();
+            countedWait = true;
+          }
+          if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+          }
+          long wt = System.currentTimeMillis();
+          try {
+            conn = state.awaitIdleConnection(poolTimeToWait);
+          } catch (InterruptedException e) {
+            break;
+          }
+          state.accumulatedWaitTimeCounter.add(System.currentTimeMillis() - wt);
+        }
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          boolean checkedOut = false;
+          try {
+            if (!conn.getRealConnection().getAutoCommit()) {
+              conn.getRealConnection().rollback();
+            }
+            checkedOut = true;
+          } finally {
+            if (!checkedOut) {
+              conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED);
+              conn.invalidate();
+              state.releaseConnection();
+              closeQuietly(conn.getRealConnection());
+            }
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          state.activate(conn);
+          state.requestCounter.increment();
+          state.accumulatedRequestTimeCounter.add(System.currentTimeMillis() - t);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED);
+          state.releaseConnection();
+          state.badConnectionCounter.increment();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+            if (log.isDebugEnabled()) {
+              log.debug("PooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    return conn;
+  }
+
+  private void closeQuietly(Connection realConn) {
+    try {
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -0,0 +1,158 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded cache of statements prepared on one physical connection. Entries are kept in least recently used
+ * order and the eldest one is evicted when a new statement would exceed the size. The cache travels with the
+ * physical connection when it goes back to the pool, so statements survive the sessions that prepared them.
+ * <p>
+ * Evicted statements are handed back to the caller, which decides when they can be closed.
+ *
+ * @since 3.5.5
+ */
+public class StatementCache {
+
+  private final int size;
+  private final Map<Object, Statement> statements = new LinkedHashMap<>(16, 0.75f, true);
+  private final Statistics statistics;
+
+  public StatementCache(int size) {
+    this(size, new Statistics());
+  }
+
+  public StatementCache(int size, Statistics statistics) {
+    if (size < 1) {
+      throw new IllegalArgumentException("The size of a statement cache must be greater than zero but was " + size);
+    }
+    this.size = size;
+    this.statistics = statistics;
+  }
+
+  /**
+   * Gets the statement prepared for the key and marks it as the most recently used one.
+   *
+   * @param key
+   *          the key
+   * @return the statement, or null if there is none
+   */
+  public synchronized Statement get(Object key) {
+    Statement statement = statements.get(key);
+    if (statement == null) {
+      statistics.misses.increment();
+    } else {
+      statistics.hits.increment();
+    }
+    return statement;
+  }
+
+  /**
+   * Caches a statement.
+   *
+   * @param key
+   *          the key
+   * @param statement
+   *          the statement
+   * @return the statement that was replaced or evicted to make room, or null if there is none
+   */
+  public synchronized Statement put(Object key, Statement statement) {
+    Statement previous = statements.put(key, statement);
+    if (previous == null && statements.size() > size) {
+      Iterator<Statement> eldest = statements.values().iterator();
+      previous = eldest.next();
+      eldest.remove();
+      statistics.evictions.increment();
+    }
+    return previous;
+  }
+
+  public synchronized Statement remove(Object key) {
+    return statements.remove(key);
+  }
+
+  /**
+   * Removes and closes all statements.
+   */
+  public void clear() {
+    List<Statement> removed;
+    synchronized (this) {
+      removed = new ArrayList<>(statements.values());
+      statements.clear();
+    }
+    for (Statement statement : removed) {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+  }
+
+  public synchronized int getCount() {
+    return statements.size();
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public Statistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Hit, miss and eviction counters. One instance can be shared by the caches of all connections of a pool.
+   */
+  public static class Statistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public long getHits() {
+      return hits.sum();
+    }
+
+    public long getMisses() {
+      return misses.sum();
+    }
+
+    public long getEvictions() {
+      return evictions.sum();
+    }
+
+    public double getHitRatio() {
+      long hits = getHits();
+      long requests = hits + getMisses();
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+      return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions();
+    }
+  }
+
+}
@@ -109,12 +109,16 @@ public abstract class BaseExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameter) throws SQLException {
-    ErrorContext.instance().resource(ms.getResource()).activity("executing an update").object(ms.getId());
-    if (closed) {
-      throw new ExecutorException("Executor was closed.");
+    try {
+      if (closed) {
+        throw new ExecutorException("Executor was closed.");
+      }
+      clearLocalCache();
+      return doUpdate(ms, parameter);
+    } catch (SQLException | RuntimeException e) {
+      ErrorContext.instance().failure(ms.getResource(), "executing an update", ms.getId(), null);
+      throw e;
     }
-    clearLocalCache();
-    return doUpdate(ms, parameter);
   }
 
   @Override
@@ -136,10 +140,18 @@ public abstract class BaseExecutor implements Executor {
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
-    ErrorContext.instance().resource(ms.getResource()).activity("executing a query").object(ms.getId());
+    try {
+      return queryWithLocalCache(ms, parameter, rowBounds, resultHandler, key, boundSql);
+    } catch (SQLException | RuntimeException e) {
+      ErrorContext.instance().failure(ms.getResource(), "executing a query", ms.getId(), boundSql.getSql());
+      throw e;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <E> List<E> queryWithLocalCache(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
@@ -196,12 +208,12 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
@@ -21,21 +21,47 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.jdbc.ConnectionLogger;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
 /**
+ * Executor that batches updates until they are flushed.
+ * <p>
+ * When {@link Configuration#isParallelBatchFlush()} is enabled, the statements of each mapped statement are prepared on
+ * a connection of their own, taken from the data source of the environment, and the batches of the different mapped
+ * statements are executed concurrently when flushed. The mapped statements are then assumed not to depend on each
+ * other, while the batches of a mapped statement keep the order in which they were added. Auto-commit is disabled on
+ * those connections, which are all committed once every batch has succeeded and all rolled back otherwise. Mapped
+ * statements with a key generator other than {@link Jdbc3KeyGenerator} keep being executed on the connection of the
+ * session.
+ * <p>
+ * The statements are also flushed when the rows batched for a mapped statement, or the estimated size of their
+ * parameters, reach the thresholds of that mapped statement or of the configuration. The results of such a flush are
+ * returned by the next {@link #flushStatements()}, along with the results of the statements flushed then. They only
+ * keep their update counts: their parameter objects are released once the generated keys have been assigned to them,
+ * so that the memory used by a large batch stays bounded.
+ *
  * @author Jeff Butler
  */
 public class BatchExecutor extends BaseExecutor {
@@ -46,9 +72,20 @@ public class BatchExecutor extends BaseExecutor {
   private final List<BatchResult> batchResultList = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
+  private int currentStatementIndex;
+  private final Map<MappedStatement, PendingRows> pendingRows = new IdentityHashMap<>();
+  private final List<BatchResult> flushedBatchResults = new ArrayList<>();
+
+  // parallel flush
+  private final DataSource parallelDataSource;
+  private final Map<MappedStatement, Connection> parallelConnections = new IdentityHashMap<>();
+  private final List<Connection> autoCommitConnections = new ArrayList<>();
+  private final List<Connection> statementConnections = new ArrayList<>();
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.parallelDataSource = configuration.isParallelBatchFlush() && configuration.getEnvironment() != null
+        ? configuration.getEnvironment().getDataSource() : null;
   }
 
   @Override
@@ -57,27 +94,114 @@ public class BatchExecutor extends BaseExecutor {
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
+    final int maxRows = valueOrDefault(ms.getBatchFlushRows(), configuration.getDefaultBatchFlushRows());
+    final int maxBytes = valueOrDefault(ms.getBatchFlushBytes(), configuration.getDefaultBatchFlushBytes());
     final Statement stmt;
+    final long size;
     if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
+      int last = currentStatementIndex;
       stmt = statementList.get(last);
       applyTransactionTimeout(stmt);
-      handler.parameterize(stmt);// fix Issues 322
+      size = parameterize(ms, parameterObject, handler, stmt, maxBytes > 0);// fix Issues 322
       BatchResult batchResult = batchResultList.get(last);
-      batchResult.addParameterObject(parameterObject);
+      addParameterObject(batchResult, parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
+      Connection parallelConnection = isParallel(ms) ? getParallelConnection(ms) : null;
+      Connection connection = parallelConnection == null ? getConnection(ms.getStatementLog())
+          : getLoggedConnection(parallelConnection, ms);
       stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt);    // fix Issues 322
+      size = parameterize(ms, parameterObject, handler, stmt, maxBytes > 0);    // fix Issues 322
       currentSql = sql;
       currentStatement = ms;
+      currentStatementIndex = statementList.size();
       statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      batchResultList.add(newBatchResult(ms, sql, parameterObject));
+      statementConnections.add(parallelConnection);
     }
     handler.batch(stmt);
+    if (maxRows > 0 || maxBytes > 0) {
+      PendingRows pending = pendingRows.computeIfAbsent(ms, k -> new PendingRows());
+      pending.rows++;
+      pending.bytes += size;
+      if ((maxRows > 0 && pending.rows >= maxRows) || (maxBytes > 0 && pending.bytes >= maxBytes)) {
+        List<BatchResult> results = flushStatements();
+        // returned by the next flush, without the parameter objects
+        for (BatchResult result : results) {
+          result.getParameterObjects().clear();
+        }
+        flushedBatchResults.addAll(results);
+      }
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private long parameterize(MappedStatement ms, Object parameterObject, StatementHandler handler, Statement stmt,
+      boolean estimateSize) throws SQLException {
+    if (!estimateSize) {
+      handler.parameterize(stmt);
+      return 0;
+    }
+    ParameterHandler parameterHandler = handler.getParameterHandler();
+    if (parameterHandler instanceof DefaultParameterHandler) {
+      // estimated while binding the values
+      DefaultParameterHandler defaultParameterHandler = (DefaultParameterHandler) parameterHandler;
+      defaultParameterHandler.setEstimateParameterSize(true);
+      handler.parameterize(stmt);
+      return defaultParameterHandler.getEstimatedParameterSize();
+    }
+    handler.parameterize(stmt);
+    // a custom or intercepted parameter handler
+    return new DefaultParameterHandler(ms, parameterObject, handler.getBoundSql()).estimateParameterSize();
+  }
+
+  private BatchResult newBatchResult(MappedStatement ms, String sql, Object parameterObject) {
+    BatchResult batchResult = new BatchResult(ms, sql);
+    addParameterObject(batchResult, parameterObject);
+    return batchResult;
+  }
+
+  private void addParameterObject(BatchResult batchResult, Object parameterObject) {
+    // the key generators need the parameter objects until the statements are flushed
+    if (configuration.isRetainBatchParameterObjects()
+        || !NoKeyGenerator.class.equals(batchResult.getMappedStatement().getKeyGenerator().getClass())) {
+      batchResult.addParameterObject(parameterObject);
+    }
+  }
+
+  private static int valueOrDefault(Integer value, Integer defaultValue) {
+    if (value != null) {
+      return value;
+    }
+    return defaultValue == null ? 0 : defaultValue;
+  }
+
+  private boolean isParallel(MappedStatement ms) {
+    if (parallelDataSource == null) {
+      return false;
+    }
+    Class<?> keyGeneratorClass = ms.getKeyGenerator().getClass();
+    return NoKeyGenerator.class.equals(keyGeneratorClass) || Jdbc3KeyGenerator.class.equals(keyGeneratorClass);
+  }
+
+  private Connection getParallelConnection(MappedStatement ms) throws SQLException {
+    Connection connection = parallelConnections.get(ms);
+    if (connection == null) {
+      connection = parallelDataSource.getConnection();
+      parallelConnections.put(ms, connection);
+      // the changes are committed together once all batches have succeeded
+      if (connection.getAutoCommit()) {
+        connection.setAutoCommit(false);
+        autoCommitConnections.add(connection);
+      }
+    }
+    return connection;
+  }
+
+  private Connection getLoggedConnection(Connection connection, MappedStatement ms) {
+    return ms.getStatementLog().isDebugEnabled()
+        ? ConnectionLogger.newInstance(connection, ms.getStatementLog(), queryStack) : connection;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -111,29 +235,20 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
+      List<BatchResult> results = new ArrayList<>(flushedBatchResults);
+      flushedBatchResults.clear();
       if (isRollback) {
         return Collections.emptyList();
       }
+      if (!parallelConnections.isEmpty()) {
+        results.addAll(flushInParallel(results));
+        return results;
+      }
       for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
         try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
-          }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
+          applyTransactionTimeout(statementList.get(i));
+          executeBatch(i, true);
         } catch (BatchUpdateException e) {
           StringBuilder message = new StringBuilder();
           message.append(batchResult.getMappedStatement().getId())
@@ -156,9 +271,162 @@ public class BatchExecutor extends BaseExecutor {
         closeStatement(stmt);
       }
       currentSql = null;
+      pendingRows.clear();
       statementList.clear();
       batchResultList.clear();
+      statementConnections.clear();
+      closeParallelConnections(isRollback);
+    }
+  }
+
+  private void executeBatch(int index, boolean sessionConnection) throws SQLException {
+    Statement stmt = statementList.get(index);
+    BatchResult batchResult = batchResultList.get(index);
+    batchResult.setUpdateCounts(stmt.executeBatch());
+    MappedStatement ms = batchResult.getMappedStatement();
+    List<Object> parameterObjects = batchResult.getParameterObjects();
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+      jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+    } else if (sessionConnection && !NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+      for (Object parameter : parameterObjects) {
+        keyGenerator.processAfter(this, ms, stmt, parameter);
+      }
     }
+    if (!configuration.isRetainBatchParameterObjects()) {
+      parameterObjects.clear();
+    }
+    // Close statement to close cursor #1109
+    closeStatement(stmt);
+  }
+
+  private List<BatchResult> flushInParallel(List<BatchResult> flushedResults) throws SQLException {
+    Map<Connection, List<Integer>> groups = new IdentityHashMap<>();
+    List<Integer> sessionGroup = new ArrayList<>();
+    for (int i = 0, n = statementList.size(); i < n; i++) {
+      // the transaction of the session is not accessed from the flush threads
+      applyTransactionTimeout(statementList.get(i));
+      Connection connection = statementConnections.get(i);
+      if (connection == null) {
+        sessionGroup.add(i);
+      } else {
+        groups.computeIfAbsent(connection, k -> new ArrayList<>()).add(i);
+      }
+    }
+    Throwable[] failures = new Throwable[statementList.size()];
+    boolean[] executed = new boolean[statementList.size()];
+    ExecutorService flushExecutor = configuration.getBatchFlushExecutor();
+    List<Future<?>> futures = new ArrayList<>(groups.size());
+    for (List<Integer> group : groups.values()) {
+      futures.add(flushExecutor.submit(() -> executeGroup(group, false, executed, failures)));
+    }
+    executeGroup(sessionGroup, true, executed, failures);
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rollbackParallelConnections();
+      throw new ExecutorException("Interrupted while waiting for the batches to be flushed.", e);
+    } catch (ExecutionException e) {
+      rollbackParallelConnections();
+      throw new ExecutorException("Error flushing the batches.  Cause: " + e.getCause(), e.getCause());
+    }
+    List<BatchResult> results = new ArrayList<>();
+    int failed = -1;
+    for (int i = 0; i < executed.length; i++) {
+      if (executed[i]) {
+        results.add(batchResultList.get(i));
+      } else if (failed < 0 && failures[i] != null) {
+        failed = i;
+      }
+    }
+    if (failed < 0) {
+      commitParallelConnections();
+      return results;
+    }
+    rollbackParallelConnections();
+    Throwable failure = failures[failed];
+    if (failure instanceof BatchUpdateException) {
+      BatchResult batchResult = batchResultList.get(failed);
+      String message = batchResult.getMappedStatement().getId() + " (batch index #" + (failed + 1) + ") failed."
+          + " The batches executed on other connections than the one of the session have been rolled back.";
+      flushedResults.addAll(results);
+      throw new BatchExecutorException(message, (BatchUpdateException) failure, flushedResults, batchResult);
+    } else if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else {
+      throw (Error) failure;
+    }
+  }
+
+  private void executeGroup(List<Integer> group, boolean sessionConnection, boolean[] executed, Throwable[] failures) {
+    for (Integer index : group) {
+      try {
+        executeBatch(index, sessionConnection);
+        executed[index] = true;
+      } catch (Throwable t) {
+        // the statements of a mapped statement are executed in order, so stop at the first failure
+        failures[index] = t;
+        return;
+      }
+    }
+  }
+
+  private void commitParallelConnections() throws SQLException {
+    List<Connection> connections = new ArrayList<>(parallelConnections.values());
+    for (int i = 0; i < connections.size(); i++) {
+      try {
+        connections.get(i).commit();
+      } catch (SQLException e) {
+        // roll back the connections that are not committed yet
+        for (int j = i; j < connections.size(); j++) {
+          rollbackQuietly(connections.get(j));
+        }
+        throw e;
+      }
+    }
+  }
+
+  private void rollbackParallelConnections() {
+    for (Connection connection : parallelConnections.values()) {
+      rollbackQuietly(connection);
+    }
+  }
+
+  private static void rollbackQuietly(Connection connection) {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private void closeParallelConnections(boolean rollback) {
+    if (rollback) {
+      rollbackParallelConnections();
+    }
+    for (Connection connection : parallelConnections.values()) {
+      try {
+        if (autoCommitConnections.contains(connection)) {
+          connection.setAutoCommit(true);
+        }
+        connection.close();
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+    parallelConnections.clear();
+    autoCommitConnections.clear();
+  }
+
+  private static final class PendingRows {
+    private int rows;
+    private long bytes;
   }
 
 }
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Resolves the second level cache tags declared by a statement.
+ *
+ * @since 3.5.5
+ * @see MappedStatement#getCacheTags()
+ */
+final class CacheTags {
+
+  private static final char SEPARATOR = ':';
+  private static final String ALL_ROWS = ":*";
+
+  private CacheTags() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Returns the tags of the results of a select. A table is tagged as a whole unless its row identifier property is
+   * given, in which case each returned row is tagged, as well as the table rows in general. Empty results are tagged
+   * with the table as a whole, so that inserts remove them.
+   */
+  static Set<String> ofResults(MappedStatement ms, List<?> results) {
+    Configuration configuration = ms.getConfiguration();
+    Set<String> tags = new HashSet<>();
+    for (String cacheTag : ms.getCacheTags()) {
+      int separator = cacheTag.indexOf(SEPARATOR);
+      if (separator < 0 || results.isEmpty()) {
+        tags.add(table(cacheTag, separator));
+        continue;
+      }
+      String table = cacheTag.substring(0, separator);
+      String property = cacheTag.substring(separator + 1);
+      tags.add(table + ALL_ROWS);
+      for (Object row : results) {
+        tags.add(table + SEPARATOR + valueOf(configuration, row, property));
+      }
+    }
+    return tags;
+  }
+
+  /**
+   * Returns the tags removed by a write. A write always removes the entries tagged with the table as a whole, and
+   * either the rows matching the value of its row identifier property, or all the rows when it is not given.
+   */
+  static Set<String> ofWrite(MappedStatement ms, Object parameterObject) {
+    Configuration configuration = ms.getConfiguration();
+    Set<String> tags = new HashSet<>();
+    for (String cacheTag : ms.getCacheTags()) {
+      int separator = cacheTag.indexOf(SEPARATOR);
+      String table = table(cacheTag, separator);
+      tags.add(table);
+      Object value = separator < 0 || parameterObject == null ? null
+          : valueOf(configuration, parameterObject, cacheTag.substring(separator + 1));
+      if (value == null) {
+        tags.add(table + ALL_ROWS);
+      } else if (value instanceof Collection) {
+        for (Object element : (Collection<?>) value) {
+          tags.add(table + SEPARATOR + element);
+        }
+      } else if (value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive()) {
+        for (Object element : (Object[]) value) {
+          tags.add(table + SEPARATOR + element);
+        }
+      } else {
+        tags.add(table + SEPARATOR + value);
+      }
+    }
+    return tags;
+  }
+
+  private static String table(String cacheTag, int separator) {
+    return separator < 0 ? cacheTag : cacheTag.substring(0, separator);
+  }
+
+  private static Object valueOf(Configuration configuration, Object object, String property) {
+    if (object == null || configuration.getTypeHandlerRegistry().hasTypeHandler(object.getClass())) {
+      return object;
+    }
+    return configuration.newMetaObject(object).getValue(property);
+  }
+
+}
@@ -15,19 +15,29 @@
  */
 package org.apache.ibatis.executor;
 
+import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheLoader;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -39,10 +49,22 @@ import org.apache.ibatis.transaction.Transaction;
 public class CachingExecutor implements Executor {
 
   private final Executor delegate;
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * @param delegate
+   *          the executor that runs the statements
+   * @param invalidationBus
+   *          the bus committed invalidations are broadcast to, or null to keep them local
+   * @since 3.5.5
+   */
+  public CachingExecutor(Executor delegate, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.tcm = new TransactionalCacheManager(invalidationBus);
     delegate.setExecutorWrapper(this);
   }
 
@@ -72,13 +94,13 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameterObject);
     return delegate.update(ms, parameterObject);
   }
 
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    flushCacheIfRequired(ms);
+    flushCacheIfRequired(ms, parameter);
     return delegate.queryCursor(ms, parameter, rowBounds);
   }
 
@@ -94,14 +116,25 @@ public class CachingExecutor implements Executor {
       throws SQLException {
     Cache cache = ms.getCache();
     if (cache != null) {
-      flushCacheIfRequired(ms);
+      flushCacheIfRequired(ms, parameterObject);
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
         @SuppressWarnings("unchecked")
         List<E> list = (List<E>) tcm.getObject(cache, key);
         if (list == null) {
+          boolean timed = cache instanceof MetricsCache;
+          long start = timed ? System.nanoTime() : 0L;
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (timed) {
+            ((MetricsCache) cache).getMetrics().recordLoad(System.nanoTime() - start);
+          }
+          CacheLoader loader = cache.isRefreshAhead() ? StatementLoader.of(ms, parameterObject, rowBounds) : null;
+          if (ms.getCacheTags() == null && loader == null) {
+            tcm.putObject(cache, key, list); // issue #578 and #116
+          } else {
+            Set<String> tags = ms.getCacheTags() == null ? null : CacheTags.ofResults(ms, list);
+            tcm.putObject(cache, key, list, tags, loader);
+          }
         }
         return list;
       }
@@ -161,10 +194,14 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
-  private void flushCacheIfRequired(MappedStatement ms) {
+  private void flushCacheIfRequired(MappedStatement ms, Object parameterObject) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
-      tcm.clear(cache);
+      if (ms.getCacheTags() == null) {
+        tcm.clear(cache);
+      } else {
+        tcm.removeTagged(cache, CacheTags.ofWrite(ms, parameterObject));
+      }
     }
   }
 
@@ -173,4 +210,64 @@ public class CachingExecutor implements Executor {
     throw new UnsupportedOperationException("This method should not be called");
   }
 
+  /**
+   * Reloads a cached result by running its statement again on a new transaction, bypassing the session caches.
+   */
+  private static class StatementLoader implements CacheLoader {
+
+    private static final Codec PARAMETER_CODEC = new JavaSerializationCodec();
+
+    private final MappedStatement ms;
+    private final Object parameterObject;
+    private final RowBounds rowBounds;
+
+    private StatementLoader(MappedStatement ms, Object parameterObject, RowBounds rowBounds) {
+      this.ms = ms;
+      this.parameterObject = parameterObject;
+      this.rowBounds = rowBounds;
+    }
+
+    /**
+     * Creates a loader that runs the statement with a copy of the parameter object, so that later changes made by the
+     * caller are not seen by the reload.
+     *
+     * @return the loader, or null if the parameter object cannot be copied
+     */
+    static StatementLoader of(MappedStatement ms, Object parameterObject, RowBounds rowBounds) {
+      if (parameterObject != null && !(parameterObject instanceof Serializable)) {
+        return null;
+      }
+      Object copy;
+      try {
+        copy = PARAMETER_CODEC.decode(PARAMETER_CODEC.encode(parameterObject));
+      } catch (CacheException e) {
+        // a value of the parameter object is not serializable, the entry will just expire
+        return null;
+      }
+      return new StatementLoader(ms, copy, rowBounds);
+    }
+
+    @Override
+    public void reload(Object key) {
+      Configuration configuration = ms.getConfiguration();
+      Environment environment = configuration.getEnvironment();
+      Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+      Executor executor = new SimpleExecutor(configuration, tx);
+      Cache cache = ms.getCache();
+      try {
+        long start = System.nanoTime();
+        List<Object> list = executor.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER);
+        if (cache instanceof MetricsCache) {
+          ((MetricsCache) cache).getMetrics().recordLoad(System.nanoTime() - start);
+        }
+        Set<String> tags = ms.getCacheTags() == null ? null : CacheTags.ofResults(ms, list);
+        cache.putObject(key, list, tags, this);
+      } catch (SQLException e) {
+        throw new CacheException("Error reloading the entry " + key + " of cache " + cache.getId() + ".  Cause: " + e, e);
+      } finally {
+        executor.close(false);
+      }
+    }
+  }
+
 }
@@ -16,12 +16,19 @@
 package org.apache.ibatis.executor;
 
 /**
+ * Describes where an error occurred, to build the message of the exception thrown to the application.
+ * <p>
+ * The statements do not describe themselves while they run. Only when an exception propagates through them do they
+ * record their description with {@link #failure(String, String, String, String)}, so a thread that runs statements
+ * without errors does not even have a context. The context is discarded, with {@link #clearInstance()}, when the
+ * exception leaves MyBatis: at the end of a session call, of a lazy load or of the fetch of a cursor row.
+ *
  * @author Clinton Begin
  */
 public class ErrorContext {
 
   private static final String LINE_SEPARATOR = System.lineSeparator();
-  private static final ThreadLocal<ErrorContext> LOCAL = ThreadLocal.withInitial(ErrorContext::new);
+  private static final ThreadLocal<ErrorContext> LOCAL = new ThreadLocal<>();
 
   private ErrorContext stored;
   private String resource;
@@ -35,14 +42,29 @@ public class ErrorContext {
   }
 
   public static ErrorContext instance() {
-    return LOCAL.get();
+    ErrorContext context = LOCAL.get();
+    if (context == null) {
+      context = new ErrorContext();
+      LOCAL.set(context);
+    }
+    return context;
+  }
+
+  /**
+   * Discards the context of the current thread. Unlike {@code instance().reset()}, it does not create a context when
+   * the thread has none, which is the case when nothing failed.
+   *
+   * @since 3.5.5
+   */
+  public static void clearInstance() {
+    LOCAL.remove();
   }
 
   public ErrorContext store() {
     ErrorContext newContext = new ErrorContext();
     newContext.stored = this;
     LOCAL.set(newContext);
-    return LOCAL.get();
+    return newContext;
   }
 
   public ErrorContext recall() {
@@ -50,7 +72,7 @@ public class ErrorContext {
       LOCAL.set(stored);
       stored = null;
     }
-    return LOCAL.get();
+    return instance();
   }
 
   public ErrorContext resource(String resource) {
@@ -83,6 +105,35 @@ public class ErrorContext {
     return this;
   }
 
+  /**
+   * Records what failed while an exception propagates. The inner calls describe the error more precisely, so the
+   * values that have already been recorded are kept; the activity and the object are kept together.
+   *
+   * @param resource
+   *          the resource the failed statement is declared in, may be null
+   * @param activity
+   *          what was being done, may be null
+   * @param object
+   *          the id of the statement or of the map involved, may be null
+   * @param sql
+   *          the SQL being executed, may be null
+   * @return this context
+   * @since 3.5.5
+   */
+  public ErrorContext failure(String resource, String activity, String object, String sql) {
+    if (this.resource == null) {
+      this.resource = resource;
+    }
+    if (this.activity == null && this.object == null) {
+      this.activity = activity;
+      this.object = object;
+    }
+    if (this.sql == null) {
+      this.sql = sql;
+    }
+    return this;
+  }
+
   public ErrorContext reset() {
     resource = null;
     activity = null;
@@ -0,0 +1,220 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.datasource.pooled.StatementCache;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.executor.statement.StatementUtil;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.jdbc.PreparedStatementLogger;
+import org.apache.ibatis.logging.jdbc.StatementLogger;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Reuses prepared statements like the {@link ReuseExecutor}, but keeps them in the {@link StatementCache} of the
+ * pooled connection instead of the session. Statements therefore survive the session and are picked up again by the
+ * next session that gets the same connection from the pool, and the number of open statements per connection is
+ * bounded by the cache size.
+ * <p>
+ * A statement evicted from the cache is closed right away unless this session used it, in which case it is closed on
+ * the next flush so that open cursors are not broken. When the connection does not provide a statement cache (e.g.
+ * it is not from a {@link org.apache.ibatis.datasource.pooled.PooledDataSource}) the executor behaves like the
+ * {@link ReuseExecutor}.
+ * <p>
+ * Statements are cached without their logging proxy and shared by the mapped statements with the same SQL, statement
+ * type, result set type, generated key columns and fetch size. The query timeout and the logging proxy of the mapped
+ * statement are applied each time a statement is reused.
+ *
+ * @since 3.5.5
+ */
+public class PooledReuseExecutor extends BaseExecutor {
+
+  private final Map<StatementKey, Statement> sessionStatements = new HashMap<>();
+  private final Set<Statement> usedStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final List<Statement> evictedStatements = new ArrayList<>();
+
+  public PooledReuseExecutor(Configuration configuration, Transaction transaction) {
+    super(configuration, transaction);
+  }
+
+  @Override
+  public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+    Statement stmt = prepareStatement(ms, handler, ms.getStatementLog());
+    return handler.update(stmt);
+  }
+
+  @Override
+  public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
+    Statement stmt = prepareStatement(ms, handler, ms.getStatementLog());
+    return handler.query(stmt, resultHandler);
+  }
+
+  @Override
+  protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+    Statement stmt = prepareStatement(ms, handler, ms.getStatementLog());
+    return handler.queryCursor(stmt);
+  }
+
+  @Override
+  public List<BatchResult> doFlushStatements(boolean isRollback) {
+    for (Statement stmt : sessionStatements.values()) {
+      closeStatement(stmt);
+    }
+    sessionStatements.clear();
+    for (Statement stmt : evictedStatements) {
+      closeStatement(stmt);
+    }
+    evictedStatements.clear();
+    usedStatements.clear();
+    return Collections.emptyList();
+  }
+
+  private Statement prepareStatement(MappedStatement ms, StatementHandler handler, Log statementLog) throws SQLException {
+    Connection connection = getConnection(statementLog);
+    StatementCache cache = connection.isWrapperFor(StatementCache.class) ? connection.unwrap(StatementCache.class) : null;
+    StatementKey key = new StatementKey(ms, handler.getBoundSql().getSql(), fetchSize(ms));
+    Statement cached = cache == null ? sessionStatements.get(key) : cache.get(key);
+    Statement stmt;
+    if (cached != null && !cached.isClosed()) {
+      applyQueryTimeout(ms, cached);
+      stmt = statementLog.isDebugEnabled() ? newStatementLogger(cached, statementLog) : cached;
+    } else {
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      cached = unwrapStatementLogger(stmt);
+      if (cache == null) {
+        sessionStatements.put(key, cached);
+      } else {
+        release(cache.put(key, cached));
+      }
+    }
+    usedStatements.add(cached);
+    handler.parameterize(stmt);
+    return stmt;
+  }
+
+  private Integer fetchSize(MappedStatement ms) {
+    return ms.getFetchSize() != null ? ms.getFetchSize() : ms.getConfiguration().getDefaultFetchSize();
+  }
+
+  private void applyQueryTimeout(MappedStatement ms, Statement stmt) throws SQLException {
+    // the statement may have been prepared by another mapped statement or in another transaction
+    Integer queryTimeout = ms.getTimeout() != null ? ms.getTimeout() : ms.getConfiguration().getDefaultStatementTimeout();
+    stmt.setQueryTimeout(queryTimeout == null ? 0 : queryTimeout);
+    StatementUtil.applyTransactionTimeout(stmt, queryTimeout, transaction.getTimeout());
+  }
+
+  private Statement newStatementLogger(Statement stmt, Log statementLog) {
+    if (stmt instanceof PreparedStatement) {
+      return PreparedStatementLogger.newInstance((PreparedStatement) stmt, statementLog, queryStack);
+    }
+    return StatementLogger.newInstance(stmt, statementLog, queryStack);
+  }
+
+  private static Statement unwrapStatementLogger(Statement stmt) {
+    if (Proxy.isProxyClass(stmt.getClass())) {
+      InvocationHandler handler = Proxy.getInvocationHandler(stmt);
+      if (handler instanceof PreparedStatementLogger) {
+        return ((PreparedStatementLogger) handler).getPreparedStatement();
+      } else if (handler instanceof StatementLogger) {
+        return ((StatementLogger) handler).getStatement();
+      }
+    }
+    return stmt;
+  }
+
+  private void release(Statement evicted) {
+    if (evicted == null) {
+      return;
+    }
+    if (usedStatements.remove(evicted)) {
+      evictedStatements.add(evicted);
+    } else {
+      closeStatement(evicted);
+    }
+  }
+
+  private static class StatementKey {
+
+    private final String sql;
+    private final StatementType statementType;
+    private final ResultSetType resultSetType;
+    private final String[] keyColumns;
+    private final Integer fetchSize;
+    private final int hashCode;
+
+    StatementKey(MappedStatement ms, String sql, Integer fetchSize) {
+      this.sql = sql;
+      this.statementType = ms.getStatementType();
+      this.resultSetType = ms.getResultSetType();
+      // generated keys change the way the statement is prepared
+      this.keyColumns = ms.getKeyGenerator() instanceof Jdbc3KeyGenerator
+          ? (ms.getKeyColumns() == null ? new String[0] : ms.getKeyColumns()) : null;
+      // a fetch size cannot be reset to the default of the driver
+      this.fetchSize = fetchSize;
+      this.hashCode = Objects.hash(sql, statementType, resultSetType, Arrays.hashCode(keyColumns), fetchSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey other = (StatementKey) o;
+      return hashCode == other.hashCode && sql.equals(other.sql) && statementType == other.statementType
+          && resultSetType == other.resultSetType && Arrays.equals(keyColumns, other.keyColumns) && Objects.equals(fetchSize, other.fetchSize);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -27,12 +27,16 @@ import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.ObjectStreamException;
+import java.io.Serializable;
 import java.io.StreamCorruptedException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 
 /**
@@ -49,6 +53,7 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
   private ObjectFactory objectFactory;
   private Class<?>[] constructorArgTypes;
   private Object[] constructorArgs;
+  private Codec codec;
 
   public AbstractSerialStateHolder() {
   }
@@ -66,6 +71,34 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     this.constructorArgs = constructorArgs.toArray(new Object[0]);
   }
 
+  /**
+   * Creates a holder that writes the user bean with the given codec instead of the Java serialization.
+   *
+   * @param userBean
+   *          the user bean
+   * @param unloadedProperties
+   *          the unloaded properties
+   * @param objectFactory
+   *          the object factory
+   * @param constructorArgTypes
+   *          the constructor arg types
+   * @param constructorArgs
+   *          the constructor args
+   * @param codec
+   *          the codec, the Java serialization is used when null
+   * @since 3.5.5
+   */
+  public AbstractSerialStateHolder(
+          final Object userBean,
+          final Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
+          final ObjectFactory objectFactory,
+          List<Class<?>> constructorArgTypes,
+          List<Object> constructorArgs,
+          Codec codec) {
+    this(userBean, unloadedProperties, objectFactory, constructorArgTypes, constructorArgs);
+    this.codec = codec instanceof JavaSerializationCodec ? null : codec;
+  }
+
   @Override
   public final void writeExternal(final ObjectOutput out) throws IOException {
     boolean firstRound = false;
@@ -77,7 +110,7 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
       stream.set(os);
     }
 
-    os.writeObject(this.userBean);
+    os.writeObject(codec == null ? this.userBean : encodeUserBean());
     os.writeObject(this.unloadedProperties);
     os.writeObject(this.objectFactory);
     os.writeObject(this.constructorArgTypes);
@@ -105,12 +138,12 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
   protected final Object readResolve() throws ObjectStreamException {
     /* Second run */
     if (this.userBean != null && this.userBeanBytes.length == 0) {
-      return this.userBean;
+      return EncodedBean.decode(this.userBean);
     }
 
     /* First run */
     try (ObjectInputStream in = new LookAheadObjectInputStream(new ByteArrayInputStream(this.userBeanBytes))) {
-      this.userBean = in.readObject();
+      this.userBean = EncodedBean.decode(in.readObject());
       this.unloadedProperties = (Map<String, ResultLoaderMap.LoadPair>) in.readObject();
       this.objectFactory = (ObjectFactory) in.readObject();
       this.constructorArgTypes = (Class<?>[]) in.readObject();
@@ -128,9 +161,53 @@ public abstract class AbstractSerialStateHolder implements Externalizable {
     return this.createDeserializationProxy(userBean, arrayProps, objectFactory, arrayTypes, arrayValues);
   }
 
+  private EncodedBean encodeUserBean() {
+    // nested proxies are written by the codec on their own stream
+    ObjectOutputStream outer = stream.get();
+    stream.remove();
+    try {
+      return new EncodedBean(codec.getClass(), codec.encode(this.userBean));
+    } finally {
+      if (outer != null) {
+        stream.set(outer);
+      }
+    }
+  }
+
   protected abstract Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory,
           List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
 
+  private static class EncodedBean implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Map<Class<? extends Codec>, Codec> codecs = new ConcurrentHashMap<>();
+
+    private final Class<? extends Codec> codecType;
+    private final byte[] bytes;
+
+    EncodedBean(Class<? extends Codec> codecType, byte[] bytes) {
+      this.codecType = codecType;
+      this.bytes = bytes;
+    }
+
+    static Object decode(Object value) throws ObjectStreamException {
+      if (!(value instanceof EncodedBean)) {
+        return value;
+      }
+      EncodedBean encoded = (EncodedBean) value;
+      try {
+        Codec codec = codecs.get(encoded.codecType);
+        if (codec == null) {
+          codec = encoded.codecType.getDeclaredConstructor().newInstance();
+          codecs.putIfAbsent(encoded.codecType, codec);
+        }
+        return codec.decode(encoded.bytes);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        throw (ObjectStreamException) new InvalidClassException(encoded.codecType.getName(), e.toString()).initCause(e);
+      }
+    }
+  }
+
   private static class LookAheadObjectInputStream extends ObjectInputStream {
     private static final List<String> blacklist = Arrays.asList(
         "org.apache.commons.beanutils.BeanComparator",
@@ -24,6 +24,7 @@ import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
+import org.apache.ibatis.cache.codec.Codec;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.AbstractEnhancedDeserializationProxy;
 import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
@@ -101,12 +102,14 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
     private final ObjectFactory objectFactory;
     private final List<Class<?>> constructorArgTypes;
     private final List<Object> constructorArgs;
+    private final Codec codec;
 
     private EnhancedResultObjectProxyImpl(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
       this.type = type;
       this.lazyLoader = lazyLoader;
       this.aggressive = configuration.isAggressiveLazyLoading();
       this.lazyLoadTriggerMethods = configuration.getLazyLoadTriggerMethods();
+      this.codec = configuration.getCacheCodec();
       this.objectFactory = objectFactory;
       this.constructorArgTypes = constructorArgTypes;
       this.constructorArgs = constructorArgs;
@@ -134,7 +137,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
             }
             PropertyCopier.copyBeanProperties(type, enhanced, original);
             if (lazyLoader.size() > 0) {
-              return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs);
+              return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs, codec);
             } else {
               return original;
             }
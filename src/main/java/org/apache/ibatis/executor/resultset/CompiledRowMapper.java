@@ -0,0 +1,220 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A row mapper specialized for one result map, row type and column layout.
+ * <p>
+ * Columns are read by index through the type handlers resolved at compile time and the values are assigned through
+ * {@link MethodHandle}s bound to the setters (or fields) of the row type, bypassing {@code MetaObject}. Properties whose
+ * setter cannot be accessed through a method handle fall back to the {@link Reflector} invoker.
+ *
+ * @see org.apache.ibatis.session.Configuration#isUseCompiledRowMappers()
+ */
+public final class CompiledRowMapper {
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  /**
+   * Marker for a result map that cannot be compiled (nested mappings, map or collection rows, ...).
+   */
+  static final CompiledRowMapper UNSUPPORTED = new CompiledRowMapper(null, new int[0], new TypeHandler<?>[0],
+      new String[0], new boolean[0], new MethodHandle[0], new Invoker[0], false);
+
+  private final Class<?> type;
+  private final int[] columnIndexes;
+  private final TypeHandler<?>[] typeHandlers;
+  private final String[] properties;
+  private final boolean[] primitives;
+  private final MethodHandle[] setters;
+  private final Invoker[] invokers;
+  private final boolean callSettersOnNulls;
+
+  private CompiledRowMapper(Class<?> type, int[] columnIndexes, TypeHandler<?>[] typeHandlers, String[] properties,
+      boolean[] primitives, MethodHandle[] setters, Invoker[] invokers, boolean callSettersOnNulls) {
+    this.type = type;
+    this.columnIndexes = columnIndexes;
+    this.typeHandlers = typeHandlers;
+    this.properties = properties;
+    this.primitives = primitives;
+    this.setters = setters;
+    this.invokers = invokers;
+    this.callSettersOnNulls = callSettersOnNulls;
+  }
+
+  /**
+   * Returns whether this mapper was compiled for the class of the given row object.
+   *
+   * @param rowValue
+   *          the row object
+   * @return true if {@link #map(ResultSet, Object)} can be used
+   */
+  public boolean canMap(Object rowValue) {
+    return type != null && rowValue.getClass() == type;
+  }
+
+  /**
+   * Reads the mapped columns of the current row and assigns them to the row object.
+   *
+   * @param rs
+   *          the result set positioned on the row
+   * @param rowValue
+   *          the row object
+   * @return true if at least one non null value was found
+   * @throws SQLException
+   *           if a column cannot be read
+   */
+  public boolean map(ResultSet rs, Object rowValue) throws SQLException {
+    boolean foundValues = false;
+    for (int i = 0; i < columnIndexes.length; i++) {
+      final Object value = typeHandlers[i].getResult(rs, columnIndexes[i]);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (callSettersOnNulls && !primitives[i])) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        setValue(i, rowValue, value);
+      }
+    }
+    return foundValues;
+  }
+
+  @UsesJava7
+  private void setValue(int i, Object rowValue, Object value) {
+    try {
+      if (setters[i] != null) {
+        setters[i].invokeExact(rowValue, value);
+      } else {
+        try {
+          invokers[i].invoke(rowValue, new Object[] { value });
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not set property '" + properties[i] + "' of '" + rowValue.getClass()
+          + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+  }
+
+  static class Builder {
+    private final Class<?> type;
+    private final Reflector reflector;
+    private final boolean callSettersOnNulls;
+    private final List<Integer> columnIndexes = new ArrayList<>();
+    private final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+    private final List<String> properties = new ArrayList<>();
+    private final List<Boolean> primitives = new ArrayList<>();
+
+    Builder(Class<?> type, ReflectorFactory reflectorFactory, boolean callSettersOnNulls) {
+      this.type = type;
+      this.reflector = reflectorFactory.findForClass(type);
+      this.callSettersOnNulls = callSettersOnNulls;
+    }
+
+    Builder addMapping(int columnIndex, TypeHandler<?> typeHandler, String property, boolean primitive) {
+      columnIndexes.add(columnIndex);
+      typeHandlers.add(typeHandler);
+      properties.add(property);
+      primitives.add(primitive);
+      return this;
+    }
+
+    CompiledRowMapper build() {
+      final int size = properties.size();
+      final int[] indexes = new int[size];
+      final boolean[] primitiveFlags = new boolean[size];
+      final MethodHandle[] setters = new MethodHandle[size];
+      final Invoker[] invokers = new Invoker[size];
+      for (int i = 0; i < size; i++) {
+        final String property = properties.get(i);
+        indexes[i] = columnIndexes.get(i);
+        primitiveFlags[i] = primitives.get(i);
+        invokers[i] = reflector.getSetInvoker(property);
+        setters[i] = findSetter(property, reflector.getSetterType(property));
+      }
+      return new CompiledRowMapper(type, indexes, typeHandlers.toArray(new TypeHandler<?>[size]),
+          properties.toArray(new String[size]), primitiveFlags, setters, invokers, callSettersOnNulls);
+    }
+
+    private MethodHandle findSetter(String property, Class<?> propertyType) {
+      try {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+          for (Method method : current.getDeclaredMethods()) {
+            if (isSetterFor(method, property, propertyType)) {
+              return toSetter(unreflect(method));
+            }
+          }
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+          for (Field field : current.getDeclaredFields()) {
+            if (field.getName().equals(property) && field.getType() == propertyType
+                && !Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+              if (Reflector.canControlMemberAccessible()) {
+                field.setAccessible(true);
+              }
+              return toSetter(MethodHandles.lookup().unreflectSetter(field));
+            }
+          }
+        }
+      } catch (IllegalAccessException | SecurityException e) {
+        // Ignore, the reflector invoker will be used instead
+      }
+      return null;
+    }
+
+    private boolean isSetterFor(Method method, String property, Class<?> propertyType) {
+      return method.getParameterCount() == 1
+          && method.getParameterTypes()[0] == propertyType
+          && !Modifier.isStatic(method.getModifiers())
+          && !method.isBridge()
+          && PropertyNamer.isSetter(method.getName())
+          && PropertyNamer.methodToProperty(method.getName()).equals(property);
+    }
+
+    private MethodHandle unreflect(Method method) throws IllegalAccessException {
+      if (Reflector.canControlMemberAccessible()) {
+        method.setAccessible(true);
+      }
+      return MethodHandles.lookup().unreflect(method);
+    }
+
+    private MethodHandle toSetter(MethodHandle handle) {
+      return handle.asType(SETTER_TYPE);
+    }
+  }
+
+}
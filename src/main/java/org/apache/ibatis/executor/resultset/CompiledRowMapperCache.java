@@ -0,0 +1,119 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.List;
+
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * The row mappers compiled for one result map.
+ * <p>
+ * A result map is usually read from one or a few column layouts with one row type, so a handful of slots is enough.
+ * Once they are all taken, the rows of other layouts are mapped without a compiled mapper instead of compiling mappers
+ * that would replace each other. Mappers are immutable, a lost race only means compiling the same mapper twice.
+ *
+ * @since 3.5.5
+ */
+public final class CompiledRowMapperCache {
+
+  private static final int SLOTS = 16;
+
+  private final Slot[] slots = new Slot[SLOTS];
+  private volatile int used;
+
+  /**
+   * Returns the mapper compiled for the row type and the column layout of the given result set.
+   *
+   * @param rsw
+   *          the result set
+   * @param rowType
+   *          the class of the row objects
+   * @return the mapper, or null if none was compiled yet
+   */
+  public CompiledRowMapper getRowMapper(ResultSetWrapper rsw, Class<?> rowType) {
+    int count = used;
+    for (int i = 0; i < count; i++) {
+      Slot slot = slots[i];
+      if (slot != null && slot.matches(rsw, rowType)) {
+        return slot.rowMapper;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Keeps a mapper compiled for the row type and the column layout of the given result set.
+   *
+   * @param rsw
+   *          the result set
+   * @param rowType
+   *          the class of the row objects
+   * @param rowMapper
+   *          the compiled mapper
+   * @return false if no more mappers can be kept
+   */
+  public boolean addRowMapper(ResultSetWrapper rsw, Class<?> rowType, CompiledRowMapper rowMapper) {
+    int count = used;
+    if (count == SLOTS) {
+      return false;
+    }
+    slots[count] = new Slot(rsw, rowType, rowMapper);
+    used = count + 1;
+    return true;
+  }
+
+  public boolean isFull() {
+    return used == SLOTS;
+  }
+
+  public int getSize() {
+    return used;
+  }
+
+  private static final class Slot {
+
+    private final Class<?> rowType;
+    private final String[] columnNames;
+    private final JdbcType[] jdbcTypes;
+    private final CompiledRowMapper rowMapper;
+
+    Slot(ResultSetWrapper rsw, Class<?> rowType, CompiledRowMapper rowMapper) {
+      this.rowType = rowType;
+      this.columnNames = rsw.getColumnNames().toArray(new String[0]);
+      this.jdbcTypes = rsw.getJdbcTypes().toArray(new JdbcType[0]);
+      this.rowMapper = rowMapper;
+    }
+
+    boolean matches(ResultSetWrapper rsw, Class<?> rowType) {
+      if (this.rowType != rowType) {
+        return false;
+      }
+      final List<String> otherColumnNames = rsw.getColumnNames();
+      final List<JdbcType> otherJdbcTypes = rsw.getJdbcTypes();
+      if (otherColumnNames.size() != columnNames.length) {
+        return false;
+      }
+      for (int i = 0; i < columnNames.length; i++) {
+        if (!columnNames[i].equals(otherColumnNames.get(i)) || jdbcTypes[i] != otherJdbcTypes.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+}
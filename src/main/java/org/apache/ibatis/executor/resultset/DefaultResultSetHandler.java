@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -42,6 +43,8 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -70,7 +73,10 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public class DefaultResultSetHandler implements ResultSetHandler {
 
+  private static final Log log = LogFactory.getLog(DefaultResultSetHandler.class);
+
   private static final Object DEFERRED = new Object();
+  private static final int RETAINED_NESTED_RESULT_OBJECTS = 256;
 
   private final Executor executor;
   private final Configuration configuration;
@@ -84,7 +90,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
 
@@ -95,6 +101,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
+  // Compiled row mappers for the current result set
+  private final Map<String, CompiledRowMapper> compiledRowMappers = new HashMap<>();
+  private ResultSetWrapper compiledRowMappersWrapper;
+
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
@@ -179,8 +189,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
   @Override
   public List<Object> handleResultSets(Statement stmt) throws SQLException {
-    ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
+    try {
+      return collectResultSets(stmt);
+    } catch (SQLException | RuntimeException e) {
+      ErrorContext.instance().failure(null, "handling results", mappedStatement.getId(), null);
+      throw e;
+    }
+  }
 
+  private List<Object> collectResultSets(Statement stmt) throws SQLException {
     final List<Object> multipleResults = new ArrayList<>();
 
     int resultSetCount = 0;
@@ -217,8 +234,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   @Override
   public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
-    ErrorContext.instance().activity("handling cursor results").object(mappedStatement.getId());
+    try {
+      return openCursor(stmt);
+    } catch (SQLException | RuntimeException e) {
+      ErrorContext.instance().failure(null, "handling cursor results", mappedStatement.getId(), null);
+      throw e;
+    }
+  }
 
+  private <E> Cursor<E> openCursor(Statement stmt) throws SQLException {
     ResultSetWrapper rsw = getFirstResultSet(stmt);
 
     List<ResultMap> resultMaps = mappedStatement.getResultMaps();
@@ -230,6 +254,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
+    if (resultMap.hasNestedResultMaps()) {
+      warnIfCursorResultNotOrdered();
+    }
     return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
   }
 
@@ -344,6 +371,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private void warnIfCursorResultNotOrdered() {
+    if (configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()) {
+      log.warn("Mapped Statement '" + mappedStatement.getId() + "' with nested result mappings is used with a Cursor "
+          + "without resultOrdered=true, so its items may be returned before their nested results are complete. "
+          + "Ensure your statement returns ordered data and set resultOrdered=true on it "
+          + "or use safeResultHandlerEnabled=false setting to disable this warning.");
+    }
+  }
+
   private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping)
       throws SQLException {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
@@ -396,18 +432,107 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final ResultLoaderMap lazyLoader = new ResultLoaderMap();
     Object rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
     if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
-      final MetaObject metaObject = configuration.newMetaObject(rowValue);
       boolean foundValues = this.useConstructorMappings;
-      if (shouldApplyAutomaticMappings(resultMap, false)) {
-        foundValues = applyAutomaticMappings(rsw, resultMap, metaObject, columnPrefix) || foundValues;
+      final CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap, rowValue, columnPrefix);
+      if (rowMapper != null) {
+        foundValues = rowMapper.map(rsw.getResultSet(), rowValue) || foundValues;
+      } else {
+        final MetaObject metaObject = configuration.newMetaObject(rowValue);
+        if (shouldApplyAutomaticMappings(resultMap, false)) {
+          foundValues = applyAutomaticMappings(rsw, resultMap, metaObject, columnPrefix) || foundValues;
+        }
+        foundValues = applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix) || foundValues;
       }
-      foundValues = applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix) || foundValues;
       foundValues = lazyLoader.size() > 0 || foundValues;
       rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
     }
     return rowValue;
   }
 
+  //
+  // COMPILED ROW MAPPERS
+  //
+
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap, Object rowValue, String columnPrefix) throws SQLException {
+    if (!configuration.isUseCompiledRowMappers() || columnPrefix != null) {
+      return null;
+    }
+    if (compiledRowMappersWrapper != rsw) {
+      // column layout may differ between result sets
+      compiledRowMappers.clear();
+      compiledRowMappersWrapper = rsw;
+    }
+    CompiledRowMapper rowMapper = compiledRowMappers.get(resultMap.getId());
+    if (rowMapper == null) {
+      final CompiledRowMapperCache cache = resultMap.getCompiledRowMappers();
+      rowMapper = cache.getRowMapper(rsw, rowValue.getClass());
+      if (rowMapper == null) {
+        if (cache.isFull()) {
+          // too many column layouts for this result map, map this result set reflectively
+          rowMapper = CompiledRowMapper.UNSUPPORTED;
+        } else {
+          rowMapper = compileRowMapper(rsw, resultMap, rowValue);
+          cache.addRowMapper(rsw, rowValue.getClass(), rowMapper);
+        }
+      }
+      compiledRowMappers.put(resultMap.getId(), rowMapper);
+    }
+    return rowMapper.canMap(rowValue) ? rowMapper : null;
+  }
+
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap, Object rowValue) throws SQLException {
+    if (rowValue instanceof Map || rowValue instanceof Collection
+        || configuration.getObjectWrapperFactory().hasWrapperFor(rowValue)) {
+      return CompiledRowMapper.UNSUPPORTED;
+    }
+    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+    for (ResultMapping propertyMapping : propertyMappings) {
+      if (propertyMapping.getNestedQueryId() != null
+          || propertyMapping.getNestedResultMapId() != null
+          || propertyMapping.getResultSet() != null
+          || propertyMapping.isCompositeResult()
+          || !isSimpleProperty(propertyMapping.getProperty())) {
+        return CompiledRowMapper.UNSUPPORTED;
+      }
+    }
+    final MetaObject metaObject = configuration.newMetaObject(rowValue);
+    final CompiledRowMapper.Builder builder = new CompiledRowMapper.Builder(rowValue.getClass(), reflectorFactory,
+        configuration.isCallSettersOnNulls());
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+        if (!isSimpleProperty(mapping.property)) {
+          return CompiledRowMapper.UNSUPPORTED;
+        }
+        builder.addMapping(columnIndex(rsw, mapping.column), mapping.typeHandler, mapping.property, mapping.primitive);
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : propertyMappings) {
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      if (property != null && column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        builder.addMapping(columnIndex(rsw, column), propertyMapping.getTypeHandler(), property,
+            metaObject.getSetterType(property).isPrimitive());
+      }
+    }
+    return builder.build();
+  }
+
+  private boolean isSimpleProperty(String property) {
+    return property == null || (property.indexOf('.') < 0 && property.indexOf('[') < 0);
+  }
+
+  private int columnIndex(ResultSetWrapper rsw, String column) {
+    // same column as ResultSet#findColumn, the first one matching the label
+    final List<String> columnNames = rsw.getColumnNames();
+    for (int i = 0; i < columnNames.size(); i++) {
+      if (columnNames.get(i).equalsIgnoreCase(column)) {
+        return i + 1;
+      }
+    }
+    throw new ExecutorException("Column '" + column + "' not found in result set of '" + mappedStatement.getId() + "'");
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -901,7 +1026,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
         if (partialObject == null && rowValue != null) {
-          nestedResultObjects.clear();
+          releaseNestedResultObjects();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
         rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
@@ -913,6 +1038,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
     if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+      releaseNestedResultObjects();
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
@@ -920,6 +1046,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  /**
+   * Forgets the row keys of the completed root object of an ordered result. A large map is replaced rather than
+   * cleared, as a cleared HashMap keeps its table and would hold on to the memory used by the largest root object until
+   * the end of the result set.
+   */
+  private void releaseNestedResultObjects() {
+    if (nestedResultObjects.size() > RETAINED_NESTED_RESULT_OBJECTS) {
+      nestedResultObjects = new HashMap<>();
+    } else {
+      nestedResultObjects.clear();
+    }
+  }
+
   //
   // NESTED RESULT MAP (JOIN MAPPING)
   //
@@ -1006,9 +1145,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+    int componentCount = resultMappings.isEmpty() ? rsw.getColumnNames().size() : resultMappings.size();
+    final CacheKey cacheKey = new CacheKey(componentCount * 2 + 1);
+    cacheKey.update(resultMap.getId());
     if (resultMappings.isEmpty()) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
         createRowKeyForMap(rsw, cacheKey);
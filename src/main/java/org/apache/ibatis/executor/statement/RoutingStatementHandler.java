@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.sql.Statement;
 import java.util.List;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -56,32 +57,62 @@ public class RoutingStatementHandler implements StatementHandler {
 
   @Override
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
-    return delegate.prepare(connection, transactionTimeout);
+    try {
+      return delegate.prepare(connection, transactionTimeout);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
   public void parameterize(Statement statement) throws SQLException {
-    delegate.parameterize(statement);
+    try {
+      delegate.parameterize(statement);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
   public void batch(Statement statement) throws SQLException {
-    delegate.batch(statement);
+    try {
+      delegate.batch(statement);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
   public int update(Statement statement) throws SQLException {
-    return delegate.update(statement);
+    try {
+      return delegate.update(statement);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
-    return delegate.query(statement, resultHandler);
+    try {
+      return delegate.query(statement, resultHandler);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
-    return delegate.queryCursor(statement);
+    try {
+      return delegate.queryCursor(statement);
+    } catch (SQLException | RuntimeException e) {
+      recordSql();
+      throw e;
+    }
   }
 
   @Override
@@ -93,4 +124,8 @@ public class RoutingStatementHandler implements StatementHandler {
   public ParameterHandler getParameterHandler() {
     return delegate.getParameterHandler();
   }
+
+  private void recordSql() {
+    ErrorContext.instance().failure(null, null, null, delegate.getBoundSql().getSql());
+  }
 }
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -46,7 +46,8 @@ public class BoundSql {
     this.parameterMappings = parameterMappings;
     this.parameterObject = parameterObject;
     this.additionalParameters = new HashMap<>();
-    this.metaParameters = configuration.newMetaObject(additionalParameters);
+    // the additional parameters are named per execution, like the numbered items of a foreach
+    this.metaParameters = configuration.newMetaObject(additionalParameters).withoutPropertyPathCache();
   }
 
   public String getSql() {
@@ -62,7 +63,10 @@ public class BoundSql {
   }
 
   public boolean hasAdditionalParameter(String name) {
-    String paramName = new PropertyTokenizer(name).getName();
+    if (additionalParameters.isEmpty()) {
+      return false;
+    }
+    String paramName = name.indexOf('.') < 0 && name.indexOf('[') < 0 ? name : new PropertyTokenizer(name).getName();
     return additionalParameters.containsKey(paramName);
   }
 
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -24,13 +24,22 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ConcurrentCache;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.codec.Codec;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.EvictionCountingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.MetricsCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+import org.apache.ibatis.cache.metrics.CacheMetricsFactory;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -43,9 +52,15 @@ public class CacheBuilder {
   private final List<Class<? extends Cache>> decorators;
   private Integer size;
   private Long clearInterval;
+  private Long timeToLive;
+  private Long maxWeight;
+  private Class<? extends Weigher> weigher;
+  private boolean tagged;
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private Codec codec;
+  private CacheMetricsFactory metricsFactory;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -74,6 +89,54 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets how long each entry is kept after it was put.
+   *
+   * @param timeToLive
+   *          the time to live in milliseconds, or null to keep entries until the cache is cleared
+   * @return this builder
+   * @since 3.5.5
+   */
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  /**
+   * Sets the maximum total weight of the entries, as estimated by the weigher.
+   *
+   * @param maxWeight
+   *          the maximum weight, or null to not bound the weight
+   * @return this builder
+   * @since 3.5.5
+   */
+  public CacheBuilder maxWeight(Long maxWeight) {
+    this.maxWeight = maxWeight;
+    return this;
+  }
+
+  /**
+   * @since 3.5.5
+   */
+  public CacheBuilder weigher(Class<? extends Weigher> weigher) {
+    this.weigher = weigher;
+    return this;
+  }
+
+  /**
+   * Sets whether the cache keeps track of the tags of its entries, so that writes declaring cache tags remove only the
+   * entries they may have changed. Caches that do not track tags are cleared by such writes.
+   *
+   * @param tagged
+   *          true if statements using the cache declare cache tags
+   * @return this builder
+   * @since 3.5.5
+   */
+  public CacheBuilder tagged(boolean tagged) {
+    this.tagged = tagged;
+    return this;
+  }
+
   public CacheBuilder readWrite(boolean readWrite) {
     this.readWrite = readWrite;
     return this;
@@ -84,6 +147,32 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets the codec used to copy values of read-write caches.
+   *
+   * @param codec
+   *          the codec, or null to use the Java serialization
+   * @return this builder
+   * @since 3.5.5
+   */
+  public CacheBuilder codec(Codec codec) {
+    this.codec = codec;
+    return this;
+  }
+
+  /**
+   * Sets the factory of the metrics that record the hits, misses, puts, evictions and load times of the cache.
+   *
+   * @param metricsFactory
+   *          the metrics factory, or null to not record metrics
+   * @return this builder
+   * @since 3.5.5
+   */
+  public CacheBuilder metrics(CacheMetricsFactory metricsFactory) {
+    this.metricsFactory = metricsFactory;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -93,8 +182,14 @@ public class CacheBuilder {
     setDefaultImplementations();
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
+    EvictionCountingCache evictionCounter = null;
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
+      if (metricsFactory != null) {
+        // counts the removals the eviction decorators make
+        evictionCounter = new EvictionCountingCache(cache);
+        cache = evictionCounter;
+      }
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
@@ -103,6 +198,13 @@ public class CacheBuilder {
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
+    if (metricsFactory != null) {
+      CacheMetrics metrics = metricsFactory.create(cache);
+      if (evictionCounter != null) {
+        evictionCounter.setMetrics(metrics);
+      }
+      cache = new MetricsCache(cache, metrics);
+    }
     return cache;
   }
 
@@ -121,17 +223,43 @@ public class CacheBuilder {
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
-      if (clearInterval != null) {
+      if (clearInterval != null || timeToLive != null) {
         cache = new ScheduledCache(cache);
-        ((ScheduledCache) cache).setClearInterval(clearInterval);
+        if (clearInterval != null) {
+          ((ScheduledCache) cache).setClearInterval(clearInterval);
+        }
+        if (timeToLive != null) {
+          ((ScheduledCache) cache).setTimeToLive(timeToLive);
+        }
+        // refreshAhead, jitter and refreshThreads are meant for the scheduled decorator
+        setCacheProperties(cache);
       }
       if (readWrite) {
-        cache = new SerializedCache(cache);
+        cache = new SerializedCache(cache, codec);
+      }
+      if (maxWeight != null) {
+        // weighs the results before they are serialized
+        cache = new WeightedCache(cache);
+        ((WeightedCache) cache).setMaxWeight(maxWeight);
+        if (weigher != null) {
+          ((WeightedCache) cache).setWeigher(weigher.getDeclaredConstructor().newInstance());
+        }
+      }
+      if (tagged) {
+        cache = new TaggedCache(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (!isConcurrent()) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
+        // the timeout and staleWhileRevalidate properties are meant for the blocking decorator
+        setCacheProperties(cache);
+        if (readWrite && ((BlockingCache) cache).isStaleWhileRevalidate()) {
+          // stale values are handed out as the very instances that were cached
+          throw new CacheException("The staleWhileRevalidate property of cache '" + id + "' requires a read-only cache");
+        }
       }
       return cache;
     } catch (Exception e) {
@@ -139,6 +267,19 @@ public class CacheBuilder {
     }
   }
 
+  private boolean isConcurrent() {
+    if (maxWeight != null) {
+      // the weight bound keeps its own access order, which is not thread safe
+      return false;
+    }
+    for (Class<? extends Cache> decorator : decorators) {
+      if (!ConcurrentCache.class.isAssignableFrom(decorator)) {
+        return false;
+      }
+    }
+    return !decorators.isEmpty();
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
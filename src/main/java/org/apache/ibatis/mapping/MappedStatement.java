@@ -26,6 +26,7 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.defaults.ParameterBinderCache;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -56,6 +57,10 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Integer batchFlushRows;
+  private Integer batchFlushBytes;
+  private String[] cacheTags;
+  private final ParameterBinderCache parameterBinders = new ParameterBinderCache();
 
   MappedStatement() {
     // constructor disabled
@@ -174,6 +179,27 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder batchFlushRows(Integer batchFlushRows) {
+      mappedStatement.batchFlushRows = batchFlushRows;
+      return this;
+    }
+
+    public Builder batchFlushBytes(Integer batchFlushBytes) {
+      mappedStatement.batchFlushBytes = batchFlushBytes;
+      return this;
+    }
+
+    public Builder cacheTags(String cacheTags) {
+      String[] tags = delimitedStringToArray(cacheTags);
+      if (tags != null) {
+        for (int i = 0; i < tags.length; i++) {
+          tags[i] = tags[i].trim();
+        }
+      }
+      mappedStatement.cacheTags = tags;
+      return this;
+    }
+
     /**
      * Resul sets.
      *
@@ -290,6 +316,51 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Returns the number of batched rows that makes the batch executor flush its statements.
+   *
+   * @return the number of rows, or null to use the default of the configuration
+   * @since 3.5.5
+   */
+  public Integer getBatchFlushRows() {
+    return batchFlushRows;
+  }
+
+  /**
+   * Returns the estimated size in bytes of the batched parameters that makes the batch executor flush its statements.
+   *
+   * @return the number of bytes, or null to use the default of the configuration
+   * @since 3.5.5
+   */
+  public Integer getBatchFlushBytes() {
+    return batchFlushBytes;
+  }
+
+  /**
+   * Returns the tables, and optionally the row identifier property, that the second level cache tags the results of
+   * this statement with, or that this statement writes to.
+   * <p>
+   * Each tag is either a table name such as <code>users</code> or a table name followed by the property holding the
+   * row identifier such as <code>users:id</code>.
+   *
+   * @return the cache tags, or null to clear the whole cache on writes
+   * @since 3.5.5
+   */
+  public String[] getCacheTags() {
+    return cacheTags;
+  }
+
+  /**
+   * Returns the parameter binders compiled for this statement when compiled parameter binders are enabled.
+   *
+   * @return the parameter binders
+   * @see Configuration#isUseCompiledParameterBinders()
+   * @since 3.5.5
+   */
+  public ParameterBinderCache getParameterBinders() {
+    return parameterBinders;
+  }
+
   /**
    * Gets the resul sets.
    *
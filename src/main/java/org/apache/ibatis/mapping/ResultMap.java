@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.Set;
 
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.executor.resultset.CompiledRowMapperCache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.reflection.ParamNameUtil;
@@ -49,6 +50,7 @@ public class ResultMap {
   private boolean hasNestedResultMaps;
   private boolean hasNestedQueries;
   private Boolean autoMapping;
+  private final CompiledRowMapperCache compiledRowMappers = new CompiledRowMapperCache();
 
   private ResultMap() {
   }
@@ -258,4 +260,15 @@ public class ResultMap {
     return autoMapping;
   }
 
+  /**
+   * Returns the row mappers compiled for this result map when compiled row mappers are enabled.
+   *
+   * @return the row mappers
+   * @see Configuration#isUseCompiledRowMappers()
+   * @since 3.5.5
+   */
+  public CompiledRowMapperCache getCompiledRowMappers() {
+    return compiledRowMappers;
+  }
+
 }
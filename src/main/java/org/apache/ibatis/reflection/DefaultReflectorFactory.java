@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -39,10 +39,22 @@ public class DefaultReflectorFactory implements ReflectorFactory {
   public Reflector findForClass(Class<?> type) {
     if (classCacheEnabled) {
       // synchronized (type) removed see issue #461
-      return reflectorMap.computeIfAbsent(type, Reflector::new);
+      return reflectorMap.computeIfAbsent(type, this::newReflector);
     } else {
-      return new Reflector(type);
+      return newReflector(type);
     }
   }
 
+  /**
+   * Creates the reflector of a class.
+   *
+   * @param type
+   *          the class
+   * @return the reflector
+   * @since 3.5.5
+   */
+  protected Reflector newReflector(Class<?> type) {
+    return new Reflector(type);
+  }
+
 }
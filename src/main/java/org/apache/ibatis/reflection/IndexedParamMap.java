@@ -0,0 +1,341 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+
+/**
+ * A {@link ParamMap} that reads the named parameters of a mapper method straight from its argument array.
+ * <p>
+ * The names are resolved once per method into a {@link Names} table, so naming the arguments of a call costs a single
+ * object instead of a hash map with two entries per argument. The first modification copies the entries into the
+ * inherited hash table, after which the map behaves exactly as a {@link ParamMap}.
+ *
+ * @since 3.5.5
+ */
+final class IndexedParamMap extends ParamMap<Object> {
+
+  private static final long serialVersionUID = 4153327018622421395L;
+
+  private final transient Names names;
+  private transient Object[] args;
+
+  IndexedParamMap(Names names, Object[] args) {
+    this.names = names;
+    this.args = args;
+  }
+
+  private boolean isIndexed() {
+    return args != null;
+  }
+
+  private void inflate() {
+    if (args != null) {
+      Object[] values = args;
+      args = null;
+      for (int i = 0; i < names.keys.length; i++) {
+        super.put(names.keys[i], values[names.argIndexes[i]]);
+      }
+    }
+  }
+
+  private Object valueAt(int i) {
+    return args[names.argIndexes[i]];
+  }
+
+  @Override
+  public int size() {
+    return isIndexed() ? names.keys.length : super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return isIndexed() ? names.keys.length == 0 : super.isEmpty();
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (!isIndexed()) {
+      return super.get(key);
+    }
+    Integer argIndex = names.argIndexByKey.get(key);
+    if (argIndex == null) {
+      throw new BindingException("Parameter '" + key + "' not found. Available parameters are " + keySet());
+    }
+    return args[argIndex];
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    if (!isIndexed()) {
+      return super.getOrDefault(key, defaultValue);
+    }
+    Integer argIndex = names.argIndexByKey.get(key);
+    return argIndex == null ? defaultValue : args[argIndex];
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return isIndexed() ? names.argIndexByKey.containsKey(key) : super.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    if (!isIndexed()) {
+      return super.containsValue(value);
+    }
+    for (int i = 0; i < names.keys.length; i++) {
+      Object v = valueAt(i);
+      if (value == null ? v == null : value.equals(v)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super Object> action) {
+    if (!isIndexed()) {
+      super.forEach(action);
+      return;
+    }
+    for (int i = 0; i < names.keys.length; i++) {
+      action.accept(names.keys[i], valueAt(i));
+    }
+  }
+
+  @Override
+  public Set<String> keySet() {
+    if (!isIndexed()) {
+      return super.keySet();
+    }
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new IndexIterator<String>() {
+          @Override
+          String element(int i) {
+            return names.keys[i];
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+        return names.keys.length;
+      }
+    };
+  }
+
+  @Override
+  public Collection<Object> values() {
+    if (!isIndexed()) {
+      return super.values();
+    }
+    return new AbstractCollection<Object>() {
+      @Override
+      public Iterator<Object> iterator() {
+        return new IndexIterator<Object>() {
+          @Override
+          Object element(int i) {
+            return valueAt(i);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return names.keys.length;
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (!isIndexed()) {
+      return super.entrySet();
+    }
+    return new AbstractSet<Map.Entry<String, Object>>() {
+      @Override
+      public Iterator<Map.Entry<String, Object>> iterator() {
+        return new IndexIterator<Map.Entry<String, Object>>() {
+          @Override
+          Map.Entry<String, Object> element(int i) {
+            return new AbstractMap.SimpleImmutableEntry<>(names.keys[i], valueAt(i));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return names.keys.length;
+      }
+    };
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    inflate();
+    return super.put(key, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ?> m) {
+    inflate();
+    super.putAll(m);
+  }
+
+  @Override
+  public Object putIfAbsent(String key, Object value) {
+    inflate();
+    return super.putIfAbsent(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    inflate();
+    return super.remove(key);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    inflate();
+    return super.remove(key, value);
+  }
+
+  @Override
+  public void clear() {
+    inflate();
+    super.clear();
+  }
+
+  @Override
+  public Object replace(String key, Object value) {
+    inflate();
+    return super.replace(key, value);
+  }
+
+  @Override
+  public boolean replace(String key, Object oldValue, Object newValue) {
+    inflate();
+    return super.replace(key, oldValue, newValue);
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+    inflate();
+    super.replaceAll(function);
+  }
+
+  @Override
+  public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+    inflate();
+    return super.computeIfAbsent(key, mappingFunction);
+  }
+
+  @Override
+  public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+    inflate();
+    return super.computeIfPresent(key, remappingFunction);
+  }
+
+  @Override
+  public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+    inflate();
+    return super.compute(key, remappingFunction);
+  }
+
+  @Override
+  public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+    inflate();
+    return super.merge(key, value, remappingFunction);
+  }
+
+  @Override
+  public Object clone() {
+    // HashMap copies the entries through entrySet(), so the clone starts out inflated
+    IndexedParamMap clone = (IndexedParamMap) super.clone();
+    clone.args = null;
+    return clone;
+  }
+
+  private Object writeReplace() {
+    ParamMap<Object> paramMap = new ParamMap<>();
+    paramMap.putAll(this);
+    return paramMap;
+  }
+
+  private abstract class IndexIterator<E> implements Iterator<E> {
+
+    private int next;
+
+    abstract E element(int i);
+
+    @Override
+    public boolean hasNext() {
+      return next < names.keys.length;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return element(next++);
+    }
+
+  }
+
+  /**
+   * The parameter names of a mapper method and the index of the argument each of them refers to.
+   */
+  static final class Names {
+
+    private final String[] keys;
+    private final int[] argIndexes;
+    private final Map<String, Integer> argIndexByKey;
+
+    Names(Map<String, Integer> argIndexByKey) {
+      this.argIndexByKey = argIndexByKey;
+      this.keys = argIndexByKey.keySet().toArray(new String[0]);
+      this.argIndexes = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        argIndexes[i] = argIndexByKey.get(keys[i]);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.reflection.invoker.LambdaInvokers;
+
+/**
+ * A reflector factory whose reflectors read and write properties without going through reflection on each call.
+ * <p>
+ * Public getters and setters are bound through the {@link java.lang.invoke.LambdaMetafactory} and fields through
+ * method handles, other members are still accessed through reflection. It can be set with
+ * {@link org.apache.ibatis.session.Configuration#setReflectorFactory(ReflectorFactory)} or with the
+ * <code>reflectorFactory</code> element of the configuration.
+ *
+ * @see LambdaInvokers
+ * @since 3.5.5
+ */
+public class LambdaReflectorFactory extends DefaultReflectorFactory {
+
+  @Override
+  protected Reflector newReflector(Class<?> type) {
+    return new Reflector(type, LambdaInvokers::compile);
+  }
+
+}
@@ -43,6 +43,33 @@ public class MetaClass {
     return new MetaClass(type, reflectorFactory);
   }
 
+  /**
+   * Returns the compiled form of a property expression of this class, such as <code>customer.address.city</code>.
+   *
+   * @param expression
+   *          the property expression
+   * @return the property path, cached by the reflector of this class
+   * @since 3.5.5
+   */
+  public PropertyPath getPropertyPath(String expression) {
+    return getPropertyPath(expression, true);
+  }
+
+  /**
+   * Returns the compiled form of a property expression of this class, such as <code>customer.address.city</code>.
+   *
+   * @param expression
+   *          the property expression
+   * @param cached
+   *          false for expressions that are generated per execution and would only take the place of the paths worth
+   *          keeping, like the numbered items of a foreach
+   * @return the property path, cached by the reflector of this class if requested
+   * @since 3.5.5
+   */
+  public PropertyPath getPropertyPath(String expression, boolean cached) {
+    return cached ? reflector.getPropertyPath(expression, reflectorFactory) : new PropertyPath(expression, reflectorFactory);
+  }
+
   public MetaClass metaClassForProperty(String name) {
     Class<?> propType = reflector.getGetterType(name);
     return MetaClass.forClass(propType, reflectorFactory);
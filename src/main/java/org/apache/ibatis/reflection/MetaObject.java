@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -37,6 +37,7 @@ public class MetaObject {
   private final ObjectFactory objectFactory;
   private final ObjectWrapperFactory objectWrapperFactory;
   private final ReflectorFactory reflectorFactory;
+  private boolean cachesPropertyPaths = true;
 
   private MetaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory, ReflectorFactory reflectorFactory) {
     this.originalObject = object;
@@ -65,6 +66,19 @@ public class MetaObject {
     }
   }
 
+  /**
+   * Stops caching the compiled paths of the property expressions evaluated by this meta object in the reflector of the
+   * class of its object. Meant for objects whose property names are generated per execution, whose paths would only
+   * take the place of the paths worth keeping.
+   *
+   * @return this meta object
+   * @since 3.5.5
+   */
+  public MetaObject withoutPropertyPathCache() {
+    this.cachesPropertyPaths = false;
+    return this;
+  }
+
   public ObjectFactory getObjectFactory() {
     return objectFactory;
   }
@@ -111,6 +125,9 @@ public class MetaObject {
 
   public Object getValue(String name) {
     PropertyTokenizer prop = new PropertyTokenizer(name);
+    if (prop.hasNext() && prop.getIndex() == null && usesPropertyPaths()) {
+      return getPropertyPath(name).getValue(originalObject, objectFactory, objectWrapperFactory);
+    }
     if (prop.hasNext()) {
       MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
@@ -125,6 +142,10 @@ public class MetaObject {
 
   public void setValue(String name, Object value) {
     PropertyTokenizer prop = new PropertyTokenizer(name);
+    if (prop.hasNext() && prop.getIndex() == null && usesPropertyPaths()) {
+      getPropertyPath(name).setValue(originalObject, value, objectFactory, objectWrapperFactory);
+      return;
+    }
     if (prop.hasNext()) {
       MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
@@ -141,6 +162,19 @@ public class MetaObject {
     }
   }
 
+  private boolean usesPropertyPaths() {
+    // custom wrappers, even when extending the default ones, are walked through their own methods
+    Class<?> wrapperType = objectWrapper.getClass();
+    return wrapperType == BeanWrapper.class || wrapperType == MapWrapper.class;
+  }
+
+  private PropertyPath getPropertyPath(String name) {
+    if (!cachesPropertyPaths) {
+      return new PropertyPath(name, reflectorFactory);
+    }
+    return reflectorFactory.findForClass(originalObject.getClass()).getPropertyPath(name, reflectorFactory);
+  }
+
   public MetaObject metaObjectForProperty(String name) {
     Object value = getValue(name);
     return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
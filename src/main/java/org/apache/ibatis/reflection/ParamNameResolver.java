@@ -19,6 +19,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -54,6 +55,12 @@ public class ParamNameResolver {
 
   private boolean hasParamAnnotation;
 
+  /**
+   * The names of {@link #getNamedParams(Object[])}, including the generic ones, resolved to argument indexes once per
+   * method. It is <code>null</code> when a single parameter is passed without a name.
+   */
+  private final IndexedParamMap.Names paramMapNames;
+
   public ParamNameResolver(Configuration config, Method method) {
     this.useActualParamName = config.isUseActualParamName();
     final Class<?>[] paramTypes = method.getParameterTypes();
@@ -88,6 +95,24 @@ public class ParamNameResolver {
       map.put(paramIndex, name);
     }
     names = Collections.unmodifiableSortedMap(map);
+    paramMapNames = hasParamAnnotation || names.size() > 1 ? resolveParamMapNames() : null;
+  }
+
+  private IndexedParamMap.Names resolveParamMapNames() {
+    // same insertion order as a ParamMap built on each call, so both iterate alike
+    final Map<String, Integer> argIndexByKey = new HashMap<>();
+    int i = 0;
+    for (Map.Entry<Integer, String> entry : names.entrySet()) {
+      argIndexByKey.put(entry.getValue(), entry.getKey());
+      // add generic param names (param1, param2, ...)
+      final String genericParamName = GENERIC_NAME_PREFIX + (i + 1);
+      // ensure not to overwrite parameter named with @Param
+      if (!names.containsValue(genericParamName)) {
+        argIndexByKey.put(genericParamName, entry.getKey());
+      }
+      i++;
+    }
+    return new IndexedParamMap.Names(argIndexByKey);
   }
 
   private String getActualParamName(Method method, int paramIndex) {
@@ -113,6 +138,7 @@ public class ParamNameResolver {
    * Multiple parameters are named using the naming rule.
    * In addition to the default names, this method also adds the generic names (param1, param2,
    * ...).
+   * The returned map reads the values from <code>args</code>, which must not be changed afterwards.
    * </p>
    *
    * @param args
@@ -127,19 +153,7 @@ public class ParamNameResolver {
       Object value = args[names.firstKey()];
       return wrapToMapIfCollection(value, useActualParamName ? names.get(0) : null);
     } else {
-      final Map<String, Object> param = new ParamMap<>();
-      int i = 0;
-      for (Map.Entry<Integer, String> entry : names.entrySet()) {
-        param.put(entry.getValue(), args[entry.getKey()]);
-        // add generic param names (param1, param2, ...)
-        final String genericParamName = GENERIC_NAME_PREFIX + (i + 1);
-        // ensure not to overwrite parameter named with @Param
-        if (!names.containsValue(genericParamName)) {
-          param.put(genericParamName, args[entry.getKey()]);
-        }
-        i++;
-      }
-      return param;
+      return new IndexedParamMap(paramMapNames, args);
     }
   }
 
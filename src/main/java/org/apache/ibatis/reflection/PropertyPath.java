@@ -0,0 +1,244 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+
+/**
+ * A property expression such as <code>order.customer.address.city</code> tokenized once.
+ * <p>
+ * Reading or writing the value walks the objects of the path directly: maps are read with {@link Map#get(Object)} and
+ * beans through the invokers of their reflector, which each step keeps for the last class it has seen. It behaves like
+ * {@link MetaObject#getValue(String)} and {@link MetaObject#setValue(String, Object)}, which it is used by, and hands
+ * the rest of the path over to a {@link MetaObject} from the first indexed property (e.g. <code>items[0]</code>), or
+ * from the first object that is a collection or has an {@link ObjectWrapper}.
+ * <p>
+ * Paths are cached by the reflector of their root class, see {@link MetaClass#getPropertyPath(String)}.
+ *
+ * @since 3.5.5
+ */
+public final class PropertyPath {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final String expression;
+  private final ReflectorFactory reflectorFactory;
+  private final String[] names;
+  private final String[] fullNames;
+  private final String remainder;
+  private final Accessor[] accessors;
+
+  PropertyPath(String expression, ReflectorFactory reflectorFactory) {
+    this.expression = expression;
+    this.reflectorFactory = reflectorFactory;
+    List<String> names = new ArrayList<>();
+    List<String> fullNames = new ArrayList<>();
+    String rest = expression;
+    while (rest != null) {
+      PropertyTokenizer prop = new PropertyTokenizer(rest);
+      if (prop.getIndex() != null) {
+        break;
+      }
+      names.add(prop.getName());
+      fullNames.add(rest);
+      rest = prop.getChildren();
+    }
+    this.names = names.toArray(new String[0]);
+    this.fullNames = fullNames.toArray(new String[0]);
+    this.remainder = rest;
+    this.accessors = new Accessor[this.names.length];
+  }
+
+  /**
+   * Returns the expression of this path.
+   *
+   * @return the expression
+   */
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Reads the value of this path.
+   *
+   * @param object
+   *          the root object
+   * @param objectFactory
+   *          the object factory, used when the path is handed over to a {@link MetaObject}
+   * @param objectWrapperFactory
+   *          the object wrapper factory
+   * @return the value, or null if an object of the path is null
+   */
+  public Object getValue(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+    if (object == null) {
+      return SystemMetaObject.NULL_META_OBJECT.getValue(expression);
+    }
+    Object current = object;
+    for (int i = 0; i < names.length; i++) {
+      if (!isWalkable(current, objectWrapperFactory)) {
+        return metaObject(current, objectFactory, objectWrapperFactory).getValue(fullNames[i]);
+      }
+      Object value = get(i, current);
+      if (i == names.length - 1 && remainder == null) {
+        return value;
+      }
+      if (value == null) {
+        return null;
+      }
+      current = value;
+    }
+    return metaObject(current, objectFactory, objectWrapperFactory).getValue(remainder);
+  }
+
+  /**
+   * Writes the value of this path, instantiating the missing objects of the path unless the value is null.
+   *
+   * @param object
+   *          the root object
+   * @param value
+   *          the value
+   * @param objectFactory
+   *          the object factory, used to instantiate the missing objects of the path
+   * @param objectWrapperFactory
+   *          the object wrapper factory
+   */
+  public void setValue(Object object, Object value, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+    if (object == null) {
+      SystemMetaObject.NULL_META_OBJECT.setValue(expression, value);
+      return;
+    }
+    Object current = object;
+    for (int i = 0; i < names.length; i++) {
+      if (!isWalkable(current, objectWrapperFactory)) {
+        metaObject(current, objectFactory, objectWrapperFactory).setValue(fullNames[i], value);
+        return;
+      }
+      if (i == names.length - 1 && remainder == null) {
+        set(i, current, value);
+        return;
+      }
+      Object child = get(i, current);
+      if (child == null) {
+        if (value == null) {
+          // don't instantiate child path if value is null
+          return;
+        }
+        child = instantiate(i, current, objectFactory);
+      }
+      current = child;
+    }
+    metaObject(current, objectFactory, objectWrapperFactory).setValue(remainder, value);
+  }
+
+  private static boolean isWalkable(Object object, ObjectWrapperFactory objectWrapperFactory) {
+    return !(object instanceof ObjectWrapper) && !objectWrapperFactory.hasWrapperFor(object)
+        && (object instanceof Map || !(object instanceof Collection));
+  }
+
+  private MetaObject metaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+    return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
+  }
+
+  private Object get(int i, Object object) {
+    if (object instanceof Map) {
+      return ((Map<?, ?>) object).get(names[i]);
+    }
+    Accessor accessor = accessor(i, object.getClass());
+    try {
+      Invoker method = accessor.getter != null ? accessor.getter : accessor.reflector.getGetInvoker(names[i]);
+      try {
+        return method.invoke(object, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + names[i] + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void set(int i, Object object, Object value) {
+    if (object instanceof Map) {
+      ((Map<String, Object>) object).put(names[i], value);
+      return;
+    }
+    Accessor accessor = accessor(i, object.getClass());
+    try {
+      Invoker method = accessor.setter != null ? accessor.setter : accessor.reflector.getSetInvoker(names[i]);
+      Object[] params = {value};
+      try {
+        method.invoke(object, params);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not set property '" + names[i] + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+  }
+
+  private Object instantiate(int i, Object object, ObjectFactory objectFactory) {
+    if (object instanceof Map) {
+      Object map = new HashMap<String, Object>();
+      set(i, object, map);
+      return map;
+    }
+    Class<?> type = accessor(i, object.getClass()).reflector.getSetterType(names[i]);
+    try {
+      Object newObject = objectFactory.create(type);
+      set(i, object, newObject);
+      return newObject;
+    } catch (Exception e) {
+      throw new ReflectionException("Cannot set value of property '" + fullNames[i] + "' because '" + fullNames[i] + "' is null and cannot be instantiated on instance of " + type.getName() + ". Cause:" + e.toString(), e);
+    }
+  }
+
+  private Accessor accessor(int i, Class<?> type) {
+    Accessor accessor = accessors[i];
+    if (accessor == null || accessor.type != type) {
+      // accessors are immutable, a race only resolves the same one twice
+      accessor = new Accessor(type, reflectorFactory.findForClass(type), names[i]);
+      accessors[i] = accessor;
+    }
+    return accessor;
+  }
+
+  private static final class Accessor {
+    private final Class<?> type;
+    private final Reflector reflector;
+    private final Invoker getter;
+    private final Invoker setter;
+
+    Accessor(Class<?> type, Reflector reflector, String name) {
+      this.type = type;
+      this.reflector = reflector;
+      this.getter = reflector.hasGetter(name) ? reflector.getGetInvoker(name) : null;
+      this.setter = reflector.hasSetter(name) ? reflector.getSetInvoker(name) : null;
+    }
+  }
+
+}
@@ -33,6 +33,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
 
 import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
@@ -49,6 +52,8 @@ import org.apache.ibatis.reflection.property.PropertyNamer;
  */
 public class Reflector {
 
+  private static final int MAX_PROPERTY_PATHS = 256;
+
   private final Class<?> type;
   private final String[] readablePropertyNames;
   private final String[] writablePropertyNames;
@@ -59,13 +64,30 @@ public class Reflector {
   private Constructor<?> defaultConstructor;
 
   private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
+  private final ConcurrentMap<String, PropertyPath> propertyPaths = new ConcurrentHashMap<>();
 
   public Reflector(Class<?> clazz) {
+    this(clazz, UnaryOperator.identity());
+  }
+
+  /**
+   * Creates a reflector whose invokers are replaced by the given function, for instance by invokers that do not go
+   * through reflection. Invokers of ambiguous properties are kept as they are.
+   *
+   * @param clazz
+   *          the class
+   * @param invokerCompiler
+   *          the function that returns the invoker to use in place of a reflective one
+   * @since 3.5.5
+   */
+  public Reflector(Class<?> clazz, UnaryOperator<Invoker> invokerCompiler) {
     type = clazz;
     addDefaultConstructor(clazz);
     addGetMethods(clazz);
     addSetMethods(clazz);
     addFields(clazz);
+    compileInvokers(getMethods, invokerCompiler);
+    compileInvokers(setMethods, invokerCompiler);
     readablePropertyNames = getMethods.keySet().toArray(new String[0]);
     writablePropertyNames = setMethods.keySet().toArray(new String[0]);
     for (String propName : readablePropertyNames) {
@@ -76,6 +98,10 @@ public class Reflector {
     }
   }
 
+  private static void compileInvokers(Map<String, Invoker> invokers, UnaryOperator<Invoker> invokerCompiler) {
+    invokers.replaceAll((name, invoker) -> invoker instanceof AmbiguousMethodInvoker ? invoker : invokerCompiler.apply(invoker));
+  }
+
   private void addDefaultConstructor(Class<?> clazz) {
     Constructor<?>[] constructors = clazz.getDeclaredConstructors();
     Arrays.stream(constructors).filter(constructor -> constructor.getParameterTypes().length == 0)
@@ -442,6 +468,21 @@ public class Reflector {
     return getMethods.containsKey(propertyName);
   }
 
+  PropertyPath getPropertyPath(String expression, ReflectorFactory reflectorFactory) {
+    PropertyPath path = propertyPaths.get(expression);
+    if (path == null) {
+      path = new PropertyPath(expression, reflectorFactory);
+      // once full, the paths already cached are kept and the new ones are compiled on each use
+      if (propertyPaths.size() < MAX_PROPERTY_PATHS) {
+        PropertyPath cached = propertyPaths.putIfAbsent(expression, path);
+        if (cached != null) {
+          path = cached;
+        }
+      }
+    }
+    return path;
+  }
+
   public String findPropertyName(String name) {
     return caseInsensitivePropertyMap.get(name.toUpperCase(Locale.ENGLISH));
   }
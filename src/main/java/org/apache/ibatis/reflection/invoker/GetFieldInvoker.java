@@ -47,4 +47,8 @@ public class GetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  Field getField() {
+    return field;
+  }
 }
@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+
+import org.apache.ibatis.lang.UsesJava7;
+
+/**
+ * A field setter bound by {@link LambdaInvokers}.
+ */
+final class HandleSetFieldInvoker extends SetFieldInvoker {
+
+  private final Class<?> declaringClass;
+  private final Class<?> argumentType;
+  private final MethodHandle setter;
+
+  HandleSetFieldInvoker(Field field, MethodHandle setter) {
+    super(field);
+    this.declaringClass = field.getDeclaringClass();
+    this.argumentType = LambdaInvokers.wrap(field.getType());
+    this.setter = setter;
+  }
+
+  @UsesJava7
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException {
+    Object value = args[0];
+    if (!declaringClass.isInstance(target)
+        || (value == null ? getType().isPrimitive() : !argumentType.isInstance(value))) {
+      // lets reflection convert or reject the argument
+      return super.invoke(target, args);
+    }
+    try {
+      setter.invokeExact(target, value);
+      return null;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      return super.invoke(target, args);
+    }
+  }
+
+}
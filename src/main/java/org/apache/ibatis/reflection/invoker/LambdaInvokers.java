@@ -0,0 +1,157 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Replaces reflective invokers with invokers that do not go through {@link Method#invoke(Object, Object...)} or
+ * {@link Field#get(Object)}.
+ * <p>
+ * Public getters and setters of public classes and types are bound to a {@link Function} or a {@link BiConsumer}
+ * generated by the {@link LambdaMetafactory}, fields are accessed through {@link MethodHandle}s. Members that cannot
+ * be bound this way (non public methods or types, classes not visible from the class loader of MyBatis, final fields,
+ * ...) keep their reflective invoker. The replacements behave like the invokers they replace: they fall back to them for arguments the
+ * bound accessor cannot take and report exceptions thrown by the target the same way.
+ *
+ * @since 3.5.5
+ */
+public final class LambdaInvokers {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType FUNCTION = MethodType.methodType(Function.class);
+  private static final MethodType BI_CONSUMER = MethodType.methodType(BiConsumer.class);
+  private static final MethodType APPLY = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType ACCEPT = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType FIELD_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private LambdaInvokers() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Returns an invoker equivalent to the given one that does not use reflection on each call, or the given invoker
+   * when its member cannot be bound.
+   *
+   * @param invoker
+   *          an invoker created by the {@link Reflector}
+   * @return the replacement invoker, or the given one
+   */
+  public static Invoker compile(Invoker invoker) {
+    Class<?> invokerType = invoker.getClass();
+    if (invokerType == MethodInvoker.class) {
+      return compile((MethodInvoker) invoker);
+    } else if (invokerType == GetFieldInvoker.class) {
+      return compile((GetFieldInvoker) invoker);
+    } else if (invokerType == SetFieldInvoker.class) {
+      return compile((SetFieldInvoker) invoker);
+    }
+    return invoker;
+  }
+
+  @UsesJava7
+  @SuppressWarnings("unchecked")
+  private static Invoker compile(MethodInvoker invoker) {
+    Method method = invoker.getMethod();
+    Class<?> declaringClass = method.getDeclaringClass();
+    if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+        || !isAccessible(declaringClass) || !isAccessible(method.getReturnType())) {
+      return invoker;
+    }
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    try {
+      MethodHandle handle = LOOKUP.unreflect(method);
+      if (parameterTypes.length == 0) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", FUNCTION, APPLY, handle,
+            MethodType.methodType(wrap(method.getReturnType()), declaringClass));
+        return new LambdaMethodInvoker(method, (Function<Object, Object>) site.getTarget().invoke(), null);
+      } else if (parameterTypes.length == 1 && isAccessible(parameterTypes[0])) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", BI_CONSUMER, ACCEPT, handle,
+            MethodType.methodType(void.class, declaringClass, wrap(parameterTypes[0])));
+        return new LambdaMethodInvoker(method, null, (BiConsumer<Object, Object>) site.getTarget().invoke());
+      }
+    } catch (Throwable t) {
+      // Ignore, keeps the reflective invoker
+    }
+    return invoker;
+  }
+
+  private static Invoker compile(GetFieldInvoker invoker) {
+    Field field = invoker.getField();
+    MethodHandle getter = unreflect(field, false);
+    return getter == null ? invoker : new HandleGetFieldInvoker(field, getter.asType(APPLY));
+  }
+
+  private static Invoker compile(SetFieldInvoker invoker) {
+    Field field = invoker.getField();
+    if (Modifier.isFinal(field.getModifiers())) {
+      return invoker;
+    }
+    MethodHandle setter = unreflect(field, true);
+    return setter == null ? invoker : new HandleSetFieldInvoker(field, setter.asType(FIELD_SETTER));
+  }
+
+  private static MethodHandle unreflect(Field field, boolean setter) {
+    if (Modifier.isStatic(field.getModifiers())) {
+      return null;
+    }
+    try {
+      if (!Modifier.isPublic(field.getModifiers()) || !Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+        if (!Reflector.canControlMemberAccessible()) {
+          return null;
+        }
+        field.setAccessible(true);
+      }
+      return setter ? LOOKUP.unreflectSetter(field) : LOOKUP.unreflectGetter(field);
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  static Class<?> wrap(Class<?> type) {
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+  private static boolean isAccessible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return false;
+    }
+    try {
+      return Class.forName(type.getName(), false, LambdaInvokers.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+}
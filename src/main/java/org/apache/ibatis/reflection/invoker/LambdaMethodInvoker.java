@@ -0,0 +1,72 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A getter or a setter bound by {@link LambdaInvokers}.
+ */
+final class LambdaMethodInvoker extends MethodInvoker {
+
+  private final Class<?> declaringClass;
+  private final Class<?> argumentType;
+  private final Function<Object, Object> getter;
+  private final BiConsumer<Object, Object> setter;
+
+  LambdaMethodInvoker(Method method, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+    super(method);
+    this.declaringClass = method.getDeclaringClass();
+    this.argumentType = setter == null ? null : LambdaInvokers.wrap(getType());
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (!declaringClass.isInstance(target)) {
+      return super.invoke(target, args);
+    }
+    if (getter != null) {
+      if (args != null && args.length != 0) {
+        return super.invoke(target, args);
+      }
+      try {
+        return getter.apply(target);
+      } catch (Throwable t) {
+        throw new InvocationTargetException(t);
+      }
+    }
+    if (args == null || args.length != 1 || !isAssignable(args[0])) {
+      // lets reflection convert or reject the argument
+      return super.invoke(target, args);
+    }
+    try {
+      setter.accept(target, args[0]);
+      return null;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  private boolean isAssignable(Object value) {
+    return value == null ? !getType().isPrimitive() : argumentType.isInstance(value);
+  }
+
+}
@@ -56,4 +56,8 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  Method getMethod() {
+    return method;
+  }
 }
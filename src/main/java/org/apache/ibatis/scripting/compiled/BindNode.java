@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import org.apache.ibatis.scripting.xmltags.OgnlCache;
+
+class BindNode implements CompiledSqlNode {
+
+  private final String name;
+  private final String expression;
+
+  BindNode(String name, String expression) {
+    this.name = name;
+    this.expression = expression;
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    final Object value = OgnlCache.getValue(expression, context.getBindings());
+    context.bind(name, value);
+    return true;
+  }
+
+}
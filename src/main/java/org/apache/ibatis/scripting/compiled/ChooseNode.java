@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.List;
+
+class ChooseNode implements CompiledSqlNode {
+  private final CompiledSqlNode defaultSqlNode;
+  private final CompiledSqlNode[] ifSqlNodes;
+
+  ChooseNode(List<CompiledSqlNode> ifSqlNodes, CompiledSqlNode defaultSqlNode) {
+    this.ifSqlNodes = ifSqlNodes.toArray(new CompiledSqlNode[0]);
+    this.defaultSqlNode = defaultSqlNode;
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    for (CompiledSqlNode sqlNode : ifSqlNodes) {
+      if (sqlNode.apply(context)) {
+        return true;
+      }
+    }
+    if (defaultSqlNode != null) {
+      defaultSqlNode.apply(context);
+      return true;
+    }
+    return false;
+  }
+}
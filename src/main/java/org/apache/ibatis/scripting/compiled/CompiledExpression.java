@@ -0,0 +1,627 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import ognl.MethodFailedException;
+import ognl.NoSuchPropertyException;
+import ognl.OgnlException;
+import ognl.OgnlOps;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+
+/**
+ * An OGNL expression compiled into direct property reads and comparisons.
+ * <p>
+ * Only a subset of OGNL is compiled: property paths, <code>size()</code>, <code>isEmpty()</code> and
+ * <code>length()</code> calls, <code>null</code>, boolean, integer, decimal and string literals, comparisons and
+ * the <code>and</code>, <code>or</code> and <code>not</code> operators. Any other expression is evaluated by OGNL.
+ * The operators are applied through {@link OgnlOps}, so a compiled expression gives the same result, or fails with
+ * the same error, as OGNL. A compiled expression is never evaluated a second time by OGNL, so each getter it reads
+ * is called once.
+ */
+class CompiledExpression {
+
+  private static final ExpressionEvaluator evaluator = new ExpressionEvaluator();
+
+  private final String expression;
+  private final Node root;
+
+  private CompiledExpression(String expression, Node root) {
+    this.expression = expression;
+    this.root = root;
+  }
+
+  static CompiledExpression compile(String expression, ReflectorFactory reflectorFactory) {
+    Node root;
+    try {
+      root = expression == null ? null : new Parser(expression, reflectorFactory).parse();
+    } catch (UnsupportedExpressionException e) {
+      root = null;
+    }
+    return new CompiledExpression(expression, root);
+  }
+
+  boolean isCompiled() {
+    return root != null;
+  }
+
+  boolean evaluateBoolean(Map<String, Object> bindings) {
+    if (root == null) {
+      return evaluator.evaluateBoolean(expression, bindings);
+    }
+    // same as ExpressionEvaluator
+    Object value = evaluate(bindings);
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Number) {
+      return new BigDecimal(String.valueOf(value)).compareTo(BigDecimal.ZERO) != 0;
+    }
+    return value != null;
+  }
+
+  Iterable<?> evaluateIterable(Map<String, Object> bindings) {
+    if (root == null) {
+      return evaluator.evaluateIterable(expression, bindings);
+    }
+    // same as ExpressionEvaluator
+    Object value = evaluate(bindings);
+    if (value == null) {
+      throw new BuilderException("The expression '" + expression + "' evaluated to a null value.");
+    }
+    if (value instanceof Iterable) {
+      return (Iterable<?>) value;
+    }
+    if (value.getClass().isArray()) {
+      int size = Array.getLength(value);
+      List<Object> answer = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        answer.add(Array.get(value, i));
+      }
+      return answer;
+    }
+    if (value instanceof Map) {
+      return ((Map<?, ?>) value).entrySet();
+    }
+    throw new BuilderException("Error evaluating expression '" + expression + "'.  Return value (" + value + ") was not iterable.");
+  }
+
+  private Object evaluate(Map<String, Object> bindings) {
+    try {
+      return root.evaluate(bindings);
+    } catch (OgnlException e) {
+      // same as OgnlCache
+      throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + e, e);
+    }
+  }
+
+  private interface Node {
+    Object evaluate(Map<String, Object> bindings) throws OgnlException;
+  }
+
+  private static class Literal implements Node {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) {
+      return value;
+    }
+  }
+
+  private static class Not implements Node {
+    private final Node operand;
+
+    Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) throws OgnlException {
+      return OgnlOps.booleanValue(operand.evaluate(bindings)) ? Boolean.FALSE : Boolean.TRUE;
+    }
+  }
+
+  /**
+   * Returns the first operand that is false, or the last one, like OGNL.
+   */
+  private static class And implements Node {
+    private final Node left;
+    private final Node right;
+
+    And(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) throws OgnlException {
+      Object value = left.evaluate(bindings);
+      return OgnlOps.booleanValue(value) ? right.evaluate(bindings) : value;
+    }
+  }
+
+  /**
+   * Returns the first operand that is true, or the last one, like OGNL.
+   */
+  private static class Or implements Node {
+    private final Node left;
+    private final Node right;
+
+    Or(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) throws OgnlException {
+      Object value = left.evaluate(bindings);
+      return OgnlOps.booleanValue(value) ? value : right.evaluate(bindings);
+    }
+  }
+
+  private enum Operator {
+    EQ, NEQ, LT, GT, LTE, GTE
+  }
+
+  private static class Comparison implements Node {
+    private final Operator operator;
+    private final Node left;
+    private final Node right;
+
+    Comparison(Operator operator, Node left, Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) throws OgnlException {
+      Object v1 = left.evaluate(bindings);
+      Object v2 = right.evaluate(bindings);
+      switch (operator) {
+        case EQ:
+          return OgnlOps.equal(v1, v2);
+        case NEQ:
+          return !OgnlOps.equal(v1, v2);
+        case LT:
+          return OgnlOps.less(v1, v2);
+        case GT:
+          return OgnlOps.greater(v1, v2);
+        case LTE:
+          return !OgnlOps.greater(v1, v2);
+        default:
+          return !OgnlOps.less(v1, v2);
+      }
+    }
+  }
+
+  /**
+   * A property path. The first property is read from the bindings like OGNL does, the following ones through the
+   * getter invokers of the {@link Reflector}, which are cached for the last seen type.
+   */
+  private static class Path implements Node {
+    private final String name;
+    private final Segment[] segments;
+
+    Path(String name, List<Segment> segments) {
+      this.name = name;
+      this.segments = segments.toArray(new Segment[0]);
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> bindings) throws OgnlException {
+      Object value = bindings.get(name);
+      if (value == null && !bindings.containsKey(name)) {
+        // same as DynamicContext.ContextAccessor
+        Object parameterObject = bindings.get(DynamicContext.PARAMETER_OBJECT_KEY);
+        if (parameterObject instanceof Map) {
+          value = ((Map<?, ?>) parameterObject).get(name);
+        }
+      }
+      for (Segment segment : segments) {
+        value = segment.evaluate(value);
+      }
+      return value;
+    }
+  }
+
+  private abstract static class Segment {
+    abstract Object evaluate(Object target) throws OgnlException;
+  }
+
+  private static class PropertySegment extends Segment {
+    private final String name;
+    private final ReflectorFactory reflectorFactory;
+    private volatile CachedGetter cachedGetter;
+
+    PropertySegment(String name, ReflectorFactory reflectorFactory) {
+      this.name = name;
+      this.reflectorFactory = reflectorFactory;
+    }
+
+    @Override
+    Object evaluate(Object target) throws OgnlException {
+      if (target == null) {
+        throw new OgnlException("source is null for getProperty(null, \"" + name + "\")");
+      }
+      if (target instanceof Map) {
+        return ((Map<?, ?>) target).get(name);
+      }
+      CachedGetter getter = cachedGetter;
+      if (getter == null || getter.type != target.getClass()) {
+        Reflector reflector = reflectorFactory.findForClass(target.getClass());
+        if (!reflector.hasGetter(name)) {
+          throw new NoSuchPropertyException(target, name);
+        }
+        getter = new CachedGetter(target.getClass(), reflector.getGetInvoker(name));
+        cachedGetter = getter;
+      }
+      try {
+        return getter.invoker.invoke(target, null);
+      } catch (InvocationTargetException e) {
+        throw new OgnlException(name, e.getTargetException());
+      } catch (ReflectiveOperationException e) {
+        throw new OgnlException(name, e);
+      }
+    }
+
+    /**
+     * Names that OGNL resolves to a method call rather than a property on collections, maps, arrays and iterators.
+     */
+    static boolean isSupported(String name) {
+      switch (name) {
+        case "size":
+        case "isEmpty":
+        case "keys":
+        case "keySet":
+        case "values":
+        case "length":
+        case "iterator":
+        case "next":
+        case "hasNext":
+        case "nextElement":
+        case "hasMoreElements":
+          return false;
+        default:
+          return true;
+      }
+    }
+  }
+
+  private static class CachedGetter {
+    private final Class<?> type;
+    private final Invoker invoker;
+
+    CachedGetter(Class<?> type, Invoker invoker) {
+      this.type = type;
+      this.invoker = invoker;
+    }
+  }
+
+  private static class MethodSegment extends Segment {
+    private final String name;
+
+    MethodSegment(String name) {
+      this.name = name;
+    }
+
+    @Override
+    Object evaluate(Object target) throws OgnlException {
+      if (target == null) {
+        // same as OgnlRuntime
+        throw new NullPointerException("target is null for method " + name);
+      }
+      if ("size".equals(name)) {
+        if (target instanceof Collection) {
+          return ((Collection<?>) target).size();
+        } else if (target instanceof Map) {
+          return ((Map<?, ?>) target).size();
+        }
+      } else if ("isEmpty".equals(name)) {
+        if (target instanceof Collection) {
+          return ((Collection<?>) target).isEmpty();
+        } else if (target instanceof Map) {
+          return ((Map<?, ?>) target).isEmpty();
+        } else if (target instanceof String) {
+          return ((String) target).isEmpty();
+        }
+      } else if (target instanceof String) {
+        return ((String) target).length();
+      }
+      try {
+        return target.getClass().getMethod(name).invoke(target);
+      } catch (InvocationTargetException e) {
+        throw new MethodFailedException(target, name, e.getTargetException());
+      } catch (ReflectiveOperationException e) {
+        throw new MethodFailedException(target, name, e);
+      }
+    }
+
+    static boolean isSupported(String name) {
+      return "size".equals(name) || "isEmpty".equals(name) || "length".equals(name);
+    }
+  }
+
+  private static class Parser {
+    private final String expression;
+    private final ReflectorFactory reflectorFactory;
+    private int position;
+
+    Parser(String expression, ReflectorFactory reflectorFactory) {
+      this.expression = expression;
+      this.reflectorFactory = reflectorFactory;
+    }
+
+    Node parse() {
+      Node node = parseOr();
+      skipWhitespace();
+      if (position != expression.length()) {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      return node;
+    }
+
+    private Node parseOr() {
+      Node node = parseAnd();
+      while (acceptSymbol("||") || acceptKeyword("or")) {
+        node = new Or(node, parseAnd());
+      }
+      return node;
+    }
+
+    private Node parseAnd() {
+      Node node = parseNot();
+      while (acceptSymbol("&&") || acceptKeyword("and")) {
+        node = new And(node, parseNot());
+      }
+      return node;
+    }
+
+    private Node parseNot() {
+      skipWhitespace();
+      if (peek('!') && !lookingAt("!=")) {
+        position++;
+        return new Not(parseNot());
+      }
+      if (acceptKeyword("not")) {
+        return new Not(parseNot());
+      }
+      return parseComparison();
+    }
+
+    private Node parseComparison() {
+      Node left = parsePrimary();
+      Operator operator = parseOperator();
+      if (operator == null) {
+        return left;
+      }
+      return new Comparison(operator, left, parsePrimary());
+    }
+
+    private Operator parseOperator() {
+      if (acceptSymbol("==") || acceptKeyword("eq")) {
+        return Operator.EQ;
+      } else if (acceptSymbol("!=") || acceptKeyword("neq")) {
+        return Operator.NEQ;
+      } else if (acceptSymbol("<=") || acceptKeyword("lte")) {
+        return Operator.LTE;
+      } else if (acceptSymbol(">=") || acceptKeyword("gte")) {
+        return Operator.GTE;
+      } else if (acceptSymbol("<") || acceptKeyword("lt")) {
+        return Operator.LT;
+      } else if (acceptSymbol(">") || acceptKeyword("gt")) {
+        return Operator.GT;
+      }
+      return null;
+    }
+
+    private Node parsePrimary() {
+      skipWhitespace();
+      if (position >= expression.length()) {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      char c = expression.charAt(position);
+      if (c == '(') {
+        position++;
+        Node node = parseOr();
+        if (!acceptSymbol(")")) {
+          throw UnsupportedExpressionException.INSTANCE;
+        }
+        return node;
+      } else if (c == '\'' || c == '"') {
+        return parseString(c);
+      } else if (Character.isDigit(c)) {
+        return parseNumber();
+      } else if (Character.isJavaIdentifierStart(c)) {
+        String identifier = parseIdentifier();
+        switch (identifier) {
+          case "null":
+            return new Literal(null);
+          case "true":
+            return new Literal(Boolean.TRUE);
+          case "false":
+            return new Literal(Boolean.FALSE);
+          case "and":
+          case "or":
+          case "not":
+          case "eq":
+          case "neq":
+          case "lt":
+          case "gt":
+          case "lte":
+          case "gte":
+          case "in":
+          case "instanceof":
+          case "new":
+            throw UnsupportedExpressionException.INSTANCE;
+          default:
+            return parsePath(identifier);
+        }
+      }
+      throw UnsupportedExpressionException.INSTANCE;
+    }
+
+    private Node parsePath(String name) {
+      List<Segment> segments = new ArrayList<>();
+      while (peek('.')) {
+        position++;
+        if (position >= expression.length() || !Character.isJavaIdentifierStart(expression.charAt(position))) {
+          throw UnsupportedExpressionException.INSTANCE;
+        }
+        String identifier = parseIdentifier();
+        if (lookingAt("()")) {
+          if (!MethodSegment.isSupported(identifier)) {
+            throw UnsupportedExpressionException.INSTANCE;
+          }
+          position += 2;
+          segments.add(new MethodSegment(identifier));
+        } else if (peek('(')) {
+          throw UnsupportedExpressionException.INSTANCE;
+        } else if (PropertySegment.isSupported(identifier)) {
+          segments.add(new PropertySegment(identifier, reflectorFactory));
+        } else {
+          throw UnsupportedExpressionException.INSTANCE;
+        }
+      }
+      if (peek('(') || peek('[')) {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      return new Path(name, segments);
+    }
+
+    private Node parseString(char quote) {
+      int end = expression.indexOf(quote, position + 1);
+      if (end < 0) {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      String value = expression.substring(position + 1, end);
+      if (value.indexOf('\\') >= 0 || (quote == '\'' && value.length() == 1)) {
+        // escapes and character literals are left to OGNL
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      position = end + 1;
+      return new Literal(value);
+    }
+
+    private Node parseNumber() {
+      int start = position;
+      while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+        position++;
+      }
+      boolean decimal = false;
+      if (peek('.')) {
+        decimal = true;
+        position++;
+        int fractionStart = position;
+        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+          position++;
+        }
+        if (position == fractionStart) {
+          throw UnsupportedExpressionException.INSTANCE;
+        }
+      }
+      if (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        // type suffixes, hexadecimal and octal literals are left to OGNL
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      String literal = expression.substring(start, position);
+      if (decimal) {
+        return new Literal(Double.valueOf(literal));
+      }
+      if (literal.length() > 1 && literal.charAt(0) == '0') {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+      try {
+        return new Literal(Integer.valueOf(literal));
+      } catch (NumberFormatException e) {
+        throw UnsupportedExpressionException.INSTANCE;
+      }
+    }
+
+    private String parseIdentifier() {
+      int start = position;
+      position++;
+      while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        position++;
+      }
+      return expression.substring(start, position);
+    }
+
+    private boolean acceptSymbol(String symbol) {
+      skipWhitespace();
+      if (lookingAt(symbol)) {
+        position += symbol.length();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+      skipWhitespace();
+      int end = position + keyword.length();
+      if (lookingAt(keyword)
+          && (end == expression.length() || !Character.isJavaIdentifierPart(expression.charAt(end)))) {
+        position = end;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean lookingAt(String text) {
+      return expression.startsWith(text, position);
+    }
+
+    private boolean peek(char c) {
+      return position < expression.length() && expression.charAt(position) == c;
+    }
+
+    private void skipWhitespace() {
+      while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+    }
+  }
+
+  /**
+   * Thrown when an expression cannot be compiled and is left to OGNL.
+   */
+  private static class UnsupportedExpressionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    static final UnsupportedExpressionException INSTANCE = new UnsupportedExpressionException();
+
+    private UnsupportedExpressionException() {
+      super(null, null, false, false);
+    }
+  }
+
+}
@@ -0,0 +1,39 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * A language driver that accepts the same scripts as the {@link XMLLanguageDriver} but compiles dynamic scripts
+ * when the statement is built.
+ * <p>
+ * Simple <code>test</code> and <code>collection</code> expressions are turned into direct property reads and
+ * comparisons instead of being evaluated by OGNL, and the <code>#{...}</code> placeholders of the static text are
+ * extracted once instead of on every execution.
+ */
+public class CompiledLanguageDriver extends XMLLanguageDriver {
+
+  @Override
+  public SqlSource createSqlSource(Configuration configuration, XNode script, Class<?> parameterType) {
+    CompiledScriptBuilder builder = new CompiledScriptBuilder(configuration, script, parameterType);
+    return builder.parseScriptNode();
+  }
+
+}
@@ -0,0 +1,248 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BaseBuilder;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.XMLScriptBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Builds the compiled form of a dynamic XML script. Scripts without dynamic content are built by the
+ * {@link XMLScriptBuilder}.
+ */
+class CompiledScriptBuilder extends BaseBuilder {
+
+  private final XNode context;
+  private boolean isDynamic;
+  private final Class<?> parameterType;
+  private final Map<String, NodeHandler> nodeHandlerMap = new HashMap<>();
+  // enclosing foreach scopes, innermost first
+  private final LinkedList<ForEachScope> forEachScopes = new LinkedList<>();
+  private int forEachCount;
+
+  public CompiledScriptBuilder(Configuration configuration, XNode context, Class<?> parameterType) {
+    super(configuration);
+    this.context = context;
+    this.parameterType = parameterType;
+    initNodeHandlerMap();
+  }
+
+  private void initNodeHandlerMap() {
+    nodeHandlerMap.put("trim", new TrimHandler());
+    nodeHandlerMap.put("where", new WhereHandler());
+    nodeHandlerMap.put("set", new SetHandler());
+    nodeHandlerMap.put("foreach", new ForEachHandler());
+    nodeHandlerMap.put("if", new IfHandler());
+    nodeHandlerMap.put("choose", new ChooseHandler());
+    nodeHandlerMap.put("when", new IfHandler());
+    nodeHandlerMap.put("otherwise", new OtherwiseHandler());
+    nodeHandlerMap.put("bind", new BindHandler());
+  }
+
+  public SqlSource parseScriptNode() {
+    CompiledSqlNode rootSqlNode = parseDynamicTags(context);
+    if (!isDynamic) {
+      return new XMLScriptBuilder(configuration, context, parameterType).parseScriptNode();
+    }
+    return new CompiledSqlSource(configuration, rootSqlNode, forEachCount);
+  }
+
+  private CompiledSqlNode parseDynamicTags(XNode node) {
+    List<CompiledSqlNode> contents = new ArrayList<>();
+    NodeList children = node.getNode().getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      XNode child = node.newXNode(children.item(i));
+      if (child.getNode().getNodeType() == Node.CDATA_SECTION_NODE || child.getNode().getNodeType() == Node.TEXT_NODE) {
+        String data = child.getStringBody("");
+        TextSqlNode textSqlNode = new TextSqlNode(data);
+        if (textSqlNode.isDynamic()) {
+          contents.add(new TextNode(configuration, textSqlNode, new ArrayList<>(forEachScopes)));
+          isDynamic = true;
+        } else {
+          contents.add(new StaticTextNode(data, new ArrayList<>(forEachScopes)));
+        }
+      } else if (child.getNode().getNodeType() == Node.ELEMENT_NODE) { // issue #628
+        String nodeName = child.getNode().getNodeName();
+        NodeHandler handler = nodeHandlerMap.get(nodeName);
+        if (handler == null) {
+          throw new BuilderException("Unknown element <" + nodeName + "> in SQL statement.");
+        }
+        handler.handleNode(child, contents);
+        isDynamic = true;
+      }
+    }
+    return new MixedNode(contents);
+  }
+
+  private CompiledExpression compileExpression(String expression) {
+    return CompiledExpression.compile(expression, configuration.getReflectorFactory());
+  }
+
+  private interface NodeHandler {
+    void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents);
+  }
+
+  private class BindHandler implements NodeHandler {
+    public BindHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      final String name = nodeToHandle.getStringAttribute("name");
+      final String expression = nodeToHandle.getStringAttribute("value");
+      targetContents.add(new BindNode(name, expression));
+    }
+  }
+
+  private class TrimHandler implements NodeHandler {
+    public TrimHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      CompiledSqlNode contents = parseDynamicTags(nodeToHandle);
+      String prefix = nodeToHandle.getStringAttribute("prefix");
+      String prefixOverrides = nodeToHandle.getStringAttribute("prefixOverrides");
+      String suffix = nodeToHandle.getStringAttribute("suffix");
+      String suffixOverrides = nodeToHandle.getStringAttribute("suffixOverrides");
+      targetContents.add(new TrimNode(contents, prefix, prefixOverrides, suffix, suffixOverrides));
+    }
+  }
+
+  private class WhereHandler implements NodeHandler {
+    public WhereHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      targetContents.add(TrimNode.where(parseDynamicTags(nodeToHandle)));
+    }
+  }
+
+  private class SetHandler implements NodeHandler {
+    public SetHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      targetContents.add(TrimNode.set(parseDynamicTags(nodeToHandle)));
+    }
+  }
+
+  private class ForEachHandler implements NodeHandler {
+    public ForEachHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      String collection = nodeToHandle.getStringAttribute("collection");
+      String item = nodeToHandle.getStringAttribute("item");
+      String index = nodeToHandle.getStringAttribute("index");
+      String open = nodeToHandle.getStringAttribute("open");
+      String close = nodeToHandle.getStringAttribute("close");
+      String separator = nodeToHandle.getStringAttribute("separator");
+      ForEachScope scope = new ForEachScope(item, index, forEachCount++);
+      forEachScopes.addFirst(scope);
+      CompiledSqlNode contents;
+      try {
+        contents = parseDynamicTags(nodeToHandle);
+      } finally {
+        forEachScopes.removeFirst();
+      }
+      targetContents.add(new ForEachNode(contents, compileExpression(collection), scope, open, close, separator));
+    }
+  }
+
+  private class IfHandler implements NodeHandler {
+    public IfHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      CompiledSqlNode contents = parseDynamicTags(nodeToHandle);
+      String test = nodeToHandle.getStringAttribute("test");
+      targetContents.add(new IfNode(contents, compileExpression(test)));
+    }
+  }
+
+  private class OtherwiseHandler implements NodeHandler {
+    public OtherwiseHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      targetContents.add(parseDynamicTags(nodeToHandle));
+    }
+  }
+
+  private class ChooseHandler implements NodeHandler {
+    public ChooseHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<CompiledSqlNode> targetContents) {
+      List<CompiledSqlNode> whenSqlNodes = new ArrayList<>();
+      List<CompiledSqlNode> otherwiseSqlNodes = new ArrayList<>();
+      handleWhenOtherwiseNodes(nodeToHandle, whenSqlNodes, otherwiseSqlNodes);
+      CompiledSqlNode defaultSqlNode = getDefaultSqlNode(otherwiseSqlNodes);
+      targetContents.add(new ChooseNode(whenSqlNodes, defaultSqlNode));
+    }
+
+    private void handleWhenOtherwiseNodes(XNode chooseSqlNode, List<CompiledSqlNode> ifSqlNodes, List<CompiledSqlNode> defaultSqlNodes) {
+      List<XNode> children = chooseSqlNode.getChildren();
+      for (XNode child : children) {
+        String nodeName = child.getNode().getNodeName();
+        NodeHandler handler = nodeHandlerMap.get(nodeName);
+        if (handler instanceof IfHandler) {
+          handler.handleNode(child, ifSqlNodes);
+        } else if (handler instanceof OtherwiseHandler) {
+          handler.handleNode(child, defaultSqlNodes);
+        }
+      }
+    }
+
+    private CompiledSqlNode getDefaultSqlNode(List<CompiledSqlNode> defaultSqlNodes) {
+      CompiledSqlNode defaultSqlNode = null;
+      if (defaultSqlNodes.size() == 1) {
+        defaultSqlNode = defaultSqlNodes.get(0);
+      } else if (defaultSqlNodes.size() > 1) {
+        throw new BuilderException("Too many default (otherwise) elements in choose statement.");
+      }
+      return defaultSqlNode;
+    }
+  }
+
+}
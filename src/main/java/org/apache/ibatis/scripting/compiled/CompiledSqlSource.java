@@ -0,0 +1,81 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.List;
+
+import org.apache.ibatis.builder.ParameterMappingCache;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Dynamic sql source built by the {@link CompiledLanguageDriver}.
+ * <p>
+ * Unlike {@link org.apache.ibatis.scripting.xmltags.DynamicSqlSource}, the placeholders are collected while the
+ * script is rendered, so the resulting sql does not need to be parsed again.
+ */
+public class CompiledSqlSource implements SqlSource {
+
+  private final Configuration configuration;
+  private final CompiledSqlNode rootSqlNode;
+  private final int forEachCount;
+  private final SqlSourceBuilder sqlSourceBuilder;
+  private final ParameterMappingCache parameterMappingCache;
+
+  CompiledSqlSource(Configuration configuration, CompiledSqlNode rootSqlNode, int forEachCount) {
+    this.configuration = configuration;
+    this.rootSqlNode = rootSqlNode;
+    this.forEachCount = forEachCount;
+    this.sqlSourceBuilder = new SqlSourceBuilder(configuration);
+    int cacheSize = configuration.getParameterMappingCacheSize();
+    this.parameterMappingCache = cacheSize > 0 ? new ParameterMappingCache(configuration, cacheSize) : null;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    DynamicContext dynamicContext = new DynamicContext(configuration, parameterObject);
+    RenderContext context = new RenderContext(dynamicContext, forEachCount);
+    rootSqlNode.apply(context);
+    Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
+    String sql = context.getSql();
+    List<ParameterMapping> parameterMappings;
+    if (parameterMappingCache != null) {
+      parameterMappings = parameterMappingCache.parseParameterMappings(sql, context.getParameterContents(),
+          parameterType, dynamicContext.getBindings());
+    } else {
+      parameterMappings = sqlSourceBuilder.parseParameterMappings(context.getParameterContents(), parameterType,
+          dynamicContext.getBindings());
+    }
+    BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    dynamicContext.getBindings().forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  /**
+   * Returns the cache of the parameter mappings of the rendered sqls.
+   *
+   * @return the parameter mapping cache, or null if it is disabled
+   * @since 3.5.5
+   */
+  public ParameterMappingCache getParameterMappingCache() {
+    return parameterMappingCache;
+  }
+
+}
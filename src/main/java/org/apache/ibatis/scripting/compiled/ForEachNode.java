@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.Map;
+
+class ForEachNode implements CompiledSqlNode {
+
+  private final CompiledExpression collectionExpression;
+  private final CompiledSqlNode contents;
+  private final String open;
+  private final String close;
+  private final String separator;
+  private final ForEachScope scope;
+
+  ForEachNode(CompiledSqlNode contents, CompiledExpression collectionExpression, ForEachScope scope, String open, String close, String separator) {
+    this.collectionExpression = collectionExpression;
+    this.contents = contents;
+    this.open = open;
+    this.close = close;
+    this.separator = separator;
+    this.scope = scope;
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    final Iterable<?> iterable = collectionExpression.evaluateIterable(context.getBindings());
+    if (!iterable.iterator().hasNext()) {
+      return true;
+    }
+    boolean first = true;
+    applyOpen(context);
+    int i = 0;
+    for (Object o : iterable) {
+      PrefixedContext prefixedContext = new PrefixedContext(context, first || separator == null ? "" : separator);
+      int uniqueNumber = context.getUniqueNumber();
+      // Issue #709
+      if (o instanceof Map.Entry) {
+        @SuppressWarnings("unchecked")
+        Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
+        applyIndex(context, mapEntry.getKey(), uniqueNumber);
+        applyItem(context, mapEntry.getValue(), uniqueNumber);
+      } else {
+        applyIndex(context, i, uniqueNumber);
+        applyItem(context, o, uniqueNumber);
+      }
+      context.setForEachNumber(scope.getSlot(), uniqueNumber);
+      contents.apply(prefixedContext);
+      if (first) {
+        first = !prefixedContext.isPrefixApplied();
+      }
+      i++;
+    }
+    applyClose(context);
+    context.getBindings().remove(scope.getItem());
+    context.getBindings().remove(scope.getIndex());
+    return true;
+  }
+
+  private void applyIndex(RenderContext context, Object o, int i) {
+    if (scope.getIndex() != null) {
+      context.bind(scope.getIndex(), o);
+      context.bind(ForEachScope.itemize(scope.getIndex(), i), o);
+    }
+  }
+
+  private void applyItem(RenderContext context, Object o, int i) {
+    if (scope.getItem() != null) {
+      context.bind(scope.getItem(), o);
+      context.bind(ForEachScope.itemize(scope.getItem(), i), o);
+    }
+  }
+
+  private void applyOpen(RenderContext context) {
+    if (open != null) {
+      context.appendSql(open);
+    }
+  }
+
+  private void applyClose(RenderContext context) {
+    if (close != null) {
+      context.appendSql(close);
+    }
+  }
+
+  private static class PrefixedContext extends RenderContext {
+    private final RenderContext delegate;
+    private final String prefix;
+    private boolean prefixApplied;
+
+    PrefixedContext(RenderContext delegate, String prefix) {
+      super(delegate);
+      this.delegate = delegate;
+      this.prefix = prefix;
+      this.prefixApplied = false;
+    }
+
+    boolean isPrefixApplied() {
+      return prefixApplied;
+    }
+
+    @Override
+    public void appendSql(String sql) {
+      if (!prefixApplied && sql != null && sql.trim().length() > 0) {
+        delegate.appendSql(prefix);
+        prefixApplied = true;
+      }
+      delegate.appendSql(sql);
+    }
+
+    @Override
+    public String getSql() {
+      return delegate.getSql();
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+
+/**
+ * The item and index names declared by a <code>foreach</code> element, used to rename the placeholders of its body.
+ */
+class ForEachScope {
+
+  private final String item;
+  private final String index;
+  private final int slot;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+
+  ForEachScope(String item, String index, int slot) {
+    this.item = item;
+    this.index = index;
+    this.slot = slot;
+    // same patterns as ForEachSqlNode
+    this.itemPattern = Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+    this.indexPattern = index == null ? null : Pattern.compile("^\\s*" + index + "(?![^.,:\\s])");
+  }
+
+  String getItem() {
+    return item;
+  }
+
+  String getIndex() {
+    return index;
+  }
+
+  int getSlot() {
+    return slot;
+  }
+
+  /**
+   * Returns the end of the item or index reference at the start of a placeholder.
+   *
+   * @param content
+   *          the placeholder content
+   * @param matchIndex
+   *          true to look for the index name instead of the item name
+   * @return the end of the reference or -1 if the placeholder does not start with it
+   */
+  int referenceEnd(String content, boolean matchIndex) {
+    Pattern pattern = matchIndex ? indexPattern : itemPattern;
+    if (pattern == null) {
+      return -1;
+    }
+    Matcher matcher = pattern.matcher(content);
+    return matcher.find() ? matcher.end() : -1;
+  }
+
+  static String itemize(String name, int number) {
+    return ForEachSqlNode.ITEM_PREFIX + name + "_" + number;
+  }
+
+}
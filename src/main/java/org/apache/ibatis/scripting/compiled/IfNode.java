@@ -0,0 +1,35 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+class IfNode implements CompiledSqlNode {
+  private final CompiledExpression test;
+  private final CompiledSqlNode contents;
+
+  IfNode(CompiledSqlNode contents, CompiledExpression test) {
+    this.test = test;
+    this.contents = contents;
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    if (test.evaluateBoolean(context.getBindings())) {
+      contents.apply(context);
+      return true;
+    }
+    return false;
+  }
+}
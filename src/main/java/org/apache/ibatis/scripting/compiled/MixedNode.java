@@ -0,0 +1,34 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.List;
+
+class MixedNode implements CompiledSqlNode {
+  private final CompiledSqlNode[] contents;
+
+  MixedNode(List<CompiledSqlNode> contents) {
+    this.contents = contents.toArray(new CompiledSqlNode[0]);
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    for (CompiledSqlNode node : contents) {
+      node.apply(context);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.List;
+
+/**
+ * A <code>#{...}</code> placeholder extracted from the script.
+ * <p>
+ * When the placeholder references the item or the index of an enclosing <code>foreach</code>, the reference is
+ * resolved once, so that rendering only has to append the iteration number.
+ */
+class Placeholder {
+
+  private final String content;
+  private final ForEachScope scope;
+  private final String name;
+  private final String rest;
+
+  private Placeholder(String content, ForEachScope scope, String name, String rest) {
+    this.content = content;
+    this.scope = scope;
+    this.name = name;
+    this.rest = rest;
+  }
+
+  /**
+   * Resolves a placeholder against the enclosing <code>foreach</code> scopes.
+   *
+   * @param content
+   *          the placeholder content
+   * @param scopes
+   *          the enclosing scopes, innermost first
+   * @return the placeholder
+   */
+  static Placeholder resolve(String content, List<ForEachScope> scopes) {
+    for (ForEachScope scope : scopes) {
+      int end = scope.referenceEnd(content, false);
+      String name = scope.getItem();
+      if (end < 0) {
+        end = scope.referenceEnd(content, true);
+        name = scope.getIndex();
+      }
+      if (end >= 0) {
+        return new Placeholder(content, scope, name, content.substring(end));
+      }
+    }
+    return new Placeholder(content, null, null, null);
+  }
+
+  /**
+   * Renames the foreach references of a placeholder found at rendering time.
+   *
+   * @param context
+   *          the render context
+   * @param content
+   *          the placeholder content
+   * @param scopes
+   *          the enclosing scopes, innermost first
+   * @return the renamed content
+   */
+  static String rename(RenderContext context, String content, List<ForEachScope> scopes) {
+    return resolve(content, scopes).render(context);
+  }
+
+  String render(RenderContext context) {
+    if (scope == null) {
+      return content;
+    }
+    return ForEachScope.itemize(name, context.getForEachNumber(scope.getSlot())) + rest;
+  }
+
+}
@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+
+/**
+ * Holds the state of one rendering of a compiled script: the sql being built, the contents of the
+ * <code>#{...}</code> placeholders found so far and the bindings.
+ * <p>
+ * Sql fragments are joined exactly like {@link DynamicContext} does, so both languages render the same sql.
+ */
+class RenderContext {
+
+  private final DynamicContext dynamicContext;
+  private final List<String> parameterContents;
+  private final int[] forEachNumbers;
+  private final StringJoiner sqlBuilder;
+
+  RenderContext(DynamicContext dynamicContext, int forEachCount) {
+    this.dynamicContext = dynamicContext;
+    this.parameterContents = new ArrayList<>();
+    this.forEachNumbers = new int[forEachCount];
+    this.sqlBuilder = new StringJoiner(" ");
+  }
+
+  /**
+   * Creates a context that shares the bindings and placeholders of its parent but handles the sql itself.
+   *
+   * @param parent
+   *          the parent context
+   */
+  protected RenderContext(RenderContext parent) {
+    this.dynamicContext = parent.dynamicContext;
+    this.parameterContents = parent.parameterContents;
+    this.forEachNumbers = parent.forEachNumbers;
+    this.sqlBuilder = null;
+  }
+
+  public void appendSql(String sql) {
+    sqlBuilder.add(sql);
+  }
+
+  public String getSql() {
+    return sqlBuilder.toString().trim();
+  }
+
+  public void addParameter(String content) {
+    parameterContents.add(content);
+  }
+
+  public List<String> getParameterContents() {
+    return parameterContents;
+  }
+
+  public Map<String, Object> getBindings() {
+    return dynamicContext.getBindings();
+  }
+
+  public void bind(String name, Object value) {
+    dynamicContext.bind(name, value);
+  }
+
+  public int getUniqueNumber() {
+    return dynamicContext.getUniqueNumber();
+  }
+
+  public DynamicContext getDynamicContext() {
+    return dynamicContext;
+  }
+
+  int getForEachNumber(int slot) {
+    return forEachNumbers[slot];
+  }
+
+  void setForEachNumber(int slot, int number) {
+    forEachNumbers[slot] = number;
+  }
+
+}
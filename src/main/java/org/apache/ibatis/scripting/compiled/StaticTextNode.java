@@ -0,0 +1,49 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.parsing.GenericTokenParser;
+
+/**
+ * Static text whose placeholders have been replaced by <code>?</code> at build time.
+ */
+class StaticTextNode implements CompiledSqlNode {
+  private final String sql;
+  private final Placeholder[] placeholders;
+
+  StaticTextNode(String text, List<ForEachScope> scopes) {
+    List<Placeholder> list = new ArrayList<>();
+    GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
+      list.add(Placeholder.resolve(content, scopes));
+      return "?";
+    });
+    this.sql = parser.parse(text);
+    this.placeholders = list.toArray(new Placeholder[0]);
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    for (Placeholder placeholder : placeholders) {
+      context.addParameter(placeholder.render(context));
+    }
+    context.appendSql(sql);
+    return true;
+  }
+
+}
@@ -0,0 +1,59 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.parsing.GenericTokenParser;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Text with <code>${...}</code> substitutions. The placeholders are extracted after the substitution.
+ */
+class TextNode implements CompiledSqlNode {
+  private final Configuration configuration;
+  private final TextSqlNode textSqlNode;
+  private final List<ForEachScope> scopes;
+
+  TextNode(Configuration configuration, TextSqlNode textSqlNode, List<ForEachScope> scopes) {
+    this.configuration = configuration;
+    this.textSqlNode = textSqlNode;
+    this.scopes = scopes;
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
+      context.addParameter(Placeholder.rename(context, content, scopes));
+      return "?";
+    });
+    return textSqlNode.apply(new DynamicContext(configuration, null) {
+      @Override
+      public Map<String, Object> getBindings() {
+        return context.getBindings();
+      }
+
+      @Override
+      public void appendSql(String sql) {
+        context.appendSql(parser.parse(sql));
+      }
+    });
+  }
+
+}
@@ -0,0 +1,142 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringTokenizer;
+
+/**
+ * Compiled form of the <code>trim</code>, <code>where</code> and <code>set</code> elements.
+ */
+class TrimNode implements CompiledSqlNode {
+
+  private static final List<String> WHERE_PREFIXES = Arrays.asList("AND ", "OR ", "AND\n", "OR\n", "AND\r", "OR\r", "AND\t", "OR\t");
+  private static final List<String> COMMA = Collections.singletonList(",");
+
+  private final CompiledSqlNode contents;
+  private final String prefix;
+  private final String suffix;
+  private final List<String> prefixesToOverride;
+  private final List<String> suffixesToOverride;
+
+  TrimNode(CompiledSqlNode contents, String prefix, String prefixesToOverride, String suffix, String suffixesToOverride) {
+    this(contents, prefix, parseOverrides(prefixesToOverride), suffix, parseOverrides(suffixesToOverride));
+  }
+
+  private TrimNode(CompiledSqlNode contents, String prefix, List<String> prefixesToOverride, String suffix, List<String> suffixesToOverride) {
+    this.contents = contents;
+    this.prefix = prefix;
+    this.prefixesToOverride = prefixesToOverride;
+    this.suffix = suffix;
+    this.suffixesToOverride = suffixesToOverride;
+  }
+
+  static TrimNode where(CompiledSqlNode contents) {
+    return new TrimNode(contents, "WHERE", WHERE_PREFIXES, null, null);
+  }
+
+  static TrimNode set(CompiledSqlNode contents) {
+    return new TrimNode(contents, "SET", COMMA, null, COMMA);
+  }
+
+  @Override
+  public boolean apply(RenderContext context) {
+    FilteredContext filteredContext = new FilteredContext(context);
+    boolean result = contents.apply(filteredContext);
+    filteredContext.applyAll();
+    return result;
+  }
+
+  private static List<String> parseOverrides(String overrides) {
+    if (overrides != null) {
+      final StringTokenizer parser = new StringTokenizer(overrides, "|", false);
+      final List<String> list = new ArrayList<>(parser.countTokens());
+      while (parser.hasMoreTokens()) {
+        list.add(parser.nextToken().toUpperCase(Locale.ENGLISH));
+      }
+      return list;
+    }
+    return Collections.emptyList();
+  }
+
+  private class FilteredContext extends RenderContext {
+    private final RenderContext delegate;
+    private StringBuilder sqlBuffer;
+
+    FilteredContext(RenderContext delegate) {
+      super(delegate);
+      this.delegate = delegate;
+      this.sqlBuffer = new StringBuilder();
+    }
+
+    void applyAll() {
+      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
+      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
+      if (trimmedUppercaseSql.length() > 0) {
+        applyPrefix(sqlBuffer, trimmedUppercaseSql);
+        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      }
+      delegate.appendSql(sqlBuffer.toString());
+    }
+
+    @Override
+    public void appendSql(String sql) {
+      sqlBuffer.append(sql);
+    }
+
+    @Override
+    public String getSql() {
+      return delegate.getSql();
+    }
+
+    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
+      if (prefixesToOverride != null) {
+        for (String toRemove : prefixesToOverride) {
+          if (trimmedUppercaseSql.startsWith(toRemove)) {
+            sql.delete(0, toRemove.trim().length());
+            break;
+          }
+        }
+      }
+      if (prefix != null) {
+        sql.insert(0, " ");
+        sql.insert(0, prefix);
+      }
+    }
+
+    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
+      if (suffixesToOverride != null) {
+        for (String toRemove : suffixesToOverride) {
+          if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
+            int start = sql.length() - toRemove.trim().length();
+            int end = sql.length();
+            sql.delete(start, end);
+            break;
+          }
+        }
+      }
+      if (suffix != null) {
+        sql.append(" ");
+        sql.append(suffix);
+      }
+    }
+  }
+
+}
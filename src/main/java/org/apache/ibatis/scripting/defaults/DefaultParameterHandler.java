@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -45,6 +45,9 @@ public class DefaultParameterHandler implements ParameterHandler {
   private final BoundSql boundSql;
   private final Configuration configuration;
 
+  private boolean estimateParameterSize;
+  private long estimatedParameterSize;
+
   public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
     this.mappedStatement = mappedStatement;
     this.configuration = mappedStatement.getConfiguration();
@@ -58,25 +61,92 @@ public class DefaultParameterHandler implements ParameterHandler {
     return parameterObject;
   }
 
+  /**
+   * Sets whether {@link #setParameters(PreparedStatement)} also estimates the size of the values it binds.
+   *
+   * @param estimateParameterSize
+   *          whether to estimate the size of the bound values
+   * @see #getEstimatedParameterSize()
+   * @since 3.5.5
+   */
+  public void setEstimateParameterSize(boolean estimateParameterSize) {
+    this.estimateParameterSize = estimateParameterSize;
+  }
+
+  /**
+   * Returns the estimated size of the values bound by the last call to {@link #setParameters(PreparedStatement)}.
+   *
+   * @return the estimated size in bytes, or 0 when the size was not estimated
+   * @see #setEstimateParameterSize(boolean)
+   * @since 3.5.5
+   */
+  public long getEstimatedParameterSize() {
+    return estimatedParameterSize;
+  }
+
+  /**
+   * Estimates the size of the parameter values without binding them.
+   *
+   * @return the estimated size in bytes
+   * @since 3.5.5
+   */
+  public long estimateParameterSize() {
+    long size = 0;
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    if (parameterMappings != null) {
+      for (ParameterMapping parameterMapping : parameterMappings) {
+        if (parameterMapping.getMode() != ParameterMode.OUT) {
+          size += estimateSize(getParameterValue(parameterMapping.getProperty()));
+        }
+      }
+    }
+    return size;
+  }
+
+  static long estimateSize(Object value) {
+    // a rough estimate of what the driver holds for a bound value
+    if (value == null) {
+      return 1;
+    } else if (value instanceof CharSequence) {
+      return 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof char[]) {
+      return 2L * ((char[]) value).length;
+    } else {
+      return 8;
+    }
+  }
+
   @Override
   public void setParameters(PreparedStatement ps) {
-    ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
+    try {
+      List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+      ParameterBinder binder = null;
+      if (configuration.isUseCompiledParameterBinders() && parameterMappings != null) {
+        binder = mappedStatement.getParameterBinders().getBinder(configuration, parameterMappings, parameterObject);
+      }
+      if (binder != null) {
+        estimatedParameterSize = binder.bind(ps, boundSql, parameterObject, estimateParameterSize);
+      } else {
+        estimatedParameterSize = bindParameters(ps);
+      }
+    } catch (RuntimeException e) {
+      ErrorContext.instance().failure(null, "setting parameters", mappedStatement.getParameterMap().getId(), null);
+      throw e;
+    }
+  }
+
+  private long bindParameters(PreparedStatement ps) {
+    long size = 0;
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     if (parameterMappings != null) {
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
         if (parameterMapping.getMode() != ParameterMode.OUT) {
-          Object value;
-          String propertyName = parameterMapping.getProperty();
-          if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
-            value = boundSql.getAdditionalParameter(propertyName);
-          } else if (parameterObject == null) {
-            value = null;
-          } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-            value = parameterObject;
-          } else {
-            MetaObject metaObject = configuration.newMetaObject(parameterObject);
-            value = metaObject.getValue(propertyName);
+          Object value = getParameterValue(parameterMapping.getProperty());
+          if (estimateParameterSize) {
+            size += estimateSize(value);
           }
           TypeHandler typeHandler = parameterMapping.getTypeHandler();
           JdbcType jdbcType = parameterMapping.getJdbcType();
@@ -91,6 +161,20 @@ public class DefaultParameterHandler implements ParameterHandler {
         }
       }
     }
+    return size;
+  }
+
+  private Object getParameterValue(String propertyName) {
+    if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
+      return boundSql.getAdditionalParameter(propertyName);
+    } else if (parameterObject == null) {
+      return null;
+    } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+      return parameterObject;
+    } else {
+      MetaObject metaObject = configuration.newMetaObject(parameterObject);
+      return metaObject.getValue(propertyName);
+    }
   }
 
 }
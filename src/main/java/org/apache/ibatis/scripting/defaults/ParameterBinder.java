@@ -0,0 +1,335 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeException;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Binds the parameters of one sql shape for one parameter type.
+ * <p>
+ * What {@link DefaultParameterHandler} works out for each placeholder on every execution (whether the parameter object
+ * has a type handler, how to read the property, the type handler to use) is worked out once when the binder is
+ * compiled. Simple bean properties are read through {@link MethodHandle}s bound to the getters (or fields), simple
+ * keys of map parameters through {@link Map#get(Object)}, and nested properties through a compiled
+ * {@link PropertyPath}. Additional parameters keep precedence and are looked up on every execution.
+ *
+ * @see org.apache.ibatis.session.Configuration#isUseCompiledParameterBinders()
+ * @since 3.5.5
+ */
+public final class ParameterBinder {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private static final byte OUT = 0;
+  private static final byte NULL = 1;
+  private static final byte SELF = 2;
+  private static final byte MAP_KEY = 3;
+  private static final byte GETTER = 4;
+  private static final byte PATH = 5;
+
+  private final Configuration configuration;
+  private final List<ParameterMapping> parameterMappings;
+  private final Class<?> parameterType;
+  private final byte[] kinds;
+  private final String[] properties;
+  private final MethodHandle[] getters;
+  private final Invoker[] invokers;
+  private final PropertyPath[] paths;
+  private final TypeHandler<?>[] typeHandlers;
+  private final JdbcType[] jdbcTypes;
+
+  private ParameterBinder(Configuration configuration, List<ParameterMapping> parameterMappings, Object parameterObject) {
+    this.configuration = configuration;
+    this.parameterMappings = parameterMappings;
+    this.parameterType = parameterObject == null ? null : parameterObject.getClass();
+    int size = parameterMappings.size();
+    this.kinds = new byte[size];
+    this.properties = new String[size];
+    this.getters = new MethodHandle[size];
+    this.invokers = new Invoker[size];
+    this.paths = new PropertyPath[size];
+    this.typeHandlers = new TypeHandler<?>[size];
+    this.jdbcTypes = new JdbcType[size];
+    boolean self = parameterType != null && configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType);
+    boolean wrapped = parameterObject instanceof ObjectWrapper || parameterObject instanceof Collection
+        || parameterObject != null && configuration.getObjectWrapperFactory().hasWrapperFor(parameterObject);
+    Reflector reflector = null;
+    for (int i = 0; i < size; i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      String property = parameterMapping.getProperty();
+      properties[i] = property;
+      typeHandlers[i] = parameterMapping.getTypeHandler();
+      jdbcTypes[i] = parameterMapping.getJdbcType();
+      if (parameterMapping.getMode() == ParameterMode.OUT) {
+        kinds[i] = OUT;
+      } else if (parameterType == null) {
+        kinds[i] = NULL;
+      } else if (self) {
+        kinds[i] = SELF;
+      } else if (wrapped || !isSimple(property)) {
+        kinds[i] = PATH;
+        paths[i] = compilePath(property);
+      } else if (parameterObject instanceof Map) {
+        kinds[i] = MAP_KEY;
+      } else {
+        if (reflector == null) {
+          reflector = configuration.getReflectorFactory().findForClass(parameterType);
+        }
+        if (reflector.hasGetter(property)) {
+          kinds[i] = GETTER;
+          invokers[i] = reflector.getGetInvoker(property);
+          getters[i] = findGetter(property);
+        } else {
+          // fails the same way as the handler does
+          kinds[i] = PATH;
+          paths[i] = compilePath(property);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compiles a binder for the given parameter mappings and for the class of the given parameter object.
+   *
+   * @param configuration
+   *          the configuration
+   * @param parameterMappings
+   *          the parameter mappings of the sql
+   * @param parameterObject
+   *          a parameter object, may be null
+   * @return the binder
+   */
+  public static ParameterBinder compile(Configuration configuration, List<ParameterMapping> parameterMappings,
+      Object parameterObject) {
+    return new ParameterBinder(configuration, parameterMappings, parameterObject);
+  }
+
+  /**
+   * Returns whether this binder was compiled for parameter mappings of the same shape as the given ones and for the
+   * class of the given parameter. Mappings have the same shape when they bind the same properties with the same mode,
+   * java type, jdbc type and type handler, so that a binder can be reused by sql built again from the same source.
+   *
+   * @param parameterMappings
+   *          the parameter mappings of the sql
+   * @param parameterObject
+   *          the parameter object, may be null
+   * @return true if {@link #bind(PreparedStatement, BoundSql, Object)} can be used
+   */
+  public boolean canBind(List<ParameterMapping> parameterMappings, Object parameterObject) {
+    return (parameterObject == null ? parameterType == null : parameterObject.getClass() == parameterType)
+        && hasShapeOf(parameterMappings);
+  }
+
+  private boolean hasShapeOf(List<ParameterMapping> otherMappings) {
+    if (otherMappings == parameterMappings) {
+      return true;
+    }
+    if (otherMappings.size() != kinds.length) {
+      return false;
+    }
+    for (int i = 0; i < kinds.length; i++) {
+      ParameterMapping mapping = parameterMappings.get(i);
+      ParameterMapping other = otherMappings.get(i);
+      if (mapping != other
+          && !(properties[i].equals(other.getProperty())
+            && mapping.getMode() == other.getMode()
+            && mapping.getJavaType() == other.getJavaType()
+            && jdbcTypes[i] == other.getJdbcType()
+            && typeHandlers[i] == other.getTypeHandler())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the parameters of a prepared statement.
+   *
+   * @param ps
+   *          the prepared statement
+   * @param boundSql
+   *          the bound sql, for its additional parameters
+   * @param parameterObject
+   *          the parameter object
+   */
+  public void bind(PreparedStatement ps, BoundSql boundSql, Object parameterObject) {
+    bind(ps, boundSql, parameterObject, false);
+  }
+
+  /**
+   * Sets the parameters of a prepared statement and optionally estimates the size of the bound values.
+   *
+   * @param ps
+   *          the prepared statement
+   * @param boundSql
+   *          the bound sql, for its additional parameters
+   * @param parameterObject
+   *          the parameter object
+   * @param estimateSize
+   *          whether to estimate the size of the bound values
+   * @return the estimated size in bytes, or 0 when not estimated
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public long bind(PreparedStatement ps, BoundSql boundSql, Object parameterObject, boolean estimateSize) {
+    long size = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] == OUT) {
+        continue;
+      }
+      String property = properties[i];
+      Object value;
+      if (boundSql.hasAdditionalParameter(property)) { // issue #448 ask first for additional params
+        value = boundSql.getAdditionalParameter(property);
+      } else {
+        value = getValue(i, parameterObject);
+      }
+      if (estimateSize) {
+        size += DefaultParameterHandler.estimateSize(value);
+      }
+      JdbcType jdbcType = jdbcTypes[i];
+      if (value == null && jdbcType == null) {
+        jdbcType = configuration.getJdbcTypeForNull();
+      }
+      try {
+        ((TypeHandler) typeHandlers[i]).setParameter(ps, i + 1, value, jdbcType);
+      } catch (TypeException | SQLException e) {
+        throw new TypeException("Could not set parameters for mapping: " + parameterMappings.get(i) + ". Cause: " + e, e);
+      }
+    }
+    return size;
+  }
+
+  private Object getValue(int i, Object parameterObject) {
+    switch (kinds[i]) {
+      case NULL:
+        return null;
+      case SELF:
+        return parameterObject;
+      case MAP_KEY:
+        return ((Map<?, ?>) parameterObject).get(properties[i]);
+      case GETTER:
+        return getProperty(i, parameterObject);
+      default:
+        return paths[i].getValue(parameterObject, configuration.getObjectFactory(), configuration.getObjectWrapperFactory());
+    }
+  }
+
+  @UsesJava7
+  private Object getProperty(int i, Object parameterObject) {
+    try {
+      if (getters[i] != null) {
+        return getters[i].invokeExact(parameterObject);
+      }
+      try {
+        return invokers[i].invoke(parameterObject, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + properties[i] + "' from " + parameterObject.getClass()
+          + ".  Cause: " + t.toString(), t);
+    }
+  }
+
+  private static boolean isSimple(String property) {
+    return property.indexOf('.') < 0 && property.indexOf('[') < 0;
+  }
+
+  private PropertyPath compilePath(String property) {
+    // the items of a foreach are numbered, their paths are not worth keeping
+    boolean cached = !property.startsWith(ForEachSqlNode.ITEM_PREFIX);
+    return MetaClass.forClass(parameterType, configuration.getReflectorFactory()).getPropertyPath(property, cached);
+  }
+
+  private MethodHandle findGetter(String property) {
+    Method getter = null;
+    try {
+      for (Class<?> current = parameterType; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Method method : current.getDeclaredMethods()) {
+          if (isGetterFor(method, property)) {
+            if (getter != null && !getter.getName().equals(method.getName())) {
+              // both getX and isX, let the reflector decide
+              return null;
+            }
+            if (getter == null) {
+              getter = method;
+            }
+          }
+        }
+      }
+      if (getter != null) {
+        if (Reflector.canControlMemberAccessible()) {
+          getter.setAccessible(true);
+        }
+        return MethodHandles.lookup().unreflect(getter).asType(GETTER_TYPE);
+      }
+      for (Class<?> current = parameterType; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (field.getName().equals(property) && !Modifier.isStatic(field.getModifiers())) {
+            if (Reflector.canControlMemberAccessible()) {
+              field.setAccessible(true);
+            }
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+          }
+        }
+      }
+    } catch (IllegalAccessException | SecurityException e) {
+      // Ignore, the reflector invoker will be used instead
+    }
+    return null;
+  }
+
+  private static boolean isGetterFor(Method method, String property) {
+    return method.getParameterCount() == 0
+        && method.getReturnType() != void.class
+        && !Modifier.isStatic(method.getModifiers())
+        && !method.isBridge()
+        && PropertyNamer.isGetter(method.getName())
+        && PropertyNamer.methodToProperty(method.getName()).equals(property);
+  }
+
+}
@@ -0,0 +1,69 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import java.util.List;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The parameter binders compiled for one mapped statement.
+ * <p>
+ * A statement usually binds one or a few sql shapes with one parameter type, so a handful of slots is enough. Once they
+ * are all taken, the parameters of other shapes are bound by {@link DefaultParameterHandler} without a binder instead
+ * of compiling binders that would replace each other. Binders are immutable, a lost race only means compiling the same
+ * binder twice.
+ *
+ * @since 3.5.5
+ */
+public final class ParameterBinderCache {
+
+  private static final int SLOTS = 16;
+
+  private final ParameterBinder[] binders = new ParameterBinder[SLOTS];
+  private volatile int used;
+
+  /**
+   * Returns the binder for the given parameter mappings and parameter object, compiling it on first use.
+   *
+   * @param configuration
+   *          the configuration
+   * @param parameterMappings
+   *          the parameter mappings of the bound sql
+   * @param parameterObject
+   *          the parameter object, may be null
+   * @return the binder, or null if there is none and no more binders can be compiled
+   */
+  public ParameterBinder getBinder(Configuration configuration, List<ParameterMapping> parameterMappings,
+      Object parameterObject) {
+    int count = used;
+    for (int i = 0; i < count; i++) {
+      ParameterBinder binder = binders[i];
+      if (binder != null && binder.canBind(parameterMappings, parameterObject)) {
+        return binder;
+      }
+    }
+    if (count == SLOTS) {
+      return null;
+    }
+    ParameterBinder binder = ParameterBinder.compile(configuration, parameterMappings, parameterObject);
+    binders[count] = binder;
+    used = count + 1;
+    return binder;
+  }
+
+}
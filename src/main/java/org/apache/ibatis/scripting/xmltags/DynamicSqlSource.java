@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.builder.ParameterMappingCache;
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.SqlSource;
@@ -27,22 +28,40 @@ public class DynamicSqlSource implements SqlSource {
 
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private final ParameterMappingCache parameterMappingCache;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
     this.rootSqlNode = rootSqlNode;
+    int cacheSize = configuration.getParameterMappingCacheSize();
+    this.parameterMappingCache = cacheSize > 0 ? new ParameterMappingCache(configuration, cacheSize) : null;
   }
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+    SqlSource sqlSource;
+    if (parameterMappingCache != null) {
+      sqlSource = parameterMappingCache.parse(context.getSql(), parameterType, context.getBindings());
+    } else {
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+    }
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  /**
+   * Returns the cache of the parameter mappings of the rendered sqls.
+   *
+   * @return the parameter mapping cache, or null if it is disabled
+   * @since 3.5.5
+   */
+  public ParameterMappingCache getParameterMappingCache() {
+    return parameterMappingCache;
+  }
+
 }
@@ -17,14 +17,20 @@ package org.apache.ibatis.session;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,17 +40,28 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.CompactCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.metrics.CacheMetricsFactory;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsFactory;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.PooledReuseExecutor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -52,6 +69,7 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -85,6 +103,8 @@ import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
+import org.apache.ibatis.scripting.compiled.CompiledLanguageDriver;
+import org.apache.ibatis.scripting.defaults.ParameterBinder;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.transaction.Transaction;
@@ -113,6 +133,13 @@ public class Configuration {
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  protected boolean useCompiledRowMappers;
+  protected boolean useCompiledParameterBinders;
+  protected boolean useGeneratedMappers;
+  protected boolean parallelBatchFlush;
+  protected int parallelBatchFlushThreads = Runtime.getRuntime().availableProcessors();
+  protected volatile ExecutorService batchFlushExecutor;
+  protected boolean retainBatchParameterObjects = true;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -122,6 +149,12 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected int parameterMappingCacheSize;
+  protected Codec cacheCodec = new JavaSerializationCodec();
+  protected CacheMetricsFactory cacheMetricsFactory;
+  protected CacheInvalidationBus cacheInvalidationBus;
+  protected Integer defaultBatchFlushRows;
+  protected Integer defaultBatchFlushBytes;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -191,11 +224,19 @@ public class Configuration {
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
+
+    typeAliasRegistry.registerAlias("JAVA_SERIALIZATION", JavaSerializationCodec.class);
+    typeAliasRegistry.registerAlias("COMPACT", CompactCodec.class);
+    typeAliasRegistry.registerAlias("JMX", JmxCacheMetricsFactory.class);
+    typeAliasRegistry.registerAlias("LOOPBACK", LoopbackTransport.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
     typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
     typeAliasRegistry.registerAlias("RAW", RawLanguageDriver.class);
+    typeAliasRegistry.registerAlias("COMPILED", CompiledLanguageDriver.class);
 
     typeAliasRegistry.registerAlias("SLF4J", Slf4jImpl.class);
     typeAliasRegistry.registerAlias("COMMONS_LOGGING", JakartaCommonsLoggingImpl.class);
@@ -266,6 +307,324 @@ public class Configuration {
     this.returnInstanceForEmptyRow = returnEmptyInstance;
   }
 
+  /**
+   * Returns whether simple result maps are mapped through a {@link CompiledRowMapper}.
+   *
+   * @return true if compiled row mappers are used
+   * @since 3.5.5
+   */
+  public boolean isUseCompiledRowMappers() {
+    return useCompiledRowMappers;
+  }
+
+  /**
+   * Sets whether simple result maps are mapped through a {@link CompiledRowMapper} built on first use
+   * for each result map and column layout, instead of assigning values through {@link MetaObject}.
+   *
+   * @param useCompiledRowMappers
+   *          true if compiled row mappers are used
+   * @since 3.5.5
+   */
+  public void setUseCompiledRowMappers(boolean useCompiledRowMappers) {
+    this.useCompiledRowMappers = useCompiledRowMappers;
+  }
+
+  /**
+   * Returns whether prepared statement parameters are set through a {@link ParameterBinder}.
+   *
+   * @return true if compiled parameter binders are used
+   * @since 3.5.5
+   */
+  public boolean isUseCompiledParameterBinders() {
+    return useCompiledParameterBinders;
+  }
+
+  /**
+   * Sets whether prepared statement parameters are set through a {@link ParameterBinder} built on first use
+   * for each mapped statement, sql shape and parameter type, instead of reading every value through {@link MetaObject}.
+   *
+   * @param useCompiledParameterBinders
+   *          true if compiled parameter binders are used
+   * @since 3.5.5
+   */
+  public void setUseCompiledParameterBinders(boolean useCompiledParameterBinders) {
+    this.useCompiledParameterBinders = useCompiledParameterBinders;
+  }
+
+  /**
+   * Returns whether mapper interfaces are implemented by generated classes instead of proxies.
+   *
+   * @return true if generated mappers are used
+   * @since 3.5.5
+   */
+  public boolean isUseGeneratedMappers() {
+    return useGeneratedMappers;
+  }
+
+  /**
+   * Sets whether mapper interfaces are implemented by a class generated on first use for each interface, whose methods
+   * call their mapped statement directly, instead of by a {@link java.lang.reflect.Proxy}. A proxy is still used for
+   * interfaces that cannot be implemented this way.
+   *
+   * @param useGeneratedMappers
+   *          true if generated mappers are used
+   * @since 3.5.5
+   */
+  public void setUseGeneratedMappers(boolean useGeneratedMappers) {
+    this.useGeneratedMappers = useGeneratedMappers;
+  }
+
+  /**
+   * Returns whether the batch executor flushes the batches of different mapped statements concurrently.
+   *
+   * @return true if batches are flushed in parallel
+   * @since 3.5.5
+   */
+  public boolean isParallelBatchFlush() {
+    return parallelBatchFlush;
+  }
+
+  /**
+   * Sets whether the batch executor prepares the statements of each mapped statement on a connection of its own,
+   * taken from the data source of the environment, and flushes the batches of different mapped statements
+   * concurrently. Those batches are committed when they have all been flushed successfully, regardless of the
+   * transaction of the session.
+   *
+   * @param parallelBatchFlush
+   *          true if batches are flushed in parallel
+   * @since 3.5.5
+   */
+  public void setParallelBatchFlush(boolean parallelBatchFlush) {
+    this.parallelBatchFlush = parallelBatchFlush;
+  }
+
+  /**
+   * Returns the maximum number of threads that flush batches in parallel, in addition to the threads of the sessions.
+   *
+   * @return the number of flush threads
+   * @since 3.5.5
+   */
+  public int getParallelBatchFlushThreads() {
+    return parallelBatchFlushThreads;
+  }
+
+  /**
+   * Sets the maximum number of threads that flush batches in parallel, in addition to the threads of the sessions.
+   * The batches of the other mapped statements wait for a thread. It applies to the executor created after it has been
+   * set, and is ignored when an executor has been set with {@link #setBatchFlushExecutor(ExecutorService)}.
+   *
+   * @param parallelBatchFlushThreads
+   *          the number of flush threads, the number of processors by default
+   * @since 3.5.5
+   */
+  public void setParallelBatchFlushThreads(int parallelBatchFlushThreads) {
+    if (parallelBatchFlushThreads < 1) {
+      throw new IllegalArgumentException("The number of batch flush threads must be greater than zero but was "
+          + parallelBatchFlushThreads);
+    }
+    this.parallelBatchFlushThreads = parallelBatchFlushThreads;
+  }
+
+  /**
+   * Returns the executor that flushes batches in parallel. Unless one has been set, a pool of
+   * {@link #getParallelBatchFlushThreads()} daemon threads is created on the first call; its threads end after a
+   * minute without batches, so it needs no shutdown.
+   *
+   * @return the batch flush executor
+   * @since 3.5.5
+   */
+  public ExecutorService getBatchFlushExecutor() {
+    ExecutorService executor = batchFlushExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = batchFlushExecutor;
+        if (executor == null) {
+          ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelBatchFlushThreads, parallelBatchFlushThreads,
+              1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "mybatis-batch-flush");
+                thread.setDaemon(true);
+                return thread;
+              });
+          pool.allowCoreThreadTimeOut(true);
+          executor = pool;
+          batchFlushExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Sets the executor that flushes batches in parallel, instead of the pool created by default. It is not shut down by
+   * MyBatis.
+   *
+   * @param batchFlushExecutor
+   *          the batch flush executor
+   * @since 3.5.5
+   */
+  public void setBatchFlushExecutor(ExecutorService batchFlushExecutor) {
+    this.batchFlushExecutor = batchFlushExecutor;
+  }
+
+  /**
+   * Returns the number of batched rows that makes the batch executor flush its statements, unless the mapped statement
+   * specifies its own.
+   *
+   * @return the number of rows, or null if the statements are only flushed on demand
+   * @since 3.5.5
+   */
+  public Integer getDefaultBatchFlushRows() {
+    return defaultBatchFlushRows;
+  }
+
+  /**
+   * Sets the number of batched rows that makes the batch executor flush its statements, unless the mapped statement
+   * specifies its own. The results of such a flush are not returned by {@link SqlSession#flushStatements()}.
+   *
+   * @param defaultBatchFlushRows
+   *          the number of rows, or null if the statements are only flushed on demand
+   * @since 3.5.5
+   */
+  public void setDefaultBatchFlushRows(Integer defaultBatchFlushRows) {
+    this.defaultBatchFlushRows = defaultBatchFlushRows;
+  }
+
+  /**
+   * Returns the estimated size in bytes of the batched parameters that makes the batch executor flush its statements,
+   * unless the mapped statement specifies its own.
+   *
+   * @return the number of bytes, or null if the statements are only flushed on demand
+   * @since 3.5.5
+   */
+  public Integer getDefaultBatchFlushBytes() {
+    return defaultBatchFlushBytes;
+  }
+
+  /**
+   * Sets the estimated size in bytes of the batched parameters that makes the batch executor flush its statements,
+   * unless the mapped statement specifies its own. The results of such a flush are not returned by
+   * {@link SqlSession#flushStatements()}.
+   *
+   * @param defaultBatchFlushBytes
+   *          the number of bytes, or null if the statements are only flushed on demand
+   * @since 3.5.5
+   */
+  public void setDefaultBatchFlushBytes(Integer defaultBatchFlushBytes) {
+    this.defaultBatchFlushBytes = defaultBatchFlushBytes;
+  }
+
+  /**
+   * Returns whether the batch results keep the parameter objects of their statement.
+   *
+   * @return true if the parameter objects are kept
+   * @since 3.5.5
+   */
+  public boolean isRetainBatchParameterObjects() {
+    return retainBatchParameterObjects;
+  }
+
+  /**
+   * Sets whether the batch results keep the parameter objects of their statement. When disabled, the parameter objects
+   * are only kept until the generated keys have been assigned to them, or not at all when the statement has no key
+   * generator. The results of the statements flushed because a batch flush threshold was reached never keep them.
+   *
+   * @param retainBatchParameterObjects
+   *          true if the parameter objects are kept
+   * @since 3.5.5
+   */
+  public void setRetainBatchParameterObjects(boolean retainBatchParameterObjects) {
+    this.retainBatchParameterObjects = retainBatchParameterObjects;
+  }
+
+  /**
+   * Returns the maximum number of distinct rendered sqls whose parameter mappings are cached by each dynamic sql source.
+   *
+   * @return the parameter mapping cache size
+   * @since 3.5.5
+   */
+  public int getParameterMappingCacheSize() {
+    return parameterMappingCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of distinct rendered sqls whose parameter mappings are cached by each dynamic sql source.
+   * A value of zero, the default, disables the cache. It applies to the sql sources created after it has been set.
+   *
+   * @param parameterMappingCacheSize
+   *          the parameter mapping cache size
+   * @since 3.5.5
+   */
+  public void setParameterMappingCacheSize(int parameterMappingCacheSize) {
+    this.parameterMappingCacheSize = parameterMappingCacheSize;
+  }
+
+  /**
+   * Gets the codec that read-write caches and serializable lazy loading proxies use to copy values.
+   *
+   * @return the cache codec
+   * @since 3.5.5
+   */
+  public Codec getCacheCodec() {
+    return cacheCodec;
+  }
+
+  /**
+   * Sets the codec that read-write caches and serializable lazy loading proxies use to copy values.
+   *
+   * @param cacheCodec
+   *          the cache codec, the Java serialization is used when null
+   * @since 3.5.5
+   */
+  public void setCacheCodec(Codec cacheCodec) {
+    this.cacheCodec = cacheCodec == null ? new JavaSerializationCodec() : cacheCodec;
+  }
+
+  /**
+   * Gets the factory of the metrics of the second level caches.
+   *
+   * @return the cache metrics factory, or null when the metrics are not recorded
+   * @since 3.5.5
+   */
+  public CacheMetricsFactory getCacheMetricsFactory() {
+    return cacheMetricsFactory;
+  }
+
+  /**
+   * Sets the factory of the metrics of the second level caches.
+   *
+   * @param cacheMetricsFactory
+   *          the cache metrics factory, or null to not record metrics
+   * @since 3.5.5
+   */
+  public void setCacheMetricsFactory(CacheMetricsFactory cacheMetricsFactory) {
+    this.cacheMetricsFactory = cacheMetricsFactory;
+  }
+
+  /**
+   * Gets the bus that broadcasts the second level cache invalidations to the other nodes.
+   *
+   * @return the cache invalidation bus, or null when the invalidations are kept local
+   * @since 3.5.5
+   */
+  public CacheInvalidationBus getCacheInvalidationBus() {
+    return cacheInvalidationBus;
+  }
+
+  /**
+   * Sets the transport that broadcasts the second level cache invalidations to the other nodes.
+   *
+   * @param cacheInvalidationTransport
+   *          the transport, or null to keep the invalidations local
+   * @since 3.5.5
+   */
+  public void setCacheInvalidationTransport(InvalidationTransport cacheInvalidationTransport) {
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.close();
+    }
+    this.cacheInvalidationBus = cacheInvalidationTransport == null ? null
+        : new CacheInvalidationBus(this, cacheInvalidationTransport);
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -641,11 +1000,13 @@ public class Configuration {
       executor = new BatchExecutor(this, transaction);
     } else if (ExecutorType.REUSE == executorType) {
       executor = new ReuseExecutor(this, transaction);
+    } else if (ExecutorType.REUSE_POOLED == executorType) {
+      executor = new PooledReuseExecutor(this, transaction);
     } else {
       executor = new SimpleExecutor(this, transaction);
     }
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor, cacheInvalidationBus);
     }
     executor = (Executor) interceptorChain.pluginAll(executor);
     return executor;
@@ -691,6 +1052,23 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * Closes the second level caches, releasing the off-heap memory, files and registrations they hold. It should be
+   * called when the configuration is discarded, the caches must not be used afterwards.
+   *
+   * @since 3.5.5
+   * @see Cache#close()
+   */
+  public void closeCaches() {
+    Set<Object> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Object cache : caches.values()) {
+      // short names are mapped to the same caches, or to ambiguities
+      if (cache instanceof Cache && closed.add(cache)) {
+        ((Cache) cache).close();
+      }
+    }
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
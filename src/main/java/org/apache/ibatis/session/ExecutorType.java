@@ -19,5 +19,13 @@ package org.apache.ibatis.session;
  * @author Clinton Begin
  */
 public enum ExecutorType {
-  SIMPLE, REUSE, BATCH
+  SIMPLE, REUSE, BATCH,
+
+  /**
+   * Reuses prepared statements across sessions by caching them on the pooled connection.
+   *
+   * @since 3.5.5
+   * @see org.apache.ibatis.executor.PooledReuseExecutor
+   */
+  REUSE_POOLED
 }
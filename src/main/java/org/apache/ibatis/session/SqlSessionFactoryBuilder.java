@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -51,7 +51,7 @@ public class SqlSessionFactoryBuilder {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error building SqlSession.", e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
       try {
         reader.close();
       } catch (IOException e) {
@@ -79,7 +79,7 @@ public class SqlSessionFactoryBuilder {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error building SqlSession.", e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
       try {
         inputStream.close();
       } catch (IOException e) {
@@ -126,7 +126,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -148,7 +148,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -170,7 +170,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -198,7 +198,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -225,7 +225,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error committing transaction.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -242,7 +242,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error rolling back transaction.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -253,7 +253,7 @@ public class DefaultSqlSession implements SqlSession {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error flushing statements.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -264,7 +264,7 @@ public class DefaultSqlSession implements SqlSession {
       closeCursors();
       dirty = false;
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -99,7 +99,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
       closeTransaction(tx); // may have fetched a connection so lets call close()
       throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
@@ -121,7 +121,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
     } finally {
-      ErrorContext.instance().reset();
+      ErrorContext.clearInstance();
     }
   }
 
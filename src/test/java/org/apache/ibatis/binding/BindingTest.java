@@ -167,7 +167,8 @@ class BindingTest {
         then(caughtException()).isInstanceOf(PersistenceException.class).hasMessageContaining(
             "### The error may exist in org/apache/ibatis/binding/BoundAuthorMapper.xml" + System.lineSeparator() +
                 "### The error may involve org.apache.ibatis.binding.BoundAuthorMapper.insertAuthorInvalidInsert" + System.lineSeparator() +
-                "### The error occurred while executing an update");
+                "### The error occurred while executing an update" + System.lineSeparator() +
+                "### SQL: insert into");
       } finally {
         session.rollback();
       }
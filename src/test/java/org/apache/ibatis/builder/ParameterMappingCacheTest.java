@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.jupiter.api.Test;
+
+class ParameterMappingCacheTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldReuseMappingsOfTheSameSql() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 4);
+    Author author = new Author(1);
+    BoundSql first = cache.parse("select * from author where id = #{id}", Author.class, new HashMap<>()).getBoundSql(author);
+    BoundSql second = cache.parse("select * from author where id = #{id}", Author.class, new HashMap<>()).getBoundSql(author);
+    assertEquals("select * from author where id = ?", second.getSql());
+    assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+    assertSame(first.getParameterMappings().get(0), second.getParameterMappings().get(0));
+    assertEquals(int.class, second.getParameterMappings().get(0).getJavaType());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldNotReuseMappingsOfAnotherParameterType() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 4);
+    String sql = "select * from author where id = #{id}";
+    List<ParameterMapping> beanMappings = cache.parse(sql, Author.class, new HashMap<>()).getBoundSql(null).getParameterMappings();
+    List<ParameterMapping> mapMappings = cache.parse(sql, HashMap.class, new HashMap<>()).getBoundSql(null).getParameterMappings();
+    assertEquals(int.class, beanMappings.get(0).getJavaType());
+    assertEquals(Object.class, mapMappings.get(0).getJavaType());
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void shouldRebuildMappingsWhenAdditionalParameterTypeChanges() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 4);
+    String sql = "select * from author where id = #{__frch_item_0}";
+    Map<String, Object> bindings = new HashMap<>();
+    bindings.put("__frch_item_0", 1);
+    ParameterMapping integerMapping = cache.parse(sql, HashMap.class, bindings).getBoundSql(null).getParameterMappings().get(0);
+    bindings.put("__frch_item_0", "1");
+    ParameterMapping stringMapping = cache.parse(sql, HashMap.class, bindings).getBoundSql(null).getParameterMappings().get(0);
+    bindings.put("__frch_item_0", "2");
+    cache.parse(sql, HashMap.class, bindings);
+    assertEquals(IntegerTypeHandler.class, integerMapping.getTypeHandler().getClass());
+    assertEquals(StringTypeHandler.class, stringMapping.getTypeHandler().getClass());
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldReuseParameterMappingsOfPrerenderedSql() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 4);
+    String sql = "select * from author where id = ?";
+    List<ParameterMapping> first = cache.parseParameterMappings(sql, Arrays.asList("id"), Author.class, new HashMap<>());
+    List<ParameterMapping> second = cache.parseParameterMappings(sql, Arrays.asList("id"), Author.class, new HashMap<>());
+    List<ParameterMapping> other = cache.parseParameterMappings(sql, Arrays.asList("username"), Author.class, new HashMap<>());
+    assertNotSame(first, second);
+    assertSame(first.get(0), second.get(0));
+    assertEquals("username", other.get(0).getProperty());
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void shouldNotGrowBeyondMaximumSize() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 3);
+    for (int i = 0; i < 10; i++) {
+      cache.parse("select * from author where id = #{id} and " + i + " = " + i, Author.class, new HashMap<>());
+    }
+    assertEquals(3, cache.getSize());
+    assertEquals(10, cache.getMisses());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldDiscardTheLeastRecentlyUsedSql() throws InterruptedException {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 2);
+    String first = "select * from author where id = #{id}";
+    String second = "select * from author where username = #{username}";
+    cache.parse(first, Author.class, new HashMap<>());
+    Thread.sleep(1);
+    cache.parse(second, Author.class, new HashMap<>());
+    Thread.sleep(1);
+    cache.parse(first, Author.class, new HashMap<>());
+    Thread.sleep(1);
+    cache.parse("select * from author where email = #{email}", Author.class, new HashMap<>());
+    cache.parse(first, Author.class, new HashMap<>());
+    cache.parse(second, Author.class, new HashMap<>());
+    assertEquals(2, cache.getHits());
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  void shouldNotShareTheMappingsBetweenBoundSqls() {
+    ParameterMappingCache cache = new ParameterMappingCache(configuration, 4);
+    String sql = "select * from author where id = #{id}";
+    BoundSql first = cache.parse(sql, Author.class, new HashMap<>()).getBoundSql(new Author(1));
+    first.getParameterMappings().clear();
+    BoundSql second = cache.parse(sql, Author.class, new HashMap<>()).getBoundSql(new Author(1));
+    assertEquals(1, second.getParameterMappings().size());
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  void shouldRejectInvalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> new ParameterMappingCache(configuration, 0));
+  }
+
+  @Test
+  void shouldCacheMappingsOfDynamicSqlSource() {
+    configuration.setParameterMappingCacheSize(4);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, new MixedSqlNode(Arrays.asList(
+        new StaticTextSqlNode("select * from author where id in"),
+        new ForEachSqlNode(configuration, new StaticTextSqlNode("#{id}"), "ids", null, "id", "(", ")", ","))));
+    Map<String, Object> param = new HashMap<>();
+    param.put("ids", Arrays.asList(1, 2, 3));
+    source.getBoundSql(param);
+    BoundSql boundSql = source.getBoundSql(param);
+    param.put("ids", Arrays.asList(1, 2));
+    source.getBoundSql(param);
+    assertEquals("select * from author where id in (  ? , ? , ? )", boundSql.getSql());
+    assertEquals(3, boundSql.getParameterMappings().size());
+    assertEquals(Integer.class, boundSql.getParameterMappings().get(2).getJavaType());
+    assertEquals(3, boundSql.getAdditionalParameter("__frch_id_2"));
+    assertEquals(1, source.getParameterMappingCache().getHits());
+    assertEquals(2, source.getParameterMappingCache().getMisses());
+  }
+
+  @Test
+  void shouldNotCacheMappingsOfDynamicSqlSourceWhenDisabled() {
+    configuration.setParameterMappingCacheSize(0);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, new StaticTextSqlNode("select * from author where id = #{id}"));
+    assertNull(source.getParameterMappingCache());
+    assertEquals(1, source.getBoundSql(new Author(1)).getParameterMappings().size());
+  }
+
+}
@@ -37,6 +37,10 @@ import java.util.Properties;
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.codec.CompactCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -87,6 +91,15 @@ class XmlConfigBuilderTest {
       assertThat(config.getDefaultExecutorType()).isEqualTo(ExecutorType.SIMPLE);
       assertNull(config.getDefaultStatementTimeout());
       assertNull(config.getDefaultFetchSize());
+      assertThat(config.getParameterMappingCacheSize()).isEqualTo(0);
+      assertNull(config.getDefaultBatchFlushRows());
+      assertNull(config.getDefaultBatchFlushBytes());
+      assertTrue(config.isRetainBatchParameterObjects());
+      assertThat(config.getCacheCodec()).isInstanceOf(JavaSerializationCodec.class);
+      assertNull(config.getCacheMetricsFactory());
+      assertNull(config.getCacheInvalidationBus());
+      assertThat(config.isUseCompiledParameterBinders()).isFalse();
+      assertThat(config.isUseGeneratedMappers()).isFalse();
       assertNull(config.getDefaultResultSetType());
       assertThat(config.isMapUnderscoreToCamelCase()).isFalse();
       assertThat(config.isSafeRowBoundsEnabled()).isFalse();
@@ -181,6 +194,15 @@ class XmlConfigBuilderTest {
       assertThat(config.getDefaultExecutorType()).isEqualTo(ExecutorType.BATCH);
       assertThat(config.getDefaultStatementTimeout()).isEqualTo(10);
       assertThat(config.getDefaultFetchSize()).isEqualTo(100);
+      assertThat(config.getParameterMappingCacheSize()).isEqualTo(16);
+      assertThat(config.getDefaultBatchFlushRows()).isEqualTo(1000);
+      assertThat(config.getDefaultBatchFlushBytes()).isEqualTo(1048576);
+      assertThat(config.isRetainBatchParameterObjects()).isFalse();
+      assertThat(config.getCacheCodec()).isInstanceOf(CompactCodec.class);
+      assertThat(config.getCacheMetricsFactory()).isInstanceOf(JmxCacheMetricsFactory.class);
+      assertThat(config.getCacheInvalidationBus().getTransport()).isInstanceOf(LoopbackTransport.class);
+      assertThat(config.isUseCompiledParameterBinders()).isTrue();
+      assertThat(config.isUseGeneratedMappers()).isTrue();
       assertThat(config.getDefaultResultSetType()).isEqualTo(ResultSetType.SCROLL_INSENSITIVE);
       assertThat(config.isMapUnderscoreToCamelCase()).isTrue();
       assertThat(config.isSafeRowBoundsEnabled()).isTrue();
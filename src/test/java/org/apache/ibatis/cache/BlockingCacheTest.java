@@ -0,0 +1,205 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  private BlockingCache cache;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    cache = new BlockingCache(new SynchronizedCache(new PerpetualCache("default")));
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldServeHitsWhileAnotherKeyIsLoading() throws Exception {
+    cache.putObject("hit", "value");
+    assertNull(cache.getObject("miss"));
+    assertEquals("value", executor.submit(() -> cache.getObject("hit")).get(1, TimeUnit.SECONDS));
+    cache.putObject("miss", "loaded");
+  }
+
+  @Test
+  void shouldLetConcurrentMissesWaitForTheFirstLoad() throws Exception {
+    assertNull(cache.getObject("key"));
+    Future<Object> waiting = executor.submit(() -> cache.getObject("key"));
+    assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+    cache.putObject("key", "loaded");
+    assertEquals("loaded", waiting.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldHandOverTheLoadWhenTheLoaderGivesUp() throws Exception {
+    assertNull(cache.getObject("key"));
+    Future<Object> waiting = executor.submit(() -> {
+      Object value = cache.getObject("key");
+      // the waiting thread is now the loader
+      cache.removeObject("key");
+      return value;
+    });
+    assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+    cache.removeObject("key");
+    assertNull(waiting.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldNotBlockTheLoaderItself() {
+    assertNull(cache.getObject("key"));
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "loaded");
+    assertEquals("loaded", cache.getObject("key"));
+  }
+
+  @Test
+  void shouldFailWhenTheLoadTakesLongerThanTheTimeout() throws Exception {
+    cache.setTimeout(100);
+    assertNull(cache.getObject("key"));
+    Future<Object> waiting = executor.submit(() -> cache.getObject("key"));
+    try {
+      waiting.get(1, TimeUnit.SECONDS);
+      fail("Expected a timeout");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CacheException);
+    }
+    cache.putObject("key", "loaded");
+  }
+
+  @Test
+  void shouldServeStaleValuesWhileRevalidating() throws Exception {
+    cache.setStaleWhileRevalidate(true);
+    cache.putObject("key", "old");
+    cache.clear();
+    assertNull(cache.getObject("key"));
+    assertEquals("old", executor.submit(() -> cache.getObject("key")).get(1, TimeUnit.SECONDS));
+    cache.putObject("key", "new");
+    assertEquals("new", executor.submit(() -> cache.getObject("key")).get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldForgetStaleValuesAfterTwoClears() throws Exception {
+    cache.setStaleWhileRevalidate(true);
+    cache.putObject("key", "old");
+    cache.clear();
+    cache.clear();
+    assertNull(cache.getObject("key"));
+    Future<Object> waiting = executor.submit(() -> cache.getObject("key"));
+    assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+    cache.putObject("key", "new");
+    assertEquals("new", waiting.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldForgetTheValuesOfEvictedElements() throws Exception {
+    cache.setStaleWhileRevalidate(true);
+    cache.putObject("evicted", "old");
+    cache.putObject("removed", "old");
+    cache.evictObject("evicted");
+    cache.removeObject("removed");
+    cache.clear();
+    assertWaitsForTheLoader("evicted");
+    assertWaitsForTheLoader("removed");
+  }
+
+  @Test
+  void shouldKeepNoMoreValuesThanTheCacheHolds() throws Exception {
+    LruCache lru = new LruCache(new PerpetualCache("default"));
+    lru.setSize(2);
+    cache = new BlockingCache(new SynchronizedCache(lru));
+    cache.setStaleWhileRevalidate(true);
+    cache.putObject("first", "old");
+    cache.putObject("second", "old");
+    cache.putObject("third", "old");
+    cache.clear();
+    assertWaitsForTheLoader("first");
+    assertNull(cache.getObject("third"));
+    assertEquals("old", executor.submit(() -> cache.getObject("third")).get(1, TimeUnit.SECONDS));
+    cache.putObject("third", "new");
+  }
+
+  @Test
+  void shouldForgetTheValuesOfRemovedTags() throws Exception {
+    cache = new BlockingCache(new SynchronizedCache(new TaggedCache(new PerpetualCache("default"))));
+    cache.setStaleWhileRevalidate(true);
+    cache.putObject("stale", "old", Collections.singleton("author"));
+    cache.clear();
+    cache.putObject("tagged", "old", Collections.singleton("author"));
+    cache.putObject("untagged", "old", Collections.singleton("blog"));
+    cache.removeTagged(Collections.singleton("author"));
+    cache.clear();
+    assertWaitsForTheLoader("stale");
+    assertWaitsForTheLoader("tagged");
+    assertNull(cache.getObject("untagged"));
+    assertEquals("old", executor.submit(() -> cache.getObject("untagged")).get(1, TimeUnit.SECONDS));
+    cache.putObject("untagged", "new");
+  }
+
+  @Test
+  void shouldApplyPropertiesToTheBlockingDecorator() {
+    Properties properties = new Properties();
+    properties.setProperty("timeout", "5000");
+    properties.setProperty("staleWhileRevalidate", "true");
+    Cache built = new CacheBuilder("default").blocking(true).properties(properties).build();
+    assertTrue(built instanceof BlockingCache);
+    assertEquals(5000, ((BlockingCache) built).getTimeout());
+    assertTrue(((BlockingCache) built).isStaleWhileRevalidate());
+  }
+
+  @Test
+  void shouldRejectStaleWhileRevalidateForReadWriteCaches() {
+    Properties properties = new Properties();
+    properties.setProperty("staleWhileRevalidate", "true");
+    CacheBuilder builder = new CacheBuilder("default").blocking(true).readWrite(true).properties(properties);
+    CacheException e = assertThrows(CacheException.class, builder::build);
+    assertTrue(e.getMessage().contains("requires a read-only cache"));
+  }
+
+  private void assertWaitsForTheLoader(Object key) throws Exception {
+    assertNull(cache.getObject(key));
+    Future<Object> waiting = executor.submit(() -> cache.getObject(key));
+    assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+    cache.putObject(key, "new");
+    assertEquals("new", waiting.get(1, TimeUnit.SECONDS));
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.ibatis.cache.invalidation.CacheInvalidation;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationBusTest {
+
+  private Configuration node1;
+  private Configuration node2;
+  private Cache cache1;
+  private Cache cache2;
+
+  @BeforeEach
+  void setUp() {
+    node1 = newNode();
+    node2 = newNode();
+    cache1 = node1.getCache("users");
+    cache2 = node2.getCache("users");
+  }
+
+  @AfterEach
+  void tearDown() {
+    node1.getCacheInvalidationBus().close();
+    node2.getCacheInvalidationBus().close();
+  }
+
+  private Configuration newNode() {
+    Configuration configuration = new Configuration();
+    configuration.setCacheInvalidationTransport(new LoopbackTransport(CacheInvalidationBusTest.class.getName()));
+    configuration.addCache(new CacheBuilder("users").tagged(true).build());
+    return configuration;
+  }
+
+  @Test
+  void shouldClearTheCacheOfTheOtherNodes() {
+    cache1.putObject("a", "1");
+    cache2.putObject("a", "1");
+    node1.getCacheInvalidationBus().publish(CacheInvalidation.clear("users"));
+    assertEquals("1", cache1.getObject("a"));
+    assertNull(cache2.getObject("a"));
+    assertEquals(1, node1.getCacheInvalidationBus().getPublishedCount());
+    assertEquals(1, node2.getCacheInvalidationBus().getAppliedCount());
+  }
+
+  @Test
+  void shouldRemoveTaggedEntriesOfTheOtherNodes() {
+    cache2.putObject("a", "1", Collections.singleton("users:1"));
+    cache2.putObject("b", "2", Collections.singleton("users:2"));
+    node1.getCacheInvalidationBus().publish(CacheInvalidation.tags("users", new HashSet<>(Collections.singleton("users:1"))));
+    assertNull(cache2.getObject("a"));
+    assertEquals("2", cache2.getObject("b"));
+  }
+
+  @Test
+  void shouldEvictKeysOnAllNodes() {
+    CacheKey key = new CacheKey(new Object[] { "users.get", 1 });
+    cache1.putObject(key, "1");
+    cache2.putObject(key, "1");
+    cache2.putObject("b", "2");
+    node1.getCacheInvalidationBus().evict(cache1, new CacheKey(new Object[] { "users.get", 1 }));
+    assertNull(cache1.getObject(key));
+    assertNull(cache2.getObject(key));
+    assertEquals("2", cache2.getObject("b"));
+  }
+
+  @Test
+  void shouldIgnoreOwnAndUnknownInvalidations() {
+    CacheInvalidationBus bus = node1.getCacheInvalidationBus();
+    cache1.putObject("a", "1");
+    bus.onInvalidation(CacheInvalidation.clear("users").withOrigin(bus.getNodeId()));
+    bus.onInvalidation(CacheInvalidation.clear("roles").withOrigin("other"));
+    assertEquals("1", cache1.getObject("a"));
+    assertEquals(0, bus.getAppliedCount());
+  }
+
+  @Test
+  void shouldStopReceivingOnceClosed() {
+    cache2.putObject("a", "1");
+    node2.getCacheInvalidationBus().close();
+    node1.getCacheInvalidationBus().publish(CacheInvalidation.clear("users"));
+    assertEquals("1", cache2.getObject("a"));
+  }
+
+}
@@ -103,6 +103,74 @@ class CacheKeyTest {
     Assertions.assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldTestPrimitiveAndBoxedComponentsEqual() {
+    CacheKey key1 = new CacheKey(2);
+    key1.update(1);
+    key1.update(2L);
+    CacheKey key2 = new CacheKey(new Object[] { Integer.valueOf(1), Long.valueOf(2L) });
+    assertEquals(key1, key2);
+    assertEquals(key2, key1);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldTestIntAndLongComponentsNotEqual() {
+    CacheKey key1 = new CacheKey();
+    key1.update(1);
+    CacheKey key2 = new CacheKey();
+    key2.update(1L);
+    CacheKey key3 = new CacheKey();
+    key3.update("1");
+    assertNotEquals(key1, key2);
+    assertNotEquals(key1, key3);
+    assertNotEquals(key3, key1);
+  }
+
+  @Test
+  void shouldGrowBeyondExpectedUpdateCount() {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 100; i++) {
+      key1.update(i % 2 == 0 ? "value" + i : i);
+      key2.update(i % 2 == 0 ? "value" + i : i);
+    }
+    assertEquals(100, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    key2.update(100);
+    assertNotEquals(key1, key2);
+  }
+
+  @Test
+  void shouldNotShareComponentsWithClone() throws Exception {
+    CacheKey key = new CacheKey(new Object[] { "hello", 1 });
+    CacheKey clone = key.clone();
+    assertEquals(key, clone);
+    clone.update(key);
+    assertEquals(2, key.getUpdateCount());
+    assertEquals(3, clone.getUpdateCount());
+    assertNotEquals(key, clone);
+  }
+
+  @Test
+  void shouldNotAllowUpdatingNullCacheKey() {
+    assertThrows(CacheException.class, () -> CacheKey.NULL_CACHE_KEY.update("hello"));
+    assertThrows(CacheException.class, () -> CacheKey.NULL_CACHE_KEY.update(1));
+    assertThrows(CacheException.class, () -> CacheKey.NULL_CACHE_KEY.update(1L));
+  }
+
+  @Test
+  void serializationWithPrimitivesTest() throws Exception {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("serializable");
+    cacheKey.update(1);
+    cacheKey.update(Long.MAX_VALUE);
+    CacheKey deserialized = serialize(cacheKey);
+    Assertions.assertEquals(cacheKey, deserialized);
+    Assertions.assertEquals(cacheKey.hashCode(), deserialized.hashCode());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
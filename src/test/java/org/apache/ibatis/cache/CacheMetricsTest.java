@@ -0,0 +1,156 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.metrics.DefaultCacheMetrics;
+import org.apache.ibatis.cache.metrics.DefaultCacheMetricsFactory;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsFactory;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class CacheMetricsTest {
+
+  @Test
+  void shouldCountHitsMissesPutsAndEvictions() {
+    Cache cache = new CacheBuilder("metrics").addDecorator(LruCache.class).size(2)
+        .metrics(new DefaultCacheMetricsFactory()).build();
+    assertTrue(cache instanceof MetricsCache);
+    DefaultCacheMetrics metrics = (DefaultCacheMetrics) ((MetricsCache) cache).getMetrics();
+    cache.putObject("a", "1");
+    cache.putObject("b", "2");
+    cache.putObject("c", "3");
+    assertNull(cache.getObject("a"));
+    assertEquals("3", cache.getObject("c"));
+    assertEquals("2", cache.getObject("b"));
+    assertEquals("metrics", metrics.getId());
+    assertEquals(2, metrics.getHits());
+    assertEquals(1, metrics.getMisses());
+    assertEquals(2.0 / 3.0, metrics.getHitRatio(), 0.0001);
+    assertEquals(3, metrics.getPuts());
+    assertEquals(1, metrics.getEvictions());
+    assertEquals(2, metrics.getEstimatedSize());
+  }
+
+  @Test
+  void shouldCountTheEvictionsOfTinyLfuCaches() {
+    Cache cache = new CacheBuilder("metrics").addDecorator(TinyLfuCache.class).size(2)
+        .metrics(new DefaultCacheMetricsFactory()).build();
+    DefaultCacheMetrics metrics = (DefaultCacheMetrics) ((MetricsCache) cache).getMetrics();
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(8, metrics.getEvictions());
+    assertEquals(2, metrics.getEstimatedSize());
+  }
+
+  @Test
+  void shouldNotCountClearAsEvictions() {
+    Cache cache = new CacheBuilder("metrics").tagged(true).metrics(new DefaultCacheMetricsFactory()).build();
+    DefaultCacheMetrics metrics = (DefaultCacheMetrics) ((MetricsCache) cache).getMetrics();
+    cache.putObject("a", "1", Collections.singleton("user"));
+    cache.putObject("b", "2", Collections.singleton("role"));
+    cache.removeTagged(Collections.singleton("user"));
+    assertEquals(1, metrics.getEvictions());
+    cache.clear();
+    assertEquals(1, metrics.getEvictions());
+    assertEquals(0, metrics.getEstimatedSize());
+  }
+
+  @Test
+  void shouldRecordMetricsOfCustomCaches() {
+    Cache cache = new CacheBuilder("metrics").implementation(CustomCache.class)
+        .metrics(new DefaultCacheMetricsFactory()).build();
+    DefaultCacheMetrics metrics = (DefaultCacheMetrics) ((MetricsCache) cache).getMetrics();
+    cache.putObject("a", "1");
+    cache.getObject("a");
+    cache.getObject("b");
+    assertEquals(1, metrics.getPuts());
+    assertEquals(1, metrics.getHits());
+    assertEquals(1, metrics.getMisses());
+  }
+
+  @Test
+  void shouldBuildLoadTimeHistogram() {
+    DefaultCacheMetrics metrics = new DefaultCacheMetrics(new PerpetualCache("metrics"));
+    assertEquals(0.0, metrics.getLoadTimePercentileMillis(99), 0.0);
+    metrics.recordLoad(500);
+    metrics.recordLoad(3_000);
+    metrics.recordLoad(3_500);
+    metrics.recordLoad(1_500_000);
+    long[] histogram = metrics.getLoadTimeHistogram();
+    assertEquals(1, histogram[0]);
+    assertEquals(2, histogram[2]);
+    assertEquals(1, histogram[11]);
+    assertEquals(4, metrics.getLoads());
+    assertEquals(0.004, metrics.getLoadTimePercentileMillis(50), 0.0);
+    assertEquals(2.048, metrics.getLoadTimePercentileMillis(100), 0.0);
+    assertEquals(1_507_000 / 4 / 1_000_000.0, metrics.getAverageLoadTimeMillis(), 0.0001);
+    metrics.reset();
+    assertEquals(0, metrics.getLoads());
+  }
+
+  @Test
+  void shouldRegisterMetricsInThePlatformMBeanServer() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = JmxCacheMetricsFactory.getObjectName("org.apache.ibatis.jmx:Mapper");
+    try {
+      Cache cache = new CacheBuilder("org.apache.ibatis.jmx:Mapper").metrics(new JmxCacheMetricsFactory()).build();
+      cache.getObject("a");
+      // building the cache again replaces the registration
+      cache = new CacheBuilder("org.apache.ibatis.jmx:Mapper").metrics(new JmxCacheMetricsFactory()).build();
+      cache.putObject("a", "1");
+      cache.getObject("a");
+      assertEquals(1L, server.getAttribute(name, "Hits"));
+      assertEquals(0L, server.getAttribute(name, "Misses"));
+      assertEquals(1, server.getAttribute(name, "EstimatedSize"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  @Test
+  void shouldUnregisterMetricsWhenTheCacheIsClosed() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = JmxCacheMetricsFactory.getObjectName("org.apache.ibatis.jmx:Closed");
+    Cache replaced = new CacheBuilder("org.apache.ibatis.jmx:Closed").metrics(new JmxCacheMetricsFactory()).build();
+    Cache cache = new CacheBuilder("org.apache.ibatis.jmx:Closed").metrics(new JmxCacheMetricsFactory()).build();
+    replaced.close();
+    assertTrue(server.isRegistered(name));
+    cache.close();
+    assertFalse(server.isRegistered(name));
+  }
+
+  public static class CustomCache extends PerpetualCache {
+
+    public CustomCache(String id) {
+      super(id);
+    }
+
+  }
+
+}
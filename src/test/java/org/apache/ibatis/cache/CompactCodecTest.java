@@ -0,0 +1,275 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.codec.Codec;
+import org.apache.ibatis.cache.codec.CompactCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class CompactCodecTest {
+
+  private final Codec codec = new CompactCodec();
+
+  @Test
+  void shouldCopyBeans() {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    Author copy = (Author) codec.decode(codec.encode(author));
+    assertNotSame(author, copy);
+    assertEquals(author, copy);
+    assertEquals(Section.NEWS, copy.getFavouriteSection());
+  }
+
+  @Test
+  void shouldCopySimpleValues() {
+    Timestamp timestamp = new Timestamp(1234567890L);
+    timestamp.setNanos(123456789);
+    List<Object> values = Arrays.asList(null, "text", 1, 2L, 3.0d, 4.0f, (short) 5, (byte) 6, true, 'c',
+        new BigDecimal("1.50"), BigInteger.TEN, new Date(1000L), timestamp, new java.sql.Date(2000L),
+        new java.sql.Time(3000L), Section.VIDEOS, new byte[] { 1, 2 }, new String[] { "a", null });
+    List<?> copy = (List<?>) codec.decode(codec.encode(new ArrayList<>(values)));
+    assertEquals(values.size(), copy.size());
+    for (int i = 0; i < values.size(); i++) {
+      Object value = values.get(i);
+      if (value instanceof byte[]) {
+        assertArrayEquals((byte[]) value, (byte[]) copy.get(i));
+      } else if (value instanceof Object[]) {
+        assertArrayEquals((Object[]) value, (Object[]) copy.get(i));
+        assertEquals(String[].class, copy.get(i).getClass());
+      } else {
+        assertEquals(value, copy.get(i));
+        assertEquals(value == null ? null : value.getClass(), copy.get(i) == null ? null : copy.get(i).getClass());
+      }
+    }
+  }
+
+  @Test
+  void shouldCopyCollectionsAndMaps() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("set", new LinkedHashSet<>(Arrays.asList(3, 1, 2)));
+    map.put("list", new ArrayList<>(Arrays.asList("x", "y")));
+    Object copy = codec.decode(codec.encode(map));
+    assertEquals(map, copy);
+    assertEquals(Arrays.asList(3, 1, 2), new ArrayList<>((LinkedHashSet<?>) ((Map<?, ?>) copy).get("set")));
+  }
+
+  @Test
+  void shouldKeepSharedAndCircularReferences() {
+    Node parent = new Node("parent");
+    Node child = new Node("child");
+    parent.getChildren().add(child);
+    parent.getChildren().add(child);
+    child.setParent(parent);
+    Node copy = (Node) codec.decode(codec.encode(parent));
+    assertEquals("parent", copy.getName());
+    assertEquals(2, copy.getChildren().size());
+    assertSame(copy.getChildren().get(0), copy.getChildren().get(1));
+    assertSame(copy, copy.getChildren().get(0).getParent());
+  }
+
+  @Test
+  void shouldSkipTransientFields() {
+    Node node = new Node("node");
+    node.setScratch("scratch");
+    Node copy = (Node) codec.decode(codec.encode(node));
+    assertEquals("node", copy.getName());
+    assertNull(copy.getScratch());
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    Replaced replaced = new Replaced();
+    replaced.value = "value";
+    Replaced copy = (Replaced) codec.decode(codec.encode(replaced));
+    assertEquals("replaced value", copy.value);
+  }
+
+  @Test
+  void shouldFallBackToJavaSerializationForFinalFieldsWithoutSetter() {
+    Basket basket = new Basket();
+    basket.addItem("apple");
+    Basket copy = (Basket) codec.decode(codec.encode(basket));
+    copy.addItem("pear");
+    assertEquals(Arrays.asList("apple", "pear"), copy.getItems());
+    assertEquals(Collections.singletonList("apple"), basket.getItems());
+  }
+
+  @Test
+  void shouldFallBackToJavaSerializationForShadowedFields() {
+    Labelled labelled = new Labelled();
+    labelled.relabel("label");
+    labelled.setValue("value");
+    Labelled copy = (Labelled) codec.decode(codec.encode(labelled));
+    assertEquals("label", copy.getLabel());
+    assertEquals("value", copy.getValue());
+  }
+
+  @Test
+  void shouldRejectNonSerializableValues() {
+    List<Object> values = new ArrayList<>();
+    values.add(new Object());
+    assertThrows(CacheException.class, () -> codec.encode(values));
+  }
+
+  @Test
+  void shouldBeSmallerThanJavaSerialization() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      authors.add(new Author(i, "user" + i, "password", "user" + i + "@example.com", "bio", Section.NEWS));
+    }
+    byte[] compact = codec.encode(authors);
+    byte[] serialized = new JavaSerializationCodec().encode(authors);
+    assertTrue(compact.length < serialized.length);
+    assertEquals(authors, codec.decode(compact));
+  }
+
+  @Test
+  void shouldCopyValuesOfReadWriteCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), codec);
+    Node node = new Node("node");
+    cache.putObject("key", node);
+    Node copy = (Node) cache.getObject("key");
+    assertNotSame(node, copy);
+    assertEquals("node", copy.getName());
+  }
+
+  public static class Node implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private Node parent;
+    private List<Node> children = new ArrayList<>();
+    private transient String scratch;
+
+    public Node() {
+    }
+
+    Node(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public Node getParent() {
+      return parent;
+    }
+
+    public void setParent(Node parent) {
+      this.parent = parent;
+    }
+
+    public List<Node> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Node> children) {
+      this.children = children;
+    }
+
+    public String getScratch() {
+      return scratch;
+    }
+
+    public void setScratch(String scratch) {
+      this.scratch = scratch;
+    }
+  }
+
+  public static class Basket implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> items = new ArrayList<>();
+
+    public List<String> getItems() {
+      return Collections.unmodifiableList(items);
+    }
+
+    public void addItem(String item) {
+      items.add(item);
+    }
+  }
+
+  public static class Named implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String value;
+
+    public String getLabel() {
+      return value;
+    }
+
+    public void relabel(String label) {
+      this.value = label;
+    }
+  }
+
+  public static class Labelled extends Named {
+
+    private static final long serialVersionUID = 1L;
+
+    private String value;
+
+    public String getValue() {
+      return value;
+    }
+
+    public void setValue(String value) {
+      this.value = value;
+    }
+  }
+
+  public static class Replaced implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String value;
+
+    private Object readResolve() {
+      Replaced replaced = new Replaced();
+      replaced.value = "replaced " + value;
+      return replaced;
+    }
+  }
+
+}
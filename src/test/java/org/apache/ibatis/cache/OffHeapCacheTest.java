@@ -0,0 +1,191 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject("key", value);
+    Object cached = cache.getObject("key");
+    assertEquals(value, cached);
+    assertNotSame(value, cached);
+    assertNotSame(cached, cache.getObject("key"));
+    assertEquals(2, cache.getHitCount());
+    assertNull(cache.getObject("other"));
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void shouldReplaceAndRemoveValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, "first");
+    cache.putObject(0, "second");
+    assertEquals("second", cache.getObject(0));
+    assertEquals(1, cache.getSize());
+    assertEquals("second", cache.removeObject(0));
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getLiveBytes());
+    assertEquals(1.0, cache.getFragmentation());
+  }
+
+  @Test
+  void shouldEvictOldestSlabWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(4096);
+    cache.initialize();
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, new byte[100]);
+    }
+    assertTrue(cache.getSize() < 1000);
+    assertTrue(cache.getEvictionCount() > 0);
+    assertEquals(1000, cache.getSize() + cache.getEvictionCount());
+    assertTrue(cache.getUsedBytes() <= cache.getCapacity());
+    assertEquals(4096, cache.getReservedBytes());
+    assertNotNull(cache.getObject(999));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotCacheValuesLargerThanSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(2048);
+    cache.initialize();
+    cache.putObject("key", "small");
+    cache.putObject("key", new byte[2048]);
+    assertNull(cache.getObject("key"));
+    assertEquals(1, cache.getRejectionCount());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    OffHeapCache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getUsedBytes());
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldRejectNonSerializableValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject("key", new Object()));
+  }
+
+  @Test
+  void shouldRejectCapacityBelowSlabSize() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(512);
+    assertThrows(CacheException.class, cache::initialize);
+  }
+
+  @Test
+  void shouldStoreValuesInMappedFile() throws Exception {
+    File file = File.createTempFile("offheap", ".cache");
+    file.deleteOnExit();
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(2048);
+    cache.setFile(file.getAbsolutePath());
+    cache.initialize();
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+    assertTrue(Files.size(file.toPath()) > 0);
+  }
+
+  @Test
+  void shouldReleaseSlabsWhenInitializedAgain() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(2048);
+    cache.putObject("key", "value");
+    assertEquals(1024, cache.getReservedBytes());
+    cache.initialize();
+    assertEquals(0, cache.getReservedBytes());
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+  }
+
+  @Test
+  void shouldReleaseSlabsAndFileWhenClosed() throws Exception {
+    File file = File.createTempFile("offheap", ".cache");
+    file.deleteOnExit();
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(2048);
+    cache.setFile(file.getAbsolutePath());
+    cache.putObject("key", "value");
+    cache.close();
+    assertEquals(0, cache.getReservedBytes());
+    assertEquals(0, cache.getSize());
+    assertNull(cache.getObject("key"));
+    assertTrue(file.delete());
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+    cache.close();
+  }
+
+  @Test
+  void shouldBeClosedWithTheConfiguration() {
+    Configuration configuration = new Configuration();
+    Cache first = new CacheBuilder("org.example.Mapper").implementation(OffHeapCache.class).build();
+    Cache second = new CacheBuilder("com.example.Mapper").implementation(OffHeapCache.class).build();
+    configuration.addCache(first);
+    configuration.addCache(second);
+    first.putObject("key", "value");
+    second.putObject("key", "value");
+    configuration.closeCaches();
+    assertEquals(0, first.getSize());
+    assertEquals(0, second.getSize());
+  }
+
+  @Test
+  void shouldBeBuiltWithProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("capacity", "8192");
+    properties.setProperty("slabSize", "2048");
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).properties(properties).build();
+    assertTrue(cache instanceof LoggingCache);
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+  }
+
+}
@@ -17,7 +17,15 @@ package org.apache.ibatis.cache;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.junit.jupiter.api.Test;
@@ -66,4 +74,131 @@ class ScheduledCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldExpireEachEntryOnItsOwn() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(300);
+    cache.setJitter(1);
+    cache.putObject(0, 0);
+    Thread.sleep(200);
+    cache.putObject(1, 1);
+    Thread.sleep(200);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getExpirationCount());
+  }
+
+  @Test
+  void shouldExpireEntriesAfterTheirTimeToLive() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setTimeToLive(300);
+    cache.putObject(0, 0);
+    Thread.sleep(200);
+    cache.putObject(1, 1);
+    Thread.sleep(200);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+  }
+
+  @Test
+  void shouldClearAllEntriesEveryClearIntervalWhenATimeToLiveIsSet() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(300);
+    cache.setTimeToLive(60000);
+    cache.putObject(0, 0);
+    Thread.sleep(200);
+    cache.putObject(1, 1);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(200);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRefreshEntriesAheadOfTheirExpiry() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(60000);
+    cache.setRefreshAhead(60000);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    cache.setRefreshExecutor(executor);
+    CacheKey key = new CacheKey(new Object[] { "key" });
+    cache.putObject(key, "old", null, k -> cache.putObject(k, "new"));
+    assertEquals("old", cache.getObject(key));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals("new", cache.getObject(key));
+    assertEquals(1, cache.getRefreshCount());
+  }
+
+  @Test
+  void shouldKeepTheCurrentValueWhenTheRefreshFails() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(60000);
+    cache.setRefreshAhead(60000);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    cache.setRefreshExecutor(executor);
+    CacheKey key = new CacheKey(new Object[] { "key" });
+    cache.putObject(key, "old", null, k -> {
+      throw new CacheException("database is down");
+    });
+    assertEquals("old", cache.getObject(key));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals("old", cache.getObject(key));
+    assertEquals(0, cache.getRefreshCount());
+    assertEquals(1, cache.getRefreshFailureCount());
+  }
+
+  @Test
+  void shouldShutDownTheRefreshExecutorItCreatedWhenClosed() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(60000);
+    cache.setRefreshAhead(60000);
+    AtomicReference<Thread> refreshThread = new AtomicReference<>();
+    CountDownLatch refreshed = new CountDownLatch(1);
+    CacheKey key = new CacheKey(new Object[] { "key" });
+    cache.putObject(key, "old", null, k -> {
+      refreshThread.set(Thread.currentThread());
+      refreshed.countDown();
+    });
+    cache.getObject(key);
+    assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+    cache.close();
+    refreshThread.get().join(5000);
+    assertFalse(refreshThread.get().isAlive());
+  }
+
+  @Test
+  void shouldNotShutDownARefreshExecutorItWasGiven() {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    cache.setRefreshExecutor(executor);
+    cache.close();
+    assertFalse(executor.isShutdown());
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldNotKeepTheLoadersOfEntriesEvictedByTheDelegate() throws Exception {
+    LruCache lru = new LruCache(new PerpetualCache("DefaultCache"));
+    lru.setSize(1);
+    ScheduledCache cache = new ScheduledCache(lru);
+    cache.setTimeToLive(60000);
+    cache.setRefreshAhead(1000);
+    WeakReference<Object> parameterReference = putWithLoader(cache, new CacheKey(new Object[] { "evicted" }));
+    cache.putObject(new CacheKey(new Object[] { "kept" }), "value");
+    for (int i = 0; i < 10 && parameterReference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertNull(parameterReference.get());
+    assertEquals(1, cache.getSize());
+  }
+
+  private static WeakReference<Object> putWithLoader(ScheduledCache cache, CacheKey key) {
+    Object parameterObject = new Object();
+    cache.putObject(key, "value", null, k -> cache.putObject(k, parameterObject.toString()));
+    return new WeakReference<>(parameterObject);
+  }
+
 }
@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TaggedCacheTest {
+
+  @Test
+  void shouldRemoveOnlyTaggedEntries() {
+    Cache cache = new TaggedCache(new PerpetualCache("default"));
+    cache.putObject("user1", "User1", tags("users:1", "users:*"));
+    cache.putObject("user2", "User2", tags("users:2", "users:*"));
+    cache.putObject("groups", "Groups", tags("groups"));
+    assertTrue(cache.isTagged("user1", tags("users", "users:1")));
+    assertFalse(cache.isTagged("user2", tags("users", "users:1")));
+    cache.removeTagged(tags("users", "users:1"));
+    assertNull(cache.getObject("user1"));
+    assertEquals("User2", cache.getObject("user2"));
+    assertEquals("Groups", cache.getObject("groups"));
+  }
+
+  @Test
+  void shouldClearWhenAnEntryHasNoTags() {
+    Cache cache = new TaggedCache(new PerpetualCache("default"));
+    cache.putObject("groups", "Groups", tags("groups"));
+    cache.putObject("untagged", "Untagged");
+    assertTrue(cache.isTagged("groups", tags("users")));
+    cache.removeTagged(tags("users"));
+    assertEquals(0, cache.getSize());
+    cache.putObject("groups", "Groups", tags("groups"));
+    cache.removeTagged(tags("users"));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldForgetTheTagsOfReplacedEntries() {
+    Cache cache = new TaggedCache(new PerpetualCache("default"));
+    cache.putObject("key", "Users", tags("users"));
+    cache.putObject("key", "Groups", tags("groups"));
+    cache.removeTagged(tags("users"));
+    assertEquals("Groups", cache.getObject("key"));
+  }
+
+  @Test
+  void shouldBoundTheNumberOfTrackedEntries() {
+    LruCache lru = new LruCache(new PerpetualCache("default"));
+    lru.setSize(10);
+    TaggedCache cache = new TaggedCache(lru);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i, tags("users:" + i));
+    }
+    assertEquals(64, cache.getTaggedKeyCount());
+    assertEquals(10, cache.getSize());
+    cache.removeTagged(tags("users:99"));
+    assertNull(cache.getObject(99));
+    assertEquals(98, cache.getObject(98));
+  }
+
+  @Test
+  void shouldClearCachesThatDoNotTrackTags() {
+    Cache cache = new PerpetualCache("default");
+    cache.putObject("key", "value", tags("groups"));
+    assertTrue(cache.isTagged("key", tags("users")));
+    cache.removeTagged(tags("users"));
+    assertEquals(0, cache.getSize());
+  }
+
+  private static Set<String> tags(String... tags) {
+    return tags.length == 1 ? Collections.singleton(tags[0]) : new HashSet<>(Arrays.asList(tags));
+  }
+
+}
@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuCacheTest {
+
+  @Test
+  void shouldNotGrowBeyondSize() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepTheEntriesInTheDelegate() {
+    PerpetualCache delegate = new PerpetualCache("default");
+    TinyLfuCache cache = new TinyLfuCache(delegate);
+    cache.setSize(5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, delegate.getSize());
+    cache.removeObject(99);
+    assertNull(delegate.getObject(99));
+    assertEquals(4, delegate.getSize());
+    cache.clear();
+    assertEquals(0, delegate.getSize());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedItemsDuringScan() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(100);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject("hot" + i, i);
+    }
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i, cache.getObject("hot" + i));
+      }
+    }
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject("cold" + i, i);
+    }
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, cache.getObject("hot" + i));
+    }
+    assertEquals(100, cache.getSize());
+  }
+
+  @Test
+  void shouldReplaceExistingValue() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    cache.putObject(0, 1);
+    assertEquals(1, cache.getObject(0));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldStayWithinBoundsUnderConcurrentAccess() throws Exception {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(64);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int seed = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 20000; i++) {
+            Integer key = (i * 31 + seed) % 256;
+            Object value = cache.getObject(key);
+            if (value == null) {
+              cache.putObject(key, key);
+            } else {
+              assertEquals(key, value);
+            }
+            if (i % 5000 == 0) {
+              cache.removeObject(key);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(cache.getSize() <= 64);
+  }
+
+}
@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntriesWhenOverweight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setMaxWeight(5);
+    cache.putObject("a", Arrays.asList(1, 2));
+    cache.putObject("b", Arrays.asList(1, 2));
+    cache.getObject("a");
+    cache.putObject("c", Arrays.asList(1, 2));
+    assertNotNull(cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    assertNotNull(cache.getObject("c"));
+    assertEquals(4, cache.getTotalWeight());
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldWeighEmptyListsAndOtherValuesAsOne() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject("a", Collections.emptyList());
+    cache.putObject("b", "value");
+    assertEquals(2, cache.getTotalWeight());
+  }
+
+  @Test
+  void shouldUpdateTheWeightOfReplacedAndRemovedEntries() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject("a", Arrays.asList(1, 2, 3));
+    cache.putObject("a", Arrays.asList(1));
+    assertEquals(1, cache.getTotalWeight());
+    cache.removeObject("a");
+    assertEquals(0, cache.getTotalWeight());
+    cache.putObject("b", Arrays.asList(1, 2));
+    cache.clear();
+    assertEquals(0, cache.getTotalWeight());
+  }
+
+  @Test
+  void shouldForgetEntriesDroppedByTheDelegate() {
+    Cache delegate = new PerpetualCache("default");
+    WeightedCache cache = new WeightedCache(delegate);
+    cache.putObject("a", Arrays.asList(1, 2, 3));
+    delegate.removeObject("a");
+    assertNull(cache.getObject("a"));
+    assertEquals(0, cache.getTotalWeight());
+  }
+
+  @Test
+  void shouldUseCustomWeigher() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher((key, value) -> value.toString().length());
+    cache.setMaxWeight(10);
+    cache.putObject("a", "12345");
+    cache.putObject("b", "123456");
+    assertNull(cache.getObject("a"));
+    assertEquals(6, cache.getTotalWeight());
+  }
+
+}
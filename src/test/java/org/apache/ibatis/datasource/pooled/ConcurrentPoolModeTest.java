@@ -0,0 +1,204 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.DataSourceException;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPoolModeTest {
+
+  private PooledDataSource createDataSource() throws Exception {
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    ds.setPoolMode("concurrent");
+    return ds;
+  }
+
+  @Test
+  void shouldBeSelectableThroughFactoryProperties() {
+    PooledDataSourceFactory factory = new PooledDataSourceFactory();
+    Properties props = new Properties();
+    props.setProperty("driver", "org.hsqldb.jdbcDriver");
+    props.setProperty("url", "jdbc:hsqldb:.");
+    props.setProperty("username", "sa");
+    props.setProperty("poolMode", "concurrent");
+    factory.setProperties(props);
+    PooledDataSource ds = (PooledDataSource) factory.getDataSource();
+    assertEquals("CONCURRENT", ds.getPoolMode());
+    assertTrue(ds.getPoolState() instanceof ConcurrentPoolState);
+  }
+
+  @Test
+  void shouldRejectUnknownMode() throws Exception {
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    assertThrows(DataSourceException.class, () -> ds.setPoolMode("bogus"));
+  }
+
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    PooledDataSource ds = createDataSource();
+    try {
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(2);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(3, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getHadToWaitCount());
+      assertNotNull(ds.getPoolState().toString());
+    } finally {
+      ds.forceCloseAll();
+    }
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldReuseTheConnectionLastReturnedByTheSameThread() throws Exception {
+    PooledDataSource ds = createDataSource();
+    try {
+      Connection c1 = ds.getConnection();
+      Connection c2 = ds.getConnection();
+      Connection real1 = PooledDataSource.unwrapConnection(c1);
+      c2.close();
+      c1.close();
+      Connection c3 = ds.getConnection();
+      assertSame(real1, PooledDataSource.unwrapConnection(c3));
+      c3.close();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldInvalidateReturnedProxy() throws Exception {
+    PooledDataSource ds = createDataSource();
+    try {
+      Connection c = ds.getConnection();
+      c.close();
+      assertThrows(SQLException.class, c::getAutoCommit);
+      // closing twice counts as a bad connection but must not corrupt the pool
+      c.close();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldHandOffConnectionToWaitingThread() throws Exception {
+    PooledDataSource ds = createDataSource();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolTimeToWait(10000);
+      Connection c = ds.getConnection();
+      CountDownLatch started = new CountDownLatch(1);
+      Future<Boolean> waiter = executor.submit(() -> {
+        started.countDown();
+        try (Connection other = ds.getConnection()) {
+          return other.isValid(1);
+        }
+      });
+      started.await();
+      Thread.sleep(100);
+      c.close();
+      assertTrue(waiter.get(5, TimeUnit.SECONDS));
+      assertEquals(1, ds.getPoolState().getHadToWaitCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldClaimOverdueConnection() throws Exception {
+    PooledDataSource ds = createDataSource();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(50);
+      ds.setPoolTimeToWait(50);
+      Connection leaked = ds.getConnection();
+      Thread.sleep(100);
+      Connection c = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertThrows(SQLException.class, leaked::getAutoCommit);
+      leaked.close();
+      c.close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldStayConsistentUnderContention() throws Exception {
+    PooledDataSource ds = createDataSource();
+    int threads = 16;
+    int iterations = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      ds.setPoolMaximumActiveConnections(4);
+      ds.setPoolMaximumIdleConnections(4);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < iterations; j++) {
+            try (Connection c = ds.getConnection()) {
+              assertTrue(ds.getPoolState().getActiveConnectionCount() <= 4);
+              c.getAutoCommit();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(threads * iterations, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 4);
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+}
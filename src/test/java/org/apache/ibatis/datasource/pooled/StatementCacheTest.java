@@ -0,0 +1,127 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+
+  @Test
+  void shouldEvictLeastRecentlyUsedStatement() {
+    StatementCache cache = new StatementCache(2);
+    Statement first = mock(Statement.class);
+    Statement second = mock(Statement.class);
+    Statement third = mock(Statement.class);
+    assertNull(cache.put("first", first));
+    assertNull(cache.put("second", second));
+    assertSame(first, cache.get("first"));
+    assertSame(second, cache.put("third", third));
+    assertNull(cache.get("second"));
+    assertSame(first, cache.get("first"));
+    assertSame(third, cache.get("third"));
+    assertEquals(2, cache.getCount());
+    assertEquals(3, cache.getStatistics().getHits());
+    assertEquals(1, cache.getStatistics().getMisses());
+    assertEquals(1, cache.getStatistics().getEvictions());
+  }
+
+  @Test
+  void shouldReturnReplacedStatement() {
+    StatementCache cache = new StatementCache(1);
+    Statement first = mock(Statement.class);
+    Statement second = mock(Statement.class);
+    cache.put("key", first);
+    assertSame(first, cache.put("key", second));
+    assertEquals(0, cache.getStatistics().getEvictions());
+  }
+
+  @Test
+  void shouldCloseStatementsOnClear() throws SQLException {
+    StatementCache cache = new StatementCache(2);
+    Statement statement = mock(Statement.class);
+    cache.put("key", statement);
+    cache.clear();
+    verify(statement).close();
+    assertEquals(0, cache.getCount());
+  }
+
+  @Test
+  void shouldRejectInvalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> new StatementCache(0));
+  }
+
+  @Test
+  void shouldKeepStatementCacheWhenConnectionReturnsToPool() throws Exception {
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolStatementCacheSize(4);
+      StatementCache cache;
+      try (Connection connection = ds.getConnection()) {
+        assertTrue(connection.isWrapperFor(StatementCache.class));
+        cache = connection.unwrap(StatementCache.class);
+        assertEquals(4, cache.getSize());
+        assertSame(ds.getStatementCacheStatistics(), cache.getStatistics());
+        cache.put("key", connection.prepareStatement("VALUES(1)"));
+      }
+      try (Connection connection = ds.getConnection()) {
+        assertSame(cache, connection.unwrap(StatementCache.class));
+        assertFalse(cache.get("key").isClosed());
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotShareStatementCacheOfDifferentConnections() throws Exception {
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    try (Connection first = ds.getConnection(); Connection second = ds.getConnection()) {
+      assertNotSame(first.unwrap(StatementCache.class), second.unwrap(StatementCache.class));
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotProvideStatementCacheWhenDisabled() throws Exception {
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    try (Connection connection = ds.getConnection()) {
+      ds.setPoolStatementCacheSize(0);
+      try (Connection other = ds.getConnection()) {
+        assertFalse(other.isWrapperFor(StatementCache.class));
+        assertThrows(SQLException.class, () -> other.unwrap(StatementCache.class));
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+}
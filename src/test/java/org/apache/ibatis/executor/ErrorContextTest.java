@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -55,4 +55,27 @@ class ErrorContextTest {
     assertEquals(outer, recalled);
     assertEquals(outer, ErrorContext.instance());
   }
+
+  @Test
+  void shouldKeepTheDescriptionOfTheInnermostFailure() {
+    ErrorContext context = ErrorContext.instance();
+    context.failure(null, "setting parameters", "ns.insert-Inline", null);
+    context.failure(null, null, null, "insert into t values (?)");
+    context.failure("ns.xml", "executing an update", "ns.insert", "ignored");
+    String description = context.toString();
+    assertTrue(description.contains("### The error may exist in ns.xml"));
+    assertTrue(description.contains("### The error may involve ns.insert-Inline"));
+    assertTrue(description.contains("### The error occurred while setting parameters"));
+    assertTrue(description.contains("### SQL: insert into t values (?)"));
+    ErrorContext.clearInstance();
+  }
+
+  @Test
+  void shouldStartAFreshContextOnceCleared() {
+    ErrorContext context = ErrorContext.instance().activity("some activity");
+    ErrorContext.clearInstance();
+    assertNotSame(context, ErrorContext.instance());
+    assertEquals("", ErrorContext.instance().toString());
+    ErrorContext.clearInstance();
+  }
 }
@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.pooled.StatementCache;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PooledReuseExecutorTest extends BaseExecutorTest {
+
+  private PooledDataSource pooledDataSource;
+
+  @BeforeEach
+  void createPooledDataSource() throws Exception {
+    pooledDataSource = createPooledDataSource(BLOG_PROPERTIES);
+    pooledDataSource.setPoolMaximumActiveConnections(1);
+    pooledDataSource.setPoolStatementCacheSize(2);
+  }
+
+  @AfterEach
+  void closePooledDataSource() {
+    pooledDataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementsAcrossSessions() throws Exception {
+    MappedStatement countAuthors = prepareCount("countAuthors", "SELECT COUNT(*) FROM author");
+    assertEquals(2, count(countAuthors));
+    assertEquals(2, count(countAuthors));
+    StatementCache.Statistics statistics = pooledDataSource.getStatementCacheStatistics();
+    assertEquals(1, statistics.getHits());
+    assertEquals(1, statistics.getMisses());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedStatements() throws Exception {
+    MappedStatement countAuthors = prepareCount("countAuthors", "SELECT COUNT(*) FROM author");
+    MappedStatement countBlogs = prepareCount("countBlogs", "SELECT COUNT(*) FROM blog");
+    MappedStatement countPosts = prepareCount("countPosts", "SELECT COUNT(*) FROM post");
+    Executor executor = createExecutor(new JdbcTransaction(pooledDataSource, null, false));
+    try {
+      assertEquals(2, count(executor, countAuthors));
+      assertEquals(2, count(executor, countBlogs));
+      assertEquals(2, count(executor, countAuthors));
+      assertTrue(count(executor, countPosts) > 0);
+      assertEquals(2, count(executor, countBlogs));
+      assertEquals(2, count(executor, countAuthors));
+    } finally {
+      executor.close(false);
+    }
+    StatementCache.Statistics statistics = pooledDataSource.getStatementCacheStatistics();
+    assertEquals(1, statistics.getHits());
+    assertEquals(5, statistics.getMisses());
+    assertEquals(3, statistics.getEvictions());
+  }
+
+  @Test
+  void shouldApplyTheSettingsOfTheMappedStatementToReusedStatements() throws Exception {
+    StatementSettings settings = new StatementSettings();
+    config.addInterceptor(settings);
+    String sql = "SELECT COUNT(*) FROM author";
+    MappedStatement custom = prepareCount("custom", sql, 10, 50);
+    MappedStatement defaults = prepareCount("defaults", sql, null, null);
+    MappedStatement timeoutOnly = prepareCount("timeoutOnly", sql, 10, null);
+    assertEquals(2, count(custom));
+    assertEquals(2, count(defaults));
+    assertEquals(2, count(timeoutOnly));
+    assertEquals(2, count(defaults));
+    assertEquals(Arrays.asList("10/50", "5000/100", "10/100", "5000/100"), settings.applied);
+    StatementCache.Statistics statistics = pooledDataSource.getStatementCacheStatistics();
+    assertEquals(2, statistics.getHits());
+    assertEquals(2, statistics.getMisses());
+  }
+
+  @Override
+  protected Executor createExecutor(Transaction transaction) {
+    return new PooledReuseExecutor(config, transaction);
+  }
+
+  private int count(MappedStatement ms) throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pooledDataSource, null, false));
+    try {
+      return count(executor, ms);
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  private int count(Executor executor, MappedStatement ms) throws Exception {
+    executor.clearLocalCache();
+    List<Integer> counts = executor.query(ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    return counts.get(0);
+  }
+
+  private MappedStatement prepareCount(String id, String sql) {
+    return prepareCount(id, sql, null, null);
+  }
+
+  private MappedStatement prepareCount(String id, String sql, Integer timeout, Integer fetchSize) {
+    ResultMap resultMap = new ResultMap.Builder(config, id + "-Inline", Integer.class, new ArrayList<>()).build();
+    return new MappedStatement.Builder(config, id, new StaticSqlSource(config, sql), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap)).timeout(timeout).fetchSize(fetchSize).build();
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "parameterize", args = Statement.class))
+  static class StatementSettings implements Interceptor {
+    private final List<String> applied = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      Statement stmt = (Statement) invocation.getArgs()[0];
+      applied.add(stmt.getQueryTimeout() + "/" + stmt.getFetchSize());
+      return invocation.proceed();
+    }
+  }
+
+}
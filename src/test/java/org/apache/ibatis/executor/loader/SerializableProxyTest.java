@@ -17,6 +17,7 @@ package org.apache.ibatis.executor.loader;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
@@ -26,8 +27,10 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
+import org.apache.ibatis.cache.codec.CompactCodec;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Section;
 import org.apache.ibatis.executor.ExecutorException;
@@ -177,6 +180,21 @@ public abstract class SerializableProxyTest {
     assertEquals(999, author2.getId());
   }
 
+  @Test
+  void shouldSerializeUserBeanWithCacheCodec() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setCacheCodec(new CompactCodec());
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("id", null, null);
+    Object proxy = proxyFactory.createProxy(author, loader, configuration, new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    byte[] bytes = serialize((Serializable) proxy);
+    assertTrue(new String(bytes, StandardCharsets.ISO_8859_1).contains(CompactCodec.class.getName()));
+    Author author2 = (Author) deserialize(bytes);
+    assertEquals(author.getUsername(), author2.getUsername());
+    assertEquals(author.getFavouriteSection(), author2.getFavouriteSection());
+    Assertions.assertThrows(ExecutorException.class, author2::getId);
+  }
+
   byte[] serialize(Serializable value) throws Exception {
     try(ByteArrayOutputStream bos = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ObjectOutputStream(bos)) {
@@ -23,6 +23,11 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +48,38 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void shouldNotSynchronizeConcurrentEvictionPolicy() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).size(10).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    Assertions.assertThat((Cache) unwrap(cache)).isInstanceOf(TinyLfuCache.class);
+  }
+
+  @Test
+  void shouldTrackTagsOfTaggedCache() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).tagged(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    Cache taggedCache = unwrap(cache);
+    Assertions.assertThat(taggedCache).isInstanceOf(TaggedCache.class);
+    Assertions.assertThat((Cache) unwrap(taggedCache)).isInstanceOf(TinyLfuCache.class);
+  }
+
+  @Test
+  void shouldSynchronizeDefaultEvictionPolicy() {
+    Cache cache = new CacheBuilder("test").addDecorator(LruCache.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldSynchronizeConcurrentEvictionPolicyBoundedByWeight() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).maxWeight(100L).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -0,0 +1,168 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class LambdaReflectorFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new LambdaReflectorFactory();
+
+  @Test
+  void shouldBindPublicAccessors() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertThat(reflector.getGetInvoker("name").getClass()).isNotEqualTo(MethodInvoker.class);
+    assertThat(reflector.getSetInvoker("name").getClass()).isNotEqualTo(MethodInvoker.class);
+    assertThat(reflector.getGetInvoker("name")).isInstanceOf(MethodInvoker.class);
+    assertThat(reflector.getGetInvoker("hidden").getClass()).isEqualTo(MethodInvoker.class);
+    assertThat(reflector.getSetInvoker("kind").getClass()).isEqualTo(MethodInvoker.class);
+
+    Bean bean = new Bean();
+    reflector.getSetInvoker("name").invoke(bean, new Object[] { "a" });
+    reflector.getSetInvoker("count").invoke(bean, new Object[] { 2 });
+    reflector.getSetInvoker("field").invoke(bean, new Object[] { "f" });
+    assertEquals("a", reflector.getGetInvoker("name").invoke(bean, null));
+    assertEquals(2, reflector.getGetInvoker("count").invoke(bean, new Object[0]));
+    assertEquals("f", reflector.getGetInvoker("field").invoke(bean, null));
+    assertEquals("hidden", reflector.getGetInvoker("hidden").invoke(bean, null));
+    reflector.getSetInvoker("kind").invoke(bean, new Object[] { Kind.B });
+    assertEquals(Kind.B, reflector.getGetInvoker("kind").invoke(bean, null));
+  }
+
+  @Test
+  void shouldConvertAndRejectArgumentsLikeReflection() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+    reflector.getSetInvoker("total").invoke(bean, new Object[] { 3 });
+    assertEquals(3L, bean.getTotal());
+    reflector.getSetInvoker("primitiveField").invoke(bean, new Object[] { (short) 4 });
+    assertEquals(4L, reflector.getGetInvoker("primitiveField").invoke(bean, null));
+    Invoker setter = reflector.getSetInvoker("count");
+    assertThrows(IllegalArgumentException.class, () -> setter.invoke(bean, new Object[] { null }));
+    assertThrows(IllegalArgumentException.class, () -> setter.invoke(bean, new Object[] { "x" }));
+    Invoker fieldSetter = reflector.getSetInvoker("primitiveField");
+    assertThrows(IllegalArgumentException.class, () -> fieldSetter.invoke(bean, new Object[] { null }));
+  }
+
+  @Test
+  void shouldWrapExceptionsThrownByAccessors() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> reflector.getGetInvoker("failing").invoke(new Bean(), null));
+    assertTrue(e.getTargetException() instanceof IllegalStateException);
+  }
+
+  @Test
+  void shouldResolveGenericGetterTypes() {
+    MetaClass metaClass = MetaClass.forClass(Bean.class, reflectorFactory);
+    assertEquals(String.class, metaClass.getGetterType("names[0]"));
+  }
+
+  @Test
+  void shouldReadAndWriteNestedProperties() {
+    Bean bean = new Bean();
+    MetaObject metaObject = MetaObject.forObject(bean, new DefaultObjectFactory(), new DefaultObjectWrapperFactory(),
+        reflectorFactory);
+    metaObject.setValue("child.name", "child");
+    metaObject.setValue("child.count", 5);
+    assertEquals("child", bean.getChild().getName());
+    assertEquals(5, metaObject.getValue("child.count"));
+  }
+
+  public static class Bean {
+    private String name;
+    private int count;
+    private long total;
+    private List<String> names;
+    private Bean child;
+    private String field;
+    private long primitiveField;
+    private Kind kind;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public long getTotal() {
+      return total;
+    }
+
+    public void setTotal(long total) {
+      this.total = total;
+    }
+
+    public List<String> getNames() {
+      return names;
+    }
+
+    public void setNames(List<String> names) {
+      this.names = names;
+    }
+
+    public Bean getChild() {
+      return child;
+    }
+
+    public void setChild(Bean child) {
+      this.child = child;
+    }
+
+    public String getFailing() {
+      throw new IllegalStateException("failing");
+    }
+
+    String getHidden() {
+      return "hidden";
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    public void setKind(Kind kind) {
+      this.kind = kind;
+    }
+  }
+
+  enum Kind {
+    A, B
+  }
+
+}
@@ -0,0 +1,154 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class ParamNameResolverTest {
+
+  interface Mapper {
+    void find(@Param("id") Integer id, RowBounds rowBounds, @Param("name") String name, @Param("param1") String other);
+
+    void single(@Param("id") Integer id);
+
+    void unnamed(Integer id, String name);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> namedParams(String methodName, Object... args) throws Exception {
+    Method method = Arrays.stream(Mapper.class.getMethods()).filter(m -> m.getName().equals(methodName)).findFirst()
+        .get();
+    Configuration configuration = new Configuration();
+    configuration.setUseActualParamName(false);
+    return (Map<String, Object>) new ParamNameResolver(configuration, method).getNamedParams(args);
+  }
+
+  @Test
+  void shouldNameArgumentsLikeParamMap() throws Exception {
+    Map<String, Object> params = namedParams("find", 1, RowBounds.DEFAULT, "foo", "bar");
+    assertTrue(params instanceof ParamMap);
+
+    Map<String, Object> expected = new ParamMap<>();
+    expected.put("id", 1);
+    expected.put("param1", "bar");
+    expected.put("name", "foo");
+    expected.put("param2", "foo");
+    expected.put("param3", "bar");
+    assertEquals(expected, params);
+    assertEquals(params, expected);
+    assertEquals(expected.hashCode(), params.hashCode());
+    assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(params.keySet()));
+    assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(params.values()));
+    assertEquals(expected.toString(), params.toString());
+    assertEquals(5, params.size());
+    assertTrue(params.containsKey("param2"));
+    assertFalse(params.containsKey("param4"));
+    assertTrue(params.containsValue("bar"));
+    assertEquals("default", params.getOrDefault("param4", "default"));
+
+    Map<String, Object> visited = new HashMap<>();
+    params.forEach(visited::put);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  void shouldNameSingleAnnotatedAndUnnamedArguments() throws Exception {
+    assertEquals(1, namedParams("single", 1).get("param1"));
+    Map<String, Object> params = namedParams("unnamed", 1, "foo");
+    assertEquals(1, params.get("0"));
+    assertEquals("foo", params.get("param2"));
+  }
+
+  @Test
+  void shouldFailOnUnknownParameter() throws Exception {
+    Map<String, Object> params = namedParams("unnamed", 1, "foo");
+    BindingException e = assertThrows(BindingException.class, () -> params.get("id"));
+    assertTrue(e.getMessage().startsWith("Parameter 'id' not found. Available parameters are ["));
+  }
+
+  @Test
+  void shouldKeepEntriesWhenModified() throws Exception {
+    Map<String, Object> params = namedParams("unnamed", 1, "foo");
+    assertNull(params.put("extra", 2));
+    assertEquals(5, params.size());
+    assertEquals(1, params.get("param1"));
+    assertEquals("foo", params.get("1"));
+    assertEquals(2, params.get("extra"));
+    assertEquals(1, params.remove("0"));
+    assertThrows(BindingException.class, () -> params.get("0"));
+
+    Map<String, Object> other = namedParams("unnamed", 1, "foo");
+    other.clear();
+    assertTrue(other.isEmpty());
+  }
+
+  @Test
+  void shouldCloneAndSerializeAsParamMap() throws Exception {
+    Map<String, Object> params = namedParams("unnamed", 1, "foo");
+    @SuppressWarnings("unchecked")
+    Map<String, Object> clone = (Map<String, Object>) ((HashMap<String, Object>) params).clone();
+    clone.put("extra", 2);
+    assertEquals(4, params.size());
+    assertEquals(5, clone.size());
+    assertEquals("foo", clone.get("param2"));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(params);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Object copy = in.readObject();
+      assertSame(ParamMap.class, copy.getClass());
+      assertEquals(params, copy);
+    }
+  }
+
+  @Test
+  void shouldIterateReadOnlyViews() throws Exception {
+    Map<String, Object> params = namedParams("unnamed", 1, "foo");
+    List<String> keys = new ArrayList<>();
+    for (Map.Entry<String, Object> entry : params.entrySet()) {
+      keys.add(entry.getKey());
+      assertEquals(entry.getValue(), params.get(entry.getKey()));
+    }
+    assertEquals(new ArrayList<>(params.keySet()), keys);
+    assertThrows(UnsupportedOperationException.class, () -> params.entrySet().iterator().next().setValue(2));
+  }
+
+}
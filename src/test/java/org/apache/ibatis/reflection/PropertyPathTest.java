@@ -0,0 +1,146 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class PropertyPathTest {
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final ObjectFactory objectFactory = new DefaultObjectFactory();
+  private final ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
+
+  @Test
+  void shouldCachePathsByRootClass() {
+    MetaClass metaClass = MetaClass.forClass(RichType.class, reflectorFactory);
+    PropertyPath path = metaClass.getPropertyPath("richType.richProperty");
+    assertSame(path, MetaClass.forClass(RichType.class, reflectorFactory).getPropertyPath("richType.richProperty"));
+    assertEquals("richType.richProperty", path.getExpression());
+  }
+
+  @Test
+  void shouldKeepTheCachedPathsWhenFull() {
+    MetaClass metaClass = MetaClass.forClass(HashMap.class, reflectorFactory);
+    PropertyPath first = metaClass.getPropertyPath("first.value");
+    for (int i = 0; i < 1000; i++) {
+      metaClass.getPropertyPath("key" + i + ".value");
+    }
+    assertSame(first, metaClass.getPropertyPath("first.value"));
+    assertNotSame(metaClass.getPropertyPath("key999.value"), metaClass.getPropertyPath("key999.value"));
+  }
+
+  @Test
+  void shouldNotCacheThePathsTheCallerDoesNotWantCached() {
+    MetaClass metaClass = MetaClass.forClass(HashMap.class, reflectorFactory);
+    PropertyPath path = metaClass.getPropertyPath("item.value", false);
+    assertNotSame(path, metaClass.getPropertyPath("item.value", false));
+    assertNotSame(path, metaClass.getPropertyPath("item.value"));
+    assertEquals("item.value", path.getExpression());
+  }
+
+  @Test
+  void shouldGetAndSetValuesWithoutPropertyPathCache() {
+    Map<String, Object> items = new HashMap<>();
+    items.put("item", new HashMap<>());
+    MetaObject metaObject = MetaObject.forObject(items, objectFactory, objectWrapperFactory, reflectorFactory)
+        .withoutPropertyPathCache();
+    metaObject.setValue("item.value", "value");
+    assertEquals("value", metaObject.getValue("item.value"));
+    assertEquals("value", ((Map<?, ?>) items.get("item")).get("value"));
+  }
+
+  @Test
+  void shouldGetAndSetNestedProperties() {
+    PropertyPath path = path("richType.richType.richProperty");
+    RichType rich = new RichType();
+    assertNull(path.getValue(rich, objectFactory, objectWrapperFactory));
+    path.setValue(rich, null, objectFactory, objectWrapperFactory);
+    assertNull(rich.getRichType());
+    path.setValue(rich, "foo", objectFactory, objectWrapperFactory);
+    assertEquals("foo", rich.getRichType().getRichType().getRichProperty());
+    assertEquals("foo", path.getValue(rich, objectFactory, objectWrapperFactory));
+  }
+
+  @Test
+  void shouldGetAndSetFieldsAndMapEntries() {
+    RichType rich = new RichType();
+    path("richType.richField").setValue(rich, "field", objectFactory, objectWrapperFactory);
+    path("richMap.key.child").setValue(rich, "value", objectFactory, objectWrapperFactory);
+    assertEquals("field", path("richType.richField").getValue(rich, objectFactory, objectWrapperFactory));
+    assertEquals("value", path("richMap.key.child").getValue(rich, objectFactory, objectWrapperFactory));
+    assertTrue(((Map<?, ?>) rich.getRichMap().get("key")).containsKey("child"));
+  }
+
+  @Test
+  void shouldHandOverIndexedPropertiesToMetaObject() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    assertEquals("bar", path("richType.richList[0]").getValue(rich, objectFactory, objectWrapperFactory));
+    path("richType.richList[0]").setValue(rich, "foo", objectFactory, objectWrapperFactory);
+    assertEquals("foo", rich.getRichType().getRichList().get(0));
+  }
+
+  @Test
+  void shouldFollowTheRuntimeClassOfEachProperty() {
+    PropertyPath path = MetaClass.forClass(HashMap.class, reflectorFactory).getPropertyPath("value.richProperty");
+    RichType rich = new RichType();
+    rich.setRichProperty("rich");
+    Map<String, Object> map = new HashMap<>();
+    for (Object value : new Object[] { rich, new SubType("sub"), new HashMap<>(), rich }) {
+      map.put("value", value);
+      Object expected = value instanceof RichType ? ((RichType) value).getRichProperty() : null;
+      assertEquals(expected, path.getValue(map, objectFactory, objectWrapperFactory));
+    }
+  }
+
+  @Test
+  void shouldFailLikeMetaObject() {
+    RichType rich = new RichType();
+    MetaObject metaObject = SystemMetaObject.forObject(rich);
+    ReflectionException expected = assertThrows(ReflectionException.class,
+        () -> metaObject.getObjectWrapper().get(new PropertyTokenizer("unknown")));
+    ReflectionException actual = assertThrows(ReflectionException.class,
+        () -> path("unknown.child").getValue(rich, objectFactory, objectWrapperFactory));
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  private PropertyPath path(String expression) {
+    return MetaClass.forClass(RichType.class, reflectorFactory).getPropertyPath(expression);
+  }
+
+  static class SubType extends RichType {
+    SubType(String richProperty) {
+      setRichProperty(richProperty);
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompiledExpressionTest {
+
+  private final Configuration configuration = new Configuration();
+  private final ExpressionEvaluator evaluator = new ExpressionEvaluator();
+
+  @Test
+  void shouldCompileSimpleExpressions() {
+    String[] expressions = {
+        "name != null", "name != null and name != ''", "id", "!flag", "not flag", "id == 1 or id eq 2",
+        "list != null and list.size() > 0", "list.isEmpty()", "name.length() == 3", "author.username == \"cbegin\"",
+        "(id > 0 && flag) || name == null", "amount >= 10.5", "id neq 1", "_parameter != null"
+    };
+    for (String expression : expressions) {
+      assertTrue(compile(expression).isCompiled(), expression);
+    }
+  }
+
+  @Test
+  void shouldLeaveOtherExpressionsToOgnl() {
+    String[] expressions = {
+        "name == 'a'", "@java.lang.Math@abs(id) > 0", "list[0] != null", "name.startsWith('a')", "id + 1 > 2",
+        "-id < 0", "id in {1, 2}", "10L > id", "name != null and", ""
+    };
+    for (String expression : expressions) {
+      assertFalse(compile(expression).isCompiled(), expression);
+    }
+  }
+
+  @Test
+  void shouldEvaluateLikeOgnl() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("zero", 0);
+    parameter.put("five", 5);
+    parameter.put("fiveLong", 5L);
+    parameter.put("fiveDouble", 5.0d);
+    parameter.put("fiveDecimal", new BigDecimal("5.00"));
+    parameter.put("empty", "");
+    parameter.put("name", "abc");
+    parameter.put("numeric", "5");
+    parameter.put("yes", Boolean.TRUE);
+    parameter.put("no", Boolean.FALSE);
+    parameter.put("nothing", null);
+    parameter.put("list", new ArrayList<>(Arrays.asList(1, 2)));
+    parameter.put("map", new HashMap<>());
+    parameter.put("section", Section.NEWS);
+    parameter.put("author", new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS));
+    String[] expressions = {
+        "zero", "five", "empty", "nothing", "missing", "yes", "no", "!yes", "not no",
+        "zero != null", "zero == null", "nothing == null", "nothing != null", "nothing == ''", "nothing == 0",
+        "zero != ''", "empty == ''", "name == 'abc'", "name == \"abc\"", "name != 'abd'", "numeric == 5",
+        "five == 5", "fiveLong == 5", "fiveDouble == 5", "fiveDecimal == 5", "five == 5.0", "five > 4", "five < 4.5",
+        "fiveDecimal > 4.99", "five >= 5", "five lte 4", "nothing > 3", "yes == true", "yes == 1", "section == null",
+        "list.size() > 0", "list.size() == 2 and !list.isEmpty()", "map.isEmpty()", "map.size() == 0", "map.key == null",
+        "name.length() == 3", "empty.isEmpty()", "author.username == 'cbegin'", "author.password == null",
+        "author.favouriteSection != null", "name != null and name != ''", "nothing != null and nothing != ''",
+        "(five > 4 and no) or name == 'abc'", "_parameter.name == 'abc'", "_databaseId == null",
+        "!name", "not name", "!empty", "!numeric", "!zero", "!five", "!nothing", "name and no", "no or name",
+        "yes and name", "name or no", "nothing or zero", "list.empty", "numeric > 4", "name > 'abb'"
+    };
+    Map<String, Object> bindings = new DynamicContext(configuration, parameter).getBindings();
+    for (String expression : expressions) {
+      assertEquals(evaluator.evaluateBoolean(expression, bindings), compile(expression).evaluateBoolean(bindings), expression);
+    }
+  }
+
+  @Test
+  void shouldEvaluateBeanParameter() {
+    Author author = new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS);
+    Map<String, Object> bindings = new DynamicContext(configuration, author).getBindings();
+    assertTrue(compile("username == 'cbegin' and password == null").evaluateBoolean(bindings));
+    assertTrue(compile("id == 1 and favouriteSection != null").evaluateBoolean(bindings));
+    assertFalse(compile("bio != 'N/A'").evaluateBoolean(bindings));
+  }
+
+  @Test
+  void shouldReturnOperandsOfAndOrLikeOgnl() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "abc");
+    parameter.put("flag", Boolean.FALSE);
+    Map<String, Object> bindings = new DynamicContext(configuration, parameter).getBindings();
+    // OGNL takes the string "abc" as false, but returns it from "and", so the test is true
+    assertTrue(compile("!name").evaluateBoolean(bindings));
+    assertTrue(compile("not name").evaluateBoolean(bindings));
+    assertTrue(compile("name and flag").evaluateBoolean(bindings));
+    assertTrue(compile("flag or name").evaluateBoolean(bindings));
+    assertFalse(compile("flag and name").evaluateBoolean(bindings));
+  }
+
+  @Test
+  void shouldReadPropertiesOnceWhenEvaluationFails() {
+    Counter counter = new Counter();
+    Map<String, Object> bindings = new DynamicContext(configuration, counter).getBindings();
+    CompiledExpression expression = compile("value == 'abc'");
+    assertTrue(expression.isCompiled());
+    assertThrows(NumberFormatException.class, () -> expression.evaluateBoolean(bindings));
+    assertEquals(1, counter.reads);
+  }
+
+  @Test
+  void shouldFailLikeOgnl() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("section", Section.NEWS);
+    Map<String, Object> bindings = new DynamicContext(configuration, parameter).getBindings();
+    CompiledExpression expression = compile("section == 'NEWS'");
+    assertTrue(expression.isCompiled());
+    assertThrows(IllegalArgumentException.class, () -> expression.evaluateBoolean(bindings));
+    assertThrows(BuilderException.class, () -> compile("missing.name != null").evaluateBoolean(bindings));
+    assertThrows(BuilderException.class, () -> compile("section.missing != null").evaluateBoolean(bindings));
+    assertThrows(BuilderException.class, () -> evaluator.evaluateBoolean("section.missing != null", bindings));
+  }
+
+  @Test
+  void shouldEvaluateIterable() {
+    Map<String, Object> parameter = new HashMap<>();
+    List<Integer> list = Arrays.asList(1, 2, 3);
+    parameter.put("list", list);
+    parameter.put("array", new int[] { 1, 2 });
+    Map<String, Object> bindings = new DynamicContext(configuration, parameter).getBindings();
+    assertEquals(list, compile("list").evaluateIterable(bindings));
+    Iterator<?> iterator = compile("array").evaluateIterable(bindings).iterator();
+    assertEquals(1, iterator.next());
+    assertEquals(2, iterator.next());
+    assertFalse(iterator.hasNext());
+    assertThrows(BuilderException.class, () -> compile("missing").evaluateIterable(bindings));
+  }
+
+  public static class Counter {
+    private int reads;
+
+    public Integer getValue() {
+      reads++;
+      return 1;
+    }
+  }
+
+  private CompiledExpression compile(String expression) {
+    return CompiledExpression.compile(expression, configuration.getReflectorFactory());
+  }
+
+}
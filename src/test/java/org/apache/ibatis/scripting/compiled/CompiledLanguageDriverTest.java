@@ -0,0 +1,150 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.compiled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompiledLanguageDriverTest {
+
+  private final Configuration configuration = new Configuration();
+  private final LanguageDriver compiled = new CompiledLanguageDriver();
+  private final LanguageDriver xml = new XMLLanguageDriver();
+
+  @Test
+  void shouldBeRegisteredWithAlias() {
+    assertEquals(CompiledLanguageDriver.class, configuration.getTypeAliasRegistry().resolveAlias("COMPILED"));
+  }
+
+  @Test
+  void shouldCompileDynamicScripts() {
+    SqlSource sqlSource = compiled.createSqlSource(configuration, "<script>select * from blog <where><if test='id != null'>id = #{id}</if></where></script>", Object.class);
+    assertTrue(sqlSource instanceof CompiledSqlSource);
+  }
+
+  @Test
+  void shouldRenderWhereAndIf() {
+    String script = "<script>select * from blog"
+        + "<where>"
+        + "<if test='id != null'> and id = #{id}</if>"
+        + "<if test='title != null and title != \"\"'> and title like #{title,jdbcType=VARCHAR}</if>"
+        + "</where></script>";
+    assertSameBoundSql(script, params("id", 1, "title", "%a%"));
+    assertSameBoundSql(script, params("id", null, "title", "%a%"));
+    assertSameBoundSql(script, params("id", null, "title", ""));
+  }
+
+  @Test
+  void shouldRenderChooseAndBind() {
+    String script = "<script>select * from blog where "
+        + "<choose><when test='id != null'>id = #{id}</when>"
+        + "<when test='title != null'><bind name='pattern' value=\"'%' + title + '%'\"/>title like #{pattern}</when>"
+        + "<otherwise>1 = 1</otherwise></choose></script>";
+    assertSameBoundSql(script, params("id", 1, "title", "a"));
+    assertSameBoundSql(script, params("id", null, "title", "a"));
+    assertSameBoundSql(script, params("id", null, "title", null));
+  }
+
+  @Test
+  void shouldRenderSetAndTrim() {
+    String script = "<script>update blog<set><if test='title != null'>title = #{title},</if>"
+        + "<if test='id != null'>author_id = #{id},</if></set>"
+        + "<trim prefix='where' prefixOverrides='and |or '><if test='id != null'>and id = #{id}</if></trim></script>";
+    assertSameBoundSql(script, params("id", 1, "title", "a"));
+    assertSameBoundSql(script, params("id", null, "title", "a"));
+  }
+
+  @Test
+  void shouldRenderNestedForEach() {
+    String script = "<script>select * from blog where id in"
+        + "<foreach collection='ids' item='id' index='i' open='(' separator=',' close=')'>#{id}</foreach>"
+        + " or (<foreach collection='groups' item='group' separator=' or '>"
+        + "<foreach collection='group.ids' item='id' open='(' separator=' and ' close=')'>"
+        + "<if test='id != null'>author_id = #{id} and section = #{ group.section }</if>"
+        + "</foreach></foreach>)</script>";
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("ids", Arrays.asList(1, 2, 3));
+    List<Map<String, Object>> groups = new ArrayList<>();
+    groups.add(params("section", "NEWS", "ids", Arrays.asList(4, null)));
+    groups.add(params("section", "VIDEOS", "ids", Arrays.asList(5, 6)));
+    parameter.put("groups", groups);
+    assertSameBoundSql(script, parameter);
+    parameter.put("ids", new int[] { 7 });
+    parameter.put("groups", new ArrayList<>());
+    assertSameBoundSql(script, parameter);
+  }
+
+  @Test
+  void shouldRenderForEachOverMapWithIndex() {
+    String script = "<script>select * from blog where<foreach collection='map' index='key' item='value' separator=' and '>"
+        + "${key} = #{value} and #{key} is not null</foreach></script>";
+    Map<String, Object> map = new HashMap<>();
+    map.put("id", 1);
+    map.put("title", "a");
+    assertSameBoundSql(script, params("map", map, "unused", null));
+  }
+
+  @Test
+  void shouldRenderTextSubstitutions() {
+    String script = "<script>select * from ${table} where id = #{id} <if test='order != null'>order by ${order}</if></script>";
+    assertSameBoundSql(script, params("table", "blog", "id", 1, "order", "title"));
+    assertSameBoundSql(script, params("table", "blog", "id", 1, "order", null));
+  }
+
+  private void assertSameBoundSql(String script, Map<String, Object> parameter) {
+    BoundSql expected = xml.createSqlSource(configuration, script, Map.class).getBoundSql(parameter);
+    BoundSql actual = compiled.createSqlSource(configuration, script, Map.class).getBoundSql(parameter);
+    assertEquals(expected.getSql(), actual.getSql());
+    assertEquals(properties(expected), properties(actual));
+    for (ParameterMapping parameterMapping : expected.getParameterMappings()) {
+      String property = parameterMapping.getProperty();
+      if (expected.hasAdditionalParameter(property)) {
+        assertEquals(expected.getAdditionalParameter(property), actual.getAdditionalParameter(property), property);
+      }
+    }
+  }
+
+  private List<String> properties(BoundSql boundSql) {
+    List<String> properties = new ArrayList<>();
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      properties.add(parameterMapping.getProperty() + ":" + parameterMapping.getJavaType().getName() + ":" + parameterMapping.getJdbcType());
+    }
+    return properties;
+  }
+
+  private Map<String, Object> params(Object... keyValues) {
+    Map<String, Object> parameter = new HashMap<>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      parameter.put((String) keyValues[i], keyValues[i + 1]);
+    }
+    return parameter;
+  }
+
+}
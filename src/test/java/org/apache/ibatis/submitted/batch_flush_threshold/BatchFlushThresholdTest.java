@@ -0,0 +1,154 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_flush_threshold;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchFlushThresholdTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_flush_threshold/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_flush_threshold/CreateDB.sql");
+  }
+
+  @Test
+  void shouldFlushWhenDefaultRowCountIsReached() {
+    List<BatchResult> results = insertAndFlush(7, Mapper::insert);
+    assertBatchSizes(results, 3, 3, 1);
+    // only the results of the last flush keep their parameter objects
+    assertTrue(results.get(0).getParameterObjects().isEmpty());
+    assertTrue(results.get(1).getParameterObjects().isEmpty());
+    assertEquals(1, results.get(2).getParameterObjects().size());
+    assertEquals(7, count());
+  }
+
+  @Test
+  void shouldFlushWhenRowCountOfStatementIsReached() {
+    assertBatchSizes(insertAndFlush(7, Mapper::insertFlushingByTwo), 2, 2, 2, 1);
+    assertEquals(7, count());
+  }
+
+  @Test
+  void shouldNotFlushWhenDisabledForStatement() {
+    assertBatchSizes(insertAndFlush(7, Mapper::insertWithoutFlushing), 7);
+    assertEquals(7, count());
+  }
+
+  @Test
+  void shouldFlushWhenEstimatedSizeOfStatementIsReached() {
+    // each name is estimated to 10 bytes
+    assertBatchSizes(insertAndFlush(7, Mapper::insertFlushingBySize), 6, 1);
+    assertEquals(7, count());
+  }
+
+  @Test
+  void shouldEstimateSizeWithCompiledParameterBinders() {
+    sqlSessionFactory.getConfiguration().setUseCompiledParameterBinders(true);
+    assertBatchSizes(insertAndFlush(7, Mapper::insertFlushingBySize), 6, 1);
+    assertEquals(7, count());
+  }
+
+  @Test
+  void shouldCountRowsPerStatement() {
+    User first = new User("User0");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertWithGeneratedKey(first);
+      mapper.insertFlushingByTwo(new User("User1"));
+      mapper.insertWithGeneratedKey(new User("User2"));
+      // the rows of the other statement do not count against the limit of two
+      assertNull(first.getId());
+      mapper.insertFlushingByTwo(new User("User3"));
+      // the keys are assigned before the parameter objects are released
+      assertNotNull(first.getId());
+      assertBatchSizes(sqlSession.flushStatements(), 1, 1, 1, 1);
+      sqlSession.commit();
+    }
+    assertEquals(4, count());
+  }
+
+  @Test
+  void shouldNotRetainParameterObjects() {
+    sqlSessionFactory.getConfiguration().setDefaultBatchFlushRows(null);
+    sqlSessionFactory.getConfiguration().setRetainBatchParameterObjects(false);
+    User[] users = { new User("User1"), new User("User2") };
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insert(new User("User0"));
+      mapper.insertWithGeneratedKey(users[0]);
+      mapper.insertWithGeneratedKey(users[1]);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+      assertNull(results.get(0).getParameterObject());
+      assertEquals(2, results.get(1).getUpdateCounts().length);
+      assertTrue(results.get(1).getParameterObjects().isEmpty());
+      sqlSession.commit();
+    }
+    assertNotNull(users[0].getId());
+    assertNotNull(users[1].getId());
+  }
+
+  private List<BatchResult> insertAndFlush(int rows, BiConsumer<Mapper, User> insert) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < rows; i++) {
+        insert.accept(mapper, new User("User" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.commit();
+      return results;
+    }
+  }
+
+  private static void assertBatchSizes(List<BatchResult> results, int... sizes) {
+    assertEquals(sizes.length, results.size());
+    for (int i = 0; i < sizes.length; i++) {
+      assertEquals(sizes[i], results.get(i).getUpdateCounts().length);
+    }
+  }
+
+  private int count() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).count();
+    }
+  }
+
+}
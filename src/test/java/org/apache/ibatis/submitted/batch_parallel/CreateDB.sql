@@ -0,0 +1,35 @@
+--
+--    Copyright 2009-2020 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table author if exists;
+drop table tag if exists;
+drop table note if exists;
+
+create table author (
+  id int generated by default as identity (start with 1) primary key,
+  name varchar(20)
+);
+
+create table tag (
+  id int primary key,
+  name varchar(20)
+);
+
+create table note (
+  id int primary key,
+  text varchar(20)
+);
@@ -0,0 +1,53 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_parallel;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectKey;
+import org.apache.ibatis.annotations.Update;
+
+public interface Mapper {
+
+  @Insert("insert into author (name) values (#{name})")
+  @Options(useGeneratedKeys = true, keyProperty = "id")
+  void insertAuthor(Author author);
+
+  @Insert("insert into tag (id, name) values (#{id}, #{name})")
+  void insertTag(@Param("id") int id, @Param("name") String name);
+
+  @Update("<script><choose>"
+      + "<when test='name == null'>delete from tag where id = #{id}</when>"
+      + "<otherwise>insert into tag (id, name) values (#{id}, #{name})</otherwise>"
+      + "</choose></script>")
+  void saveOrDeleteTag(@Param("id") int id, @Param("name") String name);
+
+  @Insert("insert into note (id, text) values (#{id}, #{text})")
+  @SelectKey(statement = "select count(*) from note", keyProperty = "count", before = false, resultType = int.class)
+  void insertNote(Note note);
+
+  @Select("select count(*) from author")
+  int countAuthors();
+
+  @Select("select count(*) from tag")
+  int countTags();
+
+  @Select("select count(*) from note")
+  int countNotes();
+
+}
@@ -0,0 +1,196 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelBatchFlushTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_parallel/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_parallel/CreateDB.sql");
+  }
+
+  @Test
+  void shouldFlushBatchesOfDifferentMappedStatementsConcurrently() {
+    Author[] authors = { new Author("Alice"), new Author("Bob"), new Author("Carol") };
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (Author author : authors) {
+        mapper.insertAuthor(author);
+      }
+      for (int i = 0; i < authors.length; i++) {
+        mapper.insertTag(i, "tag" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals("org.apache.ibatis.submitted.batch_parallel.Mapper.insertAuthor", results.get(0).getMappedStatement().getId());
+      assertEquals(3, results.get(0).getUpdateCounts().length);
+      assertEquals(3, results.get(0).getParameterObjects().size());
+      assertEquals("org.apache.ibatis.submitted.batch_parallel.Mapper.insertTag", results.get(1).getMappedStatement().getId());
+      assertEquals(3, results.get(1).getUpdateCounts().length);
+    }
+    for (Author author : authors) {
+      assertNotNull(author.getId());
+    }
+    // committed when flushed, regardless of the session
+    assertCounts(3, 3);
+  }
+
+  @Test
+  void shouldFlushOnTheExecutorOfTheConfiguration() {
+    AtomicInteger tasks = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+      @Override
+      protected void beforeExecute(Thread thread, Runnable runnable) {
+        tasks.incrementAndGet();
+      }
+    };
+    sqlSessionFactory.getConfiguration().setBatchFlushExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertAuthor(new Author("Alice"));
+      mapper.insertTag(1, "tag1");
+      assertEquals(2, sqlSession.flushStatements().size());
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(2, tasks.get());
+    assertCounts(1, 1);
+  }
+
+  @Test
+  void shouldBoundTheDefaultExecutorByTheNumberOfFlushThreads() {
+    Configuration configuration = new Configuration();
+    configuration.setParallelBatchFlushThreads(2);
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) configuration.getBatchFlushExecutor();
+    assertEquals(2, executor.getMaximumPoolSize());
+    assertTrue(executor.allowsCoreThreadTimeOut());
+    assertThrows(IllegalArgumentException.class, () -> configuration.setParallelBatchFlushThreads(0));
+  }
+
+  @Test
+  void shouldRollbackAllParallelBatchesWhenOneFails() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertAuthor(new Author("Alice"));
+      mapper.insertTag(1, "tag1");
+      mapper.insertAuthor(new Author("Bob"));
+      mapper.insertTag(1, "duplicate");
+      PersistenceException e = assertThrows(PersistenceException.class, sqlSession::flushStatements);
+      BatchExecutorException cause = (BatchExecutorException) e.getCause();
+      assertEquals("org.apache.ibatis.submitted.batch_parallel.Mapper.insertTag", cause.getFailingStatementId());
+      assertTrue(cause.getMessage().contains("(batch index #4) failed."));
+    }
+    assertCounts(0, 0);
+  }
+
+  @Test
+  void shouldKeepTheOrderOfTheBatchesOfAMappedStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.saveOrDeleteTag(1, "first");
+      mapper.saveOrDeleteTag(1, null);
+      mapper.saveOrDeleteTag(1, "second");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+    }
+    assertCounts(0, 1);
+  }
+
+  @Test
+  void shouldRollbackAllParallelBatchesOfAutoCommitDataSource() {
+    ((UnpooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource()).setAutoCommit(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertAuthor(new Author("Alice"));
+      mapper.insertTag(1, "tag1");
+      mapper.insertTag(1, "duplicate");
+      assertThrows(PersistenceException.class, sqlSession::flushStatements);
+    }
+    assertCounts(0, 0);
+  }
+
+  @Test
+  void shouldRollbackParallelBatchesWhenSessionIsClosedWithoutFlushing() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertAuthor(new Author("Alice"));
+      mapper.insertTag(1, "tag1");
+    }
+    assertCounts(0, 0);
+  }
+
+  @Test
+  void shouldExecuteStatementsWithSelectKeyOnSessionConnection() {
+    Note note1 = new Note(1, "first");
+    Note note2 = new Note(2, "second");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNote(note1);
+      mapper.insertTag(1, "tag1");
+      mapper.insertNote(note2);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(1, note1.getCount());
+      assertEquals(2, note2.getCount());
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(2, sqlSession.getMapper(Mapper.class).countNotes());
+    }
+  }
+
+  private void assertCounts(int authors, int tags) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(authors, mapper.countAuthors());
+      assertEquals(tags, mapper.countTags());
+    }
+  }
+
+}
@@ -20,14 +20,22 @@ import static org.assertj.core.api.BDDAssertions.then;
 
 import java.io.Reader;
 import java.lang.reflect.Field;
+import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.annotations.Property;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ListSizeWeigher;
+import org.apache.ibatis.cache.metrics.DefaultCacheMetrics;
+import org.apache.ibatis.cache.metrics.DefaultCacheMetricsFactory;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -293,6 +301,48 @@ class CacheTest {
       .hasMessage("Should be specified either value() or name() attribute in the @CacheNamespaceRef");
   }
 
+  @Test
+  void shouldApplyTimeToLiveAndMaxWeight() {
+    sqlSessionFactory.getConfiguration().addMapper(WeightedCacheMapper.class);
+    Cache cache = sqlSessionFactory.getConfiguration().getCache(WeightedCacheMapper.class.getName());
+    WeightedCache weightedCache = findDecorator(cache, WeightedCache.class);
+    Assertions.assertEquals(100, weightedCache.getMaxWeight());
+    Assertions.assertTrue(weightedCache.getWeigher() instanceof ListSizeWeigher);
+    Assertions.assertEquals(60000, findDecorator(cache, ScheduledCache.class).getTimeToLive());
+  }
+
+  @Test
+  void shouldRecordCacheMetrics() {
+    sqlSessionFactory.getConfiguration().setCacheMetricsFactory(new DefaultCacheMetricsFactory());
+    sqlSessionFactory.getConfiguration().addMapper(MetricsMapper.class);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      MetricsMapper mapper = sqlSession.getMapper(MetricsMapper.class);
+      mapper.findAll();
+      sqlSession.commit();
+      mapper.findAll();
+    }
+    Cache cache = sqlSessionFactory.getConfiguration().getCache(MetricsMapper.class.getName());
+    DefaultCacheMetrics metrics = (DefaultCacheMetrics) ((MetricsCache) cache).getMetrics();
+    Assertions.assertEquals(1, metrics.getHits());
+    Assertions.assertEquals(1, metrics.getMisses());
+    Assertions.assertEquals(1, metrics.getPuts());
+    Assertions.assertEquals(1, metrics.getLoads());
+    Assertions.assertEquals(1, metrics.getEstimatedSize());
+  }
+
+  private <T extends Cache> T findDecorator(Cache cache, Class<T> type) {
+    while (!type.isInstance(cache)) {
+      try {
+        Field field = cache.getClass().getDeclaredField("delegate");
+        field.setAccessible(true);
+        cache = (Cache) field.get(cache);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return type.cast(cache);
+  }
+
   private CustomCache unwrap(Cache cache){
     Field field;
     try {
@@ -316,6 +366,16 @@ class CacheTest {
   private interface CustomCacheUnsupportedPropertyMapper {
   }
 
+  @CacheNamespace(ttl = 60000, maxWeight = 100)
+  private interface WeightedCacheMapper {
+  }
+
+  @CacheNamespace
+  private interface MetricsMapper {
+    @Select("select id, firstname, lastname from person")
+    List<Person> findAll();
+  }
+
   @CacheNamespaceRef(value = PersonMapper.class, name = "org.apache.ibatis.submitted.cache.PersonMapper")
   private interface InvalidCacheNamespaceRefBothMapper {
   }
@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationTest {
+
+  private SqlSessionFactory node1;
+  private SqlSessionFactory node2;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    node1 = newNode();
+    node2 = newNode();
+
+    BaseDataTest.runScript(node1.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_invalidation/CreateDB.sql");
+  }
+
+  @AfterEach
+  void tearDown() {
+    node1.getConfiguration().getCacheInvalidationBus().close();
+    node2.getConfiguration().getCacheInvalidationBus().close();
+  }
+
+  private SqlSessionFactory newNode() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_invalidation/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @Test
+  void shouldRemoveTheWrittenRowOnTheOtherNode() {
+    User user1 = select(node2, mapper -> mapper.getUser(1));
+    User user2 = select(node2, mapper -> mapper.getUser(2));
+    try (SqlSession sqlSession = node1.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).rename(1, "Renamed");
+    }
+    User renamed = select(node2, mapper -> mapper.getUser(1));
+    assertNotSame(user1, renamed);
+    assertEquals("Renamed", renamed.getName());
+    assertSame(user2, select(node2, mapper -> mapper.getUser(2)));
+  }
+
+  @Test
+  void shouldClearTheCacheOfTheOtherNode() {
+    User user2 = select(node2, mapper -> mapper.getUser(2));
+    try (SqlSession sqlSession = node1.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).renameAll("Renamed");
+    }
+    User renamed = select(node2, mapper -> mapper.getUser(2));
+    assertNotSame(user2, renamed);
+    assertEquals("Renamed", renamed.getName());
+    assertEquals(1, node1.getConfiguration().getCacheInvalidationBus().getPublishedCount());
+  }
+
+  @Test
+  void shouldNotPublishRolledBackWrites() {
+    User user1 = select(node2, mapper -> mapper.getUser(1));
+    try (SqlSession sqlSession = node1.openSession()) {
+      sqlSession.getMapper(Mapper.class).rename(1, "Renamed");
+      sqlSession.rollback();
+    }
+    assertSame(user1, select(node2, mapper -> mapper.getUser(1)));
+    assertEquals(0, node1.getConfiguration().getCacheInvalidationBus().getPublishedCount());
+  }
+
+  @Test
+  void shouldEvictKeysOfBlockingCachesOnBothNodes() {
+    User local = selectBlocking(node1, 1);
+    User remote = selectBlocking(node2, 1);
+    User other = selectBlocking(node2, 2);
+    Configuration configuration = node1.getConfiguration();
+    Cache cache = configuration.getCache(BlockingMapper.class.getName());
+    configuration.getCacheInvalidationBus().evict(cache, cacheKey(configuration, 1));
+    assertNotSame(local, selectBlocking(node1, 1));
+    assertNotSame(remote, selectBlocking(node2, 1));
+    assertSame(other, selectBlocking(node2, 2));
+  }
+
+  private <T> T select(SqlSessionFactory node, Function<Mapper, T> query) {
+    try (SqlSession sqlSession = node.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+  private User selectBlocking(SqlSessionFactory node, int id) {
+    try (SqlSession sqlSession = node.openSession()) {
+      return sqlSession.getMapper(BlockingMapper.class).getUser(id);
+    }
+  }
+
+  private CacheKey cacheKey(Configuration configuration, int id) {
+    MappedStatement ms = configuration.getMappedStatement(BlockingMapper.class.getName() + ".getUser");
+    return new SimpleExecutor(configuration, null).createCacheKey(ms, id, RowBounds.DEFAULT, ms.getBoundSql(id));
+  }
+
+}
@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_tags;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheTagsTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_tags/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_tags/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRemoveOnlyTheWrittenRowAndTheTable() {
+    User user1 = select(mapper -> mapper.getUser(1));
+    User user2 = select(mapper -> mapper.getUser(2));
+    List<User> users = select(Mapper::getUsers);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).rename(1, "Renamed");
+    }
+    assertSame(user2, select(mapper -> mapper.getUser(2)));
+    User renamed = select(mapper -> mapper.getUser(1));
+    assertNotSame(user1, renamed);
+    assertEquals("Renamed", renamed.getName());
+    assertNotSame(users, select(Mapper::getUsers));
+  }
+
+  @Test
+  void shouldRemoveAllRowsWhenNoRowIsGiven() {
+    User user2 = select(mapper -> mapper.getUser(2));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).renameAll("Renamed");
+    }
+    User renamed = select(mapper -> mapper.getUser(2));
+    assertNotSame(user2, renamed);
+    assertEquals("Renamed", renamed.getName());
+  }
+
+  @Test
+  void shouldNotReadStaleEntriesAfterWritingInTheSameSession() {
+    select(mapper -> mapper.getUser(1));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.rename(1, "Renamed");
+      assertEquals("Renamed", mapper.getUser(1).getName());
+      sqlSession.rollback();
+    }
+    assertEquals("User1", select(mapper -> mapper.getUser(1)).getName());
+  }
+
+  @Test
+  void shouldClearTheCacheWhenAnEntryHasNoTags() {
+    User user2 = select(mapper -> mapper.getUser(2));
+    select(mapper -> mapper.getNameWithoutTags(2));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).rename(1, "Renamed");
+    }
+    assertNotSame(user2, select(mapper -> mapper.getUser(2)));
+  }
+
+  private <T> T select(Function<Mapper, T> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+}
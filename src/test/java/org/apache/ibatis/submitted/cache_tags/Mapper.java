@@ -0,0 +1,48 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_tags;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@CacheNamespace(readWrite = false)
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  @Options(cacheTags = "users:id")
+  User getUser(int id);
+
+  @Select("select * from users order by id")
+  @Options(cacheTags = "users")
+  List<User> getUsers();
+
+  @Select("select name from users where id = #{id}")
+  String getNameWithoutTags(int id);
+
+  @Update("update users set name = #{name} where id = #{id}")
+  @Options(cacheTags = "users:id")
+  void rename(@Param("id") int id, @Param("name") String name);
+
+  @Update("update users set name = #{name}")
+  @Options(cacheTags = "users")
+  void renameAll(String name);
+
+}
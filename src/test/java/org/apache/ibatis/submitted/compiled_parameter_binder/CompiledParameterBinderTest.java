@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_parameter_binder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledParameterBinderTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_parameter_binder/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_parameter_binder/CreateDB.sql");
+  }
+
+  @Test
+  void shouldEnableCompiledParameterBinders() {
+    assertTrue(sqlSessionFactory.getConfiguration().isUseCompiledParameterBinders());
+  }
+
+  @Test
+  void shouldBindBeanPropertiesAndFields() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int id = 2; id < 4; id++) {
+        assertEquals(1, mapper.insertUser(new User(id, "User" + id, null)));
+      }
+      mapper.insertUser(new User(4, null, "four"));
+      assertEquals("User3", mapper.getName(3));
+      assertNull(mapper.getNickname(3));
+      assertNull(mapper.getName(4));
+      assertEquals("four", mapper.getNickname(4));
+    }
+  }
+
+  @Test
+  void shouldBindMapParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithParams(2, "User2");
+      assertEquals("User2", mapper.getName(2));
+    }
+  }
+
+  @Test
+  void shouldBindNestedProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNestedUser(new User(2, "User2", null), "two");
+      assertEquals("User2", mapper.getName(2));
+      assertEquals("two", mapper.getNickname(2));
+    }
+  }
+
+  @Test
+  void shouldBindAnotherParameterTypeToTheSameStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.insert("org.apache.ibatis.submitted.compiled_parameter_binder.Mapper.insertUser", new User(2, "User2", "two"));
+      Map<String, Object> user = new HashMap<>();
+      user.put("id", 3);
+      user.put("name", "User3");
+      sqlSession.insert("org.apache.ibatis.submitted.compiled_parameter_binder.Mapper.insertUser", user);
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("two", mapper.getNickname(2));
+      assertEquals("User3", mapper.getName(3));
+      assertNull(mapper.getNickname(3));
+    }
+  }
+
+  @Test
+  void shouldBindAdditionalParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User(2, "User2", null));
+      assertEquals(2, mapper.countUsers(Arrays.asList(1, 2, 3)));
+      assertEquals(1, mapper.countUsers(Arrays.asList(2)));
+    }
+  }
+
+  @Test
+  void shouldBindSimpleAndNullParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(1, mapper.countByName("User1"));
+      assertEquals(0, mapper.countByName(null));
+      assertEquals(1, mapper.countByName("User1"));
+    }
+  }
+
+  @Test
+  void shouldReuseTheBinderOfSqlWithTheSameShape() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    MappedStatement ms = configuration.getMappedStatement("org.apache.ibatis.submitted.compiled_parameter_binder.Mapper.countUsers");
+    Object firstParameter = ParamNameResolver.wrapToMapIfCollection(Arrays.asList(1, 2), null);
+    Object secondParameter = ParamNameResolver.wrapToMapIfCollection(Arrays.asList(3, 4), null);
+    BoundSql first = ms.getBoundSql(firstParameter);
+    BoundSql second = ms.getBoundSql(secondParameter);
+    assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+    assertSame(ms.getParameterBinders().getBinder(configuration, first.getParameterMappings(), firstParameter),
+        ms.getParameterBinders().getBinder(configuration, second.getParameterMappings(), secondParameter));
+  }
+
+  @Test
+  void shouldBindSqlOfManyShapesWithoutBinders() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Integer> ids = new ArrayList<>();
+      for (int i = 1; i <= 40; i++) {
+        ids.add(i);
+        assertEquals(1, mapper.countUsers(ids));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_parameter_binder;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Insert("insert into users (id, name, nickname) values (#{id}, #{name}, #{nickname})")
+  int insertUser(User user);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  int insertUserWithParams(@Param("id") Integer id, @Param("name") String name);
+
+  @Insert("insert into users (id, name, nickname) values (#{user.id}, #{user.name}, #{nickname})")
+  int insertNestedUser(@Param("user") User user, @Param("nickname") String nickname);
+
+  @Select("select name from users where id = #{id}")
+  String getName(Integer id);
+
+  @Select("select nickname from users where id = #{id}")
+  String getNickname(Integer id);
+
+  @Select({ "<script>",
+      "select count(*) from users where id in",
+      "<foreach item='id' collection='list' open='(' separator=',' close=')'>#{id}</foreach>",
+      "</script>" })
+  int countUsers(List<Integer> ids);
+
+  @Select("select count(*) from users where name = #{name}")
+  int countByName(String name);
+
+}
@@ -0,0 +1,126 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.CompiledRowMapperCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapper/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapper/CreateDB.sql");
+  }
+
+  @Test
+  void shouldEnableCompiledRowMappers() {
+    assertTrue(sqlSessionFactory.getConfiguration().isUseCompiledRowMappers());
+  }
+
+  @Test
+  void shouldAutoMapColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      assertEquals(1, user.getId());
+      assertEquals("User1", user.getName());
+      assertEquals(Integer.valueOf(30), user.getUserAge());
+      assertEquals("one", user.getNickname());
+    }
+  }
+
+  @Test
+  void shouldReuseCompiledRowMapperAcrossRowsAndSessions() {
+    for (int i = 0; i < 2; i++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+        assertEquals(3, users.size());
+        assertEquals("User2", users.get(1).getName());
+        assertNull(users.get(1).getUserAge());
+        assertEquals(3, users.get(2).getId());
+        assertNull(users.get(2).getName());
+      }
+    }
+  }
+
+  @Test
+  void shouldApplyExplicitResultMappings() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithResultMap();
+      assertEquals(3, users.size());
+      assertEquals("one", users.get(0).getName());
+      assertEquals(Integer.valueOf(30), users.get(0).getUserAge());
+      assertNull(users.get(0).getNickname());
+      assertNull(users.get(1).getName());
+    }
+  }
+
+  @Test
+  void shouldReturnNullForEmptyRow() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getUserName(1).getName());
+      assertNull(mapper.getUserName(3));
+    }
+  }
+
+  @Test
+  void shouldMapReflectivelyOnceTheResultMapHasTooManyColumnLayouts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 20; i++) {
+        assertEquals(1, mapper.getUserWithAlias(1, "alias" + i).getId());
+      }
+      User user = mapper.getUserWithAlias(1, "name");
+      assertEquals(1, user.getId());
+      assertEquals("User1", user.getName());
+      CompiledRowMapperCache rowMappers = sqlSession.getConfiguration()
+          .getMappedStatement(Mapper.class.getName() + ".getUserWithAlias").getResultMaps().get(0).getCompiledRowMappers();
+      assertEquals(16, rowMappers.getSize());
+      assertTrue(rowMappers.isFull());
+    }
+  }
+
+  @Test
+  void shouldFallBackForMapResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> user = sqlSession.getMapper(Mapper.class).getUserAsMap(1);
+      assertEquals(1, user.get("ID"));
+      assertEquals("User1", user.get("NAME"));
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  User getUser(int id);
+
+  @Select("select * from users order by id")
+  List<User> getUsers();
+
+  @Results({
+      @Result(column = "id", property = "id", id = true),
+      @Result(column = "nickname", property = "name"),
+      @Result(column = "user_age", property = "userAge")
+  })
+  @Select("select id, nickname, user_age from users order by id")
+  List<User> getUsersWithResultMap();
+
+  @Select("select name from users where id = #{id}")
+  User getUserName(int id);
+
+  @Select("select id, name as ${alias} from users where id = #{id}")
+  User getUserWithAlias(@Param("id") int id, @Param("alias") String alias);
+
+  @Select("select id, name from users where id = #{id}")
+  Map<String, Object> getUserAsMap(int id);
+
+}
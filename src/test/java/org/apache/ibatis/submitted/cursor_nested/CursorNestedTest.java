@@ -16,10 +16,16 @@
 package org.apache.ibatis.submitted.cursor_nested;
 
 import java.io.Reader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -105,4 +111,58 @@ class CursorNestedTest {
       Assertions.assertTrue(usersCursor.isConsumed());
     }
   }
+
+  @Test
+  void shouldAllowCursorOnUnorderedNestedResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<String> names = new ArrayList<>();
+      mapper.getAllUsersUnordered().forEach(user -> names.add(user.getName()));
+      Assertions.assertEquals(4, names.size());
+      Assertions.assertEquals("User1", names.get(0));
+    }
+  }
+
+  @Test
+  void shouldReleaseNestedRowKeysWhileReadingOrderedCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> unordered = sqlSession.selectCursor("getAllUsersUnordered");
+      unordered.forEach(user -> { });
+      int retainedWhenUnordered = countNestedResultObjects(unordered);
+
+      Cursor<User> ordered = sqlSession.selectCursor("getAllUsers");
+      int maxRetainedWhenOrdered = 0;
+      for (User user : ordered) {
+        Assertions.assertNotNull(user);
+        maxRetainedWhenOrdered = Math.max(maxRetainedWhenOrdered, countNestedResultObjects(ordered));
+      }
+      Assertions.assertTrue(maxRetainedWhenOrdered < retainedWhenUnordered);
+      Assertions.assertEquals(0, countNestedResultObjects(ordered));
+    }
+  }
+
+  private int countNestedResultObjects(Cursor<?> cursor) throws Exception {
+    Field handlerField = DefaultCursor.class.getDeclaredField("resultSetHandler");
+    handlerField.setAccessible(true);
+    Object handler = handlerField.get(cursor);
+    Field nestedResultObjectsField = DefaultResultSetHandler.class.getDeclaredField("nestedResultObjects");
+    nestedResultObjectsField.setAccessible(true);
+    return ((Map<?, ?>) nestedResultObjectsField.get(handler)).size();
+  }
+
+  @Test
+  void shouldStreamCompletedUsersToResultHandler() {
+    List<String> handled = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.select("getAllUsers", context -> {
+        User user = (User) context.getResultObject();
+        handled.add(user.getName() + ":" + user.getGroups().size() + ":" + user.getRoles().size());
+      });
+    }
+    Assertions.assertEquals(4, handled.size());
+    Assertions.assertEquals("User1:2:3", handled.get(0));
+    Assertions.assertEquals("User2:1:3", handled.get(1));
+    Assertions.assertEquals("User3:3:1", handled.get(2));
+    Assertions.assertEquals("User4:2:2", handled.get(3));
+  }
 }
@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.generated_mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GeneratedMapperTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/generated_mapper/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/generated_mapper/CreateDB.sql");
+  }
+
+  @Test
+  void shouldUseGeneratedImplementation() {
+    assertTrue(sqlSessionFactory.getConfiguration().isUseGeneratedMappers());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertFalse(Proxy.isProxyClass(mapper.getClass()));
+      assertSame(mapper.getClass(), sqlSession.getMapper(Mapper.class).getClass());
+    }
+  }
+
+  @Test
+  void shouldUseProxyWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setUseGeneratedMappers(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertTrue(Proxy.isProxyClass(mapper.getClass()));
+      assertEquals("User1", mapper.getById(1).getName());
+    }
+  }
+
+  @Test
+  void shouldSelect() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getById(1).getName());
+      assertNull(mapper.getById(3));
+      assertEquals(2, mapper.getUsers().size());
+      assertEquals("User2", mapper.getUserArray()[1].getName());
+      assertEquals(1, mapper.countUsers("User%", 2));
+      List<User> users = new ArrayList<>();
+      mapper.collectUsers(context -> users.add(context.getResultObject()));
+      assertEquals(2, users.size());
+    }
+  }
+
+  @Test
+  void shouldSelectThroughGenericAndDefaultMethods() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      BaseMapper<User, Integer> baseMapper = mapper;
+      assertEquals("User2", baseMapper.getById(2).getName());
+      assertEquals("User1", mapper.getName(1));
+    }
+  }
+
+  @Test
+  void shouldUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      assertEquals(1, mapper.insertUser(user));
+      assertTrue(mapper.renameUser(3, "user3"));
+      assertFalse(mapper.renameUser(4, "user4"));
+      mapper.upperCaseNames();
+      assertEquals("USER3", mapper.getById(3).getName());
+    }
+  }
+
+  @Test
+  void shouldCallTheSessionWithoutTheMapperMethods() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Field methods = mapper.getClass().getDeclaredField("methods");
+      methods.setAccessible(true);
+      methods.set(mapper, null);
+      assertEquals("User1", mapper.getById(1).getName());
+      assertEquals(2, mapper.getUsers().size());
+      assertEquals(2, mapper.getUsersByIds(Arrays.asList(1, 2)).size());
+      assertEquals(1, mapper.countUsers("User%", 2));
+      assertEquals(2, mapper.getIdByName("User2"));
+      assertTrue(mapper.renameUser(2, "user2"));
+      assertEquals(Long.valueOf(1), mapper.deleteUser(2));
+      mapper.upperCaseNames();
+      assertEquals("USER1", mapper.getName(1));
+    }
+  }
+
+  @Test
+  void shouldFailWhenASelectReturnsNullForAPrimitive() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      BindingException e = assertThrows(BindingException.class, () -> mapper.getIdByName("User3"));
+      assertTrue(e.getMessage().contains("attempted to return null from a method with a primitive return type (int)"));
+    }
+  }
+
+  @Test
+  void shouldFailOnlyWhenAnUnmappedMethodIsCalled() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      BindingException e = assertThrows(BindingException.class, mapper::notMapped);
+      assertTrue(e.getMessage().contains("Invalid bound statement (not found)"));
+      assertEquals("User1", mapper.getById(1).getName());
+    }
+  }
+
+}
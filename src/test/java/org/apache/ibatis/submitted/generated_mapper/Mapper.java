@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.generated_mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.ResultHandler;
+
+public interface Mapper extends BaseMapper<User, Integer> {
+
+  @Override
+  @Select("select * from users where id = #{id}")
+  User getById(Integer id);
+
+  @Select("select * from users order by id")
+  List<User> getUsers();
+
+  @Select("select * from users order by id")
+  User[] getUserArray();
+
+  @ResultType(User.class)
+  @Select("select * from users order by id")
+  void collectUsers(ResultHandler<User> handler);
+
+  @Select("select count(*) from users where name like #{prefix} and id >= #{minId}")
+  int countUsers(@Param("prefix") String prefix, @Param("minId") int minId);
+
+  @Select("select id from users where name = #{name}")
+  int getIdByName(String name);
+
+  @Select("<script>select * from users where id in"
+      + "<foreach item='id' collection='list' open='(' separator=',' close=')'>#{id}</foreach> order by id</script>")
+  List<User> getUsersByIds(List<Integer> ids);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  int insertUser(User user);
+
+  @Update("update users set name = #{name} where id = #{id}")
+  boolean renameUser(@Param("id") int id, @Param("name") String name);
+
+  @Delete("delete from users where id = #{id}")
+  Long deleteUser(int id);
+
+  @Update("update users set name = upper(name)")
+  void upperCaseNames();
+
+  User notMapped();
+
+  default String getName(Integer id) {
+    User user = getById(id);
+    return user == null ? null : user.getName();
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.lazy_error_context;
+
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.FetchType;
+
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  @Results({
+      @Result(property = "id", column = "id", id = true),
+      @Result(property = "name", column = "name"),
+      @Result(property = "friend", column = "friend_id", one = @One(select = "getFriend", fetchType = FetchType.LAZY))
+  })
+  User getUser(int id);
+
+  @Select("select * from missing_friends where id = #{id}")
+  User getFriend(int id);
+
+  @Select("select * from missing_users")
+  User getMissing();
+
+}
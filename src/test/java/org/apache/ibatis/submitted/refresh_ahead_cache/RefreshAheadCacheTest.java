@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.refresh_ahead_cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RefreshAheadCacheTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/refresh_ahead_cache/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/refresh_ahead_cache/CreateDB.sql");
+  }
+
+  @Test
+  void shouldServeTheCachedValueUntilTheRefreshCompletes() throws Exception {
+    assertEquals("User1", getName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).renameWithoutFlushing(1, "Renamed");
+    }
+    Thread.sleep(200);
+    // read within the refresh-ahead window, which reloads the entry in the background
+    assertEquals("User1", getName());
+    long deadline = System.currentTimeMillis() + 5000;
+    String name = getName();
+    while (!"Renamed".equals(name) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      name = getName();
+    }
+    assertEquals("Renamed", name);
+  }
+
+  @Test
+  void shouldReloadWithTheParametersOfTheCachedQuery() throws Exception {
+    User user = new User(1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals("User1", sqlSession.getMapper(Mapper.class).getNameOfUser(user));
+    }
+    // the caller reuses its parameter object, which must not change what the cached entry reloads
+    user.setId(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(Mapper.class).renameWithoutFlushing(1, "Renamed");
+    }
+    Thread.sleep(200);
+    assertEquals("User1", getNameOfUser1());
+    long deadline = System.currentTimeMillis() + 5000;
+    String name = getNameOfUser1();
+    while ("User1".equals(name) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      name = getNameOfUser1();
+    }
+    assertEquals("Renamed", name);
+  }
+
+  private String getNameOfUser1() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getNameOfUser(new User(1));
+    }
+  }
+
+  private String getName() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getName(1);
+    }
+  }
+
+}